@@ -0,0 +1,96 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tạo tải: mỗi client là một virtual thread gửi GET liên tục (request sau chờ response trước) tới url trong thời gian
+ * đo, sau khi đã chạy nóng. In một dòng kết quả: số request, throughput, p50/p95/p99/max (ms), số lỗi.
+ * <pre>
+ * java scripts/load/LoadCompare.java &lt;label&gt; &lt;url&gt; &lt;clients&gt; &lt;warmup-seconds&gt; &lt;seconds&gt;
+ * </pre>
+ * Cần Java 21+ và ulimit -n lớn hơn số client.
+ */
+public class LoadCompare {
+
+    private static final int MAX_MS = 60_000;
+
+    public static void main(String[] args) throws Exception {
+        String label = args[0];
+        URI uri = URI.create(args[1]);
+        int clients = Integer.parseInt(args[2]);
+        long warmupMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(args[3]));
+        long measureMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(args[4]));
+
+        AtomicLongArray histogram = new AtomicLongArray(MAX_MS + 1);
+        AtomicLong ok = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+
+        long start = System.currentTimeMillis();
+        long measureFrom = start + warmupMillis;
+        long measureTo = measureFrom + measureMillis;
+        CountDownLatch done = new CountDownLatch(clients);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    try {
+                        while (System.currentTimeMillis() < measureTo) {
+                            long sent = System.nanoTime();
+                            boolean success;
+                            try {
+                                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                                success = status >= 200 && status < 300;
+                            } catch (Exception e) {
+                                success = false;
+                            }
+                            long now = System.currentTimeMillis();
+                            if (now < measureFrom || now >= measureTo) {
+                                continue;
+                            }
+                            if (success) {
+                                ok.incrementAndGet();
+                                histogram.incrementAndGet((int) Math.min(MAX_MS, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sent)));
+                            } else {
+                                failed.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+
+        System.out.printf(Locale.ROOT, "%-10s clients=%d requests=%d throughput=%.1f/s p50=%dms p95=%dms p99=%dms max=%dms errors=%d%n",
+                label, clients, ok.get(), ok.get() * 1000.0 / measureMillis,
+                percentile(histogram, ok.get(), 0.50), percentile(histogram, ok.get(), 0.95),
+                percentile(histogram, ok.get(), 0.99), percentile(histogram, ok.get(), 1.0), failed.get());
+    }
+
+    private static int percentile(AtomicLongArray histogram, long total, double p) {
+        long rank = Math.max(1, (long) Math.ceil(total * p));
+        long seen = 0;
+        for (int ms = 0; ms <= MAX_MS; ms++) {
+            seen += histogram.get(ms);
+            if (seen >= rank) {
+                return ms;
+            }
+        }
+        return MAX_MS;
+    }
+}
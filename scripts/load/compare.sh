@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# So sánh platform thread (Tomcat mặc định 200 luồng) và virtual thread (application.virtual-threads.enabled=true)
+# dưới cùng một tải: CLIENTS client đồng thời gọi URL_PATH. Ứng dụng dùng DB trong spring.datasource
+# (ghi đè bằng SPRING_DATASOURCE_URL / SPRING_DATASOURCE_USERNAME / SPRING_DATASOURCE_PASSWORD).
+#
+#   CLIENTS=2000 DURATION=60 URL_PATH=/api/products/1 scripts/load/compare.sh
+#
+# Cần Java 21+. Log ứng dụng của mỗi lần chạy nằm trong target/load-<mode>.log.
+set -euo pipefail
+
+cd "$(dirname "$0")/../.."
+
+CLIENTS=${CLIENTS:-2000}
+WARMUP=${WARMUP:-15}
+DURATION=${DURATION:-60}
+PORT=${PORT:-8080}
+URL_PATH=${URL_PATH:-/api/products/1}
+URL="http://127.0.0.1:${PORT}${URL_PATH}"
+export JWT_EXPIRATION=${JWT_EXPIRATION:-86400000}
+
+ulimit -n 65536 2>/dev/null || echo "không tăng được ulimit -n, $CLIENTS client có thể hết file descriptor" >&2
+
+./mvnw -q -B -DskipTests package
+JAR=$(ls target/*.jar | grep -v '\.original$' | head -1)
+
+run() {
+    local mode=$1 label=$2
+    java -jar "$JAR" --server.port="$PORT" --spring.jpa.show-sql=false \
+        --application.virtual-threads.enabled="$mode" > "target/load-$mode.log" 2>&1 &
+    local pid=$!
+    trap 'kill $pid 2>/dev/null || true' EXIT
+    for _ in $(seq 1 120); do
+        if curl -s -o /dev/null "$URL"; then
+            break
+        fi
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "ứng dụng không khởi động được, xem target/load-$mode.log" >&2
+            exit 1
+        fi
+        sleep 1
+    done
+    java scripts/load/LoadCompare.java "$label" "$URL" "$CLIENTS" "$WARMUP" "$DURATION"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+run false platform
+run true virtual
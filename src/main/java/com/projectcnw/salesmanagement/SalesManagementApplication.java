@@ -6,7 +6,7 @@ import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfi
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(exclude = {SecurityAutoConfiguration.class })
-//@EnableScheduling
+@EnableScheduling
 public class SalesManagementApplication {
 
 	public static void main(String[] args) {
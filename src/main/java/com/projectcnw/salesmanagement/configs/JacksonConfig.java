@@ -0,0 +1,56 @@
+package com.projectcnw.salesmanagement.configs;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import org.hibernate.Hibernate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Các quan hệ của entity được load lazy; mỗi API tự quyết định load những gì (entity graph, khởi tạo trong
+ * transaction). Khi trả entity ra JSON, quan hệ chưa được load sẽ bị bỏ qua thay vì gây
+ * LazyInitializationException (open-in-view đang tắt) hoặc kéo thêm truy vấn.
+ * <p>
+ * Đây là thay đổi định dạng API: quan hệ chưa load bị bỏ hẳn khỏi JSON (không có key), khác với quan hệ đã load
+ * nhưng rỗng ([] hoặc null). Client phải coi các key này là tùy chọn; xem mục "Định dạng JSON của entity" trong README.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Module lazyAssociationModule() {
+        SimpleModule module = new SimpleModule("LazyAssociationModule");
+        module.setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc,
+                                                             List<BeanPropertyWriter> beanProperties) {
+                beanProperties.replaceAll(InitializedPropertyWriter::new);
+                return beanProperties;
+            }
+        });
+        return module;
+    }
+
+    private static class InitializedPropertyWriter extends BeanPropertyWriter {
+
+        private InitializedPropertyWriter(BeanPropertyWriter base) {
+            super(base);
+        }
+
+        @Override
+        public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+            if (!Hibernate.isInitialized(get(bean))) {
+                return;
+            }
+            super.serializeAsField(bean, gen, prov);
+        }
+    }
+}
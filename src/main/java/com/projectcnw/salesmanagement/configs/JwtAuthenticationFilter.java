@@ -7,6 +7,8 @@ import com.projectcnw.salesmanagement.models.ResponseObject;
 import com.projectcnw.salesmanagement.repositories.TokenRepository;
 import com.projectcnw.salesmanagement.services.auth.CustomerUserDetailsService;
 import com.projectcnw.salesmanagement.services.auth.JwtService;
+import com.projectcnw.salesmanagement.services.auth.JwtTokenCache;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -17,12 +19,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
 
 @Component
 @RequiredArgsConstructor
@@ -31,6 +36,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final CustomerUserDetailsService userDetailsService;
     private final TokenRepository tokenRepository;
+    private final JwtTokenCache jwtTokenCache;
 
     @Override
     protected void doFilterInternal(
@@ -52,25 +58,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         jwt = authHeader.substring(7);
         try {
-            userEmail = jwtService.extractUsername(jwt);
-            log.info("userEmail: {}", userEmail);
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserEntity userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-                var isTokenValid = tokenRepository.findByToken(jwt)
-                        .map(t -> !t.isExpired() && !t.isRevoked())
-                        .orElse(false);
-                if (jwtService.isTokenValid(jwt, userDetails) && isTokenValid) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(
-                            new WebAuthenticationDetailsSource().buildDetails(request)
-                    );
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
+            JwtTokenCache.CachedAuthentication cached = jwtTokenCache.get(jwt);
+            if (cached != null && cached.getPrincipal() instanceof UserEntity) {
+                if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                    setAuthentication(request, cached.getPrincipal(), cached.getAuthorities());
+                }
+            } else {
+                Claims claims = jwtService.extractAllClaims(jwt);
+                userEmail = claims.getSubject();
+                log.info("userEmail: {}", userEmail);
+                if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    UserEntity userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+                    var isTokenValid = tokenRepository.findByToken(jwt)
+                            .map(t -> !t.isExpired() && !t.isRevoked())
+                            .orElse(false);
+                    if (jwtService.isTokenValid(claims, userDetails) && isTokenValid) {
+                        setAuthentication(request, userDetails, userDetails.getAuthorities());
+                        jwtTokenCache.put(jwt, userDetails, claims.getExpiration());
 
-                    log.info("Authorities: {}", userDetails.getAuthorities());
+                        log.info("Authorities: {}", userDetails.getAuthorities());
+                    }
                 }
             }
         } catch (ExpiredJwtException expiredJwtException) {
@@ -85,6 +92,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         log.info("End do filter once per request, {}", request.getRequestURI());
         filterChain.doFilter(request, response);
     }
+    private void setAuthentication(HttpServletRequest request, UserDetails principal, Collection<? extends GrantedAuthority> authorities) {
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                authorities
+        );
+        authToken.setDetails(
+                new WebAuthenticationDetailsSource().buildDetails(request)
+        );
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+
     private String convertObjectToJson(Object object) throws JsonProcessingException {
         if (object == null) {
             return null;
@@ -6,6 +6,8 @@ import com.projectcnw.salesmanagement.models.Customer;
 import com.projectcnw.salesmanagement.models.ResponseObject;
 import com.projectcnw.salesmanagement.services.CustomerServices.CustomerAuth.CustomerDetailService;
 import com.projectcnw.salesmanagement.services.auth.JwtService;
+import com.projectcnw.salesmanagement.services.auth.JwtTokenCache;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -17,12 +19,15 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
 
 @Component
 @RequiredArgsConstructor
@@ -34,6 +39,8 @@ public class CustomerJwtAuthFilter extends OncePerRequestFilter {
 
     private final CustomerDetailService userDetailsService;
 
+    private final JwtTokenCache jwtTokenCache;
+
     @Override
     protected void doFilterInternal(
             @NonNull HttpServletRequest request,
@@ -52,21 +59,22 @@ public class CustomerJwtAuthFilter extends OncePerRequestFilter {
         }
         jwt = authHeader.substring(7);
         try {
-            phone = jwtService.extractUsername(jwt);
-            if (phone != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                Customer userDetails = this.userDetailsService.loadUserByUsername(phone);
-                if (jwtService.isTokenValid(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(
-                            new WebAuthenticationDetailsSource().buildDetails(request)
-                    );
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
+            JwtTokenCache.CachedAuthentication cached = jwtTokenCache.get(jwt);
+            if (cached != null && cached.getPrincipal() instanceof Customer) {
+                if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                    setAuthentication(request, cached.getPrincipal(), cached.getAuthorities());
+                }
+            } else {
+                Claims claims = jwtService.extractAllClaims(jwt);
+                phone = claims.getSubject();
+                if (phone != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    Customer userDetails = this.userDetailsService.loadUserByUsername(phone);
+                    if (jwtService.isTokenValid(claims, userDetails)) {
+                        setAuthentication(request, userDetails, userDetails.getAuthorities());
+                        jwtTokenCache.put(jwt, userDetails, claims.getExpiration());
 
-                    log.info("Authorities: {}", userDetails.getAuthorities());
+                        log.info("Authorities: {}", userDetails.getAuthorities());
+                    }
                 }
             }
         } catch (ExpiredJwtException expiredJwtException) {
@@ -80,6 +88,18 @@ public class CustomerJwtAuthFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private void setAuthentication(HttpServletRequest request, UserDetails principal, Collection<? extends GrantedAuthority> authorities) {
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                authorities
+        );
+        authToken.setDetails(
+                new WebAuthenticationDetailsSource().buildDetails(request)
+        );
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+
     private String convertObjectToJson(Object object) throws JsonProcessingException {
         if (object == null) {
             return null;
@@ -0,0 +1,114 @@
+package com.projectcnw.salesmanagement.configs.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Chặn trước pool Hikari một semaphore công bằng có số permit bằng maximumPoolSize: khi request chạy trên virtual thread
+ * (không còn giới hạn số luồng của Tomcat), hàng nghìn luồng chờ connection xếp hàng FIFO ở đây thay vì cùng tranh nhau
+ * trong pool. Permit được trả khi connection đóng. Thời gian chờ permit và chờ Hikari cộng lại không vượt quá
+ * connection-timeout: Hikari chỉ được chờ phần còn lại (hết thời gian thì vẫn lấy được connection đang rảnh), ngoại trừ
+ * lần lấy connection đầu tiên, lúc pool Hikari chưa khởi tạo và dùng nguyên connection-timeout của nó.
+ */
+public class ConnectionLimitingDataSource extends DelegatingDataSource implements Closeable {
+
+    private final HikariDataSource hikari;
+
+    private final Semaphore permits;
+
+    private final long waitTimeout;
+
+    private final String poolName;
+
+    public ConnectionLimitingDataSource(HikariDataSource target) {
+        super(target);
+        this.hikari = target;
+        this.permits = new Semaphore(target.getMaximumPoolSize(), true);
+        this.waitTimeout = target.getConnectionTimeout();
+        this.poolName = target.getPoolName();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long remaining = acquire();
+        try {
+            return limited(hikari.getHikariPoolMXBean() instanceof HikariPool pool ? pool.getConnection(remaining) : super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return limited(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (getTargetDataSource() instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    // trả về số ms còn lại để chờ Hikari
+    private long acquire() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(waitTimeout, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(poolName + " - Connection is not available, request timed out after "
+                        + waitTimeout + "ms (" + permits.getQueueLength() + " waiting)");
+            }
+            return Math.max(0, waitTimeout - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException(poolName + " - Interrupted while waiting for a connection", e);
+        }
+    }
+
+    // trả permit đúng một lần khi connection được đóng
+    private Connection limited(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package com.projectcnw.salesmanagement.configs.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chỉ bật khi khai báo application.datasource.replica-urls; khi đó DataSource mặc định của Spring Boot
+ * được thay bằng primary (cấu hình spring.datasource.*) cùng các replica, định tuyến bởi {@link ReplicaRoutingDataSource}.
+ */
+@Configuration
+@ConditionalOnExpression("'${application.datasource.replica-urls:}' != ''")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties, Environment environment,
+                                                             @Value("${application.datasource.replica-urls}") List<String> replicaUrls,
+                                                             @Value("${application.datasource.replica-username:${spring.datasource.username:}}") String replicaUsername,
+                                                             @Value("${application.datasource.replica-password:${spring.datasource.password:}}") String replicaPassword,
+                                                             @Value("${application.datasource.replica-pool-size:10}") int replicaPoolSize,
+                                                             @Value("${application.datasource.replica-max-lag:5}") long maxLagSeconds,
+                                                             @Value("${application.virtual-threads.enabled:false}") boolean virtualThreads) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(replicaUrls.get(i).trim());
+            replica.setUsername(replicaUsername);
+            replica.setPassword(replicaPassword);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            // replica chưa chạy không làm ứng dụng dừng khởi động, chỉ bị đánh dấu không khoẻ
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(virtualThreads ? new ConnectionLimitingDataSource(replica) : replica);
+        }
+        // các pool này không phải bean nên không đi qua connectionLimiterPostProcessor
+        DataSource primaryTarget = virtualThreads ? new ConnectionLimitingDataSource(primary) : primary;
+        return new ReplicaRoutingDataSource(primaryTarget, replicas, maxLagSeconds);
+    }
+
+    // chạy trước security filter, vốn đã đọc DB để nạp user
+    @Bean
+    public FilterRegistrationBean<ReplicaPinFilter> replicaPinFilter(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        FilterRegistrationBean<ReplicaPinFilter> registration = new FilterRegistrationBean<>(new ReplicaPinFilter(replicaRoutingDataSource));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
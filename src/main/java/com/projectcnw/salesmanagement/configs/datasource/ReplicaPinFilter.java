@@ -0,0 +1,74 @@
+package com.projectcnw.salesmanagement.configs.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Gắn pin đọc-sau-ghi của client vào request. Thời hạn pin (epoch ms) đi kèm client qua cookie {@value #COOKIE}
+ * hoặc header {@value #HEADER} cho client không dùng cookie, nên request tiếp theo tới bất kỳ instance nào cũng đọc
+ * từ primary cho tới khi hết hạn. Pin được gỡ khỏi luồng khi request kết thúc, luồng tiếp theo không thừa hưởng.
+ * Giao dịch ghi chạy sau khi response đã commit (ví dụ trong StreamingResponseBody) không gửi được pin về client.
+ */
+@RequiredArgsConstructor
+public class ReplicaPinFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "primary-until";
+
+    static final String HEADER = "X-Primary-Until";
+
+    private final ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ReplicaRoutingDataSource.bind(new ReplicaRoutingDataSource.ClientPin(readPin(request), until -> writePin(response, until)));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.unbind();
+        }
+    }
+
+    // client không thể tự kéo dài pin quá max-lag giây
+    private long readPin(HttpServletRequest request) {
+        long until = parse(request.getHeader(HEADER));
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (COOKIE.equals(cookie.getName())) {
+                    until = Math.max(until, parse(cookie.getValue()));
+                }
+            }
+        }
+        return Math.min(until, System.currentTimeMillis() + replicaRoutingDataSource.getMaxLagSeconds() * 1000);
+    }
+
+    private void writePin(HttpServletResponse response, long until) {
+        if (response.isCommitted()) {
+            return;
+        }
+        Cookie cookie = new Cookie(COOKIE, Long.toString(until));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) replicaRoutingDataSource.getMaxLagSeconds());
+        response.addCookie(cookie);
+        response.setHeader(HEADER, Long.toString(until));
+    }
+
+    private static long parse(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.projectcnw.salesmanagement.configs.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Chọn connection theo giao dịch: giao dịch {@code @Transactional(readOnly = true)} đi tới một replica khoẻ
+ * (luân phiên), mọi thứ khác đi tới primary. Replica bị loại khi không kết nối được hoặc trễ quá max-lag giây;
+ * không còn replica nào thì đọc từ primary. Sau một giao dịch ghi, client đó đọc từ primary trong max-lag giây
+ * để thấy ngay dữ liệu mình vừa ghi: {@link ReplicaPinFilter} gắn {@link ClientPin} của client vào luồng trong lúc
+ * xử lý request và lưu thời hạn vào cookie, nên pin theo client qua mọi request và mọi instance, không theo luồng.
+ * Phải được bọc trong LazyConnectionDataSourceProxy để cờ read-only đã được gán khi connection thật được lấy.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    static final String PRIMARY = "primary";
+
+    // pin của client có request đang chạy trên luồng này; ngoài request (job, scheduler) không có pin
+    private static final ThreadLocal<ClientPin> CLIENT_PIN = new ThreadLocal<>();
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final long maxLagSeconds;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources, long maxLagSeconds) {
+        this.primary = primary;
+        this.maxLagSeconds = maxLagSeconds;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            Replica replica = new Replica("replica-" + i, replicaDataSources.get(i));
+            replicas.add(replica);
+            targets.put(replica.name, replica.dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    static void bind(ClientPin pin) {
+        CLIENT_PIN.set(pin);
+    }
+
+    static void unbind() {
+        CLIENT_PIN.remove();
+    }
+
+    public long getMaxLagSeconds() {
+        return maxLagSeconds;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        checkReplicas();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            ClientPin pin = CLIENT_PIN.get();
+            if (pin != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                pin.pinUntil(System.currentTimeMillis() + maxLagSeconds * 1000);
+            }
+            return PRIMARY;
+        }
+        ClientPin pin = CLIENT_PIN.get();
+        if (pin != null && pin.isPinned()) {
+            return PRIMARY;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica.name;
+            }
+        }
+        return PRIMARY;
+    }
+
+    @Scheduled(fixedDelayString = "${application.datasource.replica-check-interval:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try {
+                Long lag = replica.lagSeconds();
+                healthy = lag != null && lag <= maxLagSeconds;
+                if (!healthy && replica.healthy) {
+                    log.warn("Replica {} is {} s behind the primary, reads go to the primary", replica.name, lag);
+                }
+            } catch (SQLException | RuntimeException e) {
+                healthy = false;
+                if (replica.healthy) {
+                    log.warn("Replica {} is unavailable, reads go to the primary", replica.name, e);
+                }
+            }
+            if (healthy && !replica.healthy) {
+                log.info("Replica {} is serving reads", replica.name);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            closeQuietly(replica.dataSource);
+        }
+        closeQuietly(primary);
+    }
+
+    private static void closeQuietly(DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * Thời điểm client được đọc lại từ replica. onPinned được gọi khi client vừa ghi để lưu thời hạn mới.
+     */
+    static class ClientPin {
+        private volatile long pinnedUntil;
+        private final LongConsumer onPinned;
+
+        ClientPin(long pinnedUntil, LongConsumer onPinned) {
+            this.pinnedUntil = pinnedUntil;
+            this.onPinned = onPinned;
+        }
+
+        boolean isPinned() {
+            return pinnedUntil > System.currentTimeMillis();
+        }
+
+        long getPinnedUntil() {
+            return pinnedUntil;
+        }
+
+        private void pinUntil(long until) {
+            pinnedUntil = until;
+            onPinned.accept(until);
+        }
+    }
+
+    private static class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        // SHOW REPLICA STATUS cần MySQL 8.0.22+, bản cũ hơn dùng SHOW SLAVE STATUS
+        private volatile boolean legacyStatus;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * Số giây trễ so với primary; 0 nếu không phải replica (chạy thử với hai instance độc lập),
+         * null nếu luồng replication đã dừng.
+         */
+        private Long lagSeconds() throws SQLException {
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                if (!legacyStatus) {
+                    try (ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+                        return readLag(rs, "Seconds_Behind_Source");
+                    } catch (SQLException e) {
+                        legacyStatus = true;
+                    }
+                }
+                try (ResultSet rs = statement.executeQuery("SHOW SLAVE STATUS")) {
+                    return readLag(rs, "Seconds_Behind_Master");
+                }
+            }
+        }
+
+        private static Long readLag(ResultSet rs, String column) throws SQLException {
+            if (!rs.next()) {
+                return 0L;
+            }
+            long lag = rs.getLong(column);
+            return rs.wasNull() ? null : lag;
+        }
+    }
+}
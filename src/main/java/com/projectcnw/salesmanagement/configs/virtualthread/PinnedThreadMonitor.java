@@ -0,0 +1,54 @@
+package com.projectcnw.salesmanagement.configs.virtualthread;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Theo dõi sự kiện JFR jdk.VirtualThreadPinned: virtual thread bị ghim vào carrier thread khi block
+ * trong synchronized (ví dụ bên trong MySQL driver) lâu hơn ngưỡng. Mỗi vị trí được log lần đầu
+ * và sau đó cứ mỗi LOG_EVERY lần, kèm tổng số lần bị ghim.
+ */
+@Slf4j
+public class PinnedThreadMonitor implements AutoCloseable {
+
+    private static final int LOG_EVERY = 100;
+
+    private static final int STACK_DEPTH = 8;
+
+    private final RecordingStream stream = new RecordingStream();
+
+    private final Map<String, AtomicLong> countByFrame = new ConcurrentHashMap<>();
+
+    public PinnedThreadMonitor(Duration threshold) {
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        stream.startAsync();
+        log.info("Watching virtual threads pinned longer than {} ms", threshold.toMillis());
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        String stack = frames.stream()
+                .limit(STACK_DEPTH)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                .collect(Collectors.joining(" <- "));
+        long count = countByFrame.computeIfAbsent(frames.isEmpty() ? "" : stack, key -> new AtomicLong()).incrementAndGet();
+        if (count == 1 || count % LOG_EVERY == 0) {
+            log.warn("Virtual thread pinned for {} ms ({} times here): {}", event.getDuration().toMillis(), count, stack);
+        }
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+}
@@ -0,0 +1,88 @@
+package com.projectcnw.salesmanagement.configs.virtualthread;
+
+import com.projectcnw.salesmanagement.configs.datasource.ConnectionLimitingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Chế độ virtual thread (application.virtual-threads.enabled): request của Tomcat, các job @Scheduled và
+ * StreamingResponseBody chạy trên virtual thread. Pool Hikari được chặn trước bởi {@link ConnectionLimitingDataSource}
+ * vì số request đồng thời không còn bị giới hạn bởi số luồng Tomcat.
+ * Cần Java 21+ (hoặc Java 19/20 với --enable-preview); nếu không có virtual thread thì giữ nguyên luồng thường.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.virtual-threads", name = "enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+
+    public VirtualThreadConfig(@Value("${application.virtual-threads.trace-pinned:}") String tracePinned) {
+        // phải gán trước khi virtual thread đầu tiên được tạo; "short" hoặc "full", in stack ra stdout
+        if (!tracePinned.isBlank() && System.getProperty("jdk.tracePinnedThreads") == null) {
+            System.setProperty("jdk.tracePinnedThreads", tracePinned);
+        }
+    }
+
+    @Bean
+    public static BeanPostProcessor connectionLimiterPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof HikariDataSource hikari ? new ConnectionLimitingDataSource(hikari) : bean;
+            }
+        };
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = VirtualThreads.newExecutor("http-vt-");
+        return protocolHandler -> {
+            if (executor != null) {
+                protocolHandler.setExecutor(executor);
+                log.info("Tomcat requests run on virtual threads");
+            }
+        };
+    }
+
+    // thay cho applicationTaskExecutor của Spring Boot, dùng cho StreamingResponseBody và request async của MVC
+    @Bean(name = "applicationTaskExecutor")
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        ExecutorService executor = VirtualThreads.newExecutor("task-vt-");
+        return executor != null ? new TaskExecutorAdapter(executor) : new SimpleAsyncTaskExecutor("task-");
+    }
+
+    // luồng lập lịch cũng là virtual thread nên job @Scheduled chờ DB không giữ luồng hệ điều hành
+    @Bean
+    public TaskScheduler taskScheduler(@Value("${application.virtual-threads.scheduler-pool-size:4}") int poolSize) {
+        ThreadFactory factory = VirtualThreads.factory("scheduling-vt-");
+        if (factory != null) {
+            return new ConcurrentTaskScheduler(new ScheduledThreadPoolExecutor(poolSize, factory));
+        }
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduling-");
+        return scheduler;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "application.virtual-threads", name = "pinned-threshold")
+    public PinnedThreadMonitor pinnedThreadMonitor(@Value("${application.virtual-threads.pinned-threshold}") long thresholdMillis) {
+        return new PinnedThreadMonitor(Duration.ofMillis(thresholdMillis));
+    }
+}
@@ -0,0 +1,47 @@
+package com.projectcnw.salesmanagement.configs.virtualthread;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Tạo virtual thread qua reflection: dự án biên dịch với Java 19, nơi Thread.ofVirtual() còn là preview API.
+ * Trên Java 21+ (hoặc 19/20 chạy với --enable-preview) trả về factory / executor, nếu không thì trả về null.
+ */
+@Slf4j
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static ThreadFactory factory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (InvocationTargetException e) {
+            log.warn("Virtual threads are not available: {}", e.getCause().toString());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Virtual threads are not available: {}", e.toString());
+        }
+        return null;
+    }
+
+    // mỗi tác vụ một virtual thread mới
+    public static ExecutorService newExecutor(String prefix) {
+        ThreadFactory factory = factory(prefix);
+        if (factory == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual thread executor is not available: {}", e.toString());
+            return null;
+        }
+    }
+}
@@ -7,9 +7,12 @@ import com.projectcnw.salesmanagement.dto.customer.CustomerSpendingDTO;
 import com.projectcnw.salesmanagement.dto.customer.FeedbackDTO;
 import com.projectcnw.salesmanagement.dto.customer.feedback.FeedbackCustomerDto;
 import com.projectcnw.salesmanagement.dto.orderDtos.OrderListByCustomerDto;
+import com.projectcnw.salesmanagement.exceptions.BadRequestException;
 import com.projectcnw.salesmanagement.models.Customer;
 import com.projectcnw.salesmanagement.models.Feedback;
+import com.projectcnw.salesmanagement.models.enums.CustomerSpendingSort;
 import com.projectcnw.salesmanagement.services.CustomerServices.CustomerServices;
+import com.projectcnw.salesmanagement.services.CustomerServices.CustomerStatsService;
 import com.projectcnw.salesmanagement.services.CustomerServices.FeedbackService;
 import com.projectcnw.salesmanagement.services.OrderServices.OrderService;
 import com.projectcnw.salesmanagement.services.SMSService;
@@ -28,6 +31,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CustomerController extends BaseController {
     private final CustomerServices customerServices;
+    private final CustomerStatsService customerStatsService;
     private final FeedbackService feedbackService;
     private final OrderService orderService;
     private final SMSService smsService;
@@ -55,11 +59,18 @@ public class CustomerController extends BaseController {
     @GetMapping("/customer/spending")
     public ResponseEntity<PagedResponseObject> getAllCustomerBySpending(@RequestParam(value = "page", defaultValue = "1") int page,
                                                                         @RequestParam(value = "size", defaultValue = "10") int size,
-                                                                        @RequestParam(value = "query", defaultValue = "") String search) {
+                                                                        @RequestParam(value = "query", defaultValue = "") String search,
+                                                                        @RequestParam(value = "sort", defaultValue = "NEWEST") String sort) {
+        CustomerSpendingSort spendingSort;
+        try {
+            spendingSort = CustomerSpendingSort.valueOf(sort.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("invalid sort " + sort);
+        }
 
-        long totalItems = customerServices.countCustomer();
+        long totalItems = customerServices.countCustomer(search);
         int totalPages = (int) Math.ceil((double) totalItems / size);
-        List<CustomerSpendingDTO> customers = customerServices.getAllCustomerBySpending(page, size, search);
+        List<CustomerSpendingDTO> customers = customerServices.getAllCustomerBySpending(page, size, search, spendingSort);
         return ResponseEntity.ok(PagedResponseObject.builder()
                 .page(page)
                 .perPage(size)
@@ -71,6 +82,16 @@ public class CustomerController extends BaseController {
                 .build());
     }
 
+    // tính lại bảng customer_stats từ đơn hàng và thanh toán
+    @PostMapping("/customer/spending/rebuild")
+    public ResponseEntity<ResponseObject> rebuildCustomerStats() {
+        customerStatsService.rebuild();
+        return ResponseEntity.ok(ResponseObject.builder()
+                .responseCode(200)
+                .message("Success")
+                .build());
+    }
+
     //lây chi tiết khách hàng
     @GetMapping("/customer/{id}")
     public ResponseEntity<ResponseObject> getDetailCustomer(@PathVariable("id") int customerId) {
@@ -94,8 +115,9 @@ public class CustomerController extends BaseController {
 
     // Xử lý yêu cầu GET để tìm khách hàng dựa trên tên và số điện thoại
     @GetMapping("/customer/search")
-    public ResponseEntity<ResponseObject> searchCustomers(@RequestParam("searchTerm") String searchTerm) {
-        List<Customer> listCustomer = customerServices.searchCustomers1(searchTerm);
+    public ResponseEntity<ResponseObject> searchCustomers(@RequestParam("searchTerm") String searchTerm,
+                                                          @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        List<Customer> listCustomer = customerServices.searchCustomers1(searchTerm, limit);
         ResponseObject responseObject = ResponseObject.builder()
                 .responseCode(200)
                 .message("Success")
@@ -106,8 +128,9 @@ public class CustomerController extends BaseController {
     }
 
     @GetMapping("/customer/search_spending")
-    public ResponseEntity<ResponseObject> searchCustomersSpending(@RequestParam("searchTerm") String searchTerm) {
-        List<CustomerSpendingDTO> listCustomer = customerServices.searchCustomers(searchTerm);
+    public ResponseEntity<ResponseObject> searchCustomersSpending(@RequestParam("searchTerm") String searchTerm,
+                                                                  @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        List<CustomerSpendingDTO> listCustomer = customerServices.searchCustomers(searchTerm, limit);
         ResponseObject responseObject = ResponseObject.builder()
                 .responseCode(200)
                 .message("Success")
@@ -0,0 +1,56 @@
+package com.projectcnw.salesmanagement.controllers.ExportController;
+
+import com.projectcnw.salesmanagement.controllers.BaseController;
+import com.projectcnw.salesmanagement.services.ExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+//xuất file CSV, dữ liệu được ghi thẳng ra response theo từng dòng
+@RestController
+@RequestMapping("/admin/export")
+@RequiredArgsConstructor
+public class ExportController extends BaseController {
+    private final ExportService exportService;
+
+    @GetMapping("/orders")
+    public void exportOrders(@RequestParam(name = "startDate", defaultValue = "") String startDate,
+                             @RequestParam(name = "endDate", defaultValue = "") String endDate,
+                             HttpServletResponse response) throws IOException {
+        exportService.validateDates(startDate, endDate);
+        prepare(response, "orders");
+        exportService.exportOrders(startDate, endDate, response.getOutputStream());
+    }
+
+    @GetMapping("/order-lines")
+    public void exportOrderLines(@RequestParam(name = "startDate", defaultValue = "") String startDate,
+                                 @RequestParam(name = "endDate", defaultValue = "") String endDate,
+                                 HttpServletResponse response) throws IOException {
+        exportService.validateDates(startDate, endDate);
+        prepare(response, "order-lines");
+        exportService.exportOrderLines(startDate, endDate, response.getOutputStream());
+    }
+
+    @GetMapping("/variants")
+    public void exportVariants(HttpServletResponse response) throws IOException {
+        prepare(response, "variants");
+        exportService.exportVariants(response.getOutputStream());
+    }
+
+    @GetMapping("/customers")
+    public void exportCustomers(HttpServletResponse response) throws IOException {
+        prepare(response, "customers");
+        exportService.exportCustomers(response.getOutputStream());
+    }
+
+    private static void prepare(HttpServletResponse response, String name) {
+        response.setContentType("text/csv; charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + ".csv\"");
+    }
+}
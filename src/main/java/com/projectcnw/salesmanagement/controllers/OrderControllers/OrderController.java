@@ -1,20 +1,31 @@
 package com.projectcnw.salesmanagement.controllers.OrderControllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projectcnw.salesmanagement.dto.PagedResponseObject;
 import com.projectcnw.salesmanagement.dto.ResponseObject;
 import com.projectcnw.salesmanagement.dto.orderDtos.*;
 import com.projectcnw.salesmanagement.dto.orderDtos.createOrder.CreateOrderDto;
+import com.projectcnw.salesmanagement.exceptions.BadRequestException;
 import com.projectcnw.salesmanagement.models.OrderLine;
+import com.projectcnw.salesmanagement.models.enums.StatisticalGranularity;
+import com.projectcnw.salesmanagement.services.OrderServices.DailySalesRollupService;
 import com.projectcnw.salesmanagement.services.OrderServices.OrderService;
 import com.projectcnw.salesmanagement.services.OrderServices.ReturnOrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.Date;
 import java.util.List;
 
@@ -27,6 +38,8 @@ public class OrderController {
 
     private final OrderService orderService;
     private final ReturnOrderService returnOrderService;
+    private final DailySalesRollupService dailySalesRollupService;
+    private final ObjectMapper objectMapper;
 
 
     @GetMapping
@@ -36,7 +49,11 @@ public class OrderController {
                                                             @RequestParam(name = "startDate", defaultValue = "") String startDate,
                                                             @RequestParam(name = "endDate", defaultValue = "") String endDate,
                                                             @RequestParam(name = "status", defaultValue = "") String status,
-                                                            @RequestParam(name = "query", defaultValue = "") String search) {
+                                                            @RequestParam(name = "query", defaultValue = "") String search,
+                                                            @RequestParam(name = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return getOrderListByCursor(cursor, size, search, startDate, endDate, channels, status);
+        }
         long totalItems = orderService.countOrderFilter(search, startDate, endDate, channels, status);
         int totalPages = (int) Math.ceil((double) totalItems / size);
         List<OrderListItemDto> orders = orderService.getOrderList(page, size, search, startDate, endDate, channels, status);
@@ -51,6 +68,27 @@ public class OrderController {
                 .build());
     }
 
+    // chỉ đếm tổng ở trang đầu (cursor rỗng), các trang sau không quét lại toàn bộ điều kiện lọc
+    private ResponseEntity<PagedResponseObject> getOrderListByCursor(String cursor, int size, String search, String startDate, String endDate, String channels, String status) {
+        Long totalItems = null;
+        Integer totalPages = null;
+        if (cursor.isEmpty()) {
+            totalItems = (long) orderService.countOrderFilter(search, startDate, endDate, channels, status);
+            totalPages = (int) Math.ceil((double) totalItems / size);
+        }
+        List<OrderListItemDto> orders = orderService.getOrderListAfter(cursor, size, search, startDate, endDate, channels, status);
+        String nextCursor = orders.size() < size ? null : OrderCursor.of(orders.get(orders.size() - 1)).encode();
+        return ResponseEntity.ok(PagedResponseObject.builder()
+                .perPage(size)
+                .totalItems(totalItems)
+                .totalPages(totalPages)
+                .data(orders)
+                .nextCursor(nextCursor)
+                .message("Success")
+                .responseCode(200)
+                .build());
+    }
+
     @PostMapping
     public ResponseEntity<ResponseObject> createOrder(@RequestBody @Valid CreateOrderDto createOrderDto, @AuthenticationPrincipal UserDetails userDetails) {
         String staffPhone = userDetails.getUsername();
@@ -92,9 +130,40 @@ public class OrderController {
     }
 
     @GetMapping("/statistical")
-    public ResponseEntity<ResponseObject> statisticalByTime(@RequestParam("startDate") Date startDate, @RequestParam("endDate") Date endDate, @AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<StreamingResponseBody> statisticalByTime(@RequestParam("startDate") Date startDate, @RequestParam("endDate") Date endDate, @AuthenticationPrincipal UserDetails userDetails) {
 //        String staffPhone = userDetails.getUsername();
-        List<OrderLine> list = orderService.statisticalByTime(startDate, endDate);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.writeStartObject();
+                generator.writeNumberField("responseCode", 200);
+                generator.writeStringField("message", "success");
+                generator.writeArrayFieldStart("data");
+                orderService.forEachOrderLineByTime(startDate, endDate, orderLine -> {
+                    try {
+                        generator.writeObject(orderLine);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @GetMapping("/statistical/list")
+    public ResponseEntity<ResponseObject> statisticalListByTime(@RequestParam("startDate") Date startDate, @RequestParam("endDate") Date endDate,
+                                                                @RequestParam(name = "granularity", defaultValue = "DAY") String granularity) {
+        StatisticalGranularity statisticalGranularity;
+        try {
+            statisticalGranularity = StatisticalGranularity.valueOf(granularity.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("invalid granularity " + granularity);
+        }
+        List<OrderStatistical> list = orderService.statisticalListByTime(startDate, endDate, statisticalGranularity);
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200)
                 .message("success")
@@ -102,20 +171,28 @@ public class OrderController {
                 .build());
     }
 
-    @GetMapping("/statistical/list")
-    public ResponseEntity<ResponseObject> statisticalListByTime(@RequestParam("startDate") Date startDate, @RequestParam("endDate") Date endDate) {
-        List<OrderStatistical> list = orderService.statisticalListByTime(startDate, endDate);
+    @PostMapping("/statistical/rollup")
+    public ResponseEntity<ResponseObject> rebuildSalesRollup(@RequestParam("startDate") String startDate, @RequestParam("endDate") String endDate) {
+        LocalDate start;
+        LocalDate end;
+        try {
+            start = LocalDate.parse(startDate);
+            end = LocalDate.parse(endDate);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("invalid date range " + startDate + " - " + endDate);
+        }
+        dailySalesRollupService.rebuild(start, end);
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200)
                 .message("success")
-                .data(list)
                 .build());
     }
 
     @GetMapping("/top_sale")
-    public ResponseEntity<ResponseObject> topOrder(@RequestParam("startDate") Date startDate, @RequestParam("endDate") Date endDate, @RequestParam("type") String type, @AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<ResponseObject> topOrder(@RequestParam("startDate") Date startDate, @RequestParam("endDate") Date endDate, @RequestParam("type") String type,
+                                                   @RequestParam(name = "limit", defaultValue = "10") int limit, @AuthenticationPrincipal UserDetails userDetails) {
 //        String staffPhone = userDetails.getUsername();
-        List<TopOrder> list = orderService.topOrder(startDate, endDate, type);
+        List<TopOrder> list = orderService.topOrder(startDate, endDate, type, limit);
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200)
                 .message("success")
@@ -124,9 +201,10 @@ public class OrderController {
     }
 
     @GetMapping("/top_customer")
-    public ResponseEntity<ResponseObject> topCustomer(@RequestParam("startDate") Date startDate, @RequestParam("endDate") Date endDate, @RequestParam("type") String type, @AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<ResponseObject> topCustomer(@RequestParam("startDate") Date startDate, @RequestParam("endDate") Date endDate, @RequestParam("type") String type,
+                                                   @RequestParam(name = "limit", defaultValue = "10") int limit, @AuthenticationPrincipal UserDetails userDetails) {
 //        String staffPhone = userDetails.getUsername();
-        List<TopCustomer> list = orderService.topCustomer(startDate, endDate, type);
+        List<TopCustomer> list = orderService.topCustomer(startDate, endDate, type, limit);
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200)
                 .message("success")
@@ -6,16 +6,20 @@ import com.projectcnw.salesmanagement.dto.ResponseObject;
 import com.projectcnw.salesmanagement.dto.SalesChannelDTO.PublishProductDTO;
 import com.projectcnw.salesmanagement.dto.productDtos.AttributeDto;
 import com.projectcnw.salesmanagement.dto.productDtos.BaseProductDto;
+import com.projectcnw.salesmanagement.dto.productDtos.ProductImportStatus;
 import com.projectcnw.salesmanagement.dto.productDtos.VariantDto;
 import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.NonJPARepository.impl.NonJpaProductRepository;
 import com.projectcnw.salesmanagement.services.BaseProductSalesChannelService.BaseProductSalesChannelService;
 import com.projectcnw.salesmanagement.services.ProductManagerServices.BaseProductService;
+import com.projectcnw.salesmanagement.services.ProductManagerServices.ProductImportService;
 import com.projectcnw.salesmanagement.services.ProductManagerServices.VariantService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 
@@ -27,6 +31,7 @@ public class ProductController extends BaseController {
     private final NonJpaProductRepository nonJpaProductRepository;
     private final VariantService variantService;
     private final BaseProductSalesChannelService baseProductSalesChannelService;
+    private final ProductImportService productImportService;
 
     //
     //viewListProducts
@@ -174,16 +179,46 @@ public class ProductController extends BaseController {
     }
 
     @GetMapping("base-products/search")
-    public ResponseEntity<ResponseObject> getAllBaseProductsByKeyword(@RequestParam(name = "keyword") String keyword) {
-        List<BaseProductDto> baseProductDtos = baseProductService.getAllBaseProductsByKeyword(keyword);
+    public ResponseEntity<PagedResponseObject> getAllBaseProductsByKeyword(@RequestParam(name = "keyword") String keyword,
+                                                                           @RequestParam(name = "page", defaultValue = "0") int page,
+                                                                           @RequestParam(name = "size", defaultValue = "20") int size) {
+        List<BaseProductDto> baseProductDtos = baseProductService.getAllBaseProductsByKeyword(keyword, page, size);
+        long totalItems = baseProductService.countBaseProductsByKeyword(keyword);
+        int totalPages = (int) Math.ceil((double) totalItems / size);
 
-        return ResponseEntity.ok(ResponseObject.builder()
+        return ResponseEntity.ok(PagedResponseObject.builder()
+                .page(page)
+                .perPage(size)
+                .totalItems(totalItems)
+                .totalPages(totalPages)
                 .responseCode(200)
                 .message("Success")
                 .data(baseProductDtos)
                 .build());
     }
 
+    //importBaseProducts
+    //nhập hàng loạt sản phẩm từ file CSV / JSON lines, trả về job để theo dõi tiến độ
+    @PostMapping(value = "/base-products/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ResponseObject> importBaseProducts(@RequestParam("file") MultipartFile file,
+                                                             @RequestParam(name = "format", defaultValue = "") String format) {
+        ProductImportStatus importStatus = productImportService.submit(file, format);
+        return ResponseEntity.ok(ResponseObject.builder()
+                .responseCode(200)
+                .message("Success")
+                .data(importStatus)
+                .build());
+    }
+
+    @GetMapping("/base-products/import/{jobId}")
+    public ResponseEntity<ResponseObject> getImportStatus(@PathVariable("jobId") String jobId) {
+        return ResponseEntity.ok(ResponseObject.builder()
+                .responseCode(200)
+                .message("Success")
+                .data(productImportService.getStatus(jobId))
+                .build());
+    }
+
     @PostMapping("/base-products/publish")
     public ResponseEntity<ResponseObject> publishProduct(@RequestBody PublishProductDTO publishProductDTO) {
         return baseProductSalesChannelService.publishProduct(publishProductDTO);
@@ -3,13 +3,18 @@ package com.projectcnw.salesmanagement.controllers.ProductManagerControllers;
 import com.projectcnw.salesmanagement.controllers.BaseController;
 import com.projectcnw.salesmanagement.dto.PagedResponseObject;
 import com.projectcnw.salesmanagement.dto.ResponseObject;
+import com.projectcnw.salesmanagement.dto.productDtos.InventoryMovementSummary;
 import com.projectcnw.salesmanagement.dto.productDtos.VariantDto;
 import com.projectcnw.salesmanagement.dto.productDtos.VariantSaleResponse;
+import com.projectcnw.salesmanagement.exceptions.BadRequestException;
+import com.projectcnw.salesmanagement.services.ProductManagerServices.InventoryMovementService;
 import com.projectcnw.salesmanagement.services.ProductManagerServices.VariantService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @RestController
@@ -19,6 +24,8 @@ public class VariantController extends BaseController {
 
     private final VariantService variantService;
 
+    private final InventoryMovementService inventoryMovementService;
+
     @GetMapping("/base-products/variants")
     public ResponseEntity<PagedResponseObject> getAllVariants(@RequestParam(name = "page", defaultValue = "1") int page,
                                                               @RequestParam(name = "size", defaultValue = "10") int size) {
@@ -63,15 +70,52 @@ public class VariantController extends BaseController {
 
 
     @GetMapping("base-products/variants/search")
-    public ResponseEntity<ResponseObject> getAllVariantsByKeyword(@RequestParam(name = "keyword") String keyword) {
+    public ResponseEntity<PagedResponseObject> getAllVariantsByKeyword(@RequestParam(name = "keyword") String keyword,
+                                                                       @RequestParam(name = "page", defaultValue = "1") int page,
+                                                                       @RequestParam(name = "size", defaultValue = "20") int size) {
 
-        List<VariantDto> variantDtos = variantService.getAllVariantsByKeyword(keyword);
-        return ResponseEntity.ok(ResponseObject.builder()
+        List<VariantDto> variantDtos = variantService.getAllVariantsByKeyword(keyword, page, size);
+        long totalItems = variantService.countVariantsByKeyword(keyword);
+        int totalPages = (int) Math.ceil((double) totalItems / size);
+        return ResponseEntity.ok(PagedResponseObject.builder()
+                .page(page)
+                .perPage(size)
+                .totalPages(totalPages)
+                .totalItems(totalItems)
                 .responseCode(200)
                 .message("Success")
                 .data(variantDtos)
                 .build());
     }
 
+    // tồn kho của variant vào cuối ngày date (yyyy-MM-dd)
+    @GetMapping("/base-products/variants/{variantId}/stock")
+    public ResponseEntity<ResponseObject> getStockAsOf(@PathVariable("variantId") int variantId,
+                                                       @RequestParam(name = "date") String date) {
+        return ResponseEntity.ok(ResponseObject.builder()
+                .responseCode(200)
+                .message("Success")
+                .data(inventoryMovementService.getQuantityAsOf(variantId, parseDate(date)))
+                .build());
+    }
+
+    // tồn đầu kỳ, nhập / kiểm kho / bán / trả và tồn cuối kỳ của từng variant
+    @GetMapping("/base-products/variants/movements")
+    public ResponseEntity<ResponseObject> getMovementSummary(@RequestParam(name = "startDate") String startDate,
+                                                             @RequestParam(name = "endDate") String endDate) {
+        List<InventoryMovementSummary> summaries = inventoryMovementService.summarize(parseDate(startDate), parseDate(endDate));
+        return ResponseEntity.ok(ResponseObject.builder()
+                .responseCode(200)
+                .message("Success")
+                .data(summaries)
+                .build());
+    }
 
+    private static LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Ngày " + date + " không hợp lệ (yyyy-MM-dd)");
+        }
+    }
 }
@@ -4,6 +4,7 @@ import com.projectcnw.salesmanagement.dto.PagedResponseObject;
 import com.projectcnw.salesmanagement.dto.ResponseObject;
 import com.projectcnw.salesmanagement.dto.promotion.PromotionRequest;
 import com.projectcnw.salesmanagement.models.Promotion;
+import com.projectcnw.salesmanagement.services.PromotionServices.ActivePromotionIndex;
 import com.projectcnw.salesmanagement.services.PromotionServices.PromotionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +17,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class PromotionController {
     private final PromotionService promotionService;
+    private final ActivePromotionIndex activePromotionIndex;
 
     @PostMapping("")
     public ResponseEntity<ResponseObject> createPromotion(@RequestBody PromotionRequest promotion) {
@@ -70,6 +72,15 @@ public class PromotionController {
         return promotionService.getCouponPromotion(title);
     }
 
+    @GetMapping("/index-stats")
+    public ResponseEntity<ResponseObject> getIndexStats() {
+        return ResponseEntity.ok(ResponseObject.builder()
+                .responseCode(200)
+                .message("Success")
+                .data(activePromotionIndex.getStats())
+                .build());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ResponseObject> getPromotionById(@PathVariable("id") int id) {
         return promotionService.getPromotionById(id);
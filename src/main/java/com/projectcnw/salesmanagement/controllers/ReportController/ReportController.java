@@ -0,0 +1,65 @@
+package com.projectcnw.salesmanagement.controllers.ReportController;
+
+import com.projectcnw.salesmanagement.controllers.BaseController;
+import com.projectcnw.salesmanagement.dto.ResponseObject;
+import com.projectcnw.salesmanagement.dto.report.ReportSpec;
+import com.projectcnw.salesmanagement.services.ReportServices.ReportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+//báo cáo bán hàng theo tuần / tháng chạy nền, client theo dõi và tải kết quả theo job id
+@RestController
+@RequestMapping("/admin/reports")
+@RequiredArgsConstructor
+public class ReportController extends BaseController {
+    private final ReportService reportService;
+
+    @PostMapping
+    public ResponseEntity<ResponseObject> submitReport(@Valid @RequestBody ReportSpec spec) {
+        return ResponseEntity.ok(ResponseObject.builder()
+                .responseCode(200)
+                .message("Success")
+                .data(reportService.submit(spec))
+                .build());
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ResponseObject> getReportStatus(@PathVariable("jobId") String jobId) {
+        return ResponseEntity.ok(ResponseObject.builder()
+                .responseCode(200)
+                .message("Success")
+                .data(reportService.getStatus(jobId))
+                .build());
+    }
+
+    // gửi nguyên dữ liệu nén nếu client nhận gzip
+    @GetMapping("/{jobId}/download")
+    public void downloadReport(@PathVariable("jobId") String jobId,
+                               HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        byte[] content = reportService.getContent(jobId);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"report-" + jobId + ".json\"");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.setContentLength(content.length);
+        }
+        reportService.download(content, gzip, response.getOutputStream());
+    }
+}
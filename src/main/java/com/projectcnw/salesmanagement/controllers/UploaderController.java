@@ -4,15 +4,14 @@ import com.projectcnw.salesmanagement.dto.ResponseObject;
 import com.projectcnw.salesmanagement.services.ImageUploader;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.io.IOException;
-
 @RestController
 @RequestMapping("admin/upload")
 @RequiredArgsConstructor
@@ -20,14 +19,31 @@ public class UploaderController {
     private final ImageUploader imageUploader;
 
     @PostMapping("/image")
-    public ResponseEntity<ResponseObject> uploadImage(@RequestParam("file") MultipartFile file) throws IOException {
-        File imageFile = File.createTempFile("image", file.getOriginalFilename());
-        file.transferTo(imageFile);
-        String url = imageUploader.uploadImage(imageFile);
+    public ResponseEntity<ResponseObject> uploadImage(@RequestParam("file") MultipartFile file) {
+        String url = imageUploader.uploadImage(file);
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200)
                 .message("Success")
                 .data(url)
                 .build());
     }
-}
\ No newline at end of file
+
+    // trả về job ngay, client lấy URL qua /image/jobs/{jobId}
+    @PostMapping("/image/async")
+    public ResponseEntity<ResponseObject> uploadImageAsync(@RequestParam("file") MultipartFile file) {
+        return ResponseEntity.ok(ResponseObject.builder()
+                .responseCode(200)
+                .message("Success")
+                .data(imageUploader.submit(file))
+                .build());
+    }
+
+    @GetMapping("/image/jobs/{jobId}")
+    public ResponseEntity<ResponseObject> getUploadStatus(@PathVariable("jobId") String jobId) {
+        return ResponseEntity.ok(ResponseObject.builder()
+                .responseCode(200)
+                .message("Success")
+                .data(imageUploader.getStatus(jobId))
+                .build());
+    }
+}
@@ -66,11 +66,11 @@ public class VariantWebPageController {
         Date startDate = new Date();
         startDate.setTime(startDate.getTime() - 30L * 24 * 60 * 60 * 10000);
         Date endDate = new Date();
-        List<TopSaleVariant> products = variantService.getTopSaleVariant(startDate, endDate, "order");
+        List<TopSaleVariant> products = variantService.getTopSaleVariant(startDate, endDate, "order", 10);
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200)
                 .message("Success")
-                .data(products.subList(0, Math.min(products.size(), 10)))
+                .data(products)
                 .build());
     }
 
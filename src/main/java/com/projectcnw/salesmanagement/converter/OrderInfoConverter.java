@@ -0,0 +1,91 @@
+package com.projectcnw.salesmanagement.converter;
+
+import com.projectcnw.salesmanagement.dto.orderDtos.IOrderDetailInfo;
+import com.projectcnw.salesmanagement.dto.orderDtos.IReturnHistoryItemDto;
+import com.projectcnw.salesmanagement.dto.orderDtos.IReturnOrderDetailInfo;
+import com.projectcnw.salesmanagement.dto.orderDtos.IReturnOrderItemDto;
+import com.projectcnw.salesmanagement.dto.orderDtos.OrderDetailInfo;
+import com.projectcnw.salesmanagement.dto.orderDtos.ReturnHistoryItemDto;
+import com.projectcnw.salesmanagement.dto.orderDtos.ReturnOrderDetailInfo;
+import com.projectcnw.salesmanagement.dto.orderDtos.ReturnOrderItemDto;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// chuyển projection của các truy vấn đơn hàng / đơn trả sang DTO trả về client
+@Component
+public class OrderInfoConverter {
+
+    // truy vấn chi tiết đơn không lấy kênh bán, saleChannel để trống
+    public OrderDetailInfo toDto(IOrderDetailInfo projection) {
+        OrderDetailInfo dto = new OrderDetailInfo();
+        dto.setId(projection.getId());
+        dto.setCustomerName(projection.getCustomerName());
+        dto.setPhone(projection.getPhone());
+        dto.setCustomerId(projection.getCustomerId());
+        dto.setCreatedAt(projection.getCreatedAt());
+        dto.setStaffName(projection.getStaffName());
+        dto.setPaymentStatus(projection.getPaymentStatus());
+        dto.setAmount(projection.getAmount());
+        dto.setDiscount(projection.getDiscount());
+        dto.setReturnOrderId(projection.getReturnOrderId());
+        dto.setReturnAmount(projection.getReturnAmount());
+        return dto;
+    }
+
+    public ReturnOrderItemDto toDto(IReturnOrderItemDto projection) {
+        ReturnOrderItemDto dto = new ReturnOrderItemDto();
+        dto.setReturnOrderId(projection.getReturnOrderId());
+        dto.setBaseOrderId(projection.getBaseOrderId());
+        dto.setSwapOrderId(projection.getSwapOrderId());
+        dto.setCustomerName(projection.getCustomerName());
+        dto.setAmount(projection.getAmount());
+        dto.setCreatedAt(projection.getCreatedAt());
+        dto.setReturnReason(projection.getReturnReason());
+        dto.setPaymentStatus(projection.getPaymentStatus());
+        return dto;
+    }
+
+    public ReturnHistoryItemDto toDto(IReturnHistoryItemDto projection) {
+        ReturnHistoryItemDto dto = new ReturnHistoryItemDto();
+        dto.setReturnOrderId(projection.getReturnOrderId());
+        dto.setCreatedAt(projection.getCreatedAt());
+        dto.setReturnQuantity(projection.getReturnQuantity());
+        dto.setReturnValue(projection.getReturnValue());
+        dto.setSwapOrderId(projection.getSwapOrderId());
+        dto.setSwapQuantity(projection.getSwapQuantity());
+        dto.setSwapValue(projection.getSwapValue());
+        return dto;
+    }
+
+    public ReturnOrderDetailInfo toDto(IReturnOrderDetailInfo projection) {
+        ReturnOrderDetailInfo dto = new ReturnOrderDetailInfo();
+        dto.setCustomerName(projection.getCustomerName());
+        dto.setCustomerId(projection.getCustomerId());
+        dto.setBaseOrderId(projection.getBaseOrderId());
+        dto.setCreatedAt(projection.getCreatedAt());
+        dto.setSwapOrderId(projection.getSwapOrderId());
+        dto.setSwapAmount(projection.getSwapAmount());
+        dto.setStaffName(projection.getStaffName());
+        dto.setReturnReason(projection.getReturnReason());
+        dto.setPaymentStatus(projection.getPaymentStatus());
+        return dto;
+    }
+
+    public List<ReturnOrderItemDto> toReturnOrderItems(List<IReturnOrderItemDto> projections) {
+        List<ReturnOrderItemDto> dtos = new ArrayList<>(projections.size());
+        for (IReturnOrderItemDto projection : projections) {
+            dtos.add(toDto(projection));
+        }
+        return dtos;
+    }
+
+    public List<ReturnHistoryItemDto> toReturnHistoryItems(List<IReturnHistoryItemDto> projections) {
+        List<ReturnHistoryItemDto> dtos = new ArrayList<>(projections.size());
+        for (IReturnHistoryItemDto projection : projections) {
+            dtos.add(toDto(projection));
+        }
+        return dtos;
+    }
+}
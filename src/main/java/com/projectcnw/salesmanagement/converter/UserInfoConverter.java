@@ -0,0 +1,37 @@
+package com.projectcnw.salesmanagement.converter;
+
+import com.projectcnw.salesmanagement.dto.auth.UserInfoDto;
+import com.projectcnw.salesmanagement.models.Auth.UserEntity;
+import com.projectcnw.salesmanagement.models.Customer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+
+@Component
+public class UserInfoConverter {
+
+    public UserInfoDto toDto(UserEntity entity) {
+        UserInfoDto dto = new UserInfoDto();
+        dto.setFullName(entity.getFullName());
+        dto.setActive(entity.isActive());
+        dto.setPhone(entity.getPhone());
+        dto.setAddress(entity.getAddress());
+        dto.setDob(entity.getDob());
+        dto.setGender(entity.getGender());
+        dto.setWorkStatus(entity.getWorkStatus());
+        if (entity.getRoles() != null) {
+            dto.setRoles(new ArrayList<>(entity.getRoles()));
+        }
+        return dto;
+    }
+
+    // khách hàng không có vai trò nhân viên, roles để trống
+    public UserInfoDto toDto(Customer customer) {
+        UserInfoDto dto = new UserInfoDto();
+        dto.setFullName(customer.getName());
+        dto.setPhone(customer.getPhone());
+        dto.setAddress(customer.getAddress());
+        dto.setGender(customer.getGender());
+        return dto;
+    }
+}
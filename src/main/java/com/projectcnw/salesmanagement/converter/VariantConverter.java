@@ -0,0 +1,64 @@
+package com.projectcnw.salesmanagement.converter;
+
+import com.projectcnw.salesmanagement.dto.productDtos.IVariantDto;
+import com.projectcnw.salesmanagement.dto.productDtos.VariantDto;
+import com.projectcnw.salesmanagement.models.Products.Variant;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class VariantConverter {
+
+    // chỉ đọc id của baseProduct nên không khởi tạo proxy lazy
+    public VariantDto toDto(Variant entity) {
+        VariantDto dto = new VariantDto();
+        dto.setId(entity.getId() != null ? entity.getId() : 0);
+        dto.setCreatedAt(entity.getCreatedAt());
+        dto.setUpdatedAt(entity.getUpdatedAt());
+        dto.setName(entity.getName());
+        dto.setQuantity(entity.getQuantity());
+        dto.setImportPrice(entity.getImportPrice());
+        dto.setRetailPrice(entity.getRetailPrice());
+        dto.setWholeSalePrice(entity.getWholeSalePrice());
+        dto.setImage(entity.getImage());
+        dto.setSku(entity.getSku());
+        dto.setBarcode(entity.getBarcode());
+        if (entity.getBaseProduct() != null && entity.getBaseProduct().getId() != null) {
+            dto.setBaseId(entity.getBaseProduct().getId());
+        }
+        dto.setValue1(entity.getValue1());
+        dto.setValue2(entity.getValue2());
+        dto.setValue3(entity.getValue3());
+        return dto;
+    }
+
+    public VariantDto toDto(IVariantDto projection) {
+        VariantDto dto = new VariantDto();
+        dto.setId(projection.getId());
+        dto.setCreatedAt(projection.getCreatedAt());
+        dto.setUpdatedAt(projection.getUpdatedAt());
+        dto.setName(projection.getName());
+        dto.setQuantity(projection.getQuantity());
+        dto.setImportPrice(projection.getImportPrice());
+        dto.setRetailPrice(projection.getRetailPrice());
+        dto.setWholeSalePrice(projection.getWholeSalePrice());
+        dto.setImage(projection.getImage());
+        dto.setSku(projection.getSku());
+        dto.setBarcode(projection.getBarcode());
+        dto.setBaseId(projection.getBaseId());
+        dto.setValue1(projection.getValue1());
+        dto.setValue2(projection.getValue2());
+        dto.setValue3(projection.getValue3());
+        return dto;
+    }
+
+    public List<VariantDto> toDtoList(List<IVariantDto> projections) {
+        List<VariantDto> dtos = new ArrayList<>(projections.size());
+        for (IVariantDto projection : projections) {
+            dtos.add(toDto(projection));
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,61 @@
+package com.projectcnw.salesmanagement.converter;
+
+import com.projectcnw.salesmanagement.dto.balanceDtos.BalanceVariantDto;
+import com.projectcnw.salesmanagement.dto.balanceDtos.IBalanceVariantDto;
+import com.projectcnw.salesmanagement.dto.balanceDtos.IWarehouseBalanceDto;
+import com.projectcnw.salesmanagement.dto.balanceDtos.WarehouseBalanceDto;
+import com.projectcnw.salesmanagement.models.WarehouseBalance;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class WarehouseBalanceConverter {
+
+    public WarehouseBalanceDto toDto(IWarehouseBalanceDto projection) {
+        WarehouseBalanceDto dto = new WarehouseBalanceDto();
+        dto.setId(projection.getId());
+        dto.setCreatedAt(projection.getCreatedAt());
+        dto.setUpdatedAt(projection.getUpdatedAt());
+        dto.setPersonInCharge(projection.getPersonInCharge());
+        dto.setNote(projection.getNote());
+        return dto;
+    }
+
+    // danh sách sản phẩm và người phụ trách do nơi gọi gán
+    public WarehouseBalanceDto toDto(WarehouseBalance entity) {
+        WarehouseBalanceDto dto = new WarehouseBalanceDto();
+        dto.setId(entity.getId() != null ? entity.getId() : 0);
+        dto.setCreatedAt(entity.getCreatedAt());
+        dto.setUpdatedAt(entity.getUpdatedAt());
+        dto.setNote(entity.getNote());
+        return dto;
+    }
+
+    public BalanceVariantDto toDto(IBalanceVariantDto projection) {
+        BalanceVariantDto dto = new BalanceVariantDto();
+        dto.setVariantId(projection.getVariantId());
+        dto.setWarehouseBalanceId(projection.getWarehouseBalanceId());
+        dto.setRealQ(projection.getRealQ());
+        dto.setSavedQ(projection.getSavedQ());
+        dto.setNote(projection.getNote());
+        return dto;
+    }
+
+    public List<WarehouseBalanceDto> toDtoList(List<IWarehouseBalanceDto> projections) {
+        List<WarehouseBalanceDto> dtos = new ArrayList<>(projections.size());
+        for (IWarehouseBalanceDto projection : projections) {
+            dtos.add(toDto(projection));
+        }
+        return dtos;
+    }
+
+    public List<BalanceVariantDto> toBalanceVariantList(List<IBalanceVariantDto> projections) {
+        List<BalanceVariantDto> dtos = new ArrayList<>(projections.size());
+        for (IBalanceVariantDto projection : projections) {
+            dtos.add(toDto(projection));
+        }
+        return dtos;
+    }
+}
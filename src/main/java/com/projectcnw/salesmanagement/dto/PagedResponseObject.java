@@ -1,5 +1,6 @@
 package com.projectcnw.salesmanagement.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Getter;
 
@@ -11,7 +12,13 @@ public class PagedResponseObject {
 
     private int page;
     private int perPage;
-    private long totalItems;
-    private int totalPages;
+    // để trống ở các trang sau của chế độ cursor (không đếm lại)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalItems;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer totalPages;
     private Object data;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
 }
@@ -8,6 +8,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 
 @Getter
 @Setter
@@ -19,11 +20,17 @@ public class CustomerSpendingDTO {
     private BigDecimal totalAmount;
     @NotNull
     private BigDecimal orderCount;
+    @NotNull
+    private BigDecimal returnAmount;
+
+    private Timestamp lastOrderAt;
 
-    public CustomerSpendingDTO(Customer customer, BigDecimal totalAmount, BigDecimal orderCount) {
+    public CustomerSpendingDTO(Customer customer, BigDecimal totalAmount, BigDecimal orderCount, BigDecimal returnAmount, Timestamp lastOrderAt) {
         this.customer = customer;
         this.totalAmount = totalAmount;
         this.orderCount = orderCount;
+        this.returnAmount = returnAmount;
+        this.lastOrderAt = lastOrderAt;
     }
 
 }
@@ -0,0 +1,45 @@
+package com.projectcnw.salesmanagement.dto.orderDtos;
+
+import com.projectcnw.salesmanagement.exceptions.BadRequestException;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+/**
+ * Vị trí (created_at, id) của đơn hàng cuối cùng trên trang trước, dùng cho phân trang keyset.
+ * Client chỉ nhận về một chuỗi token mờ và gửi lại nguyên vẹn để lấy trang tiếp theo.
+ */
+@Getter
+public class OrderCursor {
+
+    private final Timestamp createdAt;
+    private final int id;
+
+    public OrderCursor(Timestamp createdAt, int id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static OrderCursor of(OrderListItemDto lastItem) {
+        return new OrderCursor(lastItem.getCreatedAt(), lastItem.getOrderId());
+    }
+
+    public String encode() {
+        String raw = createdAt.getTime() + ":" + createdAt.getNanos() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            Timestamp createdAt = new Timestamp(Long.parseLong(parts[0]));
+            createdAt.setNanos(Integer.parseInt(parts[1]));
+            return new OrderCursor(createdAt, Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new BadRequestException("invalid cursor " + token);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.projectcnw.salesmanagement.dto.productDtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// biến động tồn kho của một variant trong một khoảng thời gian
+@Getter
+@Setter
+public class InventoryMovementSummary {
+    private int variantId;
+    private String sku;
+    private String name;
+    private long openingQuantity;
+    private long initQuantity;
+    private long importQuantity;
+    private long balanceQuantity;
+    private long exportQuantity;
+    private long returnQuantity;
+    private long closingQuantity;
+
+    public InventoryMovementSummary(int variantId, long openingQuantity) {
+        this.variantId = variantId;
+        this.openingQuantity = openingQuantity;
+        this.closingQuantity = openingQuantity;
+    }
+}
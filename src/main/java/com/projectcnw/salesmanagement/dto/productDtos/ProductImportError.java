@@ -0,0 +1,13 @@
+package com.projectcnw.salesmanagement.dto.productDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ProductImportError {
+    // dòng trong file (CSV: dòng đầu tiên của sản phẩm, JSON lines: dòng của sản phẩm)
+    private int line;
+    private String product;
+    private String message;
+}
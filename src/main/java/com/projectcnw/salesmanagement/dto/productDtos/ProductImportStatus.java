@@ -0,0 +1,26 @@
+package com.projectcnw.salesmanagement.dto.productDtos;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.List;
+
+@Getter
+@Builder
+public class ProductImportStatus {
+    private String jobId;
+    private String fileName;
+    // QUEUED, RUNNING, DONE, FAILED
+    private String status;
+    private long bytesRead;
+    private long totalBytes;
+    private int processedProducts;
+    private int importedProducts;
+    private int importedVariants;
+    private int failedProducts;
+    private List<ProductImportError> errors;
+    private boolean errorsTruncated;
+    private Date startedAt;
+    private Date finishedAt;
+}
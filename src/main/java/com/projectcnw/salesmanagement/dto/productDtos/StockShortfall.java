@@ -0,0 +1,12 @@
+package com.projectcnw.salesmanagement.dto.productDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class StockShortfall {
+    private int variantId;
+    private int requested;
+    private int available;
+}
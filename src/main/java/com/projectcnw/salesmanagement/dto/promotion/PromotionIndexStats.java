@@ -0,0 +1,19 @@
+package com.projectcnw.salesmanagement.dto.promotion;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Date;
+
+@Getter
+@Builder
+public class PromotionIndexStats {
+    private long hits;
+    private long misses;
+    private long rebuilds;
+    private long lastRebuildMillis;
+    private long totalRebuildMillis;
+    private Date builtAt;
+    private int activePromotions;
+    private int indexedProducts;
+}
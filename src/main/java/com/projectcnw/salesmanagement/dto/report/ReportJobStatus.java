@@ -0,0 +1,24 @@
+package com.projectcnw.salesmanagement.dto.report;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Date;
+
+@Getter
+@Builder
+public class ReportJobStatus {
+    private String jobId;
+    // QUEUED, RUNNING, DONE, FAILED
+    private String status;
+    private String spec;
+    private int rowCount;
+    private long size;
+    private String error;
+    private Date createdAt;
+    private Date finishedAt;
+    // kết quả có sẵn được dùng lại, không tính lại
+    @Setter
+    private boolean reused;
+}
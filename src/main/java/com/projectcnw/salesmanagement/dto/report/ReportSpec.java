@@ -0,0 +1,36 @@
+package com.projectcnw.salesmanagement.dto.report;
+
+import com.projectcnw.salesmanagement.models.enums.ReportGrouping;
+import com.projectcnw.salesmanagement.models.enums.ReportType;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class ReportSpec {
+    @NotNull(message = "type is not null")
+    private ReportType type;
+
+    @NotNull(message = "startDate is not null")
+    private LocalDate startDate;
+
+    @NotNull(message = "endDate is not null")
+    private LocalDate endDate;
+
+    // mã kênh bán (POS, WEB, ...), rỗng là tất cả
+    private String channel;
+
+    private ReportGrouping grouping = ReportGrouping.PERIOD;
+
+    /**
+     * Chuỗi mô tả đầy đủ báo cáo, hai yêu cầu giống nhau cho cùng một chuỗi.
+     */
+    public String canonical() {
+        return type + "|" + startDate + "|" + endDate + "|" + (channel == null ? "" : channel) + "|" + grouping;
+    }
+}
@@ -0,0 +1,20 @@
+package com.projectcnw.salesmanagement.dto.upload;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Date;
+
+@Getter
+@Builder
+public class ImageUploadStatus {
+    private String jobId;
+    private String fileName;
+    // QUEUED, UPLOADING, DONE, FAILED
+    private String status;
+    private long size;
+    private String url;
+    private String error;
+    private Date createdAt;
+    private Date finishedAt;
+}
@@ -0,0 +1,26 @@
+package com.projectcnw.salesmanagement.exceptions;
+
+import com.projectcnw.salesmanagement.exceptions.errorobject.ErrorObject;
+import com.projectcnw.salesmanagement.exceptions.errorobject.SingleMessageError;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Date;
+
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ErrorObject> handleBadRequest(BadRequestException e) {
+        return ResponseEntity.badRequest()
+                .body(new SingleMessageError(HttpStatus.BAD_REQUEST.value(), e.getMessage(), new Date()));
+    }
+
+    @ExceptionHandler(UpstreamServiceException.class)
+    public ResponseEntity<ErrorObject> handleUpstream(UpstreamServiceException e) {
+        return ResponseEntity.status(e.getStatus())
+                .body(new SingleMessageError(e.getStatus().value(), e.getMessage(), new Date()));
+    }
+}
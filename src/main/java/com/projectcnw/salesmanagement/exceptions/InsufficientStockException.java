@@ -0,0 +1,21 @@
+package com.projectcnw.salesmanagement.exceptions;
+
+import com.projectcnw.salesmanagement.dto.productDtos.StockShortfall;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Getter
+public class InsufficientStockException extends BadRequestException {
+
+    private final List<StockShortfall> shortfalls;
+
+    public InsufficientStockException(List<StockShortfall> shortfalls) {
+        super(shortfalls.stream()
+                .map(shortfall -> "insufficient stock for variant " + shortfall.getVariantId()
+                        + " (requested " + shortfall.getRequested() + ", available " + shortfall.getAvailable() + ")")
+                .collect(Collectors.joining("; ")));
+        this.shortfalls = shortfalls;
+    }
+}
@@ -0,0 +1,19 @@
+package com.projectcnw.salesmanagement.exceptions;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Lỗi từ dịch vụ bên ngoài (Cloudinary...), không phải do request của client:
+ * trả về 502 khi dịch vụ báo lỗi, 504 khi quá thời gian chờ.
+ */
+@Getter
+public class UpstreamServiceException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public UpstreamServiceException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+}
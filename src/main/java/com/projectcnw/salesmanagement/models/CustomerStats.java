@@ -0,0 +1,49 @@
+package com.projectcnw.salesmanagement.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+/**
+ * Tổng hợp chi tiêu của một khách hàng: tổng tiền đã thanh toán, số đơn, đơn gần nhất và tổng tiền đã hoàn trả.
+ * Các chỉ mục kèm customer_id để danh sách khách hàng sắp xếp theo chi tiêu phân trang ổn định.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "customer_stats", indexes = {
+        @Index(name = "idx_customer_stats_total_spent", columnList = "total_spent, customer_id"),
+        @Index(name = "idx_customer_stats_order_count", columnList = "order_count, customer_id"),
+        @Index(name = "idx_customer_stats_last_order_at", columnList = "last_order_at, customer_id"),
+        @Index(name = "idx_customer_stats_return_amount", columnList = "return_amount, customer_id")})
+public class CustomerStats {
+
+    @Id
+    @Column(name = "customer_id")
+    private Integer customerId;
+
+    @Column(name = "total_spent", nullable = false, columnDefinition = "bigint default 0")
+    private long totalSpent;
+
+    @Column(name = "order_count", nullable = false, columnDefinition = "bigint default 0")
+    private long orderCount;
+
+    @Column(name = "return_amount", nullable = false, columnDefinition = "bigint default 0")
+    private long returnAmount;
+
+    @Column(name = "last_order_at", columnDefinition = "datetime(6)")
+    private Timestamp lastOrderAt;
+
+    // do MySQL tự cập nhật, các câu upsert không ghi cột này
+    @Column(name = "updated_at", insertable = false, updatable = false,
+            columnDefinition = "datetime(6) not null default current_timestamp(6) on update current_timestamp(6)")
+    private Timestamp updatedAt;
+}
@@ -0,0 +1,42 @@
+package com.projectcnw.salesmanagement.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Date;
+
+/**
+ * Tổng hợp doanh số theo ngày. Dòng có variant_id = 0 là tổng của cả ngày,
+ * các dòng còn lại là tổng theo từng phiên bản sản phẩm.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "daily_sales_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_sales_rollup_date_variant", columnNames = {"sales_date", "variant_id"}))
+public class DailySalesRollup extends BaseEntity {
+
+    public static final int ALL_VARIANTS = 0;
+
+    @Column(name = "sales_date", nullable = false)
+    private Date salesDate;
+
+    @Column(name = "variant_id", nullable = false)
+    private int variantId;
+
+    @Column(columnDefinition = "bigint default 0")
+    private long quantity;
+
+    @Column(columnDefinition = "bigint default 0")
+    private long revenue;
+
+    @Column(name = "order_count", columnDefinition = "bigint default 0")
+    private long orderCount;
+
+    @Column(name = "return_quantity", columnDefinition = "bigint default 0")
+    private long returnQuantity;
+
+    @Column(name = "return_revenue", columnDefinition = "bigint default 0")
+    private long returnRevenue;
+}
@@ -0,0 +1,43 @@
+package com.projectcnw.salesmanagement.models;
+
+import com.projectcnw.salesmanagement.models.enums.HistoryType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+/**
+ * Một dòng của sổ biến động tồn kho: thay đổi tồn kho của một variant kèm loại nghiệp vụ và id chứng từ.
+ * Chỉ được thêm dòng, không sửa, không xoá.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "inventory_movement", indexes = {
+        @Index(name = "idx_inventory_movement_variant_created_at", columnList = "variant_id, created_at"),
+        @Index(name = "idx_inventory_movement_created_at", columnList = "created_at")})
+public class InventoryMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "variant_id", nullable = false)
+    private int variantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 16)
+    private HistoryType type;
+
+    @Column(name = "quantity_change", nullable = false)
+    private int quantityChange;
+
+    @Column(name = "reference_id")
+    private Integer referenceId;
+
+    @Column(name = "created_at", nullable = false, columnDefinition = "datetime(6)")
+    private Timestamp createdAt;
+}
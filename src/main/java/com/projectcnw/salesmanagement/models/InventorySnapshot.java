@@ -0,0 +1,26 @@
+package com.projectcnw.salesmanagement.models;
+
+import com.projectcnw.salesmanagement.models.keys.InventorySnapshotKey;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Tồn kho cuối ngày của một variant, để tồn kho tại một ngày bất kỳ chỉ cần snapshot gần nhất
+ * cộng các dòng {@link InventoryMovement} sau đó.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "inventory_snapshot",
+        indexes = @Index(name = "idx_inventory_snapshot_variant_date", columnList = "variant_id, snapshot_date"))
+public class InventorySnapshot {
+
+    @EmbeddedId
+    private InventorySnapshotKey id;
+
+    @Column(nullable = false)
+    private int quantity;
+}
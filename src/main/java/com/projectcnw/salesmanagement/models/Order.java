@@ -13,7 +13,7 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "_order")
+@Table(name = "_order", indexes = @Index(name = "idx_order_created_at_id", columnList = "created_at, id"))
 public class Order extends BaseEntity {
 
     @ManyToOne
@@ -38,7 +38,7 @@ public class Order extends BaseEntity {
 
 
 
-    @OneToMany(mappedBy = "order", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "order")
     @JsonManagedReference
     private List<OrderLine> orderLineList;
 
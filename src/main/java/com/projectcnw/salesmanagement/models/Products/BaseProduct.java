@@ -36,13 +36,13 @@ public class BaseProduct extends BaseEntity {
     @JoinColumn(name = "shop_id")
     private Shop shop;
 
-    @OneToMany(mappedBy = "baseProduct", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "baseProduct")
     private List<Variant> variants;
 
     @Column(name = "is_deleted", columnDefinition = "boolean default false")
     private boolean isDeleted;
 
-    @ManyToMany(mappedBy = "products", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @ManyToMany(mappedBy = "products", cascade = CascadeType.ALL)
     @JsonBackReference
     private List<Category> categories;
 
@@ -51,7 +51,7 @@ public class BaseProduct extends BaseEntity {
     @JsonBackReference
     private List<Promotion> promotions;
 
-    @ManyToMany(mappedBy = "products", fetch = FetchType.EAGER)
+    @ManyToMany(mappedBy = "products")
     @JsonBackReference
     private List<SalesChannel> salesChannels;
 
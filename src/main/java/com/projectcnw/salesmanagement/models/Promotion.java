@@ -19,6 +19,7 @@ import java.util.List;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
+@Table(indexes = @Index(name = "idx_promotion_status_end_date", columnList = "status, endDate"))
 public class Promotion extends BaseEntity{
     private String description;
 
@@ -45,7 +46,7 @@ public class Promotion extends BaseEntity{
     @JsonProperty("status")
     private PromotionStatusType status;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany
     @JoinTable(
             name = "promotion_product",
             joinColumns = @JoinColumn(name = "promotion_id"),
@@ -53,7 +54,7 @@ public class Promotion extends BaseEntity{
     )
     private List<BaseProduct> products;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany
     @JoinTable(
             name = "promotion_category",
             joinColumns = @JoinColumn(name = "promotion_id"),
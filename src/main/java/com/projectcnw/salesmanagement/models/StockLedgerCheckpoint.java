@@ -0,0 +1,31 @@
+package com.projectcnw.salesmanagement.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Số thứ tự bản ghi cuối cùng của stock ledger log đã được ghi vào bảng variant.
+ * Chỉ có một dòng, được cập nhật cùng giao dịch với lần flush tồn kho.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "stock_ledger_checkpoint")
+public class StockLedgerCheckpoint {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+}
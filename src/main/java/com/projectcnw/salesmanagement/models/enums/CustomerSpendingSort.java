@@ -0,0 +1,23 @@
+package com.projectcnw.salesmanagement.models.enums;
+
+/**
+ * Thứ tự của danh sách khách hàng theo chi tiêu. Mỗi cột sắp xếp có chỉ mục (cột, customer_id)
+ * trên bảng customer_stats nên trang nào cũng chỉ đọc đúng số dòng cần lấy.
+ */
+public enum CustomerSpendingSort {
+    NEWEST(null),
+    SPENDING("s.total_spent"),
+    ORDERS("s.order_count"),
+    LAST_ORDER("s.last_order_at"),
+    RETURNS("s.return_amount");
+
+    private final String column;
+
+    CustomerSpendingSort(String column) {
+        this.column = column;
+    }
+
+    public String orderBy() {
+        return column == null ? "s.customer_id DESC" : column + " DESC, s.customer_id DESC";
+    }
+}
@@ -1,5 +1,5 @@
 package com.projectcnw.salesmanagement.models.enums;
 
 public enum HistoryType {
-    INIT, IMPORT, BALANCE, EXPORT
+    INIT, IMPORT, BALANCE, EXPORT, RETURN
 }
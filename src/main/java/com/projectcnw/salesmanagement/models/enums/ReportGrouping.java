@@ -0,0 +1,28 @@
+package com.projectcnw.salesmanagement.models.enums;
+
+/**
+ * Chiều nhóm của báo cáo bán hàng ngoài kỳ (tuần / tháng): cột khoá và cột tên tương ứng.
+ */
+public enum ReportGrouping {
+    PERIOD(null, null),
+    VARIANT("ol.variant_id", "v.name"),
+    CUSTOMER("o.customer_id", "COALESCE(c.name, o.customer_name)"),
+    CHANNEL("o.sales_channel_id", "sc.name");
+
+    private final String keyColumn;
+
+    private final String nameColumn;
+
+    ReportGrouping(String keyColumn, String nameColumn) {
+        this.keyColumn = keyColumn;
+        this.nameColumn = nameColumn;
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    public String getNameColumn() {
+        return nameColumn;
+    }
+}
@@ -1,5 +1,23 @@
 package com.projectcnw.salesmanagement.models.enums;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
 public enum ReportType {
-    WEEK, MONTH
+    WEEK, MONTH;
+
+    public StatisticalGranularity granularity() {
+        return this == WEEK ? StatisticalGranularity.WEEK : StatisticalGranularity.MONTH;
+    }
+
+    // ngày đầu của kỳ chứa date
+    public LocalDate periodStart(LocalDate date) {
+        return this == WEEK ? date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : date.withDayOfMonth(1);
+    }
+
+    // ngày cuối của kỳ chứa date
+    public LocalDate periodEnd(LocalDate date) {
+        return this == WEEK ? date.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)) : date.with(TemporalAdjusters.lastDayOfMonth());
+    }
 }
@@ -0,0 +1,44 @@
+package com.projectcnw.salesmanagement.models.enums;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+public enum StatisticalGranularity {
+    HOUR("DATE_FORMAT(%s, '%%Y-%%m-%%d %%H:00:00')"),
+    DAY("DATE_FORMAT(%s, '%%Y-%%m-%%d 00:00:00')"),
+    WEEK("DATE_FORMAT(DATE_SUB(%1$s, INTERVAL WEEKDAY(%1$s) DAY), '%%Y-%%m-%%d 00:00:00')"),
+    MONTH("DATE_FORMAT(%s, '%%Y-%%m-01 00:00:00')");
+
+    private final String bucketFormat;
+
+    StatisticalGranularity(String bucketFormat) {
+        this.bucketFormat = bucketFormat;
+    }
+
+    /**
+     * Biểu thức MySQL trả về thời điểm bắt đầu của bucket dưới dạng 'yyyy-MM-dd HH:mm:ss'.
+     */
+    public String bucketExpression(String column) {
+        return String.format(bucketFormat, column);
+    }
+
+    public LocalDateTime truncate(LocalDateTime time) {
+        return switch (this) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case WEEK -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        };
+    }
+
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        return switch (this) {
+            case HOUR -> bucketStart.plusHours(1);
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+            case MONTH -> bucketStart.plusMonths(1);
+        };
+    }
+}
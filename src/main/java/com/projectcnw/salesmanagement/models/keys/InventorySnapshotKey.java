@@ -0,0 +1,23 @@
+package com.projectcnw.salesmanagement.models.keys;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.sql.Date;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Embeddable
+public class InventorySnapshotKey implements Serializable {
+
+    @Column(name = "snapshot_date")
+    private Date snapshotDate;
+
+    @Column(name = "variant_id")
+    private int variantId;
+}
@@ -0,0 +1,36 @@
+package com.projectcnw.salesmanagement.repositories.BalanceManagerRepository;
+
+import com.projectcnw.salesmanagement.dto.balanceDtos.BalanceVariantDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class BalanceVariantBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_BALANCE_VARIANT_SQL =
+            "INSERT INTO balance_variant (created_at, updated_at, balance_id, variant_id, note, real_quantity, saved_quantity) " +
+                    "VALUES (CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Ghi các dòng kiểm kho của một phiếu trong một batch.
+     * savedQuantities: variant id -> tồn kho trong hệ thống lúc kiểm.
+     */
+    public void insertBalanceVariants(int balanceId, List<BalanceVariantDto> balanceVariants, Map<Integer, Integer> savedQuantities) {
+        jdbcTemplate.batchUpdate(INSERT_BALANCE_VARIANT_SQL, balanceVariants, BATCH_SIZE, (ps, balanceVariant) -> {
+            ps.setInt(1, balanceId);
+            ps.setInt(2, balanceVariant.getVariantId());
+            ps.setString(3, balanceVariant.getNote());
+            ps.setInt(4, balanceVariant.getRealQ());
+            ps.setInt(5, savedQuantities.get(balanceVariant.getVariantId()));
+        });
+    }
+}
@@ -27,6 +27,14 @@ public interface CategoryRepository extends JpaRepository<Category, Integer>, Jp
             , nativeQuery = true)
     List<Category> getListCategoryByProductId(@Param("productId") int productId);
 
+    // categories của một trang sản phẩm trong một truy vấn: [product id, Category]
+    @Query("SELECT p.id, c FROM BaseProduct p JOIN p.categories c WHERE p.id IN :productIds")
+    List<Object[]> getCategoriesByProductIds(@Param("productIds") List<Integer> productIds);
+
+    // số sản phẩm của nhiều category: [category id, count]
+    @Query(value = "SELECT pc.category_id, COUNT(*) FROM product_category pc WHERE pc.category_id IN :ids GROUP BY pc.category_id", nativeQuery = true)
+    List<Object[]> countProductsByCategoryIds(@Param("ids") List<Integer> ids);
+
     boolean existsByTitle(String name);
 
     boolean existsBySlug(String slug);
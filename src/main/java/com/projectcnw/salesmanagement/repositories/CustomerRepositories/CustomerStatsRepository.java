@@ -0,0 +1,143 @@
+package com.projectcnw.salesmanagement.repositories.CustomerRepositories;
+
+import com.projectcnw.salesmanagement.models.CustomerStats;
+import com.projectcnw.salesmanagement.models.enums.CustomerSpendingSort;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Đọc/ghi bảng tổng hợp chi tiêu {@link CustomerStats}: mỗi khách hàng một dòng gồm tổng tiền đã thanh toán,
+ * số đơn, thời điểm đặt đơn gần nhất và tổng tiền đã hoàn trả. Được cập nhật trong cùng transaction với
+ * luồng đơn hàng / trả hàng / thanh toán và có thể dựng lại từ _order, return_order và payment.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CustomerStatsRepository {
+
+    private static final String UPSERT_SQL = "INSERT INTO customer_stats (customer_id, total_spent, order_count, return_amount, last_order_at) " +
+            "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE ";
+
+    // chỉ tính thanh toán đã hoàn tất, giống như khi cập nhật từ luồng thanh toán
+    private static final String REBUILD_SQL = "INSERT INTO customer_stats (customer_id, total_spent, order_count, return_amount, last_order_at) " +
+            "SELECT c.id, COALESCE(sp.total, 0), COALESCE(oc.order_count, 0), COALESCE(rt.total, 0), oc.last_order_at " +
+            "FROM customer c " +
+            "LEFT JOIN (SELECT o.customer_id, COUNT(*) AS order_count, MAX(o.created_at) AS last_order_at " +
+            "FROM _order o WHERE o.customer_id BETWEEN ? AND ? GROUP BY o.customer_id) oc ON oc.customer_id = c.id " +
+            "LEFT JOIN (SELECT o.customer_id, SUM(p.amount) AS total " +
+            "FROM _order o JOIN payment p ON p.order_id = o.id AND p.order_type = 'ORDER' AND p.payment_status = 'COMPLETE' " +
+            "WHERE o.customer_id BETWEEN ? AND ? GROUP BY o.customer_id) sp ON sp.customer_id = c.id " +
+            "LEFT JOIN (SELECT o.customer_id, SUM(p.amount) AS total " +
+            "FROM return_order r JOIN _order o ON o.id = r.base_order " +
+            "JOIN payment p ON p.order_id = r.id AND p.order_type = 'RETURN' AND p.payment_status = 'COMPLETE' " +
+            "WHERE o.customer_id BETWEEN ? AND ? GROUP BY o.customer_id) rt ON rt.customer_id = c.id " +
+            "WHERE c.id BETWEEN ? AND ?";
+
+    private static final String SELECT_SQL = "SELECT s.customer_id, s.total_spent, s.order_count, s.return_amount, s.last_order_at " +
+            "FROM customer_stats s ";
+
+    // [customer id, tổng chi tiêu, số đơn, tổng hoàn trả, đơn gần nhất]
+    private static final RowMapper<Object[]> ROW_MAPPER = (rs, rowNum) -> new Object[]{
+            rs.getInt(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getTimestamp(5)};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public long countEntries() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer_stats", Long.class);
+        return count != null ? count : 0;
+    }
+
+    public long countCustomers() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer", Long.class);
+        return count != null ? count : 0;
+    }
+
+    // khách hàng mới có ngay một dòng rỗng để luôn xuất hiện trong danh sách
+    public void ensure(int customerId) {
+        jdbcTemplate.update("INSERT IGNORE INTO customer_stats (customer_id) VALUES (?)", customerId);
+    }
+
+    public void addOrder(int customerId, Timestamp orderedAt, long paidAmount) {
+        jdbcTemplate.update(UPSERT_SQL + "total_spent = total_spent + VALUES(total_spent), order_count = order_count + 1, " +
+                        "last_order_at = GREATEST(COALESCE(last_order_at, VALUES(last_order_at)), VALUES(last_order_at))",
+                customerId, paidAmount, 1, 0, orderedAt);
+    }
+
+    public void addSpent(int customerId, long amount) {
+        jdbcTemplate.update(UPSERT_SQL + "total_spent = total_spent + VALUES(total_spent)",
+                customerId, amount, 0, 0, null);
+    }
+
+    public void addReturnAmount(int customerId, long amount) {
+        jdbcTemplate.update(UPSERT_SQL + "return_amount = return_amount + VALUES(return_amount)",
+                customerId, 0, 0, amount, null);
+    }
+
+    public void delete(int customerId) {
+        jdbcTemplate.update("DELETE FROM customer_stats WHERE customer_id = ?", customerId);
+    }
+
+    public Integer getCustomerIdOfOrder(int orderId) {
+        List<Integer> ids = jdbcTemplate.queryForList("SELECT customer_id FROM _order WHERE id = ? AND customer_id IS NOT NULL",
+                Integer.class, orderId);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    public Integer getCustomerIdOfReturnOrder(int returnOrderId) {
+        List<Integer> ids = jdbcTemplate.queryForList("SELECT o.customer_id FROM return_order r JOIN _order o ON o.id = r.base_order " +
+                "WHERE r.id = ? AND o.customer_id IS NOT NULL", Integer.class, returnOrderId);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    public List<Integer> getCustomerIdsAfter(int lastId, int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM customer WHERE id > ? ORDER BY id LIMIT ?",
+                Integer.class, lastId, limit);
+    }
+
+    /**
+     * Tính lại các dòng của khách hàng có id trong [fromId, toId] từ dữ liệu đơn hàng và thanh toán.
+     */
+    public void rebuild(int fromId, int toId) {
+        jdbcTemplate.update("DELETE FROM customer_stats WHERE customer_id BETWEEN ? AND ?", fromId, toId);
+        jdbcTemplate.update(REBUILD_SQL, fromId, toId, fromId, toId, fromId, toId, fromId, toId);
+    }
+
+    // dòng của khách hàng đã bị xoá
+    public int deleteOrphans() {
+        return jdbcTemplate.update("DELETE s FROM customer_stats s LEFT JOIN customer c ON c.id = s.customer_id WHERE c.id IS NULL");
+    }
+
+    public List<Object[]> findPage(CustomerSpendingSort sort, int offset, int size) {
+        return jdbcTemplate.query(SELECT_SQL + "ORDER BY " + sort.orderBy() + " LIMIT ? OFFSET ?", ROW_MAPPER, size, offset);
+    }
+
+    public List<Object[]> findPageByCustomerIds(Collection<Integer> customerIds, CustomerSpendingSort sort, int offset, int size) {
+        if (customerIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Object> args = new ArrayList<>(customerIds);
+        args.add(size);
+        args.add(offset);
+        return jdbcTemplate.query(SELECT_SQL + "WHERE s.customer_id IN (" + placeholders(customerIds.size()) + ") " +
+                "ORDER BY " + sort.orderBy() + " LIMIT ? OFFSET ?", ROW_MAPPER, args.toArray());
+    }
+
+    public List<Object[]> findByCustomerIds(Collection<Integer> customerIds) {
+        if (customerIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return jdbcTemplate.query(SELECT_SQL + "WHERE s.customer_id IN (" + placeholders(customerIds.size()) + ")",
+                ROW_MAPPER, customerIds.toArray());
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,27 @@
+package com.projectcnw.salesmanagement.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+
+/**
+ * Đọc dữ liệu xuất file theo kiểu forward-only: MySQL driver trả từng dòng thay vì nạp cả result set
+ * (fetch size = Integer.MIN_VALUE), nên bộ nhớ không phụ thuộc số dòng được xuất.
+ * Trong lúc đọc, connection chỉ được dùng cho truy vấn này.
+ */
+@Repository
+public class ExportRepository {
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public ExportRepository(DataSource dataSource) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    public void stream(String sql, RowCallbackHandler handler, Object... args) {
+        streamingJdbcTemplate.query(sql, handler, args);
+    }
+}
@@ -0,0 +1,98 @@
+package com.projectcnw.salesmanagement.repositories.OrderRepositories;
+
+import com.projectcnw.salesmanagement.models.DailySalesRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, Integer> {
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sales_date, variant_id, quantity, revenue, order_count, return_quantity, return_revenue, created_at, updated_at)" +
+            " VALUES (CURRENT_DATE, :variantId, :quantity, :revenue, :orderCount, 0, 0, NOW(), NOW())" +
+            " ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), revenue = revenue + VALUES(revenue)," +
+            " order_count = order_count + VALUES(order_count), updated_at = NOW()", nativeQuery = true)
+    void addSales(@Param("variantId") int variantId, @Param("quantity") long quantity,
+                  @Param("revenue") long revenue, @Param("orderCount") long orderCount);
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sales_date, variant_id, quantity, revenue, order_count, return_quantity, return_revenue, created_at, updated_at)" +
+            " VALUES (CURRENT_DATE, :variantId, 0, 0, 0, :returnQuantity, :returnRevenue, NOW(), NOW())" +
+            " ON DUPLICATE KEY UPDATE return_quantity = return_quantity + VALUES(return_quantity)," +
+            " return_revenue = return_revenue + VALUES(return_revenue), updated_at = NOW()", nativeQuery = true)
+    void addReturns(@Param("variantId") int variantId,
+                    @Param("returnQuantity") long returnQuantity, @Param("returnRevenue") long returnRevenue);
+
+    @Query(value = "SELECT CURRENT_DATE", nativeQuery = true)
+    Date currentDate();
+
+    @Query(value = "SELECT MIN(DATE(ol.created_at)) FROM order_line ol", nativeQuery = true)
+    Date firstSalesDate();
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM daily_sales_rollup)", nativeQuery = true)
+    long hasRows();
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_sales_rollup WHERE sales_date >= :startDate AND sales_date <= :endDate", nativeQuery = true)
+    void deleteBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sales_date, variant_id, quantity, revenue, order_count, return_quantity, return_revenue, created_at, updated_at)" +
+            " SELECT DATE(ol.created_at), ol.variant_id, SUM(ol.quantity), SUM(ol.price * ol.quantity), COUNT(DISTINCT ol.order_id), 0, 0, NOW(), NOW()" +
+            " FROM order_line ol" +
+            " WHERE ol.created_at >= :startDate AND ol.created_at < DATE_ADD(:endDate, INTERVAL 1 DAY)" +
+            " GROUP BY DATE(ol.created_at), ol.variant_id", nativeQuery = true)
+    void rebuildVariantSales(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sales_date, variant_id, quantity, revenue, order_count, return_quantity, return_revenue, created_at, updated_at)" +
+            " SELECT DATE(ol.created_at), 0, SUM(ol.quantity), SUM(ol.price * ol.quantity), COUNT(DISTINCT ol.order_id), 0, 0, NOW(), NOW()" +
+            " FROM order_line ol" +
+            " WHERE ol.created_at >= :startDate AND ol.created_at < DATE_ADD(:endDate, INTERVAL 1 DAY)" +
+            " GROUP BY DATE(ol.created_at)", nativeQuery = true)
+    void rebuildDailySales(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sales_date, variant_id, quantity, revenue, order_count, return_quantity, return_revenue, created_at, updated_at)" +
+            " SELECT DATE(rl.created_at), rl.variant_id, 0, 0, 0, SUM(rl.return_quantity), SUM(rl.return_quantity * rl.return_price), NOW(), NOW()" +
+            " FROM return_order_line rl" +
+            " WHERE rl.created_at >= :startDate AND rl.created_at < DATE_ADD(:endDate, INTERVAL 1 DAY)" +
+            " GROUP BY DATE(rl.created_at), rl.variant_id" +
+            " ON DUPLICATE KEY UPDATE return_quantity = VALUES(return_quantity), return_revenue = VALUES(return_revenue)", nativeQuery = true)
+    void rebuildVariantReturns(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sales_date, variant_id, quantity, revenue, order_count, return_quantity, return_revenue, created_at, updated_at)" +
+            " SELECT DATE(rl.created_at), 0, 0, 0, 0, SUM(rl.return_quantity), SUM(rl.return_quantity * rl.return_price), NOW(), NOW()" +
+            " FROM return_order_line rl" +
+            " WHERE rl.created_at >= :startDate AND rl.created_at < DATE_ADD(:endDate, INTERVAL 1 DAY)" +
+            " GROUP BY DATE(rl.created_at)" +
+            " ON DUPLICATE KEY UPDATE return_quantity = VALUES(return_quantity), return_revenue = VALUES(return_revenue)", nativeQuery = true)
+    void rebuildDailyReturns(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT v, SUM(d.revenue) AS total FROM DailySalesRollup d JOIN Variant v ON v.id = d.variantId" +
+            " WHERE d.salesDate >= :startDate AND d.salesDate <= :endDate" +
+            " GROUP BY v ORDER BY total DESC")
+    List<Object[]> topVariantByRevenue(@Param("startDate") Date startDate, @Param("endDate") Date endDate, Pageable limit);
+
+    @Query("SELECT v, SUM(d.quantity) AS total FROM DailySalesRollup d JOIN Variant v ON v.id = d.variantId" +
+            " WHERE d.salesDate >= :startDate AND d.salesDate <= :endDate" +
+            " GROUP BY v ORDER BY total DESC")
+    List<Object[]> topVariantByQuantity(@Param("startDate") Date startDate, @Param("endDate") Date endDate, Pageable limit);
+
+    @Query("SELECT v, SUM(d.orderCount) AS total FROM DailySalesRollup d JOIN Variant v ON v.id = d.variantId" +
+            " WHERE d.salesDate >= :startDate AND d.salesDate <= :endDate" +
+            " GROUP BY v ORDER BY total DESC")
+    List<Object[]> topVariantByOrder(@Param("startDate") Date startDate, @Param("endDate") Date endDate, Pageable limit);
+
+    @Query(value = "SELECT d.sales_date, d.quantity, d.order_count, d.revenue FROM daily_sales_rollup d" +
+            " WHERE d.sales_date >= :startDate AND d.sales_date <= :endDate AND d.variant_id = 0" +
+            " ORDER BY d.sales_date", nativeQuery = true)
+    List<Object[]> dailyTotals(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
@@ -1,7 +1,13 @@
 package com.projectcnw.salesmanagement.repositories.OrderRepositories.NonJPARepository.impl;
 
-import com.projectcnw.salesmanagement.models.Order;
+import com.projectcnw.salesmanagement.dto.orderDtos.OrderCursor;
+import com.projectcnw.salesmanagement.dto.orderDtos.OrderListItemDto;
+import com.projectcnw.salesmanagement.dto.orderDtos.OrderStatistical;
+import com.projectcnw.salesmanagement.models.enums.PaymentStatus;
+import com.projectcnw.salesmanagement.models.enums.StatisticalGranularity;
 import com.projectcnw.salesmanagement.repositories.OrderRepositories.NonJpaOrderRepository;
+import com.projectcnw.salesmanagement.repositories.spec.NativeFilterQuery;
+import com.projectcnw.salesmanagement.repositories.spec.RowCounter;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
@@ -9,7 +15,11 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
 import java.util.List;
 
 @RequiredArgsConstructor
@@ -20,76 +30,104 @@ public class NonJpaOrderRepositoryImpl implements NonJpaOrderRepository {
     @PersistenceContext
     private final EntityManager entityManager;
 
+    private final RowCounter rowCounter;
+
+    private static final String LIST_ITEM_SELECT = "select o.id, o.created_at," +
+            " coalesce(o.customer_name, c.name), coalesce(o.phone, c.phone)," +
+            " p.payment_status, p.amount, sc.name";
 
     @Override
-    public List<Order> getOrderFilter(int page, int size, String query, LocalDateTime startDate, LocalDateTime endDate, List<String> listSaleChannel, List<String> listStatus) {
-        String baseQuery = "select o.*" +
-                " from _order o" +
-                " JOIN customer c ON o.customer_id = c.id " +
-                " LEFT JOIN sales_channel sc ON o.sales_channel_id = sc.id" +
-                " INNER JOIN payment p ON p.order_id = o.id AND p.order_type = 'ORDER' " +
-                " where 1 = 1 ";
-        Query productQuery = buildNativeQuery(baseQuery, query, startDate, endDate, listSaleChannel, listStatus);
+    public List<OrderListItemDto> getOrderFilter(int page, int size, String query, LocalDateTime startDate, LocalDateTime endDate, List<String> listSaleChannel, List<String> listStatus) {
+        NativeFilterQuery filterQuery = buildFilterQuery(query, startDate, endDate, listSaleChannel, listStatus);
+        Query productQuery = filterQuery.createQuery(entityManager, LIST_ITEM_SELECT, "order by o.created_at desc, o.id desc ");
         productQuery.setFirstResult((page) * size);
         productQuery.setMaxResults(size);
-        return (List<Order>) productQuery.getResultList();
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = productQuery.getResultList();
+        return toOrderListItemDtos(rows);
+    }
+
+    @Override
+    public List<OrderListItemDto> getOrderFilterAfter(OrderCursor cursor, int size, String query, LocalDateTime startDate, LocalDateTime endDate, List<String> listSaleChannel, List<String> listStatus) {
+        NativeFilterQuery filterQuery = buildFilterQuery(query, startDate, endDate, listSaleChannel, listStatus);
+        if (cursor != null) {
+            filterQuery.where("(o.created_at < :cursorCreatedAt or (o.created_at = :cursorCreatedAt and o.id < :cursorId))")
+                    .parameter("cursorCreatedAt", cursor.getCreatedAt())
+                    .parameter("cursorId", cursor.getId());
+        }
+        Query productQuery = filterQuery.createQuery(entityManager, LIST_ITEM_SELECT, "order by o.created_at desc, o.id desc ");
+        productQuery.setMaxResults(size);
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = productQuery.getResultList();
+        return toOrderListItemDtos(rows);
     }
 
     @Override
     public int countOrder(String query, LocalDateTime startDate, LocalDateTime endDate, List<String> listSaleChannel, List<String> listStatus) {
-        String baseQuery = "select o.*" +
-                " from _order o" +
-                " JOIN customer c ON o.customer_id = c.id " +
-                " LEFT JOIN sales_channel sc ON o.sales_channel_id = sc.id" +
-                " INNER JOIN payment p ON p.order_id = o.id AND p.order_type = 'ORDER' " +
-                " where 1 = 1 ";
-//                " where o.customer_id = c.id" +
-//                " and (o.sales_channel_id = sc.id or o.sales_channel_id is null) ";
-        Query productQuery = buildNativeQuery(baseQuery, query, startDate, endDate, listSaleChannel, listStatus);
-        productQuery.setFirstResult(0);
-        return productQuery.getResultList().size();
+        NativeFilterQuery filterQuery = buildFilterQuery(query, startDate, endDate, listSaleChannel, listStatus);
+        return rowCounter.count(filterQuery, "distinct o.id", "_order");
+    }
+
+    @Override
+    public List<OrderStatistical> statisticalByBucket(LocalDateTime startDate, LocalDateTime endDate, StatisticalGranularity granularity) {
+        String bucket = granularity.bucketExpression("ol.created_at");
+        Query statisticalQuery = entityManager.createNativeQuery("SELECT " + bucket + " AS bucket," +
+                        " SUM(ol.quantity), COUNT(DISTINCT ol.order_id), SUM(ol.price * ol.quantity)" +
+                        " FROM order_line ol" +
+                        " WHERE ol.created_at >= :startDate AND ol.created_at < :endDate" +
+                        " GROUP BY bucket ORDER BY bucket")
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate);
+        DateTimeFormatter bucketFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = statisticalQuery.getResultList();
+        return rows.stream().map(row -> new OrderStatistical(
+                row[1] == null ? 0L : ((Number) row[1]).longValue(),
+                ((Number) row[2]).longValue(),
+                row[3] == null ? 0L : ((Number) row[3]).longValue(),
+                Date.from(LocalDateTime.parse(row[0].toString(), bucketFormatter).atZone(ZoneId.systemDefault()).toInstant())
+        )).toList();
+    }
+
+    private List<OrderListItemDto> toOrderListItemDtos(List<Object[]> rows) {
+        return rows.stream().map(row -> {
+            OrderListItemDto orderListItemDto = new OrderListItemDto();
+            orderListItemDto.setOrderId(((Number) row[0]).intValue());
+            orderListItemDto.setCreatedAt(row[1] instanceof LocalDateTime createdAt ? Timestamp.valueOf(createdAt) : (Timestamp) row[1]);
+            orderListItemDto.setCustomerName((String) row[2]);
+            orderListItemDto.setPhone((String) row[3]);
+            orderListItemDto.setPaymentStatus(row[4] == null ? null : PaymentStatus.valueOf(row[4].toString()));
+            orderListItemDto.setAmount(row[5] == null ? 0 : ((Number) row[5]).intValue());
+            orderListItemDto.setSalesChannelName((String) row[6]);
+            return orderListItemDto;
+        }).toList();
     }
 
-    private Query buildNativeQuery(String baseQuery, String query, LocalDateTime startDate, LocalDateTime endDate, List<String> channels, List<String> listStatus) {
-        StringBuilder filterQuery = new StringBuilder(baseQuery);
+    private NativeFilterQuery buildFilterQuery(String query, LocalDateTime startDate, LocalDateTime endDate, List<String> channels, List<String> listStatus) {
+        NativeFilterQuery filterQuery = new NativeFilterQuery("from _order o")
+                .join("JOIN customer c ON o.customer_id = c.id")
+                .join("LEFT JOIN sales_channel sc ON o.sales_channel_id = sc.id")
+                .join("INNER JOIN payment p ON p.order_id = o.id AND p.order_type = 'ORDER'");
 
         if (listStatus != null && !listStatus.isEmpty()) {
-            filterQuery.append(" and p.payment_status in :listStatus ");
+            filterQuery.filter("p.payment_status in :listStatus", "listStatus", listStatus);
         }
 
         if (channels != null && !channels.isEmpty()) {
-            filterQuery.append(" and sc.code in :channels ");
+            filterQuery.filter("sc.code in :channels", "channels", channels);
         }
 
         if (startDate != null) {
-            filterQuery.append("AND o.created_at >= :startDate ");
-        }
-        if (endDate != null) {
-            filterQuery.append("AND o.created_at <= :endDate ");
-        }
-        if (query != null && !query.isEmpty()) {
-            filterQuery.append("and " +
-                    "              (lower(c.name) like concat('%', lower(:query), '%') \n" +
-                    "             or lower(c.phone) like concat('%', lower(:query), '%')) \n");
-        }
-        filterQuery.append("order by o.created_at desc ");
-        Query productQuery = entityManager.createNativeQuery(filterQuery.toString(), Order.class);
-        if (channels != null && !channels.isEmpty()) {
-            productQuery.setParameter("channels", channels);
-        }
-        if (listStatus != null && !listStatus.isEmpty()) {
-            productQuery.setParameter("listStatus", listStatus);
-        }
-        if (startDate != null) {
-            productQuery.setParameter("startDate", startDate);
+            filterQuery.filter("o.created_at >= :startDate", "startDate", startDate);
         }
         if (endDate != null) {
-            productQuery.setParameter("endDate", endDate);
+            filterQuery.filter("o.created_at <= :endDate", "endDate", endDate);
         }
         if (query != null && !query.isEmpty()) {
-            productQuery.setParameter("query", "%" + query + "%");
+            filterQuery.filter("(lower(c.name) like concat('%', lower(:query), '%') " +
+                    " or lower(c.phone) like concat('%', lower(:query), '%'))", "query", "%" + query + "%");
         }
-        return productQuery;
+        return filterQuery;
     }
 
 }
@@ -1,12 +1,19 @@
 package com.projectcnw.salesmanagement.repositories.OrderRepositories;
 
-import com.projectcnw.salesmanagement.models.Order;
+import com.projectcnw.salesmanagement.dto.orderDtos.OrderCursor;
+import com.projectcnw.salesmanagement.dto.orderDtos.OrderListItemDto;
+import com.projectcnw.salesmanagement.dto.orderDtos.OrderStatistical;
+import com.projectcnw.salesmanagement.models.enums.StatisticalGranularity;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 public interface NonJpaOrderRepository {
-    List<Order> getOrderFilter(int page, int size, String query, LocalDateTime startDate, LocalDateTime endDate, List<String> listSaleChannel, List<String> listStatus);
+    List<OrderListItemDto> getOrderFilter(int page, int size, String query, LocalDateTime startDate, LocalDateTime endDate, List<String> listSaleChannel, List<String> listStatus);
+
+    List<OrderListItemDto> getOrderFilterAfter(OrderCursor cursor, int size, String query, LocalDateTime startDate, LocalDateTime endDate, List<String> listSaleChannel, List<String> listStatus);
 
     public int countOrder(String query, LocalDateTime startDate, LocalDateTime endDate, List<String> listSaleChannel, List<String> listStatus);
+
+    List<OrderStatistical> statisticalByBucket(LocalDateTime startDate, LocalDateTime endDate, StatisticalGranularity granularity);
 }
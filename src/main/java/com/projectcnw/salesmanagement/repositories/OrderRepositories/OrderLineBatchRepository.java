@@ -0,0 +1,52 @@
+package com.projectcnw.salesmanagement.repositories.OrderRepositories;
+
+import com.projectcnw.salesmanagement.models.OrderLine;
+import com.projectcnw.salesmanagement.models.ReturnOrderLine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Ghi dòng đơn hàng / dòng trả hàng bằng JDBC batch. OrderLine và ReturnOrderLine dùng id IDENTITY
+ * nên Hibernate không gom được các câu INSERT; ở đây mỗi lô chỉ là một round trip
+ * (cùng với rewriteBatchedStatements của MySQL driver). Các entity truyền vào không được gán id.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderLineBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_ORDER_LINE_SQL =
+            "INSERT INTO order_line (created_at, updated_at, quantity, return_quantity, price, order_id, variant_id) " +
+                    "VALUES (CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_RETURN_ORDER_LINE_SQL =
+            "INSERT INTO return_order_line (created_at, updated_at, return_quantity, return_price, original_price, return_id, variant_id) " +
+                    "VALUES (CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // order của từng dòng phải được lưu trước để đã có id
+    public void insertOrderLines(List<OrderLine> orderLines) {
+        jdbcTemplate.batchUpdate(INSERT_ORDER_LINE_SQL, orderLines, BATCH_SIZE, (ps, orderLine) -> {
+            ps.setInt(1, orderLine.getQuantity());
+            ps.setInt(2, orderLine.getReturnQuantity());
+            ps.setInt(3, orderLine.getPrice());
+            ps.setInt(4, orderLine.getOrder().getId());
+            ps.setInt(5, orderLine.getVariant().getId());
+        });
+    }
+
+    public void insertReturnOrderLines(List<ReturnOrderLine> returnOrderLines) {
+        jdbcTemplate.batchUpdate(INSERT_RETURN_ORDER_LINE_SQL, returnOrderLines, BATCH_SIZE, (ps, returnOrderLine) -> {
+            ps.setInt(1, returnOrderLine.getReturnQuantity());
+            ps.setInt(2, returnOrderLine.getReturnPrice());
+            ps.setInt(3, returnOrderLine.getOriginalPrice());
+            ps.setInt(4, returnOrderLine.getReturnOrder().getId());
+            ps.setInt(5, returnOrderLine.getVariant().getId());
+        });
+    }
+}
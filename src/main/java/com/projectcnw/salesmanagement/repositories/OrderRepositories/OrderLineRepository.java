@@ -1,12 +1,18 @@
 package com.projectcnw.salesmanagement.repositories.OrderRepositories;
 
 import com.projectcnw.salesmanagement.models.OrderLine;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Date;
 import java.util.List;
 
 public interface OrderLineRepository extends JpaRepository<OrderLine, Integer> {
 
     List<OrderLine> findAllByOrderId(@Param("orderId") Integer orderId);
+
+    @Query("SELECT o FROM OrderLine o WHERE o.createdAt >= :startDate AND o.createdAt < :endDate AND o.id > :lastId ORDER BY o.id")
+    List<OrderLine> findChunkByTime(@Param("startDate") Date startDate, @Param("endDate") Date endDate, @Param("lastId") int lastId, Pageable pageable);
 }
@@ -3,11 +3,10 @@ package com.projectcnw.salesmanagement.repositories.OrderRepositories;
 import com.projectcnw.salesmanagement.dto.orderDtos.IOrderDetailInfo;
 import com.projectcnw.salesmanagement.dto.orderDtos.IOrderListItemDto;
 import com.projectcnw.salesmanagement.dto.orderDtos.OrderListItemDto;
-import com.projectcnw.salesmanagement.dto.orderDtos.OrderStatistical;
 import com.projectcnw.salesmanagement.models.Order;
-import com.projectcnw.salesmanagement.models.OrderLine;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -16,6 +15,7 @@ import org.springframework.stereotype.Repository;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Repository
 public interface
@@ -89,48 +89,44 @@ OrderRepository extends JpaRepository<Order, Integer> {
             " o.id = :orderId", nativeQuery = true)
     IOrderDetailInfo getOrderDetailInfo(@Param("orderId") Integer id);
 
+    // các API danh sách đơn theo khách hàng trả kèm dòng đơn và variant: load trong cùng một truy vấn
     @Query("SELECT o FROM Order o WHERE o.customer.id = :customerId")
+    @EntityGraph(attributePaths = {"orderLineList", "orderLineList.variant"})
     List<Order> findAllOrderByCustomer(@Param("customerId") int customerId);
 
-    @Query("SELECT o FROM OrderLine o WHERE o.createdAt >= :startDate AND o.createdAt <= :endDate")
-    List<OrderLine> statisticalOrderByTime(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
-
-    @Query("SELECT new com.projectcnw.salesmanagement.dto.orderDtos.OrderStatistical(sum(o.quantity), count(distinct o.order.id), sum(o.price * o.quantity), :startDate) FROM OrderLine o WHERE o.createdAt >= :startDate AND o.createdAt <= :endDate")
-    OrderStatistical statisticalByTime(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
-
 //    @Query("SELECT o FROM OrderLine o WHERE o.createdAt >= :startDate AND o.createdAt <= :endDate GROUP BY o.variant.id ORDER BY o.price DESC LIMIT 6")
 //    List<OrderLine> topProductByRevenue(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
 
 //    @Query("SELECT o FROM OrderLine o WHERE o.createdAt >= :startDate AND o.createdAt <= :endDate GROUP BY o.variant.id ORDER BY SUM(o.price) DESC LIMIT 6")
 //    List<OrderLine> topProductByRevenue(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
 
-    @Query("SELECT o.variant.id, SUM(o.price * o.quantity) AS totalRevenue " +
-            "FROM OrderLine o " +
+    @Query("SELECT v, SUM(o.price * o.quantity) AS totalRevenue " +
+            "FROM OrderLine o JOIN o.variant v " +
             "WHERE o.createdAt >= :startDate AND o.createdAt <= :endDate " +
-            "GROUP BY o.variant.id " +
+            "GROUP BY v " +
             "ORDER BY totalRevenue DESC")
-    List<Object[]> topProductByRevenue(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
+    List<Object[]> topProductByRevenue(@Param("startDate") Date startDate, @Param("endDate") Date endDate, Pageable limit);
 
-    @Query("SELECT o.variant.id, SUM(o.quantity) AS totalQuantity " +
-            "FROM OrderLine o " +
+    @Query("SELECT v, SUM(o.quantity) AS totalQuantity " +
+            "FROM OrderLine o JOIN o.variant v " +
             "WHERE o.createdAt >= :startDate AND o.createdAt <= :endDate " +
-            "GROUP BY o.variant.id " +
+            "GROUP BY v " +
             "ORDER BY totalQuantity DESC")
-    List<Object[]> topProductByQuantity(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
+    List<Object[]> topProductByQuantity(@Param("startDate") Date startDate, @Param("endDate") Date endDate, Pageable limit);
 
-    @Query("SELECT o.variant.id, COUNT (DISTINCT o.order.id) AS totalOrder " +
-            "FROM OrderLine o " +
+    @Query("SELECT v, COUNT (DISTINCT o.order.id) AS totalOrder " +
+            "FROM OrderLine o JOIN o.variant v " +
             "WHERE o.createdAt >= :startDate AND o.createdAt <= :endDate " +
-            "GROUP BY o.variant.id " +
+            "GROUP BY v " +
             "ORDER BY totalOrder DESC")
-    List<Object[]> topProductByOrder(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
+    List<Object[]> topProductByOrder(@Param("startDate") Date startDate, @Param("endDate") Date endDate, Pageable limit);
 
-    @Query("SELECT c.id, SUM(p.amount) AS totalRevenue " +
+    @Query("SELECT c, SUM(p.amount) AS totalRevenue " +
             "FROM Customer c LEFT JOIN Order o ON c.id = o.customer.id LEFT JOIN Payment p ON o.id = p.orderId " +
             "WHERE p.createdAt >= :startDate AND p.createdAt <= :endDate AND p.orderType = 'ORDER' AND c.phone != '-1' " +
-            "GROUP BY c.id " +
+            "GROUP BY c " +
             "ORDER BY totalRevenue DESC")
-    List<Object[]> topCustomerByRevenue(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
+    List<Object[]> topCustomerByRevenue(@Param("startDate") Date startDate, @Param("endDate") Date endDate, Pageable limit);
 
 //    @Query("SELECT c.id, SUM(p.amount) AS totalRevenue " +
 //            "FROM Customer c LEFT JOIN Order o ON c.id = o.customer.id LEFT JOIN Payment p ON o.id = p.orderId " +
@@ -139,15 +135,20 @@ OrderRepository extends JpaRepository<Order, Integer> {
 //            "ORDER BY totalRevenue DESC")
 //    List<Object[]> topCustomerByQuantity(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
 
-    @Query("SELECT c.id, COUNT (c.id) AS totalRevenue " +
+    @Query("SELECT c, COUNT (c.id) AS totalRevenue " +
             "FROM Customer c LEFT JOIN Order o ON c.id = o.customer.id LEFT JOIN Payment p ON o.id = p.orderId " +
             "WHERE p.createdAt >= :startDate AND p.createdAt <= :endDate AND p.orderType = 'ORDER' AND c.phone != '-1' " +
-            "GROUP BY c.id " +
+            "GROUP BY c " +
             "ORDER BY totalRevenue DESC")
-    List<Object[]> topCustomerByOrder(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
+    List<Object[]> topCustomerByOrder(@Param("startDate") Date startDate, @Param("endDate") Date endDate, Pageable limit);
 
 //    @Query("SELECT new com.sapo.salemanagement.dto.orderdtos.OrderStatistical(sum(o.quantity), count(distinct o.order.id), sum(o.price)) FROM OrderLine o WHERE o.createdAt >= :startDate AND o.createdAt <= :endDate")
 //    List<OrderStatistical> statisticalListByTime(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
 
+    @EntityGraph(attributePaths = {"orderLineList", "orderLineList.variant"})
     List<Order> getAllByCustomer_Id(int customerId);
+
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    @EntityGraph(attributePaths = {"orderLineList", "orderLineList.variant"})
+    Optional<Order> findWithOrderLinesById(@Param("id") int id);
 }
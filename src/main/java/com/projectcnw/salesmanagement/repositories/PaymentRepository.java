@@ -6,11 +6,15 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Integer> {
     Payment findPaymentByOrderId(int orderId);
     Payment findPaymentByOrderIdAndOrderType(int orderId, OrderType orderType);
+    List<Payment> findAllByOrderIdInAndOrderType(Collection<Integer> orderIds, OrderType orderType);
 
     @Query("SELECT p FROM Payment p WHERE p.orderId = :orderId AND p.orderType = 'ORDER' ")
     Payment findPaymentByOrder(@Param("orderId") int orderId);
@@ -93,8 +93,9 @@ public interface BaseProductRepository extends JpaRepository<BaseProduct, Intege
             "       bp.updated_at AS updatedAt\n" +
             "FROM base_product bp\n" +
             "LEFT JOIN variant v ON bp.id = v.base_id AND v.is_deleted = false\n" +
-            "GROUP BY bp.id, bp.name, bp.is_deleted HAVING (bp.name LIKE CONCAT('%', :keyword, '%') OR bp.label LIKE CONCAT('%', :keyword, '%')) AND bp.is_deleted = false\n", nativeQuery = true)
-    List<IBaseProductDto> findAllBaseProductsByKeyword(@Param("keyword") String keyword);
+            "WHERE bp.id IN :ids AND bp.is_deleted = false\n" +
+            "GROUP BY bp.id, bp.name, bp.is_deleted\n", nativeQuery = true)
+    List<IBaseProductDto> findAllBaseProductsByIds(@Param("ids") List<Integer> ids);
 
     @Query(value = "SELECT v.id as id, v.barcode as barcode, v.image as image, v.import_price as importPrice, v.name as name, v.quantity as quantity, v.retail_price as retailPrice, v.sku as sku, v.wholesale_price as wholeSalePrice, v.created_at as createdAt, v.updated_at as updatedAt, v.base_id as baseId, v.value1 as value1, v.value2 as value2, v.value3 as value3\n" +
             " FROM variant v WHERE v.base_id = :baseId AND v.is_deleted = false"
@@ -0,0 +1,192 @@
+package com.projectcnw.salesmanagement.repositories.ProductManagerRepository;
+
+import com.projectcnw.salesmanagement.models.InventoryMovement;
+import com.projectcnw.salesmanagement.models.InventorySnapshot;
+import com.projectcnw.salesmanagement.models.enums.HistoryType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sổ biến động tồn kho: {@link InventoryMovement} chỉ được thêm dòng (không sửa, không xoá), mỗi dòng là thay đổi
+ * tồn kho của một variant kèm loại nghiệp vụ và id chứng từ. {@link InventorySnapshot} lưu tồn kho cuối ngày của
+ * từng variant để tồn kho tại một ngày bất kỳ chỉ cần snapshot gần nhất cộng các dòng biến động sau đó.
+ * Ghi và tổng hợp theo lô bằng JDBC.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventoryMovementRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO inventory_movement (variant_id, type, quantity_change, reference_id, created_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    // chênh lệch được tính từ tồn kho hiện tại ngay trong câu lệnh (đọc có khoá) trước khi tồn kho bị ghi đè
+    private static final String INSERT_BALANCE_SQL = "INSERT INTO inventory_movement (variant_id, type, quantity_change, reference_id, created_at) " +
+            "SELECT v.id, 'BALANCE', ? - v.quantity, ?, ? FROM variant v WHERE v.id = ? AND v.quantity <> ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // variant id -> thay đổi tồn kho, theo đúng thứ tự truyền vào
+    public void insert(HistoryType type, Integer referenceId, List<Map.Entry<Integer, Integer>> deltas, Timestamp createdAt) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, deltas, BATCH_SIZE, (ps, delta) -> {
+            ps.setInt(1, delta.getKey());
+            ps.setString(2, type.name());
+            ps.setInt(3, delta.getValue());
+            ps.setObject(4, referenceId);
+            ps.setTimestamp(5, createdAt);
+        });
+    }
+
+    // variant id -> tồn kho mới, chỉ ghi những variant có tồn kho thay đổi
+    public void insertBalances(Integer referenceId, List<Map.Entry<Integer, Integer>> quantities, Timestamp createdAt) {
+        jdbcTemplate.batchUpdate(INSERT_BALANCE_SQL, quantities, BATCH_SIZE, (ps, quantity) -> {
+            ps.setInt(1, quantity.getValue());
+            ps.setObject(2, referenceId);
+            ps.setTimestamp(3, createdAt);
+            ps.setInt(4, quantity.getKey());
+            ps.setInt(5, quantity.getValue());
+        });
+    }
+
+    /**
+     * Dòng INIT cho các variant của những sản phẩm vừa tạo, với tồn kho ban đầu.
+     */
+    public void insertInitialByBaseIds(Collection<Integer> baseIds, Timestamp createdAt) {
+        if (baseIds.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>();
+        args.add(createdAt);
+        args.addAll(baseIds);
+        jdbcTemplate.update("INSERT INTO inventory_movement (variant_id, type, quantity_change, reference_id, created_at) " +
+                "SELECT v.id, 'INIT', v.quantity, NULL, ? FROM variant v WHERE v.base_id IN (" + placeholders(baseIds.size()) + ")", args.toArray());
+    }
+
+    /**
+     * Số dư đầu kỳ cho các variant chưa có dòng biến động nào (dữ liệu có từ trước khi có sổ).
+     */
+    public int insertOpeningBalances(Timestamp createdAt) {
+        return jdbcTemplate.update("INSERT INTO inventory_movement (variant_id, type, quantity_change, reference_id, created_at) " +
+                "SELECT v.id, 'INIT', v.quantity, NULL, ? FROM variant v " +
+                "WHERE NOT EXISTS (SELECT 1 FROM inventory_movement m WHERE m.variant_id = v.id)", createdAt);
+    }
+
+    public LocalDate getLastSnapshotDate() {
+        Date date = jdbcTemplate.queryForObject("SELECT MAX(snapshot_date) FROM inventory_snapshot", Date.class);
+        return date != null ? date.toLocalDate() : null;
+    }
+
+    public LocalDate getLastSnapshotDate(LocalDate onOrBefore) {
+        Date date = jdbcTemplate.queryForObject("SELECT MAX(snapshot_date) FROM inventory_snapshot WHERE snapshot_date <= ?",
+                Date.class, Date.valueOf(onOrBefore));
+        return date != null ? date.toLocalDate() : null;
+    }
+
+    /**
+     * Ghi snapshot cuối ngày date = snapshot ngày previous (null nếu chưa có) + biến động từ sau previous đến hết date.
+     */
+    public int insertSnapshot(LocalDate date, LocalDate previous) {
+        jdbcTemplate.update("DELETE FROM inventory_snapshot WHERE snapshot_date = ?", Date.valueOf(date));
+        return jdbcTemplate.update("INSERT INTO inventory_snapshot (snapshot_date, variant_id, quantity) " +
+                        "SELECT ?, t.variant_id, SUM(t.quantity) FROM (" + openingSource(previous) + ") t GROUP BY t.variant_id",
+                openingArgs(Date.valueOf(date), previous, date));
+    }
+
+    /**
+     * Tồn kho của một variant vào cuối ngày date: snapshot gần nhất của variant cộng biến động sau đó.
+     */
+    public int getQuantityAsOf(int variantId, LocalDate date) {
+        List<Object[]> snapshots = jdbcTemplate.query("SELECT snapshot_date, quantity FROM inventory_snapshot " +
+                        "WHERE variant_id = ? AND snapshot_date <= ? ORDER BY snapshot_date DESC LIMIT 1",
+                (rs, rowNum) -> new Object[]{rs.getDate(1).toLocalDate(), rs.getInt(2)}, variantId, Date.valueOf(date));
+        Timestamp end = Timestamp.valueOf(date.plusDays(1).atStartOfDay());
+        Integer delta;
+        if (snapshots.isEmpty()) {
+            delta = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(quantity_change), 0) FROM inventory_movement " +
+                    "WHERE variant_id = ? AND created_at < ?", Integer.class, variantId, end);
+            return delta != null ? delta : 0;
+        }
+        LocalDate snapshotDate = (LocalDate) snapshots.get(0)[0];
+        delta = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(quantity_change), 0) FROM inventory_movement " +
+                        "WHERE variant_id = ? AND created_at >= ? AND created_at < ?", Integer.class,
+                variantId, Timestamp.valueOf(snapshotDate.plusDays(1).atStartOfDay()), end);
+        return (Integer) snapshots.get(0)[1] + (delta != null ? delta : 0);
+    }
+
+    /**
+     * Tồn kho cuối ngày date của mọi variant có lịch sử (variant id -> số lượng).
+     */
+    public Map<Integer, Integer> getQuantitiesAsOf(LocalDate date) {
+        LocalDate previous = getLastSnapshotDate(date);
+        Map<Integer, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query("SELECT t.variant_id, SUM(t.quantity) FROM (" + openingSource(previous) + ") t GROUP BY t.variant_id",
+                rs -> {
+                    quantities.put(rs.getInt(1), rs.getInt(2));
+                }, openingArgs(null, previous, date));
+        return quantities;
+    }
+
+    /**
+     * Tổng biến động theo variant và loại trong [startDate, endDate]: [variant id, loại, tổng thay đổi].
+     */
+    public List<Object[]> sumMovements(LocalDate startDate, LocalDate endDate) {
+        return jdbcTemplate.query("SELECT m.variant_id, m.type, SUM(m.quantity_change) FROM inventory_movement m " +
+                        "WHERE m.created_at >= ? AND m.created_at < ? GROUP BY m.variant_id, m.type",
+                (rs, rowNum) -> new Object[]{rs.getInt(1), HistoryType.valueOf(rs.getString(2)), rs.getLong(3)},
+                Timestamp.valueOf(startDate.atStartOfDay()), Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+    }
+
+    // variant id -> [sku, tên]
+    public Map<Integer, String[]> getVariantNames(Collection<Integer> variantIds) {
+        Map<Integer, String[]> names = new HashMap<>();
+        if (variantIds.isEmpty()) {
+            return names;
+        }
+        jdbcTemplate.query("SELECT v.id, v.sku, v.name FROM variant v WHERE v.id IN (" + placeholders(variantIds.size()) + ")",
+                rs -> {
+                    names.put(rs.getInt(1), new String[]{rs.getString(2), rs.getString(3)});
+                }, variantIds.toArray());
+        return names;
+    }
+
+    // snapshot ngày previous (nếu có) và các dòng biến động sau previous đến hết ngày date
+    private static String openingSource(LocalDate previous) {
+        String movements = "SELECT m.variant_id, m.quantity_change AS quantity FROM inventory_movement m WHERE m.created_at < ?";
+        if (previous == null) {
+            return movements;
+        }
+        return "SELECT s.variant_id, s.quantity FROM inventory_snapshot s WHERE s.snapshot_date = ? " +
+                "UNION ALL " + movements + " AND m.created_at >= ?";
+    }
+
+    private static Object[] openingArgs(Object first, LocalDate previous, LocalDate date) {
+        List<Object> args = new ArrayList<>();
+        if (first != null) {
+            args.add(first);
+        }
+        if (previous != null) {
+            args.add(Date.valueOf(previous));
+        }
+        args.add(Timestamp.valueOf(date.plusDays(1).atStartOfDay()));
+        if (previous != null) {
+            args.add(Timestamp.valueOf(previous.plusDays(1).atStartOfDay()));
+        }
+        return args.toArray();
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+}
@@ -2,6 +2,9 @@ package com.projectcnw.salesmanagement.repositories.ProductManagerRepository.Non
 
 import com.projectcnw.salesmanagement.models.Products.BaseProduct;
 import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.NonJPARepository.NonJPAProductRepository;
+import com.projectcnw.salesmanagement.repositories.spec.NativeFilterQuery;
+import com.projectcnw.salesmanagement.repositories.spec.RowCounter;
+import com.projectcnw.salesmanagement.utils.SearchText;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
@@ -20,12 +23,13 @@ public class NonJpaProductRepository implements NonJPAProductRepository {
     @PersistenceContext
     private final EntityManager entityManager;
 
+    private final RowCounter rowCounter;
+
     @Override
     public List<BaseProduct> getAllProduct(int page, int size, String query, List<Integer> categoryIds, LocalDateTime startDate, LocalDateTime endDate, List<String> channels) {
-        String baseQuery = "SELECT bp.* " +
-                "FROM base_product bp " +
-                "LEFT JOIN variant v ON bp.id = v.base_id AND v.is_deleted = false ";
-        Query productQuery = buildNativeQuery(baseQuery, query, categoryIds, startDate, endDate, channels);
+        NativeFilterQuery filterQuery = buildFilterQuery(query, categoryIds, startDate, endDate, channels);
+        Query productQuery = filterQuery.createQuery(entityManager, "SELECT bp.*",
+                "GROUP BY bp.id, bp.name, bp.is_deleted ORDER BY bp.created_at DESC ", BaseProduct.class);
         productQuery.setFirstResult((page) * size);
         productQuery.setMaxResults(size);
         return (List<BaseProduct>) productQuery.getResultList();
@@ -33,75 +37,44 @@ public class NonJpaProductRepository implements NonJPAProductRepository {
 
     @Override
     public int countProducts(int page, int size, String query, List<Integer> categoryIds, LocalDateTime startDate, LocalDateTime endDate, List<String> channels) {
-        String baseQuery = "SELECT bp.* " +
-                "FROM base_product bp " +
-                "LEFT JOIN variant v ON bp.id = v.base_id AND v.is_deleted = false ";
-        Query productQuery = buildNativeQuery(baseQuery, query, categoryIds, startDate, endDate, channels);
-        productQuery.setFirstResult(0);
-        log.info("countProducts: " + productQuery);
-        return productQuery.getResultList().size();
+        NativeFilterQuery filterQuery = buildFilterQuery(query, categoryIds, startDate, endDate, channels);
+        return rowCounter.count(filterQuery, "DISTINCT bp.id", "base_product");
     }
 
-    private Query buildNativeQuery(String baseQuery, String query, List<Integer> categoryIds, LocalDateTime startDate, LocalDateTime endDate, List<String> channels) {
-        StringBuilder filterQuery = new StringBuilder(baseQuery);
-        boolean whereAdded = false;
+    private NativeFilterQuery buildFilterQuery(String query, List<Integer> categoryIds, LocalDateTime startDate, LocalDateTime endDate, List<String> channels) {
+        NativeFilterQuery filterQuery = new NativeFilterQuery("FROM base_product bp")
+                .join("LEFT JOIN variant v ON bp.id = v.base_id AND v.is_deleted = false");
 
         if (channels != null && !channels.isEmpty()) {
-            filterQuery.append(" INNER JOIN base_product_sales_channel bpsc ON bp.id = bpsc.base_product_id " +
-                    "INNER JOIN sales_channel sc ON bpsc.sales_channel_id = sc.id ");
-            if (!whereAdded) {
-                filterQuery.append("WHERE ");
-                whereAdded = true;
-            }
-            filterQuery.append("sc.code IN (:channels) AND bpsc.active = true ");
+            filterQuery.join("INNER JOIN base_product_sales_channel bpsc ON bp.id = bpsc.base_product_id " +
+                            "INNER JOIN sales_channel sc ON bpsc.sales_channel_id = sc.id")
+                    .filter("sc.code IN (:channels) AND bpsc.active = true", "channels", channels);
         }
 
         if (categoryIds != null && !categoryIds.isEmpty()) {
-            filterQuery.append(" INNER JOIN product_category bpc ON bp.id = bpc.product_id " +
-                    "INNER JOIN category c ON bpc.category_id = c.id ");
-            if (!whereAdded) {
-                filterQuery.append("WHERE ");
-                whereAdded = true;
-            } else {
-                filterQuery.append("AND ");
-            }
-            filterQuery.append("c.id IN (:categoryIds) ");
+            filterQuery.join("INNER JOIN product_category bpc ON bp.id = bpc.product_id " +
+                            "INNER JOIN category c ON bpc.category_id = c.id")
+                    .filter("c.id IN (:categoryIds)", "categoryIds", categoryIds);
         }
 
-        if (!whereAdded) {
-            filterQuery.append("WHERE bp.is_deleted = false ");
-            whereAdded = true;
-        } else {
-            filterQuery.append("AND bp.is_deleted = false ");
-        }
-        if (startDate != null) {
-            filterQuery.append("AND bp.created_at >= :startDate ");
-        }
-        if (endDate != null) {
-            filterQuery.append("AND bp.created_at <= :endDate ");
-        }
-        if (query != null && !query.isEmpty()) {
-            filterQuery.append("AND (bp.name LIKE :query OR bp.label LIKE :query) ");
-        }
-        filterQuery.append("GROUP BY bp.id, bp.name, bp.is_deleted " +
-                "ORDER BY bp.created_at DESC ");
-        Query productQuery = entityManager.createNativeQuery(filterQuery.toString(), BaseProduct.class);
-        if (channels != null && !channels.isEmpty()) {
-            productQuery.setParameter("channels", channels);
-        }
-        if (categoryIds != null && !categoryIds.isEmpty()) {
-            productQuery.setParameter("categoryIds", categoryIds);
-        }
+        filterQuery.where("bp.is_deleted = false");
+
         if (startDate != null) {
-            productQuery.setParameter("startDate", startDate);
+            filterQuery.filter("bp.created_at >= :startDate", "startDate", startDate);
         }
         if (endDate != null) {
-            productQuery.setParameter("endDate", endDate);
+            filterQuery.filter("bp.created_at <= :endDate", "endDate", endDate);
         }
         if (query != null && !query.isEmpty()) {
-            productQuery.setParameter("query", "%" + query + "%");
+            String searchQuery = SearchText.booleanQuery(query);
+            if (searchQuery != null) {
+                filterQuery.filter("bp.id IN (SELECT ps.base_id FROM product_search ps " +
+                        "WHERE MATCH (ps.search_text) AGAINST (:query IN BOOLEAN MODE))", "query", searchQuery);
+            } else {
+                filterQuery.filter("(bp.name LIKE :query OR bp.label LIKE :query)", "query", "%" + query + "%");
+            }
         }
-        return productQuery;
+        return filterQuery;
     }
 
 }
@@ -1,6 +1,9 @@
 package com.projectcnw.salesmanagement.repositories.ProductManagerRepository.NonJPARepository.impl;
 
 import com.projectcnw.salesmanagement.models.Products.Variant;
+import com.projectcnw.salesmanagement.repositories.spec.NativeFilterQuery;
+import com.projectcnw.salesmanagement.repositories.spec.RowCounter;
+import com.projectcnw.salesmanagement.utils.SearchText;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
@@ -18,12 +21,18 @@ public class NonJpaVariantRepository implements com.projectcnw.salesmanagement.r
     @PersistenceContext
     private final EntityManager entityManager;
 
+    private final RowCounter rowCounter;
+
     @Override
     public List<Variant> getAllVariantsFilter(int page, int size, String query, List<Integer> categoryIds, LocalDateTime startDate, LocalDateTime endDate, String sortBy, String order, List<String> channels) {
-        String baseQuery = "SELECT v.* " +
-                "FROM variant v " +
-                "LEFT JOIN base_product bp ON bp.id = v.base_id AND bp.is_deleted = false ";
-        Query productQuery = buildNativeQuery(baseQuery, query, categoryIds, startDate, endDate, sortBy, order, channels);
+        NativeFilterQuery filterQuery = buildFilterQuery(query, categoryIds, startDate, endDate, channels);
+        StringBuilder tailQuery = new StringBuilder("GROUP BY v.id, v.name, v.is_deleted ");
+        if ("price".equals(sortBy)) {
+            tailQuery.append("ORDER BY v.retail_price ").append(order.toUpperCase());
+        } else {
+            tailQuery.append("ORDER BY v.").append(sortBy).append(" ").append(order.toUpperCase());
+        }
+        Query productQuery = filterQuery.createQuery(entityManager, "SELECT v.*", tailQuery.toString(), Variant.class);
         productQuery.setFirstResult((page - 1) * size);
         productQuery.setMaxResults(size);
         return (List<Variant>) productQuery.getResultList();
@@ -31,83 +40,44 @@ public class NonJpaVariantRepository implements com.projectcnw.salesmanagement.r
 
     @Override
     public int countVariant(String query, List<Integer> categoryIds, LocalDateTime startDate, LocalDateTime endDate, List<String> channels) {
-        String baseQuery = "SELECT v.* " +
-                "FROM variant v " +
-                "LEFT JOIN base_product bp ON bp.id = v.base_id AND bp.is_deleted = false ";
-        Query productQuery = buildNativeQuery(baseQuery, query, categoryIds, startDate, endDate, "created_at", "desc", channels);
-        productQuery.setFirstResult(0);
-        return productQuery.getResultList().size();
+        NativeFilterQuery filterQuery = buildFilterQuery(query, categoryIds, startDate, endDate, channels);
+        return rowCounter.count(filterQuery, "DISTINCT v.id", "variant");
     }
 
-    private Query buildNativeQuery(String baseQuery, String query, List<Integer> categoryIds, LocalDateTime startDate, LocalDateTime endDate, String sortBy, String order, List<String> channels) {
-        StringBuilder filterQuery = new StringBuilder(baseQuery);
-        boolean whereAdded = false;
+    private NativeFilterQuery buildFilterQuery(String query, List<Integer> categoryIds, LocalDateTime startDate, LocalDateTime endDate, List<String> channels) {
+        NativeFilterQuery filterQuery = new NativeFilterQuery("FROM variant v")
+                .join("LEFT JOIN base_product bp ON bp.id = v.base_id AND bp.is_deleted = false");
 
         if (channels != null && !channels.isEmpty()) {
-            filterQuery.append(" INNER JOIN base_product_sales_channel bpsc ON bp.id = bpsc.base_product_id " +
-                    "INNER JOIN sales_channel sc ON bpsc.sales_channel_id = sc.id ");
-            if (!whereAdded) {
-                filterQuery.append("WHERE ");
-                whereAdded = true;
-            }
-            filterQuery.append("sc.code IN (:channels) AND bpsc.active = true ");
+            filterQuery.join("INNER JOIN base_product_sales_channel bpsc ON bp.id = bpsc.base_product_id " +
+                            "INNER JOIN sales_channel sc ON bpsc.sales_channel_id = sc.id")
+                    .filter("sc.code IN (:channels) AND bpsc.active = true", "channels", channels);
         }
 
         if (categoryIds != null && !categoryIds.isEmpty()) {
-            filterQuery.append(" INNER JOIN product_category bpc ON bp.id = bpc.product_id " +
-                    "INNER JOIN category c ON bpc.category_id = c.id ");
-            if (!whereAdded) {
-                filterQuery.append("WHERE ");
-                whereAdded = true;
-            } else {
-                filterQuery.append("AND ");
-            }
-            filterQuery.append("c.id IN (:categoryIds) ");
-        }
-
-        if (!whereAdded) {
-            filterQuery.append("WHERE v.is_deleted = false ");
-            whereAdded = true;
-        } else {
-            filterQuery.append("AND v.is_deleted = false ");
-        }
-
-        if (startDate != null) {
-            filterQuery.append("AND v.created_at >= :startDate ");
-        }
-        if (endDate != null) {
-            filterQuery.append("AND v.created_at <= :endDate ");
-        }
-        if (query != null && !query.isEmpty()) {
-            filterQuery.append("AND v.name LIKE :query ");
-        }
-
-        filterQuery.append("GROUP BY v.id, v.name, v.is_deleted ");
-        if ("price".equals(sortBy)) {
-            filterQuery.append("ORDER BY v.retail_price ").append(order.toUpperCase());
-        } else {
-            filterQuery.append("ORDER BY v.").append(sortBy).append(" ").append(order.toUpperCase());
+            filterQuery.join("INNER JOIN product_category bpc ON bp.id = bpc.product_id " +
+                            "INNER JOIN category c ON bpc.category_id = c.id")
+                    .filter("c.id IN (:categoryIds)", "categoryIds", categoryIds);
         }
 
-        Query productQuery = entityManager.createNativeQuery(filterQuery.toString(), Variant.class);
+        filterQuery.where("v.is_deleted = false");
 
-        if (channels != null && !channels.isEmpty()) {
-            productQuery.setParameter("channels", channels);
-        }
-        if (categoryIds != null && !categoryIds.isEmpty()) {
-            productQuery.setParameter("categoryIds", categoryIds);
-        }
         if (startDate != null) {
-            productQuery.setParameter("startDate", startDate);
+            filterQuery.filter("v.created_at >= :startDate", "startDate", startDate);
         }
         if (endDate != null) {
-            productQuery.setParameter("endDate", endDate);
+            filterQuery.filter("v.created_at <= :endDate", "endDate", endDate);
         }
         if (query != null && !query.isEmpty()) {
-            productQuery.setParameter("query", "%" + query + "%");
+            String searchQuery = SearchText.booleanQuery(query);
+            if (searchQuery != null) {
+                filterQuery.filter("v.id IN (SELECT ps.variant_id FROM product_search ps " +
+                        "WHERE MATCH (ps.search_text) AGAINST (:query IN BOOLEAN MODE))", "query", searchQuery);
+            } else {
+                filterQuery.filter("v.name LIKE :query", "query", "%" + query + "%");
+            }
         }
-
-        return productQuery;
+        return filterQuery;
     }
 
 }
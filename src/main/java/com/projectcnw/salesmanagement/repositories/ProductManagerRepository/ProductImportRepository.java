@@ -0,0 +1,110 @@
+package com.projectcnw.salesmanagement.repositories.ProductManagerRepository;
+
+import com.projectcnw.salesmanagement.dto.productDtos.BaseProductDto;
+import com.projectcnw.salesmanagement.dto.productDtos.VariantDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ghi sản phẩm / phiên bản nhập từ file theo batch JDBC (dùng cho import hàng loạt).
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductImportRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_BASE_PRODUCT_SQL =
+            "INSERT INTO base_product (created_at, updated_at, name, label, attribute1, attribute2, attribute3, description, is_deleted) " +
+                    "VALUES (CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, ?, ?, ?, ?, ?, ?, false)";
+
+    private static final String INSERT_VARIANT_SQL =
+            "INSERT INTO variant (created_at, updated_at, name, quantity, import_price, retail_price, wholesale_price, image, sku, barcode, value1, value2, value3, base_id, is_deleted) " +
+                    "VALUES (CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, false)";
+
+    private static final String INSERT_PRODUCT_CATEGORY_SQL =
+            "INSERT INTO product_category (category_id, product_id) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Ghi các base product trong một batch và trả về id được sinh theo đúng thứ tự truyền vào.
+     */
+    public List<Integer> insertBaseProducts(List<BaseProductDto> products) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Integer>>) connection -> {
+            List<Integer> ids = new ArrayList<>(products.size());
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_BASE_PRODUCT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < products.size(); from += BATCH_SIZE) {
+                    for (BaseProductDto product : products.subList(from, Math.min(from + BATCH_SIZE, products.size()))) {
+                        ps.setString(1, product.getName());
+                        ps.setString(2, product.getLabel());
+                        ps.setString(3, product.getAttribute1());
+                        ps.setString(4, product.getAttribute2());
+                        ps.setString(5, product.getAttribute3());
+                        ps.setString(6, product.getDescription());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        while (keys.next()) {
+                            ids.add(keys.getInt(1));
+                        }
+                    }
+                }
+            }
+            return ids;
+        });
+    }
+
+    // baseId của từng variant phải được gán trước
+    public void insertVariants(List<VariantDto> variants) {
+        jdbcTemplate.batchUpdate(INSERT_VARIANT_SQL, variants, BATCH_SIZE, (ps, variant) -> {
+            ps.setString(1, variant.getName());
+            ps.setInt(2, variant.getQuantity());
+            ps.setInt(3, variant.getImportPrice());
+            ps.setInt(4, variant.getRetailPrice());
+            ps.setInt(5, variant.getWholeSalePrice());
+            ps.setString(6, variant.getImage());
+            ps.setString(7, variant.getSku());
+            ps.setString(8, variant.getBarcode());
+            ps.setString(9, variant.getValue1());
+            ps.setString(10, variant.getValue2());
+            ps.setString(11, variant.getValue3());
+            ps.setInt(12, variant.getBaseId());
+        });
+    }
+
+    // mỗi phần tử: product id -> category id
+    public void insertProductCategories(List<Map.Entry<Integer, Integer>> productCategories) {
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT_CATEGORY_SQL, productCategories, BATCH_SIZE, (ps, productCategory) -> {
+            ps.setInt(1, productCategory.getValue());
+            ps.setInt(2, productCategory.getKey());
+        });
+    }
+
+    public Set<Integer> getCategoryIds() {
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM category", Integer.class));
+    }
+
+    public Set<String> findExistingSkus(Collection<String> skus) {
+        if (skus.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String placeholders = String.join(",", Collections.nCopies(skus.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT sku FROM variant WHERE sku IN (" + placeholders + ")",
+                String.class, skus.toArray()));
+    }
+}
@@ -0,0 +1,137 @@
+package com.projectcnw.salesmanagement.repositories.ProductManagerRepository;
+
+import com.projectcnw.salesmanagement.utils.SearchText;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Chỉ mục tìm kiếm sản phẩm: bảng product_search có FULLTEXT (ngram) trên văn bản đã bỏ dấu của
+ * tên / nhãn sản phẩm, tên phiên bản, SKU và barcode. Mỗi phiên bản còn hoạt động là một dòng.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductSearchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS product_search (" +
+            "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, " +
+            "base_id INT NOT NULL, " +
+            "variant_id INT NULL, " +
+            "search_text TEXT NOT NULL, " +
+            "KEY idx_product_search_base (base_id), " +
+            "KEY idx_product_search_variant (variant_id)" +
+            ") ENGINE = InnoDB DEFAULT CHARSET = utf8mb4";
+
+    private static final String SOURCE_SQL = "SELECT bp.id, bp.name, bp.label, v.id, v.name, v.sku, v.barcode " +
+            "FROM base_product bp LEFT JOIN variant v ON v.base_id = bp.id AND v.is_deleted = false " +
+            "WHERE bp.is_deleted = false AND bp.id IN (%s)";
+
+    private static final String INSERT_SQL = "INSERT INTO product_search (base_id, variant_id, search_text) VALUES (?, ?, ?)";
+
+    private static final String MATCH = "MATCH (ps.search_text) AGAINST (? IN BOOLEAN MODE)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Tạo bảng và chỉ mục FULLTEXT nếu chưa có. Stopword bị tắt khi tạo chỉ mục vì với ngram,
+     * mọi cụm chứa stopword tiếng Anh ("an", "on", ...) sẽ bị loại khỏi chỉ mục.
+     */
+    public void createIfNotExists() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+        Integer indexes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = 'product_search' AND index_name = 'ft_product_search'", Integer.class);
+        if (indexes != null && indexes > 0) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET SESSION innodb_ft_enable_stopword = OFF");
+                try {
+                    statement.execute("ALTER TABLE product_search ADD FULLTEXT INDEX ft_product_search (search_text) WITH PARSER ngram");
+                } finally {
+                    statement.execute("SET SESSION innodb_ft_enable_stopword = ON");
+                }
+            }
+            return null;
+        });
+    }
+
+    public long countEntries() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_search WHERE variant_id IS NOT NULL", Long.class);
+        return count != null ? count : 0;
+    }
+
+    public long countActiveVariants() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM variant v JOIN base_product bp ON bp.id = v.base_id " +
+                "WHERE v.is_deleted = false AND bp.is_deleted = false", Long.class);
+        return count != null ? count : 0;
+    }
+
+    public List<Integer> getBaseProductIdsAfter(int lastId, int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM base_product WHERE id > ? ORDER BY id LIMIT ?",
+                Integer.class, lastId, limit);
+    }
+
+    // dòng của sản phẩm đã bị xoá hẳn khỏi base_product
+    public int deleteOrphans() {
+        return jdbcTemplate.update("DELETE ps FROM product_search ps LEFT JOIN base_product bp ON bp.id = ps.base_id WHERE bp.id IS NULL");
+    }
+
+    /**
+     * Ghi lại các dòng chỉ mục của những sản phẩm này từ dữ liệu hiện tại; sản phẩm đã xoá chỉ bị gỡ khỏi chỉ mục.
+     */
+    public void reindex(Collection<Integer> baseIds) {
+        if (baseIds.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(",", Collections.nCopies(baseIds.size(), "?"));
+        Object[] args = baseIds.toArray();
+        List<Object[]> rows = new ArrayList<>();
+        jdbcTemplate.query(String.format(SOURCE_SQL, placeholders), rs -> {
+            int baseId = rs.getInt(1);
+            Integer variantId = rs.getObject(4) != null ? rs.getInt(4) : null;
+            rows.add(new Object[]{baseId, variantId,
+                    SearchText.document(rs.getString(2), rs.getString(3), rs.getString(5), rs.getString(6), rs.getString(7))});
+        }, args);
+        jdbcTemplate.update("DELETE FROM product_search WHERE base_id IN (" + placeholders + ")", args);
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setInt(1, (Integer) row[0]);
+            ps.setObject(2, row[1]);
+            ps.setString(3, (String) row[2]);
+        });
+    }
+
+    // id sản phẩm khớp truy vấn, xếp theo độ liên quan của phiên bản khớp nhất
+    public List<Integer> searchBaseProductIds(String booleanQuery, int offset, int size) {
+        return jdbcTemplate.queryForList("SELECT ps.base_id FROM product_search ps WHERE " + MATCH +
+                        " GROUP BY ps.base_id ORDER BY MAX(" + MATCH + ") DESC, ps.base_id DESC LIMIT ? OFFSET ?",
+                Integer.class, booleanQuery, booleanQuery, size, offset);
+    }
+
+    public long countBaseProducts(String booleanQuery) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT ps.base_id) FROM product_search ps WHERE " + MATCH,
+                Long.class, booleanQuery);
+        return count != null ? count : 0;
+    }
+
+    public List<Integer> searchVariantIds(String booleanQuery, int offset, int size) {
+        return jdbcTemplate.queryForList("SELECT ps.variant_id FROM product_search ps WHERE " + MATCH +
+                        " AND ps.variant_id IS NOT NULL ORDER BY " + MATCH + " DESC, ps.variant_id DESC LIMIT ? OFFSET ?",
+                Integer.class, booleanQuery, booleanQuery, size, offset);
+    }
+
+    public long countVariants(String booleanQuery) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_search ps WHERE " + MATCH +
+                " AND ps.variant_id IS NOT NULL", Long.class, booleanQuery);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,7 @@
+package com.projectcnw.salesmanagement.repositories.ProductManagerRepository;
+
+import com.projectcnw.salesmanagement.models.StockLedgerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface StockLedgerCheckpointRepository extends JpaRepository<StockLedgerCheckpoint, Integer> {
+}
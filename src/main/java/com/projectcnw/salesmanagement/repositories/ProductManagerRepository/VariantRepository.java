@@ -22,10 +22,10 @@ public interface VariantRepository extends JpaRepository<Variant, Integer> {
 
     // get all promotion by variantId
 
-    @Query(value = "SELECT DISTINCT v.id as id, v.barcode as barcode, v.image as image, v.import_price as importPrice, v.name as name, v.quantity as quantity, v.retail_price as retailPrice, v.sku as sku, v.wholesale_price as wholeSalePrice, v.created_at as createdAt, v.updated_at as updatedAt, v.base_id as baseId, v.value1 as value1, v.value2 as value2, v.value3 as value3\n" +
-            "FROM variant v WHERE v.is_deleted = false and (v.sku LIKE CONCAT('%', :keyword, '%') OR v.name LIKE CONCAT('%', :keyword, '%') OR v.barcode LIKE CONCAT('%', :keyword, '%')) ORDER BY v.created_at DESC"
+    @Query(value = "SELECT v.id as id, v.barcode as barcode, v.image as image, v.import_price as importPrice, v.name as name, v.quantity as quantity, v.retail_price as retailPrice, v.sku as sku, v.wholesale_price as wholeSalePrice, v.created_at as createdAt, v.updated_at as updatedAt, v.base_id as baseId, v.value1 as value1, v.value2 as value2, v.value3 as value3\n" +
+            "FROM variant v WHERE v.id IN :ids AND v.is_deleted = false"
             , nativeQuery = true)
-    List<IVariantDto> findAllVariantsByKeyword(@Param("keyword") String keyword);
+    List<IVariantDto> findAllVariantsByIds(@Param("ids") List<Integer> ids);
 //    @Transactional
 //    @Modifying
     @Query(value = "SELECT COUNT(*) FROM variant v WHERE v.is_deleted = false", nativeQuery = true)
@@ -0,0 +1,87 @@
+package com.projectcnw.salesmanagement.repositories.ProductManagerRepository;
+
+import com.projectcnw.salesmanagement.models.ImportItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class VariantStockRepository {
+
+    // chỉ cập nhật khi tồn kho sau thay đổi không âm, nên không thể bán quá số lượng có trong kho
+    private static final String ADJUST_QUANTITY_SQL =
+            "UPDATE variant SET quantity = quantity + ? WHERE id = ? AND quantity + ? >= 0";
+
+    private static final String ADD_QUANTITY_SQL = "UPDATE variant SET quantity = quantity + ? WHERE id = ?";
+
+    private static final String IMPORT_QUANTITY_SQL =
+            "UPDATE variant SET quantity = quantity + ?, import_price = ? WHERE id = ?";
+
+    private static final String SET_QUANTITY_SQL = "UPDATE variant SET quantity = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Cộng delta vào tồn kho của từng variant trong một batch, theo đúng thứ tự truyền vào.
+     * Trả về số dòng được cập nhật của từng phần tử: 0 nghĩa là không đủ hàng hoặc không tìm thấy variant.
+     */
+    public int[] adjustQuantities(List<Map.Entry<Integer, Integer>> deltas) {
+        return jdbcTemplate.batchUpdate(ADJUST_QUANTITY_SQL, deltas, deltas.size(), (ps, delta) -> {
+            ps.setInt(1, delta.getValue());
+            ps.setInt(2, delta.getKey());
+            ps.setInt(3, delta.getValue());
+        })[0];
+    }
+
+    /**
+     * Cộng delta vào tồn kho không kèm điều kiện, dùng khi số lượng đã được kiểm tra trước (stock ledger).
+     */
+    public void addQuantities(List<Map.Entry<Integer, Integer>> deltas) {
+        jdbcTemplate.batchUpdate(ADD_QUANTITY_SQL, deltas, deltas.size(), (ps, delta) -> {
+            ps.setInt(1, delta.getValue());
+            ps.setInt(2, delta.getKey());
+        });
+    }
+
+    /**
+     * Nhập hàng: cộng số lượng nhập và cập nhật giá nhập của từng variant trong một batch.
+     */
+    public void importQuantities(List<ImportItem> importItems) {
+        jdbcTemplate.batchUpdate(IMPORT_QUANTITY_SQL, importItems, importItems.size(), (ps, importItem) -> {
+            ps.setInt(1, importItem.getQuantity());
+            ps.setInt(2, importItem.getImportPrice());
+            ps.setInt(3, importItem.getId().getVariantId());
+        });
+    }
+
+    /**
+     * Kiểm kho: đặt tồn kho của từng variant (variant id -> số lượng thực tế) trong một batch.
+     */
+    public void setQuantities(List<Map.Entry<Integer, Integer>> quantities) {
+        jdbcTemplate.batchUpdate(SET_QUANTITY_SQL, quantities, quantities.size(), (ps, quantity) -> {
+            ps.setInt(1, quantity.getValue());
+            ps.setInt(2, quantity.getKey());
+        });
+    }
+
+    public Map<Integer, Integer> getQuantities(Collection<Integer> variantIds) {
+        if (variantIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        String placeholders = String.join(",", Collections.nCopies(variantIds.size(), "?"));
+        Map<Integer, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query("SELECT id, quantity FROM variant WHERE id IN (" + placeholders + ")",
+                rs -> {
+                    quantities.put(rs.getInt("id"), rs.getInt("quantity"));
+                },
+                variantIds.toArray());
+        return quantities;
+    }
+}
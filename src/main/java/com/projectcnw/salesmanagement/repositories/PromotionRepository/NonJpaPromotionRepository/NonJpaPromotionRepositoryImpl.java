@@ -2,6 +2,8 @@ package com.projectcnw.salesmanagement.repositories.PromotionRepository.NonJpaPr
 
 import com.projectcnw.salesmanagement.models.Promotion;
 import com.projectcnw.salesmanagement.models.enums.PromotionPolicyApplyType;
+import com.projectcnw.salesmanagement.repositories.spec.NativeFilterQuery;
+import com.projectcnw.salesmanagement.repositories.spec.RowCounter;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
@@ -20,11 +22,14 @@ public class NonJpaPromotionRepositoryImpl implements NonJpaPromotionRepository
     @PersistenceContext
     private final EntityManager entityManager;
 
+    private final RowCounter rowCounter;
+
     @Override
     public List<Promotion> getAllPromotionFilter(int page, int size, String query, String policyApply, String status, LocalDateTime startDate, String sortBy, String order) {
-        String baseQuery = "SELECT p.* " +
-                "FROM promotion p WHERE 1=1 \n";
-        Query promotionQuery = buildNativeQuery(baseQuery, query, policyApply, status, startDate, sortBy, order);
+        NativeFilterQuery filterQuery = buildFilterQuery(query, policyApply, status, startDate);
+        String tailQuery = "GROUP BY p.id, p.title \n" +
+                "ORDER BY p." + (sortBy.isEmpty() ? "id" : sortBy) + " " + order.toUpperCase();
+        Query promotionQuery = filterQuery.createQuery(entityManager, "SELECT p.*", tailQuery, Promotion.class);
         promotionQuery.setFirstResult((page) * size);
         promotionQuery.setMaxResults(size);
         return (List<Promotion>) promotionQuery.getResultList();
@@ -32,59 +37,31 @@ public class NonJpaPromotionRepositoryImpl implements NonJpaPromotionRepository
 
     @Override
     public int countPromotion(String query, String policyApply, String status, LocalDateTime startDate, String sortBy, String order) {
-        String baseQuery = "SELECT p.* " +
-                "FROM promotion p WHERE 1=1 \n";
-        Query productQuery = buildNativeQuery(baseQuery, query, policyApply, status, startDate, "id", "desc");
-        productQuery.setFirstResult(0);
-        return productQuery.getResultList().size();
+        NativeFilterQuery filterQuery = buildFilterQuery(query, policyApply, status, startDate);
+        return rowCounter.count(filterQuery, "DISTINCT p.id", "promotion");
     }
 
-    private Query buildNativeQuery(String baseQuery, String query, String policyApply, String status, LocalDateTime startDate, String sortBy, String order) {
-        StringBuilder filterQuery = new StringBuilder(baseQuery);
+    private NativeFilterQuery buildFilterQuery(String query, String policyApply, String status, LocalDateTime startDate) {
+        NativeFilterQuery filterQuery = new NativeFilterQuery("FROM promotion p");
 
         if (startDate != null) {
-            filterQuery.append("AND p.start_date >= :startDate \n");
+            filterQuery.filter("p.start_date >= :startDate", "startDate", startDate);
         }
 
-        if(status != null && !status.isEmpty()){
-            filterQuery.append("AND p.status = :status \n");
+        if (status != null && !status.isEmpty()) {
+            filterQuery.filter("p.status = :status", "status", status);
         }
 
         if (query != null && !query.isEmpty()) {
-            filterQuery.append("AND p.title LIKE :query \n");
+            filterQuery.filter("p.title LIKE :query", "query", "%" + query + "%");
         }
         if (policyApply != null && !policyApply.isEmpty()) {
             if (policyApply.equals(PromotionPolicyApplyType.COUPON.name())) {
-                filterQuery.append("AND p.policy_apply = 'COUPON' \n");
+                filterQuery.filter("p.policy_apply = 'COUPON'");
             } else {
-                filterQuery.append("AND p.policy_apply <> 'COUPON' \n");
+                filterQuery.filter("p.policy_apply <> 'COUPON'");
             }
         }
-        filterQuery.append("GROUP BY p.id, p.title \n");
-        if (!sortBy.isEmpty()) {
-            filterQuery.append("ORDER BY p.").append(sortBy).append(" ").append(order.toUpperCase());
-        } else {
-            filterQuery.append("ORDER BY p.").append("id").append(" ").append(order.toUpperCase());
-        }
-        Query promotionQuery = entityManager.createNativeQuery(filterQuery.toString(), Promotion.class);
-
-        if (startDate != null) {
-            promotionQuery.setParameter("startDate", startDate);
-        }
-
-        if (query != null && !query.isEmpty()) {
-            promotionQuery.setParameter("query", "%" + query + "%");
-        }
-        if(status != null && !status.isEmpty()) promotionQuery.setParameter("status", status);
-
-//        if(!sortBy.isEmpty()){
-//            promotionQuery.setParameter("sortBy", sortBy);
-//        }
-//
-//        if(!order.isEmpty()){
-//            promotionQuery.setParameter("order", order);
-//        }
-
-        return promotionQuery;
+        return filterQuery;
     }
 }
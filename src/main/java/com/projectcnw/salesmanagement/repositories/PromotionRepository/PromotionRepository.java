@@ -2,11 +2,16 @@ package com.projectcnw.salesmanagement.repositories.PromotionRepository;
 
 import com.projectcnw.salesmanagement.models.Promotion;
 import com.projectcnw.salesmanagement.models.enums.PromotionPolicyApplyType;
+import com.projectcnw.salesmanagement.models.enums.PromotionStatusType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 @Repository
@@ -24,6 +29,34 @@ public interface PromotionRepository extends JpaRepository<Promotion, Integer> {
             "ORDER BY p.created_at DESC)", nativeQuery = true)
     List<Promotion> getAllPromotionByVariantId(@Param("variantId") int variantId);
 
+    // promotion chưa hết hạn hoặc trạng thái chưa được chuyển sang expired, dùng idx_promotion_status_end_date
+    @Query("SELECT p.id, p.startDate, p.endDate, p.status FROM Promotion p " +
+            "WHERE p.status <> :expired OR p.endDate >= :now")
+    List<Object[]> getPendingTransitions(@Param("expired") PromotionStatusType expired, @Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Promotion p SET p.status = :status WHERE p.id IN :ids AND p.status <> :status")
+    int updateStatusByIds(@Param("ids") Collection<Integer> ids, @Param("status") PromotionStatusType status);
+
+    // các cột của promotion không kèm product/category, dùng để dựng chỉ mục promotion trong bộ nhớ
+    @Query("SELECT p.id, p.title, p.description, p.policyApply, p.value, p.valueType, p.startDate, p.endDate, p.status " +
+            "FROM Promotion p WHERE p.status = :status")
+    List<Object[]> getPromotionColumnsByStatus(@Param("status") PromotionStatusType status);
+
+    // cặp (product_id, promotion_id) của mọi promotion đang active, promotion theo danh mục được trải ra theo product_category
+    @Query(value = "SELECT pp.product_id, pp.promotion_id FROM promotion_product pp " +
+            "INNER JOIN base_product bp ON bp.id = pp.product_id " +
+            "INNER JOIN promotion p ON p.id = pp.promotion_id " +
+            "WHERE bp.is_deleted = false AND p.status = 'active' " +
+            "UNION " +
+            "SELECT bc.product_id, pc.promotion_id FROM promotion_category pc " +
+            "INNER JOIN product_category bc ON bc.category_id = pc.category_id " +
+            "INNER JOIN base_product bp ON bp.id = bc.product_id " +
+            "INNER JOIN promotion p ON p.id = pc.promotion_id " +
+            "WHERE bp.is_deleted = false AND p.status = 'active' AND p.policy_apply = 'CATEGORY'", nativeQuery = true)
+    List<Object[]> getActivePromotionIdsByProduct();
+
 
     // get Promotion with coupon title
     @Query(value = "SELECT p.* FROM promotion p WHERE p.title LIKE :title AND p.status = 'active' AND p.policy_apply = :policyApply \n" +
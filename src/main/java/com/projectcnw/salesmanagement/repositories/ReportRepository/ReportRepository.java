@@ -0,0 +1,134 @@
+package com.projectcnw.salesmanagement.repositories.ReportRepository;
+
+import com.projectcnw.salesmanagement.dto.report.ReportJobStatus;
+import com.projectcnw.salesmanagement.models.enums.ReportGrouping;
+import com.projectcnw.salesmanagement.models.enums.ReportType;
+import com.projectcnw.salesmanagement.repositories.ExportRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bảng report_artifact lưu kết quả báo cáo đã tính (JSON nén gzip) theo id là hash của spec,
+ * để các yêu cầu giống nhau dùng lại thay vì quét lại order_line.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReportRepository {
+
+    private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS report_artifact (" +
+            "id CHAR(64) NOT NULL PRIMARY KEY, " +
+            "spec VARCHAR(255) NOT NULL, " +
+            "status VARCHAR(16) NOT NULL, " +
+            "row_count INT NOT NULL DEFAULT 0, " +
+            "content LONGBLOB NULL, " +
+            "error VARCHAR(1000) NULL, " +
+            "created_at DATETIME(6) NOT NULL, " +
+            "finished_at DATETIME(6) NULL, " +
+            "KEY idx_report_artifact_finished_at (finished_at)" +
+            ") ENGINE = InnoDB DEFAULT CHARSET = utf8mb4";
+
+    private static final String STATUS_COLUMNS = "id, spec, status, row_count, COALESCE(LENGTH(content), 0), error, created_at, finished_at";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ExportRepository exportRepository;
+
+    public void createIfNotExists() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+    }
+
+    public ReportJobStatus findStatus(String id) {
+        List<ReportJobStatus> statuses = jdbcTemplate.query("SELECT " + STATUS_COLUMNS + " FROM report_artifact WHERE id = ?",
+                (rs, rowNum) -> ReportJobStatus.builder()
+                        .jobId(rs.getString(1))
+                        .spec(rs.getString(2))
+                        .status(rs.getString(3))
+                        .rowCount(rs.getInt(4))
+                        .size(rs.getLong(5))
+                        .error(rs.getString(6))
+                        .createdAt(rs.getTimestamp(7))
+                        .finishedAt(rs.getTimestamp(8))
+                        .build(), id);
+        return statuses.isEmpty() ? null : statuses.get(0);
+    }
+
+    // ghi đè kết quả cũ (nếu có) bằng một job mới đang chờ
+    public void saveQueued(String id, String spec, Timestamp createdAt) {
+        jdbcTemplate.update("INSERT INTO report_artifact (id, spec, status, row_count, content, error, created_at, finished_at) " +
+                        "VALUES (?, ?, 'QUEUED', 0, NULL, NULL, ?, NULL) " +
+                        "ON DUPLICATE KEY UPDATE status = 'QUEUED', row_count = 0, content = NULL, error = NULL, " +
+                        "created_at = VALUES(created_at), finished_at = NULL",
+                id, spec, createdAt);
+    }
+
+    public void markRunning(String id) {
+        jdbcTemplate.update("UPDATE report_artifact SET status = 'RUNNING' WHERE id = ?", id);
+    }
+
+    public void saveDone(String id, int rowCount, byte[] content, Timestamp finishedAt) {
+        jdbcTemplate.update("UPDATE report_artifact SET status = 'DONE', row_count = ?, content = ?, finished_at = ? WHERE id = ?",
+                rowCount, content, finishedAt, id);
+    }
+
+    public void saveFailed(String id, String error, Timestamp finishedAt) {
+        jdbcTemplate.update("UPDATE report_artifact SET status = 'FAILED', error = ?, finished_at = ? WHERE id = ?",
+                error, finishedAt, id);
+    }
+
+    // job đang chờ / đang chạy khi ứng dụng dừng sẽ không bao giờ xong
+    public int failUnfinished(Timestamp finishedAt) {
+        return jdbcTemplate.update("UPDATE report_artifact SET status = 'FAILED', error = 'interrupted by restart', finished_at = ? " +
+                "WHERE status IN ('QUEUED', 'RUNNING')", finishedAt);
+    }
+
+    public byte[] getContent(String id) {
+        List<byte[]> contents = jdbcTemplate.query("SELECT content FROM report_artifact WHERE id = ? AND status = 'DONE'",
+                (rs, rowNum) -> rs.getBytes(1), id);
+        return contents.isEmpty() ? null : contents.get(0);
+    }
+
+    public int deleteFinishedBefore(Timestamp before) {
+        return jdbcTemplate.update("DELETE FROM report_artifact WHERE finished_at < ?", before);
+    }
+
+    /**
+     * Tổng hợp bán hàng theo kỳ (và chiều nhóm) trong [startDate, endDate], đọc từng dòng qua handler:
+     * kỳ, [khoá, tên,] số lượng, doanh thu, số đơn, số lượng trả.
+     */
+    public void streamSales(ReportType type, ReportGrouping grouping, LocalDate startDate, LocalDate endDate,
+                            String channel, RowCallbackHandler handler) {
+        String period = type.granularity().bucketExpression("o.created_at");
+        String key = grouping.getKeyColumn() != null ? ", " + grouping.getKeyColumn() + ", " + grouping.getNameColumn() : "";
+        StringBuilder sql = new StringBuilder("SELECT ").append(period).append(" AS period").append(key)
+                .append(", SUM(ol.quantity), SUM(ol.quantity * ol.price), COUNT(DISTINCT ol.order_id), SUM(ol.return_quantity)")
+                .append(" FROM order_line ol JOIN _order o ON o.id = ol.order_id");
+        if (channel != null || grouping == ReportGrouping.CHANNEL) {
+            sql.append(" LEFT JOIN sales_channel sc ON sc.id = o.sales_channel_id");
+        }
+        if (grouping == ReportGrouping.VARIANT) {
+            sql.append(" LEFT JOIN variant v ON v.id = ol.variant_id");
+        } else if (grouping == ReportGrouping.CUSTOMER) {
+            sql.append(" LEFT JOIN customer c ON c.id = o.customer_id");
+        }
+        sql.append(" WHERE o.created_at >= ? AND o.created_at < ?");
+        List<Object> args = new ArrayList<>();
+        args.add(Timestamp.valueOf(startDate.atStartOfDay()));
+        args.add(Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+        if (channel != null) {
+            sql.append(" AND sc.code = ?");
+            args.add(channel);
+        }
+        sql.append(" GROUP BY period").append(key).append(" ORDER BY period");
+        if (grouping.getKeyColumn() != null) {
+            sql.append(", ").append(grouping.getKeyColumn());
+        }
+        exportRepository.stream(sql.toString(), handler, args.toArray());
+    }
+}
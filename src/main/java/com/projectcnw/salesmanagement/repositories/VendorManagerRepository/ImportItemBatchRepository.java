@@ -0,0 +1,33 @@
+package com.projectcnw.salesmanagement.repositories.VendorManagerRepository;
+
+import com.projectcnw.salesmanagement.models.ImportItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class ImportItemBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_IMPORT_ITEM_SQL =
+            "INSERT INTO import_item (import_id, variant_id, quantity, discount, import_price) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Ghi các dòng nhập hàng trong một batch thay vì save từng ImportItem.
+     */
+    public void insertImportItems(List<ImportItem> importItems) {
+        jdbcTemplate.batchUpdate(INSERT_IMPORT_ITEM_SQL, importItems, BATCH_SIZE, (ps, importItem) -> {
+            ps.setInt(1, importItem.getId().getImportOrderId());
+            ps.setInt(2, importItem.getId().getVariantId());
+            ps.setInt(3, importItem.getQuantity());
+            ps.setInt(4, importItem.getDiscount());
+            ps.setInt(5, importItem.getImportPrice());
+        });
+    }
+}
@@ -0,0 +1,83 @@
+package com.projectcnw.salesmanagement.repositories.spec;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Gom phần FROM/JOIN/WHERE của một truy vấn native có bộ lọc động để dùng chung
+ * cho cả câu lấy danh sách (select entity) và câu đếm (select count).
+ */
+public class NativeFilterQuery {
+
+    private final String fromClause;
+    private final StringBuilder joinClause = new StringBuilder();
+    private final StringBuilder whereClause = new StringBuilder();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private boolean filtered = false;
+
+    public NativeFilterQuery(String fromClause) {
+        this.fromClause = fromClause;
+    }
+
+    public NativeFilterQuery join(String join) {
+        joinClause.append(' ').append(join).append(' ');
+        return this;
+    }
+
+    /**
+     * Điều kiện cố định, luôn có mặt (ví dụ is_deleted = false).
+     */
+    public NativeFilterQuery where(String condition) {
+        whereClause.append(" AND ").append(condition).append(' ');
+        return this;
+    }
+
+    /**
+     * Điều kiện do người dùng truyền vào, kèm tham số tương ứng.
+     */
+    public NativeFilterQuery filter(String condition, String name, Object value) {
+        whereClause.append(" AND ").append(condition).append(' ');
+        parameters.put(name, value);
+        filtered = true;
+        return this;
+    }
+
+    public NativeFilterQuery filter(String condition) {
+        whereClause.append(" AND ").append(condition).append(' ');
+        filtered = true;
+        return this;
+    }
+
+    public NativeFilterQuery parameter(String name, Object value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    public boolean isFiltered() {
+        return filtered;
+    }
+
+    public String toSql(String selectClause, String tailClause) {
+        return selectClause + " " + fromClause + joinClause + " WHERE 1 = 1 " + whereClause + (tailClause == null ? "" : tailClause);
+    }
+
+    public Query createQuery(EntityManager entityManager, String selectClause, String tailClause, Class<?> resultClass) {
+        return bind(entityManager.createNativeQuery(toSql(selectClause, tailClause), resultClass));
+    }
+
+    public Query createQuery(EntityManager entityManager, String selectClause, String tailClause) {
+        return bind(entityManager.createNativeQuery(toSql(selectClause, tailClause)));
+    }
+
+    public Query createCountQuery(EntityManager entityManager, String countExpression) {
+        return bind(entityManager.createNativeQuery(toSql("SELECT COUNT(" + countExpression + ")", null)));
+    }
+
+    private Query bind(Query query) {
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+}
@@ -0,0 +1,50 @@
+package com.projectcnw.salesmanagement.repositories.spec;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Chạy câu COUNT trong database thay vì tải toàn bộ entity rồi gọi size().
+ * Khi bật application.pagination.estimated-count, danh sách không có bộ lọc sẽ
+ * lấy số dòng ước lượng từ information_schema thay vì quét bảng.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class RowCounter {
+
+    @PersistenceContext
+    private final EntityManager entityManager;
+
+    @Value("${application.pagination.estimated-count:false}")
+    private boolean estimatedCount;
+
+    public int count(NativeFilterQuery filterQuery, String countExpression, String tableName) {
+        if (estimatedCount && !filterQuery.isFiltered()) {
+            Long estimated = estimateRows(tableName);
+            if (estimated != null) {
+                return estimated.intValue();
+            }
+        }
+        Number total = (Number) filterQuery.createCountQuery(entityManager, countExpression).getSingleResult();
+        return total.intValue();
+    }
+
+    private Long estimateRows(String tableName) {
+        List<?> rows = entityManager.createNativeQuery("SELECT TABLE_ROWS FROM information_schema.TABLES " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = :tableName")
+                .setParameter("tableName", tableName)
+                .getResultList();
+        if (rows.isEmpty() || rows.get(0) == null) {
+            log.warn("Không có thống kê cho bảng " + tableName + ", chuyển sang COUNT");
+            return null;
+        }
+        return ((Number) rows.get(0)).longValue();
+    }
+}
@@ -1,5 +1,7 @@
 package com.projectcnw.salesmanagement.services.BalanceManagerServices;
 
+import com.projectcnw.salesmanagement.converter.VariantConverter;
+import com.projectcnw.salesmanagement.converter.WarehouseBalanceConverter;
 import com.projectcnw.salesmanagement.dto.balanceDtos.BalanceVariantDto;
 import com.projectcnw.salesmanagement.dto.balanceDtos.IBalanceVariantDto;
 import com.projectcnw.salesmanagement.dto.balanceDtos.WarehouseBalanceDto;
@@ -10,18 +12,23 @@ import com.projectcnw.salesmanagement.exceptions.ProductManagerExceptions.Produc
 import com.projectcnw.salesmanagement.models.Auth.UserEntity;
 import com.projectcnw.salesmanagement.models.Products.Variant;
 import com.projectcnw.salesmanagement.models.WarehouseBalance;
+import com.projectcnw.salesmanagement.repositories.BalanceManagerRepository.BalanceVariantBatchRepository;
 import com.projectcnw.salesmanagement.repositories.BalanceManagerRepository.BalanceVariantRepository;
 import com.projectcnw.salesmanagement.repositories.BalanceManagerRepository.WarehouseBalanceRepository;
 import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.VariantRepository;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.VariantStockRepository;
 import com.projectcnw.salesmanagement.repositories.UserRepository;
+import com.projectcnw.salesmanagement.services.ProductManagerServices.InventoryMovementService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,8 +36,12 @@ public class BalanceService {
     private final WarehouseBalanceRepository warehouseBalanceRepository;
     private final BalanceVariantRepository balanceVariantRepository;
     private final VariantRepository variantRepository;
+    private final VariantStockRepository variantStockRepository;
+    private final BalanceVariantBatchRepository balanceVariantBatchRepository;
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper = new ModelMapper();
+    private final InventoryMovementService inventoryMovementService;
+    private final WarehouseBalanceConverter warehouseBalanceConverter;
+    private final VariantConverter variantConverter;
 
 
     @Transactional
@@ -45,18 +56,24 @@ public class BalanceService {
         WarehouseBalance warehouseBalanceNew = warehouseBalanceRepository.save(warehouseBalance);
         if (warehouseBalanceDto.getBalanceVariantList().isEmpty()) throw new ProductException("Hãy thêm sản phẩm");
 
-        for (BalanceVariantDto balanceVariantDto : warehouseBalanceDto.getBalanceVariantList()) {
-            Variant variant = variantRepository.findById(balanceVariantDto.getVariantId());
-            if (variant == null) throw new ProductException("variant id "+variant.getId()+" is not found");
-
-            balanceVariantRepository.saveBalance(warehouseBalance.getId(), balanceVariantDto.getVariantId(), balanceVariantDto.getNote(),  balanceVariantDto.getRealQ(), variant.getQuantity());
-            variantRepository.updateQuantityAfterBalance(variant.getId(), balanceVariantDto.getRealQ());
+        // đọc tồn kho hiện tại của tất cả variant trong một truy vấn, ghi phiếu và cập nhật tồn kho theo batch
+        List<BalanceVariantDto> balanceVariantList = warehouseBalanceDto.getBalanceVariantList();
+        Map<Integer, Integer> savedQuantities = variantStockRepository.getQuantities(balanceVariantList.stream()
+                .map(BalanceVariantDto::getVariantId)
+                .collect(Collectors.toSet()));
+        Map<Integer, Integer> realQuantities = new LinkedHashMap<>();
+        for (BalanceVariantDto balanceVariantDto : balanceVariantList) {
+            if (!savedQuantities.containsKey(balanceVariantDto.getVariantId())) throw new ProductException("variant id "+balanceVariantDto.getVariantId()+" is not found");
+            realQuantities.put(balanceVariantDto.getVariantId(), balanceVariantDto.getRealQ());
+        }
 
-            // lưu lịch sử
+        balanceVariantBatchRepository.insertBalanceVariants(warehouseBalance.getId(), balanceVariantList, savedQuantities);
+        inventoryMovementService.recordBalance(warehouseBalanceNew.getId(), realQuantities);
+        variantStockRepository.setQuantities(new ArrayList<>(realQuantities.entrySet()));
 
-        }
+        // lưu lịch sử
 
-        WarehouseBalanceDto warehouseBalanceDto1 = modelMapper.map(warehouseBalanceNew, warehouseBalanceDto.getClass());
+        WarehouseBalanceDto warehouseBalanceDto1 = warehouseBalanceConverter.toDto(warehouseBalanceNew);
         warehouseBalanceDto1.setBalanceVariantList(warehouseBalanceDto.getBalanceVariantList());
         warehouseBalanceDto1.setPersonInCharge(user.getFullName());
 
@@ -72,28 +89,28 @@ public class BalanceService {
         int offset = (page -1)*size;
         List<IWarehouseBalanceDto> iWarehouseBalanceDtos = warehouseBalanceRepository.findAllWarehouseBalance(size, offset);
 
-        return Arrays.asList(modelMapper.map(iWarehouseBalanceDtos, WarehouseBalanceDto[].class));
+        return warehouseBalanceConverter.toDtoList(iWarehouseBalanceDtos);
     }
 
     public List<WarehouseBalanceDto> getAllWarehouseBalanceByKeyword(String keyword) {
         List<IWarehouseBalanceDto> iWarehouseBalanceDtos = warehouseBalanceRepository.findAllWarehouseBalanceByKeyword(keyword);
 
-        return Arrays.asList(modelMapper.map(iWarehouseBalanceDtos, WarehouseBalanceDto[].class));
+        return warehouseBalanceConverter.toDtoList(iWarehouseBalanceDtos);
     }
 
     public WarehouseBalanceDto getDetailWarehouseBalanceById(int warehouseId) {
         IWarehouseBalanceDto iWarehouseBalanceDto = warehouseBalanceRepository.findWarehouseBalanceById(warehouseId);
         if (iWarehouseBalanceDto == null) throw new ProductException("warehouseBalance id "+warehouseId+" is not found");
 
-        WarehouseBalanceDto warehouseBalanceDto = modelMapper.map(iWarehouseBalanceDto, WarehouseBalanceDto.class);
+        WarehouseBalanceDto warehouseBalanceDto = warehouseBalanceConverter.toDto(iWarehouseBalanceDto);
 
         List<IBalanceVariantDto> iBalanceVariantDtos = balanceVariantRepository.findByWarehouseBalanceId(warehouseId);
-        List<BalanceVariantDto> balanceVariantDtos = Arrays.asList(modelMapper.map(iBalanceVariantDtos, BalanceVariantDto[].class));
+        List<BalanceVariantDto> balanceVariantDtos = warehouseBalanceConverter.toBalanceVariantList(iBalanceVariantDtos);
 
         for (BalanceVariantDto balanceVariantDto : balanceVariantDtos) {
             Variant variant = variantRepository.findById(balanceVariantDto.getVariantId());
             if (variant == null) throw new ProductException("variant id "+balanceVariantDto.getVariantId()+" is not found");
-            VariantDto variantDto = modelMapper.map(variant,VariantDto.class);
+            VariantDto variantDto = variantConverter.toDto(variant);
 
             balanceVariantDto.setVariant(variantDto);
         }
@@ -12,9 +12,11 @@ import com.projectcnw.salesmanagement.repositories.spec.CategorySpecification;
 import com.projectcnw.salesmanagement.repositories.spec.MySpecification;
 import com.projectcnw.salesmanagement.repositories.spec.SearchCriteria;
 import com.projectcnw.salesmanagement.repositories.spec.SearchOperation;
+import com.projectcnw.salesmanagement.services.PromotionServices.PromotionChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -27,8 +29,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.springframework.data.jpa.domain.Specification.where;
 
@@ -38,8 +41,7 @@ import static org.springframework.data.jpa.domain.Specification.where;
 public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final BaseProductRepository productRepository;
-
-    private final ModelMapper modelMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ResponseEntity<PagedResponseObject> getAllCategory(int page, int size, String startDate, String endDate, String title) {
 
@@ -68,16 +70,16 @@ public class CategoryService {
         }
         Page<Category> listCategories = categoryRepository.findAll(spec, paging);
 
-        List<Category> list = Arrays.asList(modelMapper.map(listCategories.getContent(), Category[].class));
+        Map<Integer, Integer> productCounts = countProducts(listCategories.getContent().stream().map(Category::getId).toList());
         List<CategoryResponse> listResponse = new ArrayList<>();
-        for (Category category : list) {
+        for (Category category : listCategories.getContent()) {
             listResponse.add(CategoryResponse.builder().
                     id(category.getId()).
                     title(category.getTitle()).
                     slug(category.getSlug()).
                     description(category.getDescription()).
                     metaTitle(category.getMetaTitle()).
-                    productCount(productRepository.countProductByCategory(category.getId())).
+                    productCount(productCounts.getOrDefault(category.getId(), 0)).
                     build());
         }
         log.info("Get category by name use paging successfully");
@@ -145,11 +147,13 @@ public class CategoryService {
             }
         }
         categoryUpdate.setProducts(listProduct);
+        Category savedCategory = categoryRepository.save(categoryUpdate);
+        eventPublisher.publishEvent(new PromotionChangedEvent("update category " + id, false));
 
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200)
                 .message("Update category success")
-                .data(categoryRepository.save(categoryUpdate))
+                .data(savedCategory)
                 .build());
     }
 
@@ -162,6 +166,7 @@ public class CategoryService {
                     .build());
         }
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new PromotionChangedEvent("delete category " + id, false));
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200)
                 .message("Delete category success")
@@ -186,10 +191,12 @@ public class CategoryService {
             }
         }
         category.setProducts(listProduct);
+        Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new PromotionChangedEvent("add products to category " + id, false));
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200)
                 .message("Add list product to category success")
-                .data(categoryRepository.save(category))
+                .data(savedCategory)
                 .build());
     }
 
@@ -211,13 +218,30 @@ public class CategoryService {
             }
         }
         category.setProducts(listProduct);
+        Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new PromotionChangedEvent("remove products from category " + id, false));
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200)
                 .message("Delete list product from category success")
-                .data(categoryRepository.save(category))
+                .data(savedCategory)
                 .build());
     }
 
+    /**
+     * Số sản phẩm của từng category trong một truy vấn group by.
+     */
+    public Map<Integer, Integer> countProducts(List<Integer> categoryIds) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        if (categoryIds.isEmpty()) {
+            return counts;
+        }
+        for (Object[] row : categoryRepository.countProductsByCategoryIds(categoryIds)) {
+            counts.put(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+        }
+        return counts;
+    }
+
+    @Transactional(readOnly = true)
     public ResponseEntity<ResponseObject> getCategoryById(Integer id) {
         if (!categoryRepository.existsById(id)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ResponseObject.builder()
@@ -226,6 +250,9 @@ public class CategoryService {
                     .build());
         }
         Category category = categoryRepository.findById(id).get();
+        // sản phẩm và phiên bản được load theo batch (default_batch_fetch_size)
+        Hibernate.initialize(category.getProducts());
+        category.getProducts().forEach(product -> Hibernate.initialize(product.getVariants()));
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200)
                 .message("Get category by id success")
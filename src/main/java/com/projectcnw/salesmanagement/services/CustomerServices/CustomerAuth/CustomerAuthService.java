@@ -2,6 +2,7 @@ package com.projectcnw.salesmanagement.services.CustomerServices.CustomerAuth;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projectcnw.salesmanagement.configs.customer.CustomerAuthenticationManager;
+import com.projectcnw.salesmanagement.converter.UserInfoConverter;
 import com.projectcnw.salesmanagement.dto.ResponseObject;
 import com.projectcnw.salesmanagement.dto.auth.AuthResponse;
 import com.projectcnw.salesmanagement.dto.auth.UserInfoDto;
@@ -17,12 +18,15 @@ import com.projectcnw.salesmanagement.models.Customer;
 import com.projectcnw.salesmanagement.models.enums.TokenType;
 import com.projectcnw.salesmanagement.repositories.CustomerRepositories.CustomerRepository;
 import com.projectcnw.salesmanagement.repositories.TokenRepository;
+import com.projectcnw.salesmanagement.services.CustomerServices.CustomerChangedEvent;
+import com.projectcnw.salesmanagement.services.CustomerServices.CustomerStatsService;
 import com.projectcnw.salesmanagement.services.auth.JwtService;
+import com.projectcnw.salesmanagement.services.auth.JwtTokenCache;
 import com.projectcnw.salesmanagement.utils.UserUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -45,11 +49,19 @@ public class CustomerAuthService {
     private final TokenRepository tokenRepository;
 
     private final JwtService jwtService;
+
+    private final JwtTokenCache jwtTokenCache;
     private final AuthenticationManager authenticationManager;
     private final CustomerAuthenticationManager customerAuthenticationManager;
 
     private final CustomerDetailService userDetailsService;
 
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final CustomerStatsService customerStatsService;
+
+    private final UserInfoConverter userInfoConverter;
+
     public AuthResponse authenticate(CustomerLoginDto authDto) {
         if(authDto.getEmail() == null || authDto.getPassword() == null) {
             throw new BadRequestException("Email or password is null");
@@ -66,9 +78,8 @@ public class CustomerAuthService {
         String refreshToken = jwtService.generateRefreshToken(userEntity);
         revokeAllUserTokens(userEntity);
         saveCustomerToken(userEntity, token);
-        ModelMapper modelMapper = new ModelMapper();
         return AuthResponse.builder()
-                .user(modelMapper.map(userEntity, UserInfoDto.class))
+                .user(userInfoConverter.toDto(userEntity))
                 .accessToken(token)
                 .refreshToken(refreshToken)
                 .build();
@@ -102,7 +113,6 @@ public class CustomerAuthService {
 
     // Trường hợp khách hàng tạo tài khoản trên web thì nên tra sdt rồi bắt đầu update mật khẩu
     public ResponseEntity<ResponseObject> register(CustomerAuthDto authDto) {
-        ModelMapper modelMapper = new ModelMapper();
         // Kiểm tra xem khách hàng đã tồn tại hay không
         Optional<Customer> existingCustomer = userRepository.findByPhone(authDto.getPhone());
         if (existingCustomer.isPresent()) {
@@ -120,10 +130,7 @@ public class CustomerAuthService {
                 var jwtToken = jwtService.generateToken(existingCustomer.get());
                 String refreshToken = jwtService.generateRefreshToken(existingCustomer.get());
                 saveCustomerToken(existingCustomer.get(), jwtToken);
-                UserInfoDto userInfoDto = modelMapper.map(existingCustomer, UserInfoDto.class);
-                userInfoDto.setPhone(existingCustomer.get().getPhone());
-                userInfoDto.setFullName(existingCustomer.get().getName());
-                userInfoDto.setRoles(null);
+                UserInfoDto userInfoDto = userInfoConverter.toDto(existingCustomer.get());
                 return ResponseEntity.ok(ResponseObject.builder()
                         .responseCode(200)
                         .message("Success")
@@ -142,12 +149,11 @@ public class CustomerAuthService {
             userEntity1.setEmail(authDto.getEmail());
             userEntity1.setName(authDto.getFirstName() + " " + authDto.getLastName());
             userRepository.save(userEntity1);
+            customerStatsService.recordCustomer(userEntity1.getId());
+            eventPublisher.publishEvent(new CustomerChangedEvent(userEntity1.getId()));
 
             var jwtToken = jwtService.generateToken(userEntity1);
-            UserInfoDto userInfoDto = modelMapper.map(userEntity1, UserInfoDto.class);
-            userInfoDto.setPhone(userEntity1.getPhone());
-            userInfoDto.setFullName(userEntity1.getName());
-            userInfoDto.setRoles(null);
+            UserInfoDto userInfoDto = userInfoConverter.toDto(userEntity1);
             return ResponseEntity.ok(ResponseObject.builder()
                     .responseCode(200)
                     .message("Success")
@@ -213,6 +219,7 @@ public class CustomerAuthService {
             token.setRevoked(true);
         });
         tokenRepository.saveAll(validUserTokens);
+        jwtTokenCache.invalidateAfterCommit(validUserTokens.stream().map(Token::getToken).toList());
     }
 
     public AuthResponse refreshToken(
@@ -234,9 +241,8 @@ public class CustomerAuthService {
                 var accessToken = jwtService.generateToken(user);
                 revokeAllUserTokens(user);
                 saveCustomerToken(user, accessToken);
-                ModelMapper modelMapper = new ModelMapper();
                 var authResponse = AuthResponse.builder()
-                        .user(modelMapper.map(user, UserInfoDto.class))
+                        .user(userInfoConverter.toDto(user))
                         .accessToken(accessToken)
                         .refreshToken(refreshToken)
                         .build();
@@ -269,6 +275,7 @@ public class CustomerAuthService {
         customer.get().setDateOfBirth(customerUpdateRequest.getDateOfBirth());
         customer.get().setGender(customerUpdateRequest.getGender());
         userRepository.save(customer.get());
+        eventPublisher.publishEvent(new CustomerChangedEvent(customerId));
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200)
                 .message("Success")
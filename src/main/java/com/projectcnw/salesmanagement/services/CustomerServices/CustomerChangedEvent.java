@@ -0,0 +1,16 @@
+package com.projectcnw.salesmanagement.services.CustomerServices;
+
+import lombok.Getter;
+
+/**
+ * Phát ra khi khách hàng được tạo, sửa tên / số điện thoại hoặc bị xoá,
+ * để chỉ mục tìm kiếm khách hàng nạp lại khách hàng này.
+ */
+@Getter
+public class CustomerChangedEvent {
+    private final int customerId;
+
+    public CustomerChangedEvent(int customerId) {
+        this.customerId = customerId;
+    }
+}
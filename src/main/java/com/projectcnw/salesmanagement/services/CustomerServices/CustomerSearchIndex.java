@@ -0,0 +1,221 @@
+package com.projectcnw.salesmanagement.services.CustomerServices;
+
+import com.projectcnw.salesmanagement.repositories.CustomerRepositories.CustomerRepository;
+import com.projectcnw.salesmanagement.utils.SearchText;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chỉ mục trigram trong bộ nhớ cho tìm khách hàng theo tên (bỏ dấu) hoặc số điện thoại (chỉ giữ chữ số),
+ * khớp chuỗi con như LIKE '%term%' cũ nhưng không truy vấn DB.
+ * <p>
+ * Danh sách id theo trigram là mảng int đã sắp xếp, dựng lại định kỳ; khách hàng thay đổi sau lần dựng
+ * được đánh dấu và luôn được xét thêm khi tìm. Kết quả luôn được kiểm tra lại với dữ liệu hiện tại
+ * của khách hàng nên không bao giờ trả về bản ghi đã đổi hoặc đã xoá.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerSearchIndex {
+
+    private static final int GRAM = 3;
+
+    // số khách hàng thay đổi trước khi dựng lại danh sách trigram
+    private static final int COMPACT_THRESHOLD = 5_000;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final CustomerRepository customerRepository;
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    // id khách hàng thay đổi sau lần dựng gần nhất -> phiên bản thay đổi
+    private final Map<Integer, Long> dirty = new ConcurrentHashMap<>();
+
+    private final AtomicLong versions = new AtomicLong();
+
+    private volatile Map<String, int[]> postings = Collections.emptyMap();
+
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.error("Không thể nạp chỉ mục tìm kiếm khách hàng, sẽ nạp lại ở lần tìm đầu tiên", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        int customerId = event.getCustomerId();
+        dirty.put(customerId, versions.incrementAndGet());
+        customerRepository.findById(customerId).ifPresentOrElse(
+                customer -> entries.put(customerId, new Entry(customerId, customer.getName(), customer.getPhone())),
+                () -> entries.remove(customerId));
+        if (dirty.size() >= COMPACT_THRESHOLD) {
+            compact();
+        }
+    }
+
+    /**
+     * Id khách hàng có tên hoặc số điện thoại chứa từ khoá, id giảm dần (khách hàng mới trước).
+     * limit <= 0 trả về toàn bộ.
+     */
+    public List<Integer> search(String term, int limit) {
+        if (!loaded) {
+            load();
+        }
+        String name = normalizeName(term);
+        String phone = isPhoneLike(term) ? normalizePhone(term) : "";
+        if (name.isEmpty() && phone.isEmpty()) {
+            return List.of();
+        }
+
+        Collection<Integer> candidates;
+        if (name.length() < GRAM && phone.length() < GRAM) {
+            candidates = entries.keySet();
+        } else {
+            Set<Integer> union = new HashSet<>(dirty.keySet());
+            Map<String, int[]> current = postings;
+            for (int id : smallestPosting(current, name)) union.add(id);
+            for (int id : smallestPosting(current, phone)) union.add(id);
+            candidates = union;
+        }
+
+        List<Integer> result = new ArrayList<>();
+        for (Integer id : candidates) {
+            Entry entry = entries.get(id);
+            if (entry != null && entry.matches(name, phone)) {
+                result.add(id);
+            }
+        }
+        result.sort(Collections.reverseOrder());
+        return limit > 0 && result.size() > limit ? List.copyOf(result.subList(0, limit)) : result;
+    }
+
+    public synchronized void load() {
+        long start = System.currentTimeMillis();
+        for (Object[] row : customerRepository.getSearchColumns()) {
+            int id = ((Number) row[0]).intValue();
+            // khách hàng đã thay đổi trong lúc nạp giữ dữ liệu mới nhất từ sự kiện
+            if (!dirty.containsKey(id)) {
+                entries.put(id, new Entry(id, (String) row[1], (String) row[2]));
+            }
+        }
+        compact();
+        loaded = true;
+        log.info("Customer search index loaded in {} ms: {} customers, {} trigrams",
+                System.currentTimeMillis() - start, entries.size(), postings.size());
+    }
+
+    private synchronized void compact() {
+        Map<Integer, Long> compacted = new HashMap<>(dirty);
+        Map<String, IntList> built = new HashMap<>();
+        for (Entry entry : entries.values()) {
+            Set<String> grams = new HashSet<>();
+            addGrams(grams, entry.name);
+            addGrams(grams, entry.phone);
+            for (String gram : grams) {
+                built.computeIfAbsent(gram, key -> new IntList()).add(entry.id);
+            }
+        }
+        Map<String, int[]> next = new HashMap<>(built.size() * 2);
+        built.forEach((gram, ids) -> next.put(gram, ids.toSortedArray()));
+        postings = next;
+        // chỉ bỏ đánh dấu khi khách hàng không thay đổi thêm trong lúc dựng
+        compacted.forEach(dirty::remove);
+    }
+
+    // trigram hiếm nhất của từ khoá: mọi kết quả đều phải chứa nó
+    private static int[] smallestPosting(Map<String, int[]> postings, String value) {
+        if (value.length() < GRAM) {
+            return EMPTY;
+        }
+        int[] smallest = null;
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            int[] ids = postings.getOrDefault(value.substring(i, i + GRAM), EMPTY);
+            if (smallest == null || ids.length < smallest.length) {
+                smallest = ids;
+            }
+        }
+        return smallest;
+    }
+
+    private static void addGrams(Set<String> grams, String value) {
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+    }
+
+    private static String normalizeName(String value) {
+        return SearchText.fold(value).trim().replaceAll("\\s+", " ");
+    }
+
+    // chỉ giữ chữ số, đầu số +84 / 84 được đưa về 0
+    private static String normalizePhone(String value) {
+        if (value == null) {
+            return "";
+        }
+        String digits = value.replaceAll("\\D", "");
+        if (digits.startsWith("84") && digits.length() >= 11) {
+            digits = "0" + digits.substring(2);
+        }
+        return digits;
+    }
+
+    private static boolean isPhoneLike(String value) {
+        return value != null && value.matches("[\\d\\s+().-]*\\d[\\d\\s+().-]*");
+    }
+
+    private static class Entry {
+        private final int id;
+        private final String name;
+        private final String phone;
+
+        private Entry(int id, String name, String phone) {
+            this.id = id;
+            this.name = normalizeName(name);
+            this.phone = normalizePhone(phone);
+        }
+
+        private boolean matches(String name, String phone) {
+            return (!name.isEmpty() && this.name.contains(name)) || (!phone.isEmpty() && this.phone.contains(phone));
+        }
+    }
+
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toSortedArray() {
+            int[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
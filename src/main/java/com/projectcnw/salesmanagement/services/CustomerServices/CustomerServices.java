@@ -5,23 +5,28 @@ import com.projectcnw.salesmanagement.dto.ResponseObject;
 import com.projectcnw.salesmanagement.dto.customer.CustomerSpendingDTO;
 import com.projectcnw.salesmanagement.dto.customer.address.AddressRequest;
 import com.projectcnw.salesmanagement.exceptions.BadRequestException;
-import com.projectcnw.salesmanagement.exceptions.NotFoundException;
 import com.projectcnw.salesmanagement.models.Address;
 import com.projectcnw.salesmanagement.models.Customer;
+import com.projectcnw.salesmanagement.models.enums.CustomerSpendingSort;
 import com.projectcnw.salesmanagement.repositories.CustomerRepositories.AddressReppository.AddressRepository;
 import com.projectcnw.salesmanagement.repositories.CustomerRepositories.CustomerRepository;
+import com.projectcnw.salesmanagement.repositories.CustomerRepositories.CustomerStatsRepository;
 import com.projectcnw.salesmanagement.utils.UserUtil;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -32,72 +37,91 @@ public class CustomerServices {
 
     private final AddressRepository addressRepository;
 
+    private final CustomerSearchIndex customerSearchIndex;
+
+    private final CustomerStatsService customerStatsService;
+
+    private final CustomerStatsRepository customerStatsRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     public List<Customer> getAllCustomer(int page, int size) {
         int offset = (page - 1) * size;
         List<Customer> customerList = customerRepository.findAllCustomer(size, offset);
         return customerList;
     }
 
-    public List<CustomerSpendingDTO> getAllCustomerBySpending(int page, int size, String search) {
+    /**
+     * Danh sách khách hàng kèm chi tiêu, đọc từ bảng customer_stats theo chỉ mục của cột sắp xếp.
+     */
+    public List<CustomerSpendingDTO> getAllCustomerBySpending(int page, int size, String search, CustomerSpendingSort sort) {
         int offset = (page - 1) * size;
-        List<Object[]> customerDataList = customerRepository.findAllCustomerBySpending(size, offset, search);
-
-        List<CustomerSpendingDTO> customerList = new ArrayList<>();
-
-        for (Object[] data : customerDataList) {
-            int customerId = (int) data[0];
-            Customer customer = null;
-            customer = customerRepository.findById(customerId)
-                    .orElseThrow(() -> new NotFoundException("customer " + customerId + " not found"));
-//            BigDecimal totalAmount = (BigDecimal) data[1];
-//            BigDecimal orderCount = (BigDecimal) data[2];
-            BigDecimal totalAmount = (data[1] != null) ? BigDecimal.valueOf(((Number) data[1]).doubleValue()) : BigDecimal.ZERO;
-            BigDecimal orderCount = (data[2] != null) ? BigDecimal.valueOf(((Number) data[2]).doubleValue()) : BigDecimal.ZERO;
-
-            CustomerSpendingDTO customerSpending = new CustomerSpendingDTO(customer, totalAmount, orderCount);
-            customerList.add(customerSpending);
+        if (search == null || search.isBlank()) {
+            return toCustomerSpending(customerStatsRepository.findPage(sort, offset, size));
         }
-
-        return customerList;
+        List<Integer> ids = customerSearchIndex.search(search, 0);
+        if (sort == CustomerSpendingSort.NEWEST) {
+            // chỉ mục tìm kiếm đã trả về id giảm dần
+            List<Integer> pageIds = offset >= ids.size() ? List.of() : ids.subList(offset, Math.min(offset + size, ids.size()));
+            return toCustomerSpending(customerStatsRepository.findByCustomerIds(pageIds), pageIds);
+        }
+        return toCustomerSpending(customerStatsRepository.findPageByCustomerIds(ids, sort, offset, size));
     }
 
     public long countCustomer() {
         return customerRepository.count();
     }
 
+    public long countCustomer(String search) {
+        if (search == null || search.isBlank()) {
+            return countCustomer();
+        }
+        return customerSearchIndex.search(search, 0).size();
+    }
+
     public Customer getDetailCustomer(int customerId) {
         // Sử dụng findById để tìm khách hàng dựa trên id
         return customerRepository.findById(customerId)
                 .orElseThrow(() -> new BadRequestException("Không tìm thấy khách hàng với ID: " + customerId));
     }
 
-    public List<Customer> searchCustomers1(String searchTerm) {
-        return customerRepository.searchCustomersByNameOrPhone1(searchTerm);
+    public List<Customer> searchCustomers1(String searchTerm, int limit) {
+        return findCustomers(customerSearchIndex.search(searchTerm, limit));
     }
 
-    public List<CustomerSpendingDTO> searchCustomers(String searchTerm) {
-        List<Object[]> customerDataList = customerRepository.searchCustomersByNameOrPhone(searchTerm);
-
-        List<CustomerSpendingDTO> customerList = new ArrayList<>();
-
-        for (Object[] data : customerDataList) {
-            Customer customer = null;
-            if (data[0] != null) {
-                int customerId = (int) data[0];
-                customer = customerRepository.findById(customerId)
-                        .orElseThrow(() -> new NotFoundException("customer " + customerId + " not found"));
-                BigDecimal totalAmount = BigDecimal.valueOf(((Number) data[1]).doubleValue());
-                BigDecimal orderCount = BigDecimal.valueOf(((Number) data[2]).doubleValue());
+    public List<CustomerSpendingDTO> searchCustomers(String searchTerm, int limit) {
+        List<Integer> ids = customerSearchIndex.search(searchTerm, limit);
+        return toCustomerSpending(customerStatsRepository.findByCustomerIds(ids), ids);
+    }
 
-                CustomerSpendingDTO customerSpending = new CustomerSpendingDTO(customer, totalAmount, orderCount);
-                customerList.add(customerSpending);
-            }
+    // load khách hàng theo id, giữ nguyên thứ tự của danh sách id
+    private List<Customer> findCustomers(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, Customer> customerById = new HashMap<>();
+        customerRepository.findAllById(ids).forEach(customer -> customerById.put(customer.getId(), customer));
+        return ids.stream().map(customerById::get).filter(Objects::nonNull).toList();
+    }
 
-//            BigDecimal totalAmount = (BigDecimal) data[1];
-//            BigDecimal orderCount = (BigDecimal) data[2];
+    private List<CustomerSpendingDTO> toCustomerSpending(List<Object[]> stats) {
+        return toCustomerSpending(stats, stats.stream().map(row -> (Integer) row[0]).toList());
+    }
 
+    // ghép dòng customer_stats với khách hàng theo thứ tự ids; khách hàng chưa có dòng thống kê tính là 0
+    private List<CustomerSpendingDTO> toCustomerSpending(List<Object[]> stats, List<Integer> ids) {
+        Map<Integer, Object[]> statsById = new HashMap<>();
+        for (Object[] row : stats) {
+            statsById.put((Integer) row[0], row);
+        }
+        List<CustomerSpendingDTO> customerList = new ArrayList<>();
+        for (Customer customer : findCustomers(ids)) {
+            Object[] data = statsById.get(customer.getId());
+            customerList.add(data == null
+                    ? new CustomerSpendingDTO(customer, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, null)
+                    : new CustomerSpendingDTO(customer, BigDecimal.valueOf((Long) data[1]), BigDecimal.valueOf((Long) data[2]),
+                    BigDecimal.valueOf((Long) data[3]), (Timestamp) data[4]));
         }
-
         return customerList;
     }
 
@@ -129,7 +153,10 @@ public class CustomerServices {
         }
 
         // Lưu lại khách hàng với mã khách hàng đã được tạo
-        return customerRepository.save(savedCustomer);
+        Customer result = customerRepository.save(savedCustomer);
+        customerStatsService.recordCustomer(customerId);
+        eventPublisher.publishEvent(new CustomerChangedEvent(customerId));
+        return result;
     }
 
 
@@ -151,7 +178,9 @@ public class CustomerServices {
         existingCustomer.setEmail(customer.getEmail());
 
         // Lưu khách hàng đã cập nhật vào cơ sở dữ liệu
-        return customerRepository.save(existingCustomer);
+        Customer result = customerRepository.save(existingCustomer);
+        eventPublisher.publishEvent(new CustomerChangedEvent(customerId));
+        return result;
     }
 
 
@@ -163,6 +192,8 @@ public class CustomerServices {
         if (exists) {
             // Nếu khách hàng tồn tại, xóa khách hàng khỏi cơ sở dữ liệu
             customerRepository.deleteById(customerId);
+            customerStatsService.removeCustomer(customerId);
+            eventPublisher.publishEvent(new CustomerChangedEvent(customerId));
         } else {
             // Nếu không tìm thấy khách hàng, bạn có thể ném một ngoại lệ hoặc xử lý theo ý muốn
             throw new BadRequestException("Không tìm thấy khách hàng với ID: " + customerId);
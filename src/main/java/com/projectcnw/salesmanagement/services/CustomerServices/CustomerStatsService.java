@@ -0,0 +1,111 @@
+package com.projectcnw.salesmanagement.services.CustomerServices;
+
+import com.projectcnw.salesmanagement.models.Customer;
+import com.projectcnw.salesmanagement.models.Order;
+import com.projectcnw.salesmanagement.models.Payment;
+import com.projectcnw.salesmanagement.models.enums.OrderType;
+import com.projectcnw.salesmanagement.repositories.CustomerRepositories.CustomerStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Cập nhật bảng customer_stats. Các hàm record* phải được gọi trong cùng transaction với việc lưu
+ * đơn hàng / thanh toán để bảng tổng hợp không bao giờ lệch khỏi dữ liệu gốc.
+ * Tổng chi tiêu và tổng hoàn trả chỉ tính các thanh toán đã hoàn tất (COMPLETE).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerStatsService {
+
+    private static final int REBUILD_CHUNK = 1000;
+
+    private final CustomerStatsRepository customerStatsRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            long entries = customerStatsRepository.countEntries();
+            long customers = customerStatsRepository.countCustomers();
+            if (entries != customers) {
+                log.info("Customer stats has {} entries for {} customers, rebuilding", entries, customers);
+                rebuild();
+            }
+        } catch (RuntimeException e) {
+            log.error("Không thể khởi tạo bảng customer_stats", e);
+        }
+    }
+
+    public void recordCustomer(int customerId) {
+        customerStatsRepository.ensure(customerId);
+    }
+
+    public void removeCustomer(int customerId) {
+        customerStatsRepository.delete(customerId);
+    }
+
+    /**
+     * Đơn hàng vừa tạo; paidAmount là số tiền của thanh toán đã hoàn tất ngay khi tạo đơn (0 nếu chưa thanh toán).
+     */
+    public void recordOrder(Order order, long paidAmount) {
+        Customer customer = order.getCustomer();
+        if (customer == null) {
+            return;
+        }
+        Timestamp orderedAt = order.getCreatedAt() != null ? order.getCreatedAt() : new Timestamp(System.currentTimeMillis());
+        customerStatsRepository.addOrder(customer.getId(), orderedAt, paidAmount);
+    }
+
+    /**
+     * Thanh toán vừa chuyển sang COMPLETE: cộng vào tổng chi tiêu (đơn hàng) hoặc tổng hoàn trả (đơn trả).
+     */
+    public void recordPaymentCompleted(Payment payment) {
+        if (payment.getOrderType() == OrderType.RETURN) {
+            Integer customerId = customerStatsRepository.getCustomerIdOfReturnOrder(payment.getOrderId());
+            if (customerId != null) {
+                customerStatsRepository.addReturnAmount(customerId, payment.getAmount());
+            }
+        } else {
+            Integer customerId = customerStatsRepository.getCustomerIdOfOrder(payment.getOrderId());
+            if (customerId != null) {
+                customerStatsRepository.addSpent(customerId, payment.getAmount());
+            }
+        }
+    }
+
+    /**
+     * Tính lại toàn bộ bảng theo từng nhóm khách hàng, mỗi nhóm một transaction ngắn để không khoá
+     * các luồng đặt hàng lâu; danh sách vẫn đọc được các dòng cũ trong lúc dựng.
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        int lastId = 0;
+        int customers = 0;
+        List<Integer> customerIds;
+        while (!(customerIds = customerStatsRepository.getCustomerIdsAfter(lastId, REBUILD_CHUNK)).isEmpty()) {
+            int fromId = customerIds.get(0);
+            int toId = customerIds.get(customerIds.size() - 1);
+            transactionTemplate.executeWithoutResult(status -> customerStatsRepository.rebuild(fromId, toId));
+            lastId = toId;
+            customers += customerIds.size();
+        }
+        int orphans = customerStatsRepository.deleteOrphans();
+        log.info("Customer stats rebuilt in {} ms: {} customers, {} stale entries removed",
+                System.currentTimeMillis() - start, customers, orphans);
+    }
+
+    @Scheduled(cron = "${application.customer-stats.rebuild-cron:-}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+}
@@ -0,0 +1,160 @@
+package com.projectcnw.salesmanagement.services;
+
+import com.projectcnw.salesmanagement.exceptions.BadRequestException;
+import com.projectcnw.salesmanagement.repositories.ExportRepository;
+import com.projectcnw.salesmanagement.utils.CsvWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Xuất đơn hàng, dòng đơn hàng, phiên bản và khách hàng ra CSV. Mỗi dòng đọc từ DB được ghi ngay
+ * ra output stream của response (chunked), không dựng entity và không giữ danh sách trong bộ nhớ.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportService {
+
+    // số dòng giữa hai lần đẩy dữ liệu ra client
+    private static final int FLUSH_ROWS = 1000;
+
+    // tổng tiền các lần thanh toán của đơn, phương thức/trạng thái/ngày lấy theo lần thanh toán sau cùng
+    private static final String PAYMENT_PER_ORDER = "(SELECT order_id, SUM(amount) AS amount, MAX(id) AS last_id " +
+            "FROM payment WHERE order_type = 'ORDER' GROUP BY order_id)";
+
+    // mỗi đơn đúng một dòng kể cả khi có nhiều lần thanh toán
+    private static final String ORDER_SQL = "SELECT o.id, o.created_at, sc.name, COALESCE(c.name, o.customer_name), o.phone, o.address, " +
+            "u.full_name, o.discount, pa.amount, p.payment_method, p.payment_status, p.pay_date " +
+            "FROM _order o " +
+            "LEFT JOIN customer c ON c.id = o.customer_id " +
+            "LEFT JOIN sales_channel sc ON sc.id = o.sales_channel_id " +
+            "LEFT JOIN `user` u ON u.id = o.person_in_charge " +
+            "LEFT JOIN " + PAYMENT_PER_ORDER + " pa ON pa.order_id = o.id " +
+            "LEFT JOIN payment p ON p.id = pa.last_id ";
+
+    private static final String[] ORDER_HEADER = {"order_id", "created_at", "sales_channel", "customer", "phone", "address",
+            "staff", "discount", "amount", "payment_method", "payment_status", "pay_date"};
+
+    private static final String ORDER_LINE_SQL = "SELECT ol.order_id, o.created_at, v.id, v.sku, v.name, ol.quantity, ol.return_quantity, " +
+            "ol.price, ol.quantity * ol.price " +
+            "FROM order_line ol " +
+            "JOIN _order o ON o.id = ol.order_id " +
+            "JOIN variant v ON v.id = ol.variant_id ";
+
+    private static final String[] ORDER_LINE_HEADER = {"order_id", "created_at", "variant_id", "sku", "variant", "quantity",
+            "return_quantity", "price", "total"};
+
+    private static final String VARIANT_SQL = "SELECT v.id, v.sku, v.barcode, bp.name, v.name, v.value1, v.value2, v.value3, " +
+            "v.quantity, v.import_price, v.retail_price, v.wholesale_price " +
+            "FROM variant v JOIN base_product bp ON bp.id = v.base_id " +
+            "WHERE v.is_deleted = false AND bp.is_deleted = false " +
+            "ORDER BY v.id";
+
+    private static final String[] VARIANT_HEADER = {"variant_id", "sku", "barcode", "product", "variant", "value1", "value2",
+            "value3", "quantity", "import_price", "retail_price", "wholesale_price"};
+
+    // chi tiêu tính một lần bằng group by thay vì subquery cho từng khách hàng
+    private static final String CUSTOMER_SQL = "SELECT c.id, c.customer_code, c.name, c.phone, c.email, c.address, " +
+            "COALESCE(s.order_count, 0), COALESCE(s.total_amount, 0) " +
+            "FROM customer c LEFT JOIN (" +
+            "SELECT o.customer_id, COUNT(*) AS order_count, SUM(pa.amount) AS total_amount " +
+            "FROM _order o LEFT JOIN " + PAYMENT_PER_ORDER + " pa ON pa.order_id = o.id " +
+            "GROUP BY o.customer_id) s ON s.customer_id = c.id " +
+            "ORDER BY c.id";
+
+    private static final String[] CUSTOMER_HEADER = {"customer_id", "customer_code", "name", "phone", "email", "address",
+            "order_count", "total_amount"};
+
+    private final ExportRepository exportRepository;
+
+    public void exportOrders(String startDate, String endDate, OutputStream out) {
+        List<Object> args = new ArrayList<>();
+        String sql = ORDER_SQL + createdAtFilter(startDate, endDate, args) + " ORDER BY o.created_at, o.id";
+        export("orders", ORDER_HEADER, sql, args, out);
+    }
+
+    public void exportOrderLines(String startDate, String endDate, OutputStream out) {
+        List<Object> args = new ArrayList<>();
+        String sql = ORDER_LINE_SQL + createdAtFilter(startDate, endDate, args) + " ORDER BY ol.order_id, ol.id";
+        export("order lines", ORDER_LINE_HEADER, sql, args, out);
+    }
+
+    public void exportVariants(OutputStream out) {
+        export("variants", VARIANT_HEADER, VARIANT_SQL, List.of(), out);
+    }
+
+    public void exportCustomers(OutputStream out) {
+        export("customers", CUSTOMER_HEADER, CUSTOMER_SQL, List.of(), out);
+    }
+
+    /**
+     * Kiểm tra tham số ngày (yyyy-MM-dd, endDate tính cả ngày) trước khi bắt đầu ghi response.
+     */
+    public void validateDates(String startDate, String endDate) {
+        parseDate(startDate);
+        parseDate(endDate);
+    }
+
+    private void export(String name, String[] header, String sql, List<Object> args, OutputStream out) {
+        long start = System.currentTimeMillis();
+        long[] rows = new long[1];
+        try {
+            CsvWriter writer = new CsvWriter(out);
+            writer.writeRow((Object[]) header);
+            exportRepository.stream(sql, rs -> {
+                Object[] values = new Object[header.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = rs.getObject(i + 1);
+                }
+                try {
+                    writer.writeRow(values);
+                    if (++rows[0] % FLUSH_ROWS == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args.toArray());
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Exported {} {} rows in {} ms", rows[0], name, System.currentTimeMillis() - start);
+    }
+
+    private static String createdAtFilter(String startDate, String endDate, List<Object> args) {
+        LocalDate start = parseDate(startDate);
+        LocalDate end = parseDate(endDate);
+        List<String> conditions = new ArrayList<>();
+        if (start != null) {
+            conditions.add("o.created_at >= ?");
+            args.add(Timestamp.valueOf(start.atStartOfDay()));
+        }
+        if (end != null) {
+            conditions.add("o.created_at < ?");
+            args.add(Timestamp.valueOf(end.plusDays(1).atStartOfDay()));
+        }
+        return conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static LocalDate parseDate(String date) {
+        if (date == null || date.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Ngày " + date + " không hợp lệ (yyyy-MM-dd)");
+        }
+    }
+}
@@ -2,25 +2,248 @@ package com.projectcnw.salesmanagement.services;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.projectcnw.salesmanagement.dto.upload.ImageUploadStatus;
+import com.projectcnw.salesmanagement.exceptions.BadRequestException;
+import com.projectcnw.salesmanagement.exceptions.NotFoundException;
+import com.projectcnw.salesmanagement.exceptions.UpstreamServiceException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Tải ảnh lên Cloudinary qua hàng đợi: ảnh được chuyển từ multipart vào thư mục spool bằng
+ * {@link MultipartFile#transferTo(java.io.File)} với đường dẫn tuyệt đối, để Tomcat ({@code Part.write}) đổi tên
+ * file tạm khi cùng ổ đĩa thay vì sao chép lại ({@code transferTo(Path)} luôn sao chép toàn bộ qua stream),
+ * rồi được đẩy lên Cloudinary bởi một pool luồng có giới hạn. Tổng dung lượng spool và độ dài hàng đợi đều có giới hạn;
+ * file spool luôn bị xoá sau khi đẩy xong hoặc lỗi. Trạng thái lấy qua {@link #getStatus}.
+ */
 @Service
+@Slf4j
 public class ImageUploader {
+
+    private static final int MAX_FINISHED_JOBS = 1000;
+
     private final Cloudinary cloudinary;
 
-    @Autowired
-    public ImageUploader(Cloudinary cloudinary) {
+    private final Path spoolDir;
+
+    private final long maxSpoolBytes;
+
+    private final long waitTimeout;
+
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong spooledBytes = new AtomicLong();
+
+    private final Map<String, UploadJob> jobs = new LinkedHashMap<>();
+
+    public ImageUploader(Cloudinary cloudinary,
+                         @Value("${application.upload.spool-dir:${java.io.tmpdir}/image-upload}") String spoolDir,
+                         @Value("${application.upload.max-spool-bytes:268435456}") long maxSpoolBytes,
+                         @Value("${application.upload.threads:4}") int threads,
+                         @Value("${application.upload.queue-capacity:100}") int queueCapacity,
+                         @Value("${application.upload.wait-timeout:60000}") long waitTimeout) {
         this.cloudinary = cloudinary;
+        this.spoolDir = Paths.get(spoolDir);
+        this.maxSpoolBytes = maxSpoolBytes;
+        this.waitTimeout = waitTimeout;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "image-upload-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // file còn sót lại từ lần chạy trước không còn job nào theo dõi
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(spoolDir);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDir, "upload-*")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Đưa ảnh vào hàng đợi và trả về ngay job để theo dõi.
+     */
+    public ImageUploadStatus submit(MultipartFile file) {
+        return enqueue(file).toStatus();
+    }
+
+    /**
+     * Đưa ảnh vào hàng đợi rồi chờ kết quả; dùng cho client cũ cần URL ngay trong response.
+     */
+    public String uploadImage(MultipartFile file) {
+        UploadJob job = enqueue(file);
+        try {
+            return job.result.get(waitTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new UpstreamServiceException(HttpStatus.GATEWAY_TIMEOUT, "Tải ảnh quá thời gian chờ, theo dõi tiếp bằng job " + job.id);
+        } catch (ExecutionException e) {
+            throw new UpstreamServiceException(HttpStatus.BAD_GATEWAY, "Không thể tải ảnh lên: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BadRequestException("Tải ảnh bị huỷ");
+        }
     }
 
-    public String uploadImage(File imageFile) throws IOException {
+    public ImageUploadStatus getStatus(String jobId) {
+        UploadJob job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        if (job == null) throw new NotFoundException("upload job " + jobId + " not found");
+        return job.toStatus();
+    }
+
+    private UploadJob enqueue(MultipartFile file) {
+        if (file == null || file.isEmpty()) throw new BadRequestException("File ảnh không được trống");
+        long size = file.getSize();
+        if (spooledBytes.addAndGet(size) > maxSpoolBytes) {
+            spooledBytes.addAndGet(-size);
+            throw new BadRequestException("Hàng đợi tải ảnh đang đầy, vui lòng thử lại sau");
+        }
+
+        UploadJob job = new UploadJob(UUID.randomUUID().toString(), file.getOriginalFilename(), size);
+        Path spool = spoolDir.resolve("upload-" + job.id);
+        try {
+            file.transferTo(spool.toAbsolutePath().toFile());
+        } catch (IOException e) {
+            release(spool, size);
+            throw new UncheckedIOException("cannot spool uploaded image", e);
+        }
+
+        register(job);
+        try {
+            executor.execute(() -> run(job, spool));
+        } catch (RejectedExecutionException e) {
+            release(spool, size);
+            job.finish(null, "Hàng đợi tải ảnh đang đầy");
+            throw new BadRequestException("Hàng đợi tải ảnh đang đầy, vui lòng thử lại sau");
+        }
+        return job;
+    }
+
+    private void run(UploadJob job, Path spool) {
+        job.status = "UPLOADING";
+        long start = System.currentTimeMillis();
+        String url = null;
+        String error = null;
+        try {
+            Map<?, ?> result = cloudinary.uploader().upload(spool.toFile(), ObjectUtils.emptyMap());
+            url = (String) result.get("secure_url");
+        } catch (Exception e) {
+            log.error("Image upload {} failed", job.id, e);
+            error = e.getMessage();
+        } finally {
+            release(spool, job.size);
+        }
+        // chỉ báo xong sau khi đã xoá file spool và trả lại dung lượng
+        job.finish(url, error);
+        log.info("Image upload {} {} in {} ms ({} bytes)", job.id, job.status, System.currentTimeMillis() - start, job.size);
+    }
+
+    private void release(Path spool, long size) {
+        spooledBytes.addAndGet(-size);
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            log.warn("Cannot delete spooled image {}", spool, e);
+        }
+    }
+
+    private void register(UploadJob job) {
+        synchronized (jobs) {
+            int finished = (int) jobs.values().stream().filter(UploadJob::isFinished).count();
+            Iterator<UploadJob> iterator = jobs.values().iterator();
+            while (finished >= MAX_FINISHED_JOBS && iterator.hasNext()) {
+                if (iterator.next().isFinished()) {
+                    iterator.remove();
+                    finished--;
+                }
+            }
+            jobs.put(job.id, job);
+        }
+    }
+
+    private static class UploadJob {
+        private final String id;
+        private final String fileName;
+        private final long size;
+        private final Date createdAt = new Date();
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private volatile String status = "QUEUED";
+        private volatile String url;
+        private volatile String error;
+        private volatile Date finishedAt;
+
+        private UploadJob(String id, String fileName, long size) {
+            this.id = id;
+            this.fileName = fileName;
+            this.size = size;
+        }
+
+        private boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        private void finish(String url, String error) {
+            this.url = url;
+            this.error = error;
+            this.status = error == null ? "DONE" : "FAILED";
+            this.finishedAt = new Date();
+            if (error == null) {
+                result.complete(url);
+            } else {
+                result.completeExceptionally(new IllegalStateException(error));
+            }
+        }
 
-        Map<String, String> result = cloudinary.uploader().upload(imageFile, ObjectUtils.emptyMap());
-        return result.get("secure_url");
+        private ImageUploadStatus toStatus() {
+            return ImageUploadStatus.builder()
+                    .jobId(id)
+                    .fileName(fileName)
+                    .status(status)
+                    .size(size)
+                    .url(url)
+                    .error(error)
+                    .createdAt(createdAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
     }
 }
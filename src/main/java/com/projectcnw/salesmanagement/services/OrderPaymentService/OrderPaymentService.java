@@ -7,8 +7,10 @@ import com.projectcnw.salesmanagement.models.Payment;
 import com.projectcnw.salesmanagement.models.enums.OrderType;
 import com.projectcnw.salesmanagement.models.enums.PaymentStatus;
 import com.projectcnw.salesmanagement.repositories.PaymentRepository;
+import com.projectcnw.salesmanagement.services.CustomerServices.CustomerStatsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -16,6 +18,9 @@ public class OrderPaymentService {
 
     private final PaymentRepository paymentRepository;
 
+    private final CustomerStatsService customerStatsService;
+
+    @Transactional
     public void makeOrderPayment(MakePaymentDto makePaymentDto) {
 
         if (makePaymentDto.getReturnOrderId() != null) {
@@ -28,10 +33,14 @@ public class OrderPaymentService {
                 throw new NotFoundException("payment not found");
             }
 
+            boolean completed = returnPayment.getPaymentStatus() == PaymentStatus.COMPLETE;
             returnPayment.setPaymentMethod(makePaymentDto.getPaymentMethod());
             returnPayment.setPaymentStatus(PaymentStatus.COMPLETE);
             returnPayment.setCreatedAt(makePaymentDto.getCreatedAt());
             paymentRepository.save(returnPayment);
+            if (!completed) {
+                customerStatsService.recordPaymentCompleted(returnPayment);
+            }
         }
 
         if (makePaymentDto.getSwapOrderId() != null) {
@@ -44,10 +53,14 @@ public class OrderPaymentService {
                 throw new NotFoundException("payment not found");
             }
 
+            boolean completed = swapPayment.getPaymentStatus() == PaymentStatus.COMPLETE;
             swapPayment.setPaymentMethod(makePaymentDto.getPaymentMethod());
             swapPayment.setPaymentStatus(PaymentStatus.COMPLETE);
             swapPayment.setCreatedAt(makePaymentDto.getCreatedAt());
             paymentRepository.save(swapPayment);
+            if (!completed) {
+                customerStatsService.recordPaymentCompleted(swapPayment);
+            }
         }
     }
 }
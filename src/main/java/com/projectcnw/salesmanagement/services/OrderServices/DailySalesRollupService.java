@@ -0,0 +1,143 @@
+package com.projectcnw.salesmanagement.services.OrderServices;
+
+import com.projectcnw.salesmanagement.dto.orderDtos.OrderStatistical;
+import com.projectcnw.salesmanagement.models.DailySalesRollup;
+import com.projectcnw.salesmanagement.models.OrderLine;
+import com.projectcnw.salesmanagement.models.ReturnOrderLine;
+import com.projectcnw.salesmanagement.models.enums.StatisticalGranularity;
+import com.projectcnw.salesmanagement.repositories.OrderRepositories.DailySalesRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DailySalesRollupService {
+
+    private final DailySalesRollupRepository dailySalesRollupRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.rollup.read-enabled:false}")
+    private boolean readEnabled;
+
+    // chỉ đọc từ bảng tổng hợp sau khi đã kiểm tra / dựng lại lúc khởi động
+    private volatile boolean rollupReady;
+
+    @Value("${application.rollup.reconcile-days:7}")
+    private int reconcileDays;
+
+    public boolean isReadEnabled() {
+        return readEnabled && rollupReady;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!readEnabled) {
+            return;
+        }
+        try {
+            if (dailySalesRollupRepository.hasRows() == 0) {
+                java.sql.Date firstSalesDate = dailySalesRollupRepository.firstSalesDate();
+                if (firstSalesDate != null) {
+                    log.info("Daily sales rollup is empty, rebuilding from {}", firstSalesDate);
+                    LocalDate today = dailySalesRollupRepository.currentDate().toLocalDate();
+                    transactionTemplate.executeWithoutResult(status -> rebuild(firstSalesDate.toLocalDate(), today));
+                }
+            }
+            rollupReady = true;
+        } catch (RuntimeException e) {
+            log.error("Không thể dựng bảng daily_sales_rollup, thống kê đọc trực tiếp từ order_line", e);
+        }
+    }
+
+    /**
+     * Cộng dồn các dòng của một đơn hàng vừa tạo vào bảng tổng hợp của ngày hôm nay.
+     * Phải được gọi trong cùng transaction với việc lưu đơn hàng. Ngày lấy theo CURRENT_DATE của MySQL,
+     * cùng đồng hồ với created_at của dòng đơn hàng mà rebuild dùng.
+     */
+    public void recordOrderLines(List<OrderLine> orderLines) {
+        if (orderLines.isEmpty()) {
+            return;
+        }
+        // sắp xếp theo variant id để các transaction luôn khoá dòng theo cùng một thứ tự
+        Map<Integer, long[]> salesByVariant = new TreeMap<>();
+        long totalQuantity = 0;
+        long totalRevenue = 0;
+        for (OrderLine orderLine : orderLines) {
+            long revenue = (long) orderLine.getPrice() * orderLine.getQuantity();
+            long[] sales = salesByVariant.computeIfAbsent(orderLine.getVariant().getId(), id -> new long[2]);
+            sales[0] += orderLine.getQuantity();
+            sales[1] += revenue;
+            totalQuantity += orderLine.getQuantity();
+            totalRevenue += revenue;
+        }
+        salesByVariant.forEach((variantId, sales) ->
+                dailySalesRollupRepository.addSales(variantId, sales[0], sales[1], 1));
+        dailySalesRollupRepository.addSales(DailySalesRollup.ALL_VARIANTS, totalQuantity, totalRevenue, 1);
+    }
+
+    public void recordReturnLines(List<ReturnOrderLine> returnOrderLines) {
+        if (returnOrderLines.isEmpty()) {
+            return;
+        }
+        Map<Integer, long[]> returnsByVariant = new TreeMap<>();
+        long totalQuantity = 0;
+        long totalRevenue = 0;
+        for (ReturnOrderLine returnOrderLine : returnOrderLines) {
+            long revenue = (long) returnOrderLine.getReturnPrice() * returnOrderLine.getReturnQuantity();
+            long[] returns = returnsByVariant.computeIfAbsent(returnOrderLine.getVariant().getId(), id -> new long[2]);
+            returns[0] += returnOrderLine.getReturnQuantity();
+            returns[1] += revenue;
+            totalQuantity += returnOrderLine.getReturnQuantity();
+            totalRevenue += revenue;
+        }
+        returnsByVariant.forEach((variantId, returns) ->
+                dailySalesRollupRepository.addReturns(variantId, returns[0], returns[1]));
+        dailySalesRollupRepository.addReturns(DailySalesRollup.ALL_VARIANTS, totalQuantity, totalRevenue);
+    }
+
+    @Transactional
+    public void rebuild(LocalDate startDate, LocalDate endDate) {
+        long start = System.currentTimeMillis();
+        dailySalesRollupRepository.deleteBetween(startDate, endDate);
+        dailySalesRollupRepository.rebuildVariantSales(startDate, endDate);
+        dailySalesRollupRepository.rebuildDailySales(startDate, endDate);
+        dailySalesRollupRepository.rebuildVariantReturns(startDate, endDate);
+        dailySalesRollupRepository.rebuildDailyReturns(startDate, endDate);
+        log.info("Rebuilt daily sales rollup from {} to {} in {} ms", startDate, endDate, System.currentTimeMillis() - start);
+    }
+
+    @Scheduled(cron = "${application.rollup.reconcile-cron:0 30 1 * * *}")
+    @Transactional
+    public void reconcile() {
+        LocalDate today = dailySalesRollupRepository.currentDate().toLocalDate();
+        rebuild(today.minusDays(reconcileDays), today);
+    }
+
+    public List<OrderStatistical> statisticalByBucket(LocalDateTime startDate, LocalDateTime endDate, StatisticalGranularity granularity) {
+        Map<LocalDateTime, OrderStatistical> statisticalByBucket = new LinkedHashMap<>();
+        for (Object[] row : dailySalesRollupRepository.dailyTotals(startDate.toLocalDate(), endDate.minusNanos(1).toLocalDate())) {
+            LocalDate salesDate = row[0] instanceof LocalDate date ? date : ((java.sql.Date) row[0]).toLocalDate();
+            LocalDateTime bucket = granularity.truncate(salesDate.atStartOfDay());
+            OrderStatistical statistical = statisticalByBucket.computeIfAbsent(bucket, key -> new OrderStatistical(0L, 0L, 0L,
+                    Date.from(key.atZone(ZoneId.systemDefault()).toInstant())));
+            statistical.setNumberProductsSold(statistical.getNumberProductsSold() + ((Number) row[1]).longValue());
+            statistical.setOrderNumber(statistical.getOrderNumber() + ((Number) row[2]).longValue());
+            statistical.setRevenue(statistical.getRevenue() + ((Number) row[3]).longValue());
+        }
+        return new ArrayList<>(statisticalByBucket.values());
+    }
+}
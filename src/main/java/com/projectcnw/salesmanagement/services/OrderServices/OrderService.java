@@ -1,5 +1,6 @@
 package com.projectcnw.salesmanagement.services.OrderServices;
 
+import com.projectcnw.salesmanagement.converter.OrderInfoConverter;
 import com.projectcnw.salesmanagement.dto.ResponseObject;
 import com.projectcnw.salesmanagement.dto.orderDtos.*;
 import com.projectcnw.salesmanagement.dto.orderDtos.createOrder.CreateOrderDto;
@@ -9,19 +10,28 @@ import com.projectcnw.salesmanagement.exceptions.NotFoundException;
 import com.projectcnw.salesmanagement.models.Auth.UserEntity;
 import com.projectcnw.salesmanagement.models.*;
 import com.projectcnw.salesmanagement.models.Products.Variant;
+import com.projectcnw.salesmanagement.models.enums.HistoryType;
 import com.projectcnw.salesmanagement.models.enums.OrderType;
 import com.projectcnw.salesmanagement.models.enums.PaymentStatus;
+import com.projectcnw.salesmanagement.models.enums.StatisticalGranularity;
 import com.projectcnw.salesmanagement.repositories.CustomerRepositories.CustomerRepository;
+import com.projectcnw.salesmanagement.repositories.OrderRepositories.DailySalesRollupRepository;
 import com.projectcnw.salesmanagement.repositories.OrderRepositories.NonJPARepository.impl.NonJpaOrderRepositoryImpl;
+import com.projectcnw.salesmanagement.repositories.OrderRepositories.OrderLineBatchRepository;
 import com.projectcnw.salesmanagement.repositories.OrderRepositories.OrderLineRepository;
 import com.projectcnw.salesmanagement.repositories.OrderRepositories.OrderRepository;
 import com.projectcnw.salesmanagement.repositories.PaymentRepository;
 import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.VariantRepository;
 import com.projectcnw.salesmanagement.repositories.SaleChannelRepository.SalesChannelRepository;
 import com.projectcnw.salesmanagement.repositories.UserRepository;
+import com.projectcnw.salesmanagement.services.CustomerServices.CustomerStatsService;
+import com.projectcnw.salesmanagement.services.ProductManagerServices.InventoryMovementService;
+import com.projectcnw.salesmanagement.services.ProductManagerServices.InventoryReservationService;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,9 +41,11 @@ import java.sql.Date;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -45,6 +57,8 @@ public class OrderService {
 
     private final OrderLineRepository orderLineRepository;
 
+    private final OrderLineBatchRepository orderLineBatchRepository;
+
     private final CustomerRepository customerRepository;
 
     private final PaymentRepository paymentRepository;
@@ -55,165 +69,166 @@ public class OrderService {
 
     private final SalesChannelRepository salesChannelRepository;
 
-    private final ModelMapper modelMapper;
+    private final OrderInfoConverter orderInfoConverter;
 
     private final NonJpaOrderRepositoryImpl nonJpaVariantRepository;
 
-    public long countTotalOrders() {
-        return orderRepository.count();
-    }
+    private final EntityManager entityManager;
 
-    public List<OrderLine> statisticalByTime(java.util.Date startDate, java.util.Date endDate) {
-        List<OrderLine> result = new ArrayList<>();
+    private final DailySalesRollupService dailySalesRollupService;
 
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(startDate);
+    private final CustomerStatsService customerStatsService;
 
-        while (!calendar.getTime().after(endDate)) {
-            java.util.Date currentDate = calendar.getTime();
-            calendar.add(Calendar.DAY_OF_MONTH, 1); // Tăng ngày lên 1 để lấy ngày tiếp theo
-            java.util.Date nextDate = calendar.getTime();
-            List<OrderLine> statisticalList = orderRepository.statisticalOrderByTime(currentDate, nextDate);
-            result.addAll(statisticalList);
-        }
+    private final InventoryMovementService inventoryMovementService;
 
-        return result;
+    private final DailySalesRollupRepository dailySalesRollupRepository;
+
+    private final InventoryReservationService inventoryReservationService;
+
+    private static final int STATISTICAL_CHUNK_SIZE = 500;
+
+    private static final int MAX_TOP_LIMIT = 100;
+
+    public long countTotalOrders() {
+        return orderRepository.count();
     }
 
-    public List<OrderStatistical> statisticalListByTime(java.util.Date startDate, java.util.Date endDate) {
-        List<OrderStatistical> result = new ArrayList<>();
+    @Transactional(readOnly = true)
+    public void forEachOrderLineByTime(java.util.Date startDate, java.util.Date endDate, Consumer<OrderLine> consumer) {
+        // lấy trọn ngày endDate: khoảng nửa mở [startDate, đầu ngày sau endDate)
+        LocalDate lastDay = LocalDateTime.ofInstant(endDate.toInstant(), ZoneId.systemDefault()).toLocalDate();
+        java.util.Date endExclusive = java.util.Date.from(lastDay.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        int lastId = 0;
+        List<OrderLine> chunk;
+        do {
+            chunk = orderLineRepository.findChunkByTime(startDate, endExclusive, lastId, PageRequest.of(0, STATISTICAL_CHUNK_SIZE));
+            chunk.forEach(consumer);
+            if (!chunk.isEmpty()) {
+                lastId = chunk.get(chunk.size() - 1).getId();
+            }
+            entityManager.clear();
+        } while (chunk.size() == STATISTICAL_CHUNK_SIZE);
+    }
 
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(startDate);
+    @Transactional(readOnly = true)
+    public List<OrderStatistical> statisticalListByTime(java.util.Date startDate, java.util.Date endDate, StatisticalGranularity granularity) {
+        LocalDateTime firstBucket = granularity.truncate(LocalDateTime.ofInstant(startDate.toInstant(), ZoneId.systemDefault()));
+        LocalDateTime lastBucket = granularity.truncate(LocalDateTime.ofInstant(endDate.toInstant(), ZoneId.systemDefault()));
+        LocalDateTime rangeEnd = granularity.next(lastBucket);
+
+        List<OrderStatistical> statisticalList = granularity != StatisticalGranularity.HOUR && dailySalesRollupService.isReadEnabled()
+                ? dailySalesRollupService.statisticalByBucket(firstBucket, rangeEnd, granularity)
+                : nonJpaVariantRepository.statisticalByBucket(firstBucket, rangeEnd, granularity);
+        Map<java.util.Date, OrderStatistical> statisticalByBucket = new HashMap<>();
+        for (OrderStatistical statistical : statisticalList) {
+            statisticalByBucket.put(statistical.getCreatedAt(), statistical);
+        }
 
-        while (!calendar.getTime().after(endDate)) {
-            java.util.Date currentDate = calendar.getTime();
-            calendar.add(Calendar.DAY_OF_MONTH, 1); // Tăng ngày lên 1 để lấy ngày tiếp theo
-            java.util.Date nextDate = calendar.getTime();
-            OrderStatistical statistical = orderRepository.statisticalByTime(currentDate, nextDate);
-            result.add(statistical);
+        List<OrderStatistical> result = new ArrayList<>();
+        for (LocalDateTime bucket = firstBucket; bucket.isBefore(rangeEnd); bucket = granularity.next(bucket)) {
+            java.util.Date bucketDate = java.util.Date.from(bucket.atZone(ZoneId.systemDefault()).toInstant());
+            OrderStatistical statistical = statisticalByBucket.get(bucketDate);
+            result.add(statistical != null ? statistical : new OrderStatistical(0L, 0L, 0L, bucketDate));
         }
 
         return result;
     }
 
-    public List<TopOrder> topOrder(java.util.Date startDate, java.util.Date endDate, String type) {
+    @Transactional(readOnly = true)
+    public List<TopOrder> topOrder(java.util.Date startDate, java.util.Date endDate, String type, int limit) {
         List<TopOrder> result = new ArrayList<>();
-        List<Object[]> listVariant = orderRepository.topProductByRevenue(startDate, endDate);
-        if ("revenue".equals(type)) {
-            listVariant = orderRepository.topProductByRevenue(startDate, endDate);
-            System.out.println("revenue");
-        } else if ("quantity".equals(type)) {
-            listVariant = orderRepository.topProductByQuantity(startDate, endDate);
-            System.out.println("quantity");
-        } else if ("order".equals(type)) {
-            listVariant = orderRepository.topProductByOrder(startDate, endDate);
-            System.out.println("order");
-        }
-
-        for (Object[] data : listVariant) {
-            int variantId = (int) data[0];
-            Variant variant = null;
-            variant = variantRepository.findById((Integer) variantId)
-                    .orElseThrow(() -> new NotFoundException("variant " + variantId + " not found"));
+        for (Object[] data : topVariants(startDate, endDate, type, limit)) {
             BigDecimal value = BigDecimal.valueOf(((Number) data[1]).doubleValue());
-            TopOrder topOrder = new TopOrder(variant, value);
-            result.add(topOrder);
+            result.add(new TopOrder((Variant) data[0], value));
         }
-
         return result;
     }
 
-    public List<TopCustomer> topCustomer(java.util.Date startDate, java.util.Date endDate, String type) {
-        List<TopCustomer> result = new ArrayList<>();
-        List<Object[]> listCustomer = orderRepository.topCustomerByRevenue(startDate, endDate);
-        if ("revenue".equals(type)) {
-            listCustomer = orderRepository.topCustomerByRevenue(startDate, endDate);
-            System.out.println("revenue");
-//        } else if("quantity".equals(type)) {
-//            listVariant = orderRepository.topCustomerByQuantity(startDate, endDate);
-//            System.out.println("quantity");
+    /**
+     * Trả về tối đa limit dòng (Variant, giá trị) đã sắp xếp giảm dần theo type: revenue, quantity hoặc order.
+     */
+    public List<Object[]> topVariants(java.util.Date startDate, java.util.Date endDate, String type, int limit) {
+        Pageable top = topPage(limit);
+        if (dailySalesRollupService.isReadEnabled()) {
+            Date start = Date.valueOf(LocalDate.ofInstant(startDate.toInstant(), ZoneId.systemDefault()));
+            Date end = Date.valueOf(LocalDate.ofInstant(endDate.toInstant(), ZoneId.systemDefault()));
+            if ("quantity".equals(type)) {
+                return dailySalesRollupRepository.topVariantByQuantity(start, end, top);
+            } else if ("order".equals(type)) {
+                return dailySalesRollupRepository.topVariantByOrder(start, end, top);
+            }
+            return dailySalesRollupRepository.topVariantByRevenue(start, end, top);
+        }
+        if ("quantity".equals(type)) {
+            return orderRepository.topProductByQuantity(startDate, endDate, top);
         } else if ("order".equals(type)) {
-            listCustomer = orderRepository.topCustomerByOrder(startDate, endDate);
-            System.out.println("order");
+            return orderRepository.topProductByOrder(startDate, endDate, top);
         }
+        return orderRepository.topProductByRevenue(startDate, endDate, top);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TopCustomer> topCustomer(java.util.Date startDate, java.util.Date endDate, String type, int limit) {
+        List<TopCustomer> result = new ArrayList<>();
+        Pageable top = topPage(limit);
+        List<Object[]> listCustomer = "order".equals(type)
+                ? orderRepository.topCustomerByOrder(startDate, endDate, top)
+                : orderRepository.topCustomerByRevenue(startDate, endDate, top);
 
         for (Object[] data : listCustomer) {
-            int customerId = (int) data[0];
-            Customer customer = null;
-            customer = customerRepository.findById((Integer) customerId)
-                    .orElseThrow(() -> new NotFoundException("customer " + customerId + " not found"));
             BigDecimal value = BigDecimal.valueOf(((Number) data[1]).doubleValue());
-            TopCustomer topCustomer = new TopCustomer(customer, value);
-            result.add(topCustomer);
+            result.add(new TopCustomer((Customer) data[0], value));
         }
 
         return result;
     }
 
+    private static Pageable topPage(int limit) {
+        if (limit <= 0 || limit > MAX_TOP_LIMIT) {
+            throw new BadRequestException("limit phải nằm trong khoảng 1 - " + MAX_TOP_LIMIT);
+        }
+        return PageRequest.of(0, limit);
+    }
+
     public int countOrderFilter(String search, String start_date, String end_date, String channels, String status) {
-        LocalDateTime startDate = null;
-        LocalDateTime endDate = null;
         List<String> channelList = channels == null || channels.isEmpty() ? null : Arrays.stream(channels.split(",")).toList();
         List<String> statusList = status == null || status.isEmpty() ? null : Arrays.stream(status.split(",")).toList();
-        if (start_date != null && !start_date.isEmpty()) {
-            try {
-                startDate = LocalDate.parse(start_date, DateTimeFormatter.ofPattern("yyyy-MM-dd")).atStartOfDay();
-            } catch (DateTimeParseException e) {
-                log.error("Không thể chuyển đổi start_date thành LocalDateTime", e);
-            }
-        }
-
-        if (end_date != null && !end_date.isEmpty()) {
-            try {
-                endDate = LocalDate.parse(end_date, DateTimeFormatter.ofPattern("yyyy-MM-dd")).atTime(LocalTime.MAX);
-                ;
-            } catch (DateTimeParseException e) {
-                log.error("Không thể chuyển đổi start_date thành LocalDateTime", e);
-            }
-        }
-        return nonJpaVariantRepository.countOrder(search, startDate, endDate, channelList, statusList);
+        return nonJpaVariantRepository.countOrder(search, parseStartDate(start_date), parseEndDate(end_date), channelList, statusList);
     }
 
     public List<OrderListItemDto> getOrderList(int page, int size, String search, String start_date, String end_date, String channels, String status) {
-        LocalDateTime startDate = null;
-        LocalDateTime endDate = null;
+        List<String> channelList = channels == null || channels.isEmpty() ? null : Arrays.stream(channels.split(",")).toList();
+        List<String> statusList = status == null || status.isEmpty() ? null : Arrays.stream(status.split(",")).toList();
+        return nonJpaVariantRepository.getOrderFilter(page, size, search, parseStartDate(start_date), parseEndDate(end_date), channelList, statusList);
+    }
+
+    public List<OrderListItemDto> getOrderListAfter(String cursor, int size, String search, String start_date, String end_date, String channels, String status) {
+        OrderCursor orderCursor = cursor == null || cursor.isEmpty() ? null : OrderCursor.decode(cursor);
+        List<String> channelList = channels == null || channels.isEmpty() ? null : Arrays.stream(channels.split(",")).toList();
+        List<String> statusList = status == null || status.isEmpty() ? null : Arrays.stream(status.split(",")).toList();
+        return nonJpaVariantRepository.getOrderFilterAfter(orderCursor, size, search, parseStartDate(start_date), parseEndDate(end_date), channelList, statusList);
+    }
 
+    private LocalDateTime parseStartDate(String start_date) {
         if (start_date != null && !start_date.isEmpty()) {
             try {
-                startDate = LocalDate.parse(start_date, DateTimeFormatter.ofPattern("yyyy-MM-dd")).atStartOfDay();
+                return LocalDate.parse(start_date, DateTimeFormatter.ofPattern("yyyy-MM-dd")).atStartOfDay();
             } catch (DateTimeParseException e) {
                 log.error("Không thể chuyển đổi start_date thành LocalDateTime", e);
             }
         }
+        return null;
+    }
 
+    private LocalDateTime parseEndDate(String end_date) {
         if (end_date != null && !end_date.isEmpty()) {
             try {
-                endDate = LocalDate.parse(end_date, DateTimeFormatter.ofPattern("yyyy-MM-dd")).atTime(LocalTime.MAX);
-                ;
+                return LocalDate.parse(end_date, DateTimeFormatter.ofPattern("yyyy-MM-dd")).atTime(LocalTime.MAX);
             } catch (DateTimeParseException e) {
-                log.error("Không thể chuyển đổi start_date thành LocalDateTime", e);
+                log.error("Không thể chuyển đổi end_date thành LocalDateTime", e);
             }
         }
-        List<String> channelList = channels == null || channels.isEmpty() ? null : Arrays.stream(channels.split(",")).toList();
-        List<String> statusList = status == null || status.isEmpty() ? null : Arrays.stream(status.split(",")).toList();
-        List<Order> orderListPage = nonJpaVariantRepository.getOrderFilter(page, size, search, startDate, endDate, channelList, statusList);
-
-        List<OrderListItemDto> orderListItemDtos = new ArrayList<>();
-        for (Order order : orderListPage) {
-            OrderListItemDto orderListItemDto = new OrderListItemDto();
-            Payment payment = paymentRepository.findPaymentByOrderIdAndOrderType(order.getId(), OrderType.ORDER);
-            orderListItemDto.setOrderId(order.getId());
-            orderListItemDto.setCustomerName(order.getCustomerName() != null ? order.getCustomerName() : order.getCustomer().getName());
-            orderListItemDto.setPhone(order.getPhone() != null ? order.getPhone() : order.getCustomer().getPhone());
-            orderListItemDto.setCreatedAt(order.getCreatedAt());
-            orderListItemDto.setSalesChannelName(order.getSalesChannel().getName());
-            orderListItemDto.setAmount(payment == null ? 0 : payment.getAmount());
-            orderListItemDto.setPaymentStatus(payment == null ? null : payment.getPaymentStatus());
-            orderListItemDtos.add(orderListItemDto);
-        }
-
-        return orderListItemDtos;
+        return null;
     }
 
 //    public List<OrderListByCustomer> getOrderListByCustomerId(int customerId) {
@@ -252,10 +267,11 @@ public class OrderService {
                 .orElseThrow(() -> new BadRequestException("Khách hàng không tồn tại."));
 
         List<Order> orderList = orderRepository.findAllOrderByCustomer(customerId);
+        Map<Integer, Payment> paymentByOrderId = findOrderPayments(orderList);
 
         List<OrderListByCustomerDto> orderListByCustomer = orderList.stream()
                 .map(order -> {
-                    Payment payment = paymentRepository.findPaymentByOrder(order.getId());
+                    Payment payment = paymentByOrderId.get(order.getId());
                     List<OrderLineDTO> orderLines = order.getOrderLineList().stream()
                             .map(orderLine -> new OrderLineDTO(orderLine.getQuantity(), orderLine.getReturnQuantity(), orderLine.getPrice(), orderLine.getVariant()))
                             .collect(Collectors.toList());
@@ -276,12 +292,10 @@ public class OrderService {
     }
 
     public OrderDetailInfo getOrderDetailInfo(int id) {
-        Optional<Order> order = orderRepository.findById(id);
         if (!orderRepository.existsById(id)) {
             throw new NotFoundException("order not found");
         }
-        ModelMapper modelMapper = new ModelMapper();
-        return modelMapper.map(orderRepository.getOrderDetailInfo(id), OrderDetailInfo.class);
+        return orderInfoConverter.toDto(orderRepository.getOrderDetailInfo(id));
     }
 
     public List<OrderLine> getAllOrderLines(int id) {
@@ -318,22 +332,18 @@ public class OrderService {
 
         List<OrderVariant> orderVariantList = createOrderDto.getOrderVariantList();
         List<OrderLine> orderLineList = new ArrayList<>();
-        List<Variant> updatedVariantList = new ArrayList<>();
+        Map<Integer, Integer> reservedQuantities = new HashMap<>();
+        Map<Integer, Variant> variantById = findOrderVariants(orderVariantList);
         int amount = 0;
 
         for (OrderVariant orderVariant : orderVariantList) {
-            Variant variant = variantRepository.findById(orderVariant.getVariantId());
+            Variant variant = variantById.get(orderVariant.getVariantId());
             if (variant == null) {
                 throw new NotFoundException("variant " + orderVariant.getVariantId() + " not found");
             }
 
-            if (variant.getQuantity() < orderVariant.getQuantity()) {
-                throw new BadRequestException("insufficient stock for order variant " + orderVariant.getVariantId());
-            }
-
             amount += orderVariant.getQuantity() * variant.getRetailPrice();
-            variant.setQuantity(variant.getQuantity() - orderVariant.getQuantity());
-            updatedVariantList.add(variant);
+            reservedQuantities.merge(variant.getId(), orderVariant.getQuantity(), Integer::sum);
             orderLineList.add(OrderLine.builder()
                     .quantity(orderVariant.getQuantity())
                     .variant(variant)
@@ -343,9 +353,11 @@ public class OrderService {
         }
 
 //        order.setOrderLineList(orderLineList);
-        variantRepository.saveAll(updatedVariantList);
+        inventoryReservationService.reserve(reservedQuantities);
         Order savedOrder = orderRepository.save(order);
-        orderLineRepository.saveAll(orderLineList);
+        orderLineBatchRepository.insertOrderLines(orderLineList);
+        inventoryMovementService.record(HistoryType.EXPORT, savedOrder.getId(), negate(reservedQuantities));
+        dailySalesRollupService.recordOrderLines(orderLineList);
 
         Payment payment = Payment.builder()
                 .orderId(savedOrder.getId())
@@ -356,6 +368,7 @@ public class OrderService {
                 .paymentStatus(PaymentStatus.COMPLETE)
                 .build();
         paymentRepository.save(payment);
+        customerStatsService.recordOrder(savedOrder, payment.getAmount());
     }
 
     @Transactional
@@ -381,23 +394,19 @@ public class OrderService {
 
         List<OrderVariant> orderVariantList = createOrderDto.getOrderVariantList();
         List<OrderLine> orderLineList = new ArrayList<>();
-        List<Variant> updatedVariantList = new ArrayList<>();
+        Map<Integer, Integer> reservedQuantities = new HashMap<>();
+        Map<Integer, Variant> variantById = findOrderVariants(orderVariantList);
         int amount = 0;
 
 
         for (OrderVariant orderVariant : orderVariantList) {
-            Variant variant = variantRepository.findById(orderVariant.getVariantId());
+            Variant variant = variantById.get(orderVariant.getVariantId());
             if (variant == null) {
                 throw new NotFoundException("variant " + orderVariant.getVariantId() + " not found");
             }
 
-            if (variant.getQuantity() < orderVariant.getQuantity()) {
-                throw new BadRequestException("insufficient stock for order variant " + orderVariant.getVariantId());
-            }
-
             amount += orderVariant.getQuantity() * (variant.getRetailPrice() - orderVariant.getDiscountPerItem());
-            variant.setQuantity(variant.getQuantity() - orderVariant.getQuantity());
-            updatedVariantList.add(variant);
+            reservedQuantities.merge(variant.getId(), orderVariant.getQuantity(), Integer::sum);
             orderLineList.add(OrderLine.builder()
                     .quantity(orderVariant.getQuantity())
                     .variant(variant)
@@ -407,9 +416,11 @@ public class OrderService {
         }
 
 //        order.setOrderLineList(orderLineList);
-        variantRepository.saveAll(updatedVariantList);
+        inventoryReservationService.reserve(reservedQuantities);
         Order savedOrder = orderRepository.save(order);
-        orderLineRepository.saveAll(orderLineList);
+        orderLineBatchRepository.insertOrderLines(orderLineList);
+        inventoryMovementService.record(HistoryType.EXPORT, savedOrder.getId(), negate(reservedQuantities));
+        dailySalesRollupService.recordOrderLines(orderLineList);
 
         Payment payment = Payment.builder()
                 .orderId(savedOrder.getId())
@@ -420,13 +431,15 @@ public class OrderService {
                 .paymentStatus(PaymentStatus.COMPLETE)
                 .build();
         paymentRepository.save(payment);
+        customerStatsService.recordOrder(savedOrder, payment.getAmount());
     }
 
     public ResponseEntity<ResponseObject> getAllOrderByCustomerId(int customerId) {
         List<Order> orderList = orderRepository.getAllByCustomer_Id(customerId);
+        Map<Integer, Payment> paymentByOrderId = findOrderPayments(orderList);
         List<OrderListByCustomerDto> orderListByCustomer = orderList.stream()
                 .map(order -> {
-                    Payment payment = paymentRepository.findPaymentByOrder(order.getId());
+                    Payment payment = paymentByOrderId.get(order.getId());
                     List<OrderLineDTO> orderLines = order.getOrderLineList().stream()
                             .map(orderLine -> new OrderLineDTO(orderLine.getQuantity(), orderLine.getReturnQuantity(), orderLine.getPrice(), orderLine.getVariant()))
                             .collect(Collectors.toList());
@@ -448,8 +461,34 @@ public class OrderService {
                 .build());
     }
 
+    // load toàn bộ variant của đơn trong một truy vấn thay vì findById từng dòng
+    private Map<Integer, Variant> findOrderVariants(List<OrderVariant> orderVariantList) {
+        Set<Integer> variantIds = orderVariantList.stream()
+                .map(OrderVariant::getVariantId)
+                .collect(Collectors.toSet());
+        return variantRepository.findAllById(variantIds).stream()
+                .collect(Collectors.toMap(Variant::getId, variant -> variant));
+    }
+
+    // số lượng bán ra là biến động âm của tồn kho
+    private static Map<Integer, Integer> negate(Map<Integer, Integer> quantities) {
+        Map<Integer, Integer> deltas = new HashMap<>();
+        quantities.forEach((variantId, quantity) -> deltas.put(variantId, -quantity));
+        return deltas;
+    }
+
+    // mỗi đơn chỉ có một payment ORDER; dữ liệu cũ bị trùng thì lấy payment tạo trước (id nhỏ nhất)
+    private Map<Integer, Payment> findOrderPayments(List<Order> orderList) {
+        if (orderList.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Integer> orderIds = orderList.stream().map(Order::getId).toList();
+        return paymentRepository.findAllByOrderIdInAndOrderType(orderIds, OrderType.ORDER).stream()
+                .collect(Collectors.toMap(Payment::getOrderId, payment -> payment, (first, second) -> first.getId() <= second.getId() ? first : second));
+    }
+
     public ResponseEntity<ResponseObject> getOrderDetail(int id) {
-        Optional<Order> orderDetail = orderRepository.findById(id);
+        Optional<Order> orderDetail = orderRepository.findWithOrderLinesById(id);
         if (orderDetail.isEmpty()) {
             return ResponseEntity.ok(ResponseObject.builder()
                     .message("order not found")
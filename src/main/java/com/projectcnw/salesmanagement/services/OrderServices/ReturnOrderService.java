@@ -1,5 +1,6 @@
 package com.projectcnw.salesmanagement.services.OrderServices;
 
+import com.projectcnw.salesmanagement.converter.OrderInfoConverter;
 import com.projectcnw.salesmanagement.dto.orderDtos.IReturnOrderItemDto;
 import com.projectcnw.salesmanagement.dto.orderDtos.ReturnHistoryItemDto;
 import com.projectcnw.salesmanagement.dto.orderDtos.ReturnOrderDetailInfo;
@@ -12,9 +13,11 @@ import com.projectcnw.salesmanagement.exceptions.NotFoundException;
 import com.projectcnw.salesmanagement.models.*;
 import com.projectcnw.salesmanagement.models.Auth.UserEntity;
 import com.projectcnw.salesmanagement.models.Products.Variant;
+import com.projectcnw.salesmanagement.models.enums.HistoryType;
 import com.projectcnw.salesmanagement.models.enums.OrderType;
 import com.projectcnw.salesmanagement.models.enums.PaymentMethod;
 import com.projectcnw.salesmanagement.models.enums.PaymentStatus;
+import com.projectcnw.salesmanagement.repositories.OrderRepositories.OrderLineBatchRepository;
 import com.projectcnw.salesmanagement.repositories.OrderRepositories.OrderLineRepository;
 import com.projectcnw.salesmanagement.repositories.OrderRepositories.OrderRepository;
 import com.projectcnw.salesmanagement.repositories.OrderRepositories.ReturnOrderLineRepository;
@@ -22,8 +25,10 @@ import com.projectcnw.salesmanagement.repositories.OrderRepositories.ReturnOrder
 import com.projectcnw.salesmanagement.repositories.PaymentRepository;
 import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.VariantRepository;
 import com.projectcnw.salesmanagement.repositories.UserRepository;
+import com.projectcnw.salesmanagement.services.CustomerServices.CustomerStatsService;
+import com.projectcnw.salesmanagement.services.ProductManagerServices.InventoryMovementService;
+import com.projectcnw.salesmanagement.services.ProductManagerServices.InventoryReservationService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -31,6 +36,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -43,37 +49,46 @@ public class ReturnOrderService {
 
     private final OrderLineRepository orderLineRepository;
 
+    private final OrderLineBatchRepository orderLineBatchRepository;
+
     private final VariantRepository variantRepository;
 
     private final PaymentRepository paymentRepository;
 
     private final UserRepository userRepository;
 
+    private final DailySalesRollupService dailySalesRollupService;
+
+    private final CustomerStatsService customerStatsService;
+
+    private final InventoryMovementService inventoryMovementService;
+
+    private final InventoryReservationService inventoryReservationService;
+
+    private final OrderInfoConverter orderInfoConverter;
+
     public long countTotalReturnOrders() {
         return returnOrderRepository.count();
     }
 
     public List<ReturnOrderItemDto> getReturnOrderList(int page, int size, String search) {
-        ModelMapper modelMapper = new ModelMapper();
         Pageable paging = PageRequest.of(page, size);
         Page<IReturnOrderItemDto> returnOrderListPage = returnOrderRepository.getReturnOrderList(search, paging);
-        return Arrays.asList(modelMapper.map(returnOrderListPage.getContent(), ReturnOrderItemDto[].class));
+        return orderInfoConverter.toReturnOrderItems(returnOrderListPage.getContent());
     }
 
     public List<ReturnHistoryItemDto> getReturnHistories(int orderId) {
         if (!orderRepository.existsById(orderId)) {
             throw new NotFoundException("order not found");
         }
-        ModelMapper modelMapper = new ModelMapper();
-        return Arrays.asList(modelMapper.map(returnOrderRepository.getReturnHistories(orderId), ReturnHistoryItemDto[].class));
+        return orderInfoConverter.toReturnHistoryItems(returnOrderRepository.getReturnHistories(orderId));
     }
 
     public ReturnOrderDetailInfo getReturnOrderDetailInfo(int returnId) {
         if (!returnOrderRepository.existsById(returnId)) {
             throw new NotFoundException("return order not found");
         }
-        ModelMapper modelMapper = new ModelMapper();
-        return modelMapper.map(returnOrderRepository.getReturnOrderDetailInfo(returnId), ReturnOrderDetailInfo.class);
+        return orderInfoConverter.toDto(returnOrderRepository.getReturnOrderDetailInfo(returnId));
     }
 
     public List<ReturnOrderLine> getAllReturnOrderLines(int id) {
@@ -95,7 +110,8 @@ public class ReturnOrderService {
         List<SwapVariant> swapVariantList = createReturnOrderDto.getSwapVariantList();
 
         List<ReturnOrderLine> returnOrderLineList = new ArrayList<>();
-        Map<Integer, Variant> updatedVariantsMap = new HashMap<>();
+        // thay đổi tồn kho theo variant: hàng trả về cộng vào, hàng đổi trừ đi
+        Map<Integer, Integer> stockDeltas = new HashMap<>();
 
         ReturnOrder returnOrder = ReturnOrder.builder()
                 .user(user)
@@ -124,9 +140,7 @@ public class ReturnOrderService {
                             .variant(orderLine.getVariant())
                             .build());
 
-                    Variant variant = orderLine.getVariant();
-                    variant.setQuantity(variant.getQuantity() + returnVariant.getReturnQuantity());
-                    updatedVariantsMap.put(variant.getId(), variant);
+                    stockDeltas.merge(orderLine.getVariant().getId(), returnVariant.getReturnQuantity(), Integer::sum);
                     break;
                 }
             }
@@ -138,38 +152,33 @@ public class ReturnOrderService {
 
         returnOrder.setReturnOrderLineList(returnOrderLineList);
 
+        Order swapOrder = null;
+        List<OrderLine> swapOrderLines = new ArrayList<>();
+        int swapAmount = 0;
         if (swapVariantList != null && !swapVariantList.isEmpty()) {
-            Order swapOrder = Order.builder()
+            swapOrder = Order.builder()
                     .userEntity(user)
                     .customer(order.getCustomer())
                     .returnOrder(returnOrder)
                     .build();
 
-            List<OrderLine> swapOrderLines = new ArrayList<>();
-            int swapAmount = 0;
             int swapDiscount = 0;
+            Map<Integer, Variant> variantById = variantRepository.findAllById(swapVariantList.stream()
+                            .map(SwapVariant::getVariantId)
+                            .collect(Collectors.toSet())).stream()
+                    .collect(Collectors.toMap(Variant::getId, variant -> variant));
 
             for (SwapVariant swapVariant : swapVariantList) {
 
-                Variant variant;
-                if (updatedVariantsMap.containsKey(swapVariant.getVariantId())) {
-                    variant = updatedVariantsMap.get(swapVariant.getVariantId());
-                } else {
-                    variant = variantRepository.findById(swapVariant.getVariantId());
-                    if (variant == null) {
-                        throw new NotFoundException("swap variant " + swapVariant.getVariantId() + " not found in stock");
-                    }
-                }
-
-                if (variant.getQuantity() < swapVariant.getSwapQuantity()) {
-                    throw new BadRequestException("insufficient stock for swap variant " + swapVariant.getVariantId());
+                Variant variant = variantById.get(swapVariant.getVariantId());
+                if (variant == null) {
+                    throw new NotFoundException("swap variant " + swapVariant.getVariantId() + " not found in stock");
                 }
 
                 swapAmount += swapVariant.getSwapQuantity() * (swapVariant.getSwapPrice() - swapVariant.getDiscount());
                 swapDiscount += swapVariant.getSwapQuantity() * swapVariant.getDiscount();
                 // update variant's quantity
-                variant.setQuantity(variant.getQuantity() - swapVariant.getSwapQuantity());
-                updatedVariantsMap.put(variant.getId(), variant);
+                stockDeltas.merge(variant.getId(), -swapVariant.getSwapQuantity(), Integer::sum);
 
                 // create new swapOrderLine
                 OrderLine swapOrderLine = OrderLine.builder()
@@ -184,10 +193,20 @@ public class ReturnOrderService {
             returnOrder.setSwapOrder(swapOrder);
             swapOrder.setOrderLineList(swapOrderLines);
             swapOrder.setDiscount(swapDiscount);
+        }
+
+        // cập nhật tồn kho trước mọi câu ghi khác: cùng thứ tự khoá với createOrder (dòng variant trước, rollup sau),
+        // và hàng đổi không đủ tồn kho bị từ chối trước khi ghi gì
+        inventoryReservationService.adjust(stockDeltas);
 
+        if (swapOrder != null) {
             // save swap order
             Order savedSwapOrder = orderRepository.save(swapOrder);
-            orderLineRepository.saveAll(swapOrderLines);
+            orderLineBatchRepository.insertOrderLines(swapOrderLines);
+            Map<Integer, Integer> swapDeltas = new HashMap<>();
+            swapOrderLines.forEach(line -> swapDeltas.merge(line.getVariant().getId(), -line.getQuantity(), Integer::sum));
+            inventoryMovementService.record(HistoryType.EXPORT, savedSwapOrder.getId(), swapDeltas);
+            dailySalesRollupService.recordOrderLines(swapOrderLines);
 
             // create payment
             Payment swapPayment = Payment.builder()
@@ -199,6 +218,8 @@ public class ReturnOrderService {
                     .build();
 
             paymentRepository.save(swapPayment);
+            // đơn đổi chưa thanh toán: tiền được cộng khi thanh toán hoàn tất
+            customerStatsService.recordOrder(savedSwapOrder, 0);
         }
 
         // update returnQuantity of order line
@@ -206,7 +227,11 @@ public class ReturnOrderService {
 
         // save return order
         ReturnOrder savedReturnOrder = returnOrderRepository.save(returnOrder);
-        returnOrderLineRepository.saveAll(returnOrderLineList);
+        orderLineBatchRepository.insertReturnOrderLines(returnOrderLineList);
+        Map<Integer, Integer> returnDeltas = new HashMap<>();
+        returnOrderLineList.forEach(line -> returnDeltas.merge(line.getVariant().getId(), line.getReturnQuantity(), Integer::sum));
+        inventoryMovementService.record(HistoryType.RETURN, savedReturnOrder.getId(), returnDeltas);
+        dailySalesRollupService.recordReturnLines(returnOrderLineList);
 
         // create payment
         Payment returnPayment = Payment.builder()
@@ -218,8 +243,6 @@ public class ReturnOrderService {
                 .build();
         paymentRepository.save(returnPayment);
 
-        List<Variant> updatedVariants = new ArrayList<>(updatedVariantsMap.values());
-        variantRepository.saveAll(updatedVariants);
         return savedReturnOrder;
     }
 
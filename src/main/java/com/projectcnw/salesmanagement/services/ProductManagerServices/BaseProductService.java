@@ -1,21 +1,26 @@
 package com.projectcnw.salesmanagement.services.ProductManagerServices;
 
-import com.projectcnw.salesmanagement.dto.Category.CategoryResponse;
+import com.projectcnw.salesmanagement.converter.VariantConverter;
 import com.projectcnw.salesmanagement.dto.ResponseObject;
 import com.projectcnw.salesmanagement.dto.productDtos.*;
 import com.projectcnw.salesmanagement.exceptions.ProductManagerExceptions.ProductException;
 import com.projectcnw.salesmanagement.models.Products.BaseProduct;
 import com.projectcnw.salesmanagement.models.Products.Category;
 import com.projectcnw.salesmanagement.models.Products.Variant;
+import com.projectcnw.salesmanagement.models.enums.HistoryType;
 import com.projectcnw.salesmanagement.repositories.CategoryRepository.CategoryRepository;
 import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.BaseProductRepository;
 import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.NonJPARepository.NonJPAProductRepository;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.ProductSearchRepository;
 import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.VariantRepository;
 import com.projectcnw.salesmanagement.services.CategoryServices.CategoryService;
+import com.projectcnw.salesmanagement.services.PromotionServices.PromotionChangedEvent;
+import com.projectcnw.salesmanagement.utils.SearchText;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,8 +32,12 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static com.projectcnw.salesmanagement.utils.Utils.mapListCategoryToListCategoryResponse;
 
@@ -47,9 +56,18 @@ public class BaseProductService {
     private final NonJPAProductRepository nonJPAProductRepository;
 
     private final VariantService variantService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ProductSearchRepository productSearchRepository;
+
+    private final InventoryMovementService inventoryMovementService;
+
+    private final VariantConverter variantConverter;
     private ModelMapper modelMapper = new ModelMapper();
 
 
+    @Transactional(readOnly = true)
     public List<BaseProductDto> getAll(int page, int size, String query, String categoryIds, String start_date, String end_date, String channels) {
         List<Integer> categoryIdList = categoryIds == null || categoryIds.equals("") ? null : Arrays.asList(categoryIds.split(",")).stream().map(Integer::parseInt).toList();
         List<String> channelList = channels == null || channels.isEmpty() ? null : Arrays.stream(channels.split(",")).toList();
@@ -75,6 +93,16 @@ public class BaseProductService {
 
         List<BaseProduct> iBaseProductDtos = nonJPAProductRepository.getAllProduct(page, size, query, categoryIdList, startDate, endDate, channelList);
 
+        // variants được load theo batch khi truy cập; categories và số sản phẩm lấy một lần cho cả trang
+        Map<Integer, List<Category>> categoriesByProduct = new HashMap<>();
+        if (!iBaseProductDtos.isEmpty()) {
+            for (Object[] row : categoryRepository.getCategoriesByProductIds(iBaseProductDtos.stream().map(BaseProduct::getId).toList())) {
+                categoriesByProduct.computeIfAbsent((Integer) row[0], id -> new ArrayList<>()).add((Category) row[1]);
+            }
+        }
+        Map<Integer, Integer> productCounts = categoryService.countProducts(categoriesByProduct.values().stream()
+                .flatMap(List::stream).map(Category::getId).distinct().toList());
+
         List<BaseProductDto> baseProducts = new ArrayList<>();
         for (BaseProduct baseProduct : iBaseProductDtos) {
             BaseProductDto baseProductDto = new BaseProductDto();
@@ -85,8 +113,9 @@ public class BaseProductService {
             baseProductDto.setCreatedAt(baseProduct.getCreatedAt());
             baseProductDto.setVariantNumber(baseProduct.getVariants().size());
             baseProductDto.setQuantity(baseProduct.getVariants().stream().mapToInt(Variant::getQuantity).sum());
-            baseProductDto.setVariants(baseProduct.getVariants().stream().map(variant -> modelMapper.map(variant, VariantDto.class)).toList());
-            baseProductDto.setListCategories(mapListCategoryToListCategoryResponse(categoryRepository.getListCategoryByProductId(baseProduct.getId())));
+            baseProductDto.setVariants(baseProduct.getVariants().stream().map(variantConverter::toDto).toList());
+            baseProductDto.setListCategories(mapListCategoryToListCategoryResponse(
+                    categoriesByProduct.getOrDefault(baseProduct.getId(), List.of()), productCounts));
             baseProducts.add(baseProductDto);
         }
 
@@ -122,7 +151,7 @@ public class BaseProductService {
 
     public List<VariantDto> getAllVariantOfBaseProductByBaseId(int baseId) {
         List<IVariantDto> iVariantDtos = baseProductRepository.findAllVariantByBaseProductId(baseId);
-        return Arrays.asList(modelMapper.map(iVariantDtos, VariantDto[].class));
+        return variantConverter.toDtoList(iVariantDtos);
     }
 
     @Transactional
@@ -133,21 +162,12 @@ public class BaseProductService {
         BaseProductDto baseProductDto = modelMapper.map(iBaseProductDto, BaseProductDto.class);
         baseProductDto.setVariants(this.getAllVariantOfBaseProductByBaseId(baseId));
         List<Category> categories = categoryRepository.getListCategoryByIds(categoryRepository.getListCategoryIdByProductId(baseId));
-        List<CategoryResponse> listResponse = new ArrayList<>();
-        for (Category category : categories) {
-            listResponse.add(CategoryResponse.builder().
-                    id(category.getId()).
-                    title(category.getTitle()).
-                    slug(category.getSlug()).
-                    description(category.getDescription()).
-                    metaTitle(category.getMetaTitle()).
-                    productCount(baseProductRepository.countProductByCategory(category.getId())).
-                    build());
-        }
-        baseProductDto.setListCategories(listResponse);
+        baseProductDto.setListCategories(mapListCategoryToListCategoryResponse(categories,
+                categoryService.countProducts(categories.stream().map(Category::getId).toList())));
         return baseProductDto;
     }
 
+    @Transactional(readOnly = true)
     public ResponseEntity<ResponseObject> getProductSaleResponse(int baseId) {
         IBaseProductDto iBaseProductDto = baseProductRepository.findBaseProductById(baseId);
         if (iBaseProductDto == null) {
@@ -223,6 +243,12 @@ public class BaseProductService {
                     throw new ProductException("Thuộc tính không được để trống");
         }
         variantRepository.saveAll(variantList);
+        inventoryMovementService.record(HistoryType.INIT, null, variantList.stream()
+                .collect(Collectors.toMap(Variant::getId, Variant::getQuantity)));
+        eventPublisher.publishEvent(new ProductSearchChangedEvent(baseProduct1.getId()));
+        if (baseProduct1.getCategories() != null && !baseProduct1.getCategories().isEmpty()) {
+            eventPublisher.publishEvent(new PromotionChangedEvent("create product " + baseProduct1.getId(), false));
+        }
 
         return this.getBaseProductById(baseProduct1.getId());
     }
@@ -258,14 +284,17 @@ public class BaseProductService {
 
         if (baseProductDto.getCategoryIds() != null && !baseProductDto.getCategoryIds().isEmpty()) {
             updateProductCategories(baseProduct, categoryRepository.getListCategoryByIds(baseProductDto.getCategoryIds()));
+            eventPublisher.publishEvent(new PromotionChangedEvent("update product categories " + baseId, false));
         }
         baseProductRepository.updateBaseProduct(baseId, baseProductDto.getName(), baseProductDto.getLabel(), baseProductDto.getDescription());
+        eventPublisher.publishEvent(new ProductSearchChangedEvent(baseId));
         BaseProduct baseProduct1 = baseProductRepository.findBaseProductByIdAndIsDeleted_False(baseId).orElse(null);
 
         BaseProductDto baseProductDto1 = modelMapper.map(baseProduct1, BaseProductDto.class);
         List<Category> categories = categoryRepository.getListCategoryByIds(categoryRepository.getListCategoryIdByProductId(baseId));
 
-        baseProductDto1.setListCategories(mapListCategoryToListCategoryResponse(categories));
+        baseProductDto1.setListCategories(mapListCategoryToListCategoryResponse(categories,
+                categoryService.countProducts(categories.stream().map(Category::getId).toList())));
         return baseProductDto1;
 
 //        return modelMapper.map(baseProduct1, BaseProductDto.class);
@@ -346,7 +375,7 @@ public class BaseProductService {
     public VariantDto getVariantById(int variantId) {
         Variant variant = variantRepository.findById(variantId);
         if (variant == null || variant.isDeleted()) throw new ProductException("Không tìm thấy phiên bản");
-        return modelMapper.map(variant, VariantDto.class);
+        return variantConverter.toDto(variant);
     }
 
     @Transactional
@@ -355,6 +384,8 @@ public class BaseProductService {
         if (baseProduct == null) throw new ProductException("Không tìm thấy sản phẩm");
         baseProductRepository.deleteAllVariantByBaseId(baseId);
         baseProductRepository.deleteBaseProductById(baseId);
+        eventPublisher.publishEvent(new ProductSearchChangedEvent(baseId));
+        eventPublisher.publishEvent(new PromotionChangedEvent("delete product " + baseId, false));
 
     }
 
@@ -401,10 +432,28 @@ public class BaseProductService {
 
     }
 
-    @Transactional
-    public List<BaseProductDto> getAllBaseProductsByKeyword(String keyword) {
-        List<IBaseProductDto> iBaseProductDtos = baseProductRepository.findAllBaseProductsByKeyword(keyword);
-        return Arrays.asList(modelMapper.map(iBaseProductDtos, BaseProductDto[].class));
+    /**
+     * Tìm sản phẩm qua chỉ mục full-text (tên, nhãn, tên phiên bản, SKU, barcode, có dấu hoặc không dấu),
+     * xếp theo độ liên quan. Từ khoá không có từ nào từ 2 ký tự trở lên trả về danh sách rỗng.
+     */
+    @Transactional(readOnly = true)
+    public List<BaseProductDto> getAllBaseProductsByKeyword(String keyword, int page, int size) {
+        String query = SearchText.booleanQuery(keyword);
+        if (query == null) return List.of();
+        List<Integer> ids = productSearchRepository.searchBaseProductIds(query, page * size, size);
+        if (ids.isEmpty()) return List.of();
+        Map<Integer, IBaseProductDto> productById = new HashMap<>();
+        baseProductRepository.findAllBaseProductsByIds(ids).forEach(product -> productById.put(product.getId(), product));
+        return ids.stream()
+                .map(productById::get)
+                .filter(Objects::nonNull)
+                .map(product -> modelMapper.map(product, BaseProductDto.class))
+                .toList();
+    }
+
+    public long countBaseProductsByKeyword(String keyword) {
+        String query = SearchText.booleanQuery(keyword);
+        return query == null ? 0 : productSearchRepository.countBaseProducts(query);
     }
 
 }
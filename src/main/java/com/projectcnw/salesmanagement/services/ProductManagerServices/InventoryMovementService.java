@@ -0,0 +1,135 @@
+package com.projectcnw.salesmanagement.services.ProductManagerServices;
+
+import com.projectcnw.salesmanagement.dto.productDtos.InventoryMovementSummary;
+import com.projectcnw.salesmanagement.exceptions.BadRequestException;
+import com.projectcnw.salesmanagement.models.enums.HistoryType;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.InventoryMovementRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ghi sổ biến động tồn kho trong cùng giao dịch với mỗi thay đổi tồn kho (nhập hàng, kiểm kho, bán, trả hàng)
+ * và chụp snapshot tồn kho cuối ngày định kỳ. Tồn kho tại một ngày và báo cáo biến động theo kỳ
+ * được tính từ snapshot gần nhất cộng các dòng biến động sau đó thay vì dựng lại từ đơn hàng, phiếu nhập, phiếu kiểm.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryMovementService {
+
+    private final InventoryMovementRepository inventoryMovementRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            int opened = inventoryMovementRepository.insertOpeningBalances(now());
+            if (opened > 0) {
+                log.info("Inventory ledger opened with {} variant balances", opened);
+            }
+            takeSnapshots();
+        } catch (RuntimeException e) {
+            log.error("Không thể khởi tạo sổ biến động tồn kho", e);
+        }
+    }
+
+    /**
+     * Ghi thay đổi tồn kho (variant id -> delta) của một chứng từ; delta bằng 0 bị bỏ qua.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(HistoryType type, Integer referenceId, Map<Integer, Integer> deltaByVariantId) {
+        TreeMap<Integer, Integer> deltas = new TreeMap<>(deltaByVariantId);
+        deltas.values().removeIf(delta -> delta == 0);
+        if (!deltas.isEmpty()) {
+            inventoryMovementRepository.insert(type, referenceId, new ArrayList<>(deltas.entrySet()), now());
+        }
+    }
+
+    /**
+     * Kiểm kho: phải gọi trước khi tồn kho bị ghi đè để chênh lệch được tính từ số lượng cũ.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBalance(Integer referenceId, Map<Integer, Integer> quantityByVariantId) {
+        if (!quantityByVariantId.isEmpty()) {
+            inventoryMovementRepository.insertBalances(referenceId, new ArrayList<>(new TreeMap<>(quantityByVariantId).entrySet()), now());
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordInitial(Collection<Integer> baseIds) {
+        inventoryMovementRepository.insertInitialByBaseIds(baseIds, now());
+    }
+
+    public int getQuantityAsOf(int variantId, LocalDate date) {
+        return inventoryMovementRepository.getQuantityAsOf(variantId, date);
+    }
+
+    /**
+     * Tồn đầu kỳ, biến động theo loại và tồn cuối kỳ của các variant trong [startDate, endDate].
+     */
+    public List<InventoryMovementSummary> summarize(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new BadRequestException("invalid date range " + startDate + " - " + endDate);
+        }
+        Map<Integer, InventoryMovementSummary> summaries = new TreeMap<>();
+        inventoryMovementRepository.getQuantitiesAsOf(startDate.minusDays(1))
+                .forEach((variantId, quantity) -> summaries.put(variantId, new InventoryMovementSummary(variantId, quantity)));
+        for (Object[] row : inventoryMovementRepository.sumMovements(startDate, endDate)) {
+            int variantId = (Integer) row[0];
+            long quantity = (Long) row[2];
+            InventoryMovementSummary summary = summaries.computeIfAbsent(variantId, id -> new InventoryMovementSummary(id, 0));
+            switch ((HistoryType) row[1]) {
+                case INIT -> summary.setInitQuantity(quantity);
+                case IMPORT -> summary.setImportQuantity(quantity);
+                case BALANCE -> summary.setBalanceQuantity(quantity);
+                case EXPORT -> summary.setExportQuantity(quantity);
+                case RETURN -> summary.setReturnQuantity(quantity);
+            }
+            summary.setClosingQuantity(summary.getClosingQuantity() + quantity);
+        }
+        inventoryMovementRepository.getVariantNames(summaries.keySet()).forEach((variantId, name) -> {
+            summaries.get(variantId).setSku(name[0]);
+            summaries.get(variantId).setName(name[1]);
+        });
+        return new ArrayList<>(summaries.values());
+    }
+
+    /**
+     * Chụp snapshot cho mọi ngày đã kết thúc kể từ snapshot gần nhất (lần đầu chỉ chụp hôm qua).
+     */
+    @Scheduled(cron = "${application.inventory.snapshot-cron:0 15 0 * * *}")
+    public synchronized void takeSnapshots() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate previous = inventoryMovementRepository.getLastSnapshotDate();
+        LocalDate date = previous != null ? previous.plusDays(1) : yesterday;
+        while (!date.isAfter(yesterday)) {
+            LocalDate snapshotDate = date;
+            LocalDate previousDate = previous;
+            long start = System.currentTimeMillis();
+            Integer variants = transactionTemplate.execute(status -> inventoryMovementRepository.insertSnapshot(snapshotDate, previousDate));
+            log.info("Inventory snapshot {} written in {} ms: {} variants", snapshotDate, System.currentTimeMillis() - start, variants);
+            previous = date;
+            date = date.plusDays(1);
+        }
+    }
+
+    private static Timestamp now() {
+        return new Timestamp(System.currentTimeMillis());
+    }
+}
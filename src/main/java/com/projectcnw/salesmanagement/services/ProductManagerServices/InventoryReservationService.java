@@ -0,0 +1,77 @@
+package com.projectcnw.salesmanagement.services.ProductManagerServices;
+
+import com.projectcnw.salesmanagement.dto.productDtos.StockShortfall;
+import com.projectcnw.salesmanagement.exceptions.InsufficientStockException;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.VariantStockRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Giữ/hoàn tồn kho bằng câu UPDATE có điều kiện thay vì đọc quantity rồi ghi lại,
+ * nên các đơn POS và web đặt cùng lúc một variant không thể bán vượt tồn kho.
+ * Các dòng luôn được cập nhật theo id tăng dần để hai giao dịch không khoá chéo nhau.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryReservationService {
+
+    private final VariantStockRepository variantStockRepository;
+
+    private final StockLedger stockLedger;
+
+    /**
+     * Trừ tồn kho cho các variant (variant id -> số lượng cần giữ).
+     * Nếu có variant không đủ hàng thì ném {@link InsufficientStockException} liệt kê mọi dòng thiếu,
+     * giao dịch bên ngoài rollback nên các dòng đã trừ cũng được hoàn lại.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Map<Integer, Integer> quantityByVariantId) {
+        Map<Integer, Integer> deltas = new TreeMap<>();
+        quantityByVariantId.forEach((variantId, quantity) -> deltas.merge(variantId, -quantity, Integer::sum));
+        adjust(deltas);
+    }
+
+    /**
+     * Áp dụng thay đổi tồn kho (variant id -> delta, âm là trừ, dương là nhập lại).
+     * Delta âm chỉ được áp dụng khi tồn kho đủ. Khi bật stock ledger, thay đổi đi qua sổ tồn kho trong bộ nhớ.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void adjust(Map<Integer, Integer> deltaByVariantId) {
+        TreeMap<Integer, Integer> sortedDeltas = new TreeMap<>(deltaByVariantId);
+        sortedDeltas.values().removeIf(delta -> delta == 0);
+        if (sortedDeltas.isEmpty()) {
+            return;
+        }
+        if (stockLedger.isEnabled()) {
+            stockLedger.adjust(sortedDeltas);
+            return;
+        }
+
+        List<Map.Entry<Integer, Integer>> deltas = new ArrayList<>(sortedDeltas.entrySet());
+
+        int[] updated = variantStockRepository.adjustQuantities(deltas);
+        List<Integer> failedIds = new ArrayList<>();
+        for (int i = 0; i < deltas.size(); i++) {
+            if (updated[i] == 0) {
+                failedIds.add(deltas.get(i).getKey());
+            }
+        }
+        if (failedIds.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Integer> available = variantStockRepository.getQuantities(failedIds);
+        List<StockShortfall> shortfalls = new ArrayList<>();
+        for (Integer variantId : failedIds) {
+            shortfalls.add(new StockShortfall(variantId, -deltaByVariantId.get(variantId), available.getOrDefault(variantId, 0)));
+        }
+        throw new InsufficientStockException(shortfalls);
+    }
+}
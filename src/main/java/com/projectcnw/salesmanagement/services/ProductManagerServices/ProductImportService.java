@@ -0,0 +1,585 @@
+package com.projectcnw.salesmanagement.services.ProductManagerServices;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectcnw.salesmanagement.dto.productDtos.BaseProductDto;
+import com.projectcnw.salesmanagement.dto.productDtos.ProductImportError;
+import com.projectcnw.salesmanagement.dto.productDtos.ProductImportStatus;
+import com.projectcnw.salesmanagement.dto.productDtos.VariantDto;
+import com.projectcnw.salesmanagement.exceptions.BadRequestException;
+import com.projectcnw.salesmanagement.exceptions.NotFoundException;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.ProductImportRepository;
+import com.projectcnw.salesmanagement.services.PromotionServices.PromotionChangedEvent;
+import com.projectcnw.salesmanagement.utils.CsvReader;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Nhập hàng loạt sản phẩm và phiên bản từ file CSV hoặc JSON lines.
+ * File được đọc tuần tự (không nạp cả file vào bộ nhớ), mỗi sản phẩm được kiểm tra như khi tạo qua
+ * {@link BaseProductService#createBaseProduct}, các sản phẩm hợp lệ được ghi theo từng lô trong một transaction.
+ * Tiến độ và lỗi của từng sản phẩm được lấy qua {@link #getStatus}.
+ *
+ * <p>CSV: dòng đầu là tên cột, mỗi dòng là một phiên bản; các dòng liên tiếp có cùng cột "product"
+ * thuộc cùng một sản phẩm, thông tin sản phẩm lấy từ dòng đầu tiên. Cột categoryIds ngăn cách bởi ";".
+ * JSON lines: mỗi dòng là một {@link BaseProductDto} kèm danh sách variants.
+ */
+@Service
+@Slf4j
+public class ProductImportService {
+
+    // số phiên bản tối đa ghi trong một transaction
+    private static final int CHUNK_VARIANTS = 1000;
+
+    private static final int MAX_ERRORS = 1000;
+
+    private static final int MAX_FINISHED_JOBS = 20;
+
+    private final ProductImportRepository productImportRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ObjectMapper objectMapper;
+
+    private final InventoryMovementService inventoryMovementService;
+
+    // các lần import chạy lần lượt để không tranh chấp ghi với nhau
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>();
+
+    public ProductImportService(ProductImportRepository productImportRepository,
+                                TransactionTemplate transactionTemplate,
+                                ApplicationEventPublisher eventPublisher,
+                                ObjectMapper objectMapper,
+                                InventoryMovementService inventoryMovementService) {
+        this.productImportRepository = productImportRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.inventoryMovementService = inventoryMovementService;
+    }
+
+    /**
+     * Lưu file tải lên ra file tạm rồi đưa vào hàng đợi import.
+     *
+     * @param format "csv", "jsonl" hoặc rỗng để đoán theo đuôi file
+     */
+    public ProductImportStatus submit(MultipartFile file, String format) {
+        if (file == null || file.isEmpty()) throw new BadRequestException("File import không được trống");
+        boolean jsonLines = isJsonLines(file.getOriginalFilename(), format);
+
+        Path spool;
+        try {
+            spool = Files.createTempFile("product-import-", jsonLines ? ".jsonl" : ".csv");
+            file.transferTo(spool);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot store product import file", e);
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), file.getOriginalFilename(), file.getSize());
+        register(job);
+        executor.submit(() -> run(job, spool, jsonLines));
+        return job.toStatus();
+    }
+
+    public ProductImportStatus getStatus(String jobId) {
+        ImportJob job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        if (job == null) throw new NotFoundException("import job " + jobId + " not found");
+        return job.toStatus();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void register(ImportJob job) {
+        synchronized (jobs) {
+            int finished = (int) jobs.values().stream().filter(ImportJob::isFinished).count();
+            Iterator<ImportJob> iterator = jobs.values().iterator();
+            while (finished >= MAX_FINISHED_JOBS && iterator.hasNext()) {
+                if (iterator.next().isFinished()) {
+                    iterator.remove();
+                    finished--;
+                }
+            }
+            jobs.put(job.id, job);
+        }
+    }
+
+    private void run(ImportJob job, Path spool, boolean jsonLines) {
+        job.status = "RUNNING";
+        job.startedAt = new Date();
+        long start = System.currentTimeMillis();
+        try (InputStream in = new CountingInputStream(Files.newInputStream(spool), job);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            ProductSource source = jsonLines ? new JsonLinesSource(reader) : new CsvSource(new CsvReader(reader));
+            Set<Integer> categoryIds = productImportRepository.getCategoryIds();
+            Set<String> seenSkus = new HashSet<>();
+
+            List<ImportProduct> chunk = new ArrayList<>();
+            int chunkVariants = 0;
+            ImportProduct product;
+            while ((product = source.next()) != null) {
+                job.processedProducts++;
+                String error = product.error != null ? product.error : validate(product.dto, categoryIds, seenSkus);
+                if (error != null) {
+                    job.fail(product, error);
+                    continue;
+                }
+                chunk.add(product);
+                chunkVariants += product.dto.getVariants().size();
+                if (chunkVariants >= CHUNK_VARIANTS) {
+                    write(job, chunk);
+                    chunk = new ArrayList<>();
+                    chunkVariants = 0;
+                }
+            }
+            write(job, chunk);
+            job.status = "DONE";
+        } catch (Exception e) {
+            log.error("Product import {} failed", job.id, e);
+            job.fail(null, "Import bị dừng: " + e.getMessage());
+            job.status = "FAILED";
+        } finally {
+            job.finishedAt = new Date();
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                log.warn("Cannot delete product import file {}", spool, e);
+            }
+        }
+        log.info("Product import {} {} in {} ms: {} products, {} variants imported, {} failed", job.id, job.status,
+                System.currentTimeMillis() - start, job.importedProducts, job.importedVariants, job.failedProducts);
+        if (job.categorized) {
+            eventPublisher.publishEvent(new PromotionChangedEvent("import products " + job.id, false));
+        }
+    }
+
+    /**
+     * Kiểm tra một sản phẩm theo cùng quy tắc với tạo sản phẩm, trả về thông báo lỗi hoặc null nếu hợp lệ.
+     */
+    private String validate(BaseProductDto product, Set<Integer> categoryIds, Set<String> seenSkus) {
+        if (isBlank(product.getName())) return "Tên sản phẩm không được trống";
+        if (isBlank(product.getAttribute1())) return "Thuộc tính không được trống";
+        if (!isBlank(product.getAttribute2()) && product.getAttribute1().equals(product.getAttribute2()))
+            return "Thuộc tính " + product.getAttribute1() + " đã tồn tại";
+        if (!isBlank(product.getAttribute2()) && product.getAttribute2().equals(product.getAttribute3()))
+            return "Thuộc tính " + product.getAttribute2() + " đã tồn tại";
+        if (product.getCategoryIds() != null) {
+            for (Integer categoryId : product.getCategoryIds()) {
+                if (!categoryIds.contains(categoryId)) return "Không tìm thấy danh mục " + categoryId;
+            }
+        }
+        if (product.getVariants() == null || product.getVariants().isEmpty()) return "Phải có ít nhất 1 phiên bản";
+
+        boolean isSetAttribute2 = !isBlank(product.getAttribute2());
+        boolean isSetAttribute3 = !isBlank(product.getAttribute3());
+        List<String> skus = new ArrayList<>();
+        for (VariantDto variant : product.getVariants()) {
+            if (isBlank(variant.getName())) return "Tên phiên bản không được trống";
+            if (isBlank(variant.getValue1())) return "Thuộc tính không được để trống";
+            if (isSetAttribute2 && isBlank(variant.getValue2())) return "Thuộc tính không được để trống";
+            if (isSetAttribute3 && isBlank(variant.getValue3())) return "Thuộc tính không được để trống";
+            if (variant.getQuantity() < 0) return "Số lượng phải lớn hơn 0";
+            if (variant.getImportPrice() < 0 || variant.getRetailPrice() < 0 || variant.getWholeSalePrice() < 0)
+                return "Giá không được âm";
+            if (!isBlank(variant.getSku())) {
+                if (variant.getSku().startsWith("SKU")) return "Mã SKU không được bắt đầu bằng \"SKU\"";
+                if (seenSkus.contains(variant.getSku()) || skus.contains(variant.getSku()))
+                    return "Mã SKU " + variant.getSku() + " bị trùng";
+                skus.add(variant.getSku());
+            }
+        }
+        seenSkus.addAll(skus);
+        return null;
+    }
+
+    private void write(ImportJob job, List<ImportProduct> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        // loại các sản phẩm có SKU đã tồn tại trong DB
+        Map<String, ImportProduct> productBySku = new HashMap<>();
+        for (ImportProduct product : chunk) {
+            for (int i = 0; i < product.dto.getVariants().size(); i++) {
+                if (!product.autoSku[i]) {
+                    productBySku.put(product.dto.getVariants().get(i).getSku(), product);
+                }
+            }
+        }
+        Set<ImportProduct> rejected = new HashSet<>();
+        for (String sku : productImportRepository.findExistingSkus(productBySku.keySet())) {
+            ImportProduct product = productBySku.get(sku);
+            if (rejected.add(product)) {
+                job.fail(product, "Mã SKU " + sku + " đã tồn tại");
+            }
+        }
+        List<ImportProduct> products = new ArrayList<>(chunk);
+        products.removeAll(rejected);
+        if (products.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(products));
+            job.imported(products);
+        } catch (RuntimeException e) {
+            if (products.size() == 1) {
+                job.fail(products.get(0), "Lỗi ghi dữ liệu: " + e.getMessage());
+                return;
+            }
+            // ghi lại từng sản phẩm để chỉ những sản phẩm gây lỗi bị bỏ qua
+            log.warn("Product import {} chunk failed, retry product by product: {}", job.id, e.getMessage());
+            for (ImportProduct product : products) {
+                write(job, List.of(product));
+            }
+        }
+    }
+
+    private void insert(List<ImportProduct> products) {
+        List<BaseProductDto> dtos = products.stream().map(product -> product.dto).toList();
+        List<Integer> ids = productImportRepository.insertBaseProducts(dtos);
+
+        List<VariantDto> variants = new ArrayList<>();
+        List<Map.Entry<Integer, Integer>> productCategories = new ArrayList<>();
+        for (int p = 0; p < products.size(); p++) {
+            ImportProduct product = products.get(p);
+            int baseId = ids.get(p);
+            List<VariantDto> productVariants = product.dto.getVariants();
+            for (int i = 0; i < productVariants.size(); i++) {
+                VariantDto variant = productVariants.get(i);
+                variant.setBaseId(baseId);
+                if (product.autoSku[i]) {
+                    variant.setSku("SKU" + baseId + "-" + (i + 1));
+                }
+                if (product.autoBarcode[i]) {
+                    variant.setBarcode(variant.getSku());
+                }
+                variants.add(variant);
+            }
+            if (product.dto.getCategoryIds() != null) {
+                product.dto.getCategoryIds().stream().distinct()
+                        .forEach(categoryId -> productCategories.add(new AbstractMap.SimpleEntry<>(baseId, categoryId)));
+            }
+        }
+        productImportRepository.insertVariants(variants);
+        inventoryMovementService.recordInitial(ids);
+        productImportRepository.insertProductCategories(productCategories);
+        eventPublisher.publishEvent(new ProductSearchChangedEvent(ids));
+    }
+
+    private static boolean isJsonLines(String fileName, String format) {
+        String resolved = format == null ? "" : format.trim().toLowerCase(Locale.ROOT);
+        if (resolved.isEmpty() && fileName != null) {
+            String lower = fileName.toLowerCase(Locale.ROOT);
+            if (lower.endsWith(".jsonl") || lower.endsWith(".ndjson") || lower.endsWith(".json")) resolved = "jsonl";
+            else resolved = "csv";
+        }
+        if (resolved.equals("jsonl") || resolved.equals("ndjson") || resolved.equals("json")) return true;
+        if (resolved.isEmpty() || resolved.equals("csv")) return false;
+        throw new BadRequestException("Định dạng " + format + " không được hỗ trợ (csv, jsonl)");
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private interface ProductSource {
+        ImportProduct next() throws IOException;
+    }
+
+    private class JsonLinesSource implements ProductSource {
+        private final BufferedReader reader;
+        private int lineNumber;
+
+        private JsonLinesSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportProduct next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    BaseProductDto product = objectMapper.readValue(line, BaseProductDto.class);
+                    // dòng "null" hợp lệ về cú pháp nhưng không có sản phẩm
+                    if (product == null) {
+                        return new ImportProduct(lineNumber, null, "Dòng JSON không phải là một sản phẩm");
+                    }
+                    return new ImportProduct(lineNumber, product, null);
+                } catch (JsonProcessingException e) {
+                    return new ImportProduct(lineNumber, null, "Dòng JSON không hợp lệ: " + e.getOriginalMessage());
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class CsvSource implements ProductSource {
+        private final CsvReader reader;
+        private Map<String, Integer> columns;
+        private List<String> pending;
+        private int pendingLine;
+
+        private CsvSource(CsvReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportProduct next() throws IOException {
+            if (columns == null) {
+                readHeader();
+            }
+            if (pending == null) {
+                pending = reader.next();
+                pendingLine = reader.getLineNumber();
+            }
+            if (pending == null) {
+                return null;
+            }
+
+            int line = pendingLine;
+            String productKey = value(pending, "product");
+            BaseProductDto product = new BaseProductDto();
+            product.setName(productKey);
+            product.setLabel(value(pending, "label"));
+            product.setDescription(value(pending, "description"));
+            product.setAttribute1(value(pending, "attribute1"));
+            product.setAttribute2(value(pending, "attribute2"));
+            product.setAttribute3(value(pending, "attribute3"));
+            product.setVariants(new ArrayList<>());
+            String error = null;
+            try {
+                product.setCategoryIds(parseIds(value(pending, "categoryids")));
+            } catch (NumberFormatException e) {
+                error = "Dòng " + line + ": categoryIds không hợp lệ";
+            }
+
+            // gom các dòng liên tiếp cùng sản phẩm
+            do {
+                try {
+                    product.getVariants().add(toVariant(pending));
+                } catch (NumberFormatException e) {
+                    if (error == null) error = "Dòng " + reader.getLineNumber() + ": số lượng/giá không hợp lệ";
+                }
+                pending = reader.next();
+                pendingLine = reader.getLineNumber();
+            } while (pending != null && productKey != null && productKey.equals(value(pending, "product")));
+
+            return new ImportProduct(line, product, error);
+        }
+
+        private void readHeader() throws IOException {
+            List<String> header = reader.next();
+            if (header == null) throw new BadRequestException("File CSV không có dòng tiêu đề");
+            columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!columns.containsKey("product")) throw new BadRequestException("File CSV thiếu cột product");
+        }
+
+        private VariantDto toVariant(List<String> row) {
+            VariantDto variant = new VariantDto();
+            variant.setName(value(row, "name"));
+            variant.setSku(value(row, "sku"));
+            variant.setBarcode(value(row, "barcode"));
+            variant.setImage(value(row, "image"));
+            variant.setValue1(value(row, "value1"));
+            variant.setValue2(value(row, "value2"));
+            variant.setValue3(value(row, "value3"));
+            variant.setQuantity(intValue(row, "quantity"));
+            variant.setImportPrice(intValue(row, "importprice"));
+            variant.setRetailPrice(intValue(row, "retailprice"));
+            variant.setWholeSalePrice(intValue(row, "wholesaleprice"));
+            return variant;
+        }
+
+        private String value(List<String> row, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= row.size()) {
+                return null;
+            }
+            String value = row.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private int intValue(List<String> row, String column) {
+            String value = value(row, column);
+            return value == null ? 0 : Integer.parseInt(value);
+        }
+
+        private static List<Integer> parseIds(String value) {
+            List<Integer> ids = new ArrayList<>();
+            if (value != null) {
+                for (String id : value.split(";")) {
+                    if (!id.isBlank()) ids.add(Integer.parseInt(id.trim()));
+                }
+            }
+            return ids;
+        }
+    }
+
+    private static class ImportProduct {
+        private final int line;
+        private final BaseProductDto dto;
+        private final String error;
+        // variant không có SKU / barcode trong file, được sinh theo id sản phẩm mỗi lần ghi
+        private final boolean[] autoSku;
+        private final boolean[] autoBarcode;
+
+        private ImportProduct(int line, BaseProductDto dto, String error) {
+            this.line = line;
+            this.dto = dto;
+            this.error = error;
+            int variants = dto != null && dto.getVariants() != null ? dto.getVariants().size() : 0;
+            this.autoSku = new boolean[variants];
+            this.autoBarcode = new boolean[variants];
+            for (int i = 0; i < variants; i++) {
+                autoSku[i] = isBlank(dto.getVariants().get(i).getSku());
+                autoBarcode[i] = isBlank(dto.getVariants().get(i).getBarcode());
+            }
+        }
+    }
+
+    private static class ImportJob {
+        private final String id;
+        private final String fileName;
+        private final long totalBytes;
+        private final List<ProductImportError> errors = new ArrayList<>();
+        private volatile String status = "QUEUED";
+        private volatile long bytesRead;
+        private volatile int processedProducts;
+        private volatile int importedProducts;
+        private volatile int importedVariants;
+        private volatile int failedProducts;
+        private volatile boolean errorsTruncated;
+        private volatile boolean categorized;
+        private volatile Date startedAt;
+        private volatile Date finishedAt;
+
+        private ImportJob(String id, String fileName, long totalBytes) {
+            this.id = id;
+            this.fileName = fileName;
+            this.totalBytes = totalBytes;
+        }
+
+        private boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        private synchronized void fail(ImportProduct product, String message) {
+            if (product != null) {
+                failedProducts++;
+            }
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(new ProductImportError(product != null ? product.line : 0,
+                        product != null && product.dto != null ? product.dto.getName() : null, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        private synchronized void imported(List<ImportProduct> products) {
+            importedProducts += products.size();
+            for (ImportProduct product : products) {
+                importedVariants += product.dto.getVariants().size();
+                if (product.dto.getCategoryIds() != null && !product.dto.getCategoryIds().isEmpty()) {
+                    categorized = true;
+                }
+            }
+        }
+
+        private synchronized ProductImportStatus toStatus() {
+            return ProductImportStatus.builder()
+                    .jobId(id)
+                    .fileName(fileName)
+                    .status(status)
+                    .bytesRead(bytesRead)
+                    .totalBytes(totalBytes)
+                    .processedProducts(processedProducts)
+                    .importedProducts(importedProducts)
+                    .importedVariants(importedVariants)
+                    .failedProducts(failedProducts)
+                    .errors(List.copyOf(errors))
+                    .errorsTruncated(errorsTruncated)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+
+    // đếm số byte đã đọc để báo tiến độ
+    private static class CountingInputStream extends FilterInputStream {
+        private final ImportJob job;
+
+        private CountingInputStream(InputStream in, ImportJob job) {
+            super(in);
+            this.job = job;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                job.bytesRead++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                job.bytesRead += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.projectcnw.salesmanagement.services.ProductManagerServices;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Phát ra khi tên, nhãn, phiên bản, SKU hoặc barcode của sản phẩm có thể đã thay đổi
+ * (tạo/sửa/xoá sản phẩm hoặc phiên bản, import), để chỉ mục tìm kiếm ghi lại các sản phẩm này.
+ */
+@Getter
+public class ProductSearchChangedEvent {
+    private final List<Integer> baseIds;
+
+    public ProductSearchChangedEvent(int baseId) {
+        this(List.of(baseId));
+    }
+
+    public ProductSearchChangedEvent(Collection<Integer> baseIds) {
+        this.baseIds = List.copyOf(baseIds);
+    }
+}
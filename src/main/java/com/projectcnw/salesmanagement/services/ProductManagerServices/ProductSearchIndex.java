@@ -0,0 +1,80 @@
+package com.projectcnw.salesmanagement.services.ProductManagerServices;
+
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.ProductSearchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Giữ bảng product_search đồng bộ với sản phẩm / phiên bản. Mỗi {@link ProductSearchChangedEvent}
+ * ghi lại các sản phẩm liên quan sau khi giao dịch commit; khi khởi động, chỉ mục được dựng lại
+ * nếu số dòng không khớp với số phiên bản đang hoạt động (lần chạy đầu, dữ liệu sửa trực tiếp trong DB).
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final int REBUILD_CHUNK = 1000;
+
+    private final ProductSearchRepository productSearchRepository;
+
+    // listener chạy sau commit: giao dịch của thao tác đã kết thúc, ghi chỉ mục cần giao dịch riêng
+    private final TransactionTemplate requiresNewTransaction;
+
+    public ProductSearchIndex(ProductSearchRepository productSearchRepository, PlatformTransactionManager transactionManager) {
+        this.productSearchRepository = productSearchRepository;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            productSearchRepository.createIfNotExists();
+            long entries = productSearchRepository.countEntries();
+            long variants = productSearchRepository.countActiveVariants();
+            if (entries != variants) {
+                log.info("Product search index has {} entries for {} variants, rebuilding", entries, variants);
+                rebuild();
+            }
+        } catch (RuntimeException e) {
+            log.error("Không thể khởi tạo chỉ mục tìm kiếm sản phẩm", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductSearchChanged(ProductSearchChangedEvent event) {
+        try {
+            requiresNewTransaction.executeWithoutResult(status -> productSearchRepository.reindex(event.getBaseIds()));
+        } catch (RuntimeException e) {
+            // không làm hỏng thao tác đã commit, chỉ mục được sửa ở lần dựng lại tiếp theo
+            log.error("Không thể cập nhật chỉ mục tìm kiếm cho sản phẩm {}", event.getBaseIds(), e);
+        }
+    }
+
+    /**
+     * Dựng lại toàn bộ chỉ mục theo từng nhóm sản phẩm; trong lúc dựng, tìm kiếm vẫn dùng các dòng hiện có.
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        int lastId = 0;
+        int products = 0;
+        List<Integer> baseIds;
+        while (!(baseIds = productSearchRepository.getBaseProductIdsAfter(lastId, REBUILD_CHUNK)).isEmpty()) {
+            List<Integer> chunk = baseIds;
+            requiresNewTransaction.executeWithoutResult(status -> productSearchRepository.reindex(chunk));
+            lastId = baseIds.get(baseIds.size() - 1);
+            products += baseIds.size();
+        }
+        int orphans = productSearchRepository.deleteOrphans();
+        log.info("Product search index rebuilt in {} ms: {} products, {} stale entries removed",
+                System.currentTimeMillis() - start, products, orphans);
+    }
+}
@@ -0,0 +1,280 @@
+package com.projectcnw.salesmanagement.services.ProductManagerServices;
+
+import com.projectcnw.salesmanagement.dto.productDtos.StockShortfall;
+import com.projectcnw.salesmanagement.exceptions.InsufficientStockException;
+import com.projectcnw.salesmanagement.models.StockLedgerCheckpoint;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.StockLedgerCheckpointRepository;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.VariantStockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sổ tồn kho trong bộ nhớ cho chế độ flash sale (application.inventory.ledger.enabled).
+ * Việc giữ hàng chỉ kiểm tra và cập nhật bộ đếm của variant dưới khoá theo dải, thay đổi đã commit
+ * được ghi vào {@link StockLedgerLog} và định kỳ cộng dồn vào bảng variant trong một batch.
+ */
+@Service
+@Slf4j
+public class StockLedger {
+
+    private static final int STRIPES = 64;
+
+    private final VariantStockRepository variantStockRepository;
+
+    private final StockLedgerCheckpointRepository stockLedgerCheckpointRepository;
+
+    private final StockLedgerLog stockLedgerLog;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    private final Map<Integer, Counter> counters = new ConcurrentHashMap<>();
+
+    private volatile boolean started;
+
+    public StockLedger(VariantStockRepository variantStockRepository,
+                       StockLedgerCheckpointRepository stockLedgerCheckpointRepository,
+                       StockLedgerLog stockLedgerLog,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${application.inventory.ledger.enabled:false}") boolean enabled) {
+        this.variantStockRepository = variantStockRepository;
+        this.stockLedgerCheckpointRepository = stockLedgerCheckpointRepository;
+        this.stockLedgerLog = stockLedgerLog;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * Mở log và ghi nốt vào DB các thay đổi chưa được flush từ lần chạy trước.
+     */
+    private synchronized void start() {
+        if (started) {
+            return;
+        }
+        long checkpointSeq = stockLedgerCheckpointRepository.findById(StockLedgerCheckpoint.ID)
+                .map(StockLedgerCheckpoint::getLastSeq)
+                .orElse(0L);
+        stockLedgerLog.open(checkpointSeq);
+        started = true;
+        flush();
+    }
+
+    /**
+     * Áp dụng thay đổi tồn kho (variant id tăng dần -> delta) trong giao dịch hiện tại.
+     * Bộ đếm được cập nhật ngay; bản ghi log được ghi trước khi giao dịch commit,
+     * nếu giao dịch rollback thì bộ đếm được hoàn lại.
+     */
+    public void adjust(TreeMap<Integer, Integer> deltas) {
+        if (!started) {
+            start();
+        }
+        seed(deltas.keySet());
+
+        List<StockShortfall> shortfalls = new ArrayList<>();
+        List<ReentrantLock> held = lockStripes(deltas.keySet());
+        try {
+            // flush() có thể đã bỏ bộ đếm rảnh giữa lần seed trên và lúc khoá; nạp lại dưới khoá dải,
+            // refresh() cần cùng khoá này để xoá nên bộ đếm không thể mất trước khi active được tăng
+            seed(deltas.keySet());
+            deltas.forEach((variantId, delta) -> {
+                Counter counter = counters.get(variantId);
+                int available = counter != null ? counter.available() : 0;
+                if (counter == null || available + delta < 0) {
+                    shortfalls.add(new StockShortfall(variantId, -delta, available));
+                }
+            });
+            if (shortfalls.isEmpty()) {
+                deltas.forEach((variantId, delta) -> {
+                    Counter counter = counters.get(variantId);
+                    counter.add(delta);
+                    counter.active++;
+                });
+            }
+        } finally {
+            held.forEach(ReentrantLock::unlock);
+        }
+        if (!shortfalls.isEmpty()) {
+            throw new InsufficientStockException(shortfalls);
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean logged;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                stockLedgerLog.append(deltas);
+                logged = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                boolean committed = status == STATUS_COMMITTED;
+                complete(deltas, committed);
+                if (!committed && logged) {
+                    TreeMap<Integer, Integer> reverted = new TreeMap<>();
+                    deltas.forEach((variantId, delta) -> reverted.put(variantId, -delta));
+                    stockLedgerLog.append(reverted);
+                }
+            }
+        });
+    }
+
+    /**
+     * Cộng dồn các bản ghi đã commit vào bảng variant, sau đó đồng bộ lại bộ đếm với số lượng trong DB
+     * (bao gồm cả các thay đổi từ nhập hàng, kiểm kho) và bỏ các variant không còn hoạt động.
+     */
+    @Scheduled(fixedDelayString = "${application.inventory.ledger.flush-interval:200}")
+    public synchronized void flush() {
+        if (!started) {
+            return;
+        }
+        List<StockLedgerLog.Entry> entries = stockLedgerLog.getUnflushed();
+        TreeMap<Integer, Integer> flushed = new TreeMap<>();
+        if (!entries.isEmpty()) {
+            long lastSeq = entries.get(entries.size() - 1).getSeq();
+            entries.forEach(entry -> entry.getDeltas().forEach((variantId, delta) -> flushed.merge(variantId, delta, Integer::sum)));
+            flushed.values().removeIf(delta -> delta == 0);
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!flushed.isEmpty()) {
+                    variantStockRepository.addQuantities(new ArrayList<>(flushed.entrySet()));
+                }
+                stockLedgerCheckpointRepository.save(new StockLedgerCheckpoint(StockLedgerCheckpoint.ID, lastSeq));
+            });
+            stockLedgerLog.checkpoint(lastSeq);
+            log.debug("Stock ledger flushed {} records up to seq {}", entries.size(), lastSeq);
+        }
+        refresh(flushed);
+    }
+
+    private void refresh(Map<Integer, Integer> flushed) {
+        if (counters.isEmpty()) {
+            return;
+        }
+        Map<Integer, Integer> quantities = variantStockRepository.getQuantities(new ArrayList<>(counters.keySet()));
+        for (Integer variantId : new ArrayList<>(counters.keySet())) {
+            ReentrantLock lock = locks[stripe(variantId)];
+            lock.lock();
+            try {
+                Counter counter = counters.get(variantId);
+                Integer quantity = quantities.get(variantId);
+                if (counter == null) {
+                    continue;
+                }
+                if (quantity == null && counter.active == 0) {
+                    counters.remove(variantId);
+                    continue;
+                }
+                counter.pending -= flushed.getOrDefault(variantId, 0);
+                counter.base = quantity != null ? quantity : 0;
+                if (counter.pending == 0 && counter.active == 0 && !counter.touched) {
+                    counters.remove(variantId);
+                } else {
+                    counter.touched = false;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void seed(Iterable<Integer> variantIds) {
+        List<Integer> missing = new ArrayList<>();
+        variantIds.forEach(variantId -> {
+            if (!counters.containsKey(variantId)) {
+                missing.add(variantId);
+            }
+        });
+        if (missing.isEmpty()) {
+            return;
+        }
+        variantStockRepository.getQuantities(missing)
+                .forEach((variantId, quantity) -> counters.putIfAbsent(variantId, new Counter(quantity)));
+    }
+
+    // kết thúc giao dịch đã giữ hàng, hoàn lại bộ đếm nếu giao dịch không commit
+    private void complete(TreeMap<Integer, Integer> deltas, boolean committed) {
+        List<ReentrantLock> held = lockStripes(deltas.keySet());
+        try {
+            deltas.forEach((variantId, delta) -> {
+                Counter counter = counters.get(variantId);
+                counter.active--;
+                if (!committed) {
+                    counter.add(-delta);
+                }
+            });
+        } finally {
+            held.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    // khoá các dải theo thứ tự tăng dần để hai giao dịch không chờ chéo nhau
+    private List<ReentrantLock> lockStripes(Iterable<Integer> variantIds) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        variantIds.forEach(variantId -> stripes.add(stripe(variantId)));
+        List<ReentrantLock> held = new ArrayList<>();
+        for (Integer stripe : stripes) {
+            locks[stripe].lock();
+            held.add(locks[stripe]);
+        }
+        return held;
+    }
+
+    private static int stripe(int variantId) {
+        return Math.floorMod(variantId, STRIPES);
+    }
+
+    private static class Counter {
+        // số lượng trong bảng variant ở lần đồng bộ gần nhất
+        private int base;
+        // tổng thay đổi chưa có trong bảng variant, kể cả của các giao dịch chưa commit
+        private int pending;
+        // số giao dịch đã giữ hàng trên variant này nhưng chưa kết thúc
+        private int active;
+        private boolean touched = true;
+
+        private Counter(int base) {
+            this.base = base;
+        }
+
+        private int available() {
+            return base + pending;
+        }
+
+        private void add(int delta) {
+            pending += delta;
+            touched = true;
+        }
+    }
+}
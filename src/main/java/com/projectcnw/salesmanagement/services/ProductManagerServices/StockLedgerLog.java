@@ -0,0 +1,154 @@
+package com.projectcnw.salesmanagement.services.ProductManagerServices;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * File log ghi thêm các thay đổi tồn kho đã commit của stock ledger, mỗi dòng "seq variantId:delta,...".
+ * Bản ghi được fsync trước khi đơn hàng commit và chỉ bị xoá khi đã được flush vào bảng variant,
+ * nên sau khi ứng dụng dừng đột ngột có thể đọc lại để ghi nốt vào DB.
+ */
+@Component
+@Slf4j
+public class StockLedgerLog {
+
+    private final Path path;
+
+    private FileChannel channel;
+
+    private long lastSeq;
+
+    // các bản ghi đã ghi xuống file nhưng chưa được flush vào DB
+    private final List<Entry> unflushed = new ArrayList<>();
+
+    // append fsync trên luồng request; ReentrantLock không ghim virtual thread trong lúc chờ như synchronized
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public StockLedgerLog(@Value("${application.inventory.ledger.log-file:stock-ledger.log}") String file) {
+        this.path = Path.of(file);
+    }
+
+    /**
+     * Mở log và nạp lại các bản ghi có seq lớn hơn checkpoint đã lưu trong DB.
+     */
+    public void open(long checkpointSeq) {
+        lock.lock();
+        try {
+            lastSeq = checkpointSeq;
+            unflushed.clear();
+            if (Files.exists(path)) {
+                for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                    Entry entry = parse(line);
+                    if (entry == null) {
+                        log.warn("Skip incomplete stock ledger record: {}", line);
+                        continue;
+                    }
+                    lastSeq = Math.max(lastSeq, entry.getSeq());
+                    if (entry.getSeq() > checkpointSeq) {
+                        unflushed.add(entry);
+                    }
+                }
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            log.info("Stock ledger log {} opened, {} records to replay", path.toAbsolutePath(), unflushed.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot open stock ledger log " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long append(Map<Integer, Integer> deltas) {
+        lock.lock();
+        try {
+            Entry entry = new Entry(lastSeq + 1, new LinkedHashMap<>(deltas));
+            StringBuilder line = new StringBuilder().append(entry.getSeq()).append(' ');
+            entry.getDeltas().forEach((variantId, delta) -> line.append(variantId).append(':').append(delta).append(','));
+            line.setLength(line.length() - 1);
+            line.append('\n');
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(line.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot append to stock ledger log " + path, e);
+            }
+            lastSeq = entry.getSeq();
+            unflushed.add(entry);
+            return entry.getSeq();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<Entry> getUnflushed() {
+        lock.lock();
+        try {
+            return new ArrayList<>(unflushed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Bỏ các bản ghi có seq <= checkpointSeq; khi không còn bản ghi nào thì làm rỗng file.
+     */
+    public void checkpoint(long checkpointSeq) {
+        lock.lock();
+        try {
+            unflushed.removeIf(entry -> entry.getSeq() <= checkpointSeq);
+            if (unflushed.isEmpty()) {
+                try {
+                    channel.truncate(0);
+                } catch (IOException e) {
+                    log.warn("Cannot truncate stock ledger log {}", path, e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Entry parse(String line) {
+        try {
+            String[] parts = line.trim().split(" ");
+            Map<Integer, Integer> deltas = new LinkedHashMap<>();
+            for (String delta : parts[1].split(",")) {
+                String[] pair = delta.split(":");
+                deltas.put(Integer.parseInt(pair[0]), Integer.parseInt(pair[1]));
+            }
+            return new Entry(Long.parseLong(parts[0]), deltas);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Getter
+    public static class Entry {
+        private final long seq;
+        private final Map<Integer, Integer> deltas;
+
+        private Entry(long seq, Map<Integer, Integer> deltas) {
+            this.seq = seq;
+            this.deltas = deltas;
+        }
+    }
+}
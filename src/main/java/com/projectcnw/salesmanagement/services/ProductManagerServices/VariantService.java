@@ -1,6 +1,7 @@
 
 package com.projectcnw.salesmanagement.services.ProductManagerServices;
 
+import com.projectcnw.salesmanagement.converter.VariantConverter;
 import com.projectcnw.salesmanagement.dto.ResponseObject;
 import com.projectcnw.salesmanagement.dto.orderDtos.TopOrder;
 import com.projectcnw.salesmanagement.dto.productDtos.*;
@@ -10,16 +11,20 @@ import com.projectcnw.salesmanagement.exceptions.ProductManagerExceptions.Produc
 import com.projectcnw.salesmanagement.models.Products.BaseProduct;
 import com.projectcnw.salesmanagement.models.Products.Variant;
 import com.projectcnw.salesmanagement.models.Promotion;
+import com.projectcnw.salesmanagement.models.enums.HistoryType;
 import com.projectcnw.salesmanagement.models.enums.PromotionEnumType;
 import com.projectcnw.salesmanagement.repositories.CategoryRepository.CategoryRepository;
-import com.projectcnw.salesmanagement.repositories.OrderRepositories.OrderRepository;
 import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.BaseProductRepository;
 import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.NonJPARepository.impl.NonJpaVariantRepository;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.ProductSearchRepository;
 import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.VariantRepository;
-import com.projectcnw.salesmanagement.repositories.PromotionRepository.PromotionRepository;
+import com.projectcnw.salesmanagement.services.OrderServices.OrderService;
+import com.projectcnw.salesmanagement.services.PromotionServices.ActivePromotionIndex;
+import com.projectcnw.salesmanagement.utils.SearchText;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,7 +37,10 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -43,13 +51,21 @@ public class VariantService {
 
     private final BaseProductRepository baseProductRepository;
 
-    private final PromotionRepository promotionRepository;
+    private final ActivePromotionIndex activePromotionIndex;
 
     private final NonJpaVariantRepository nonJpaVariantRepository;
 
-    private final OrderRepository orderRepository;
+    private final OrderService orderService;
 
     private final CategoryRepository categoryRepository;
+
+    private final ProductSearchRepository productSearchRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final InventoryMovementService inventoryMovementService;
+
+    private final VariantConverter variantConverter;
     private ModelMapper modelMapper = new ModelMapper();
 
     public List<VariantSaleResponse> getAllVariants(int page, int size) {
@@ -58,6 +74,7 @@ public class VariantService {
         return getListVariantResponseFromVariant(iVariantDtos);
     }
 
+    @Transactional(readOnly = true)
     public List<VariantSaleResponse> getAllVariantsFilter(int page, int size, String query, String categoryIds, String start_date, String end_date, String sort_by, String order, String channels) {
         List<Integer> categoryIdList = categoryIds == null || categoryIds.isEmpty() ? null : Arrays.stream(categoryIds.split(",")).map(Integer::parseInt).toList();
         List<String> channelList = channels == null || channels.isEmpty() ? null : Arrays.stream(channels.split(",")).toList();
@@ -85,23 +102,40 @@ public class VariantService {
     }
 
     public VariantSaleResponse getVariantWithBestPromotion(Variant variant) {
-        VariantSaleResponse variantSaleResponse = new VariantSaleResponse();
+        return getListVariantResponseFromVariant(List.of(variant)).get(0);
+    }
+
+    public List<VariantSaleResponse> getListVariantResponseFromVariant(List<Variant> iVariantDtos) {
+        Map<Integer, PromotionResponse> promotionResponses = new HashMap<>();
+        List<VariantSaleResponse> variantSaleResponses = new ArrayList<>();
+        for (Variant variant : iVariantDtos) {
+            Promotion bestPromotion = getBestPromotion(variant, activePromotionIndex.getPromotions(variant.getBaseProduct().getId()));
+            PromotionResponse promotionResponse = bestPromotion != null
+                    ? promotionResponses.computeIfAbsent(bestPromotion.getId(), id -> modelMapper.map(bestPromotion, PromotionResponse.class))
+                    : null;
+            variantSaleResponses.add(toVariantSaleResponse(variant, bestPromotion, promotionResponse));
+        }
+        return variantSaleResponses;
+    }
+
+    // choose promotion which variant price after discount is lowest
+    private Promotion getBestPromotion(Variant variant, List<Promotion> promotions) {
         Promotion bestPromotion = null;
-        List<Promotion> promotions = promotionRepository.getAllPromotionByVariantId(variant.getId());
-        log.info("Promotion: {}", promotions);
-        // choose promotion which variant price after discount is lowest
-        if (promotions != null && !promotions.isEmpty()) {
-            double minPrice = Double.MAX_VALUE;
-            for (Promotion promotion : promotions) {
-                double discountedPrice = calculateDiscountedPrice(variant, promotion);
-                if (discountedPrice < minPrice) {
-                    minPrice = discountedPrice;
-                    bestPromotion = promotion;
-                }
+        double minPrice = Double.MAX_VALUE;
+        for (Promotion promotion : promotions) {
+            double discountedPrice = calculateDiscountedPrice(variant, promotion);
+            if (discountedPrice < minPrice) {
+                minPrice = discountedPrice;
+                bestPromotion = promotion;
             }
         }
+        return bestPromotion;
+    }
+
+    private VariantSaleResponse toVariantSaleResponse(Variant variant, Promotion bestPromotion, PromotionResponse promotionResponse) {
+        VariantSaleResponse variantSaleResponse = new VariantSaleResponse();
         double discountPrice = bestPromotion != null ? bestPromotion.getValueType().name().equals(PromotionEnumType.PERCENTAGE.name()) ? (double) variant.getRetailPrice() * bestPromotion.getValue() / 100 : bestPromotion.getValue() : 0;
-        variantSaleResponse.setPromotion(bestPromotion != null ? modelMapper.map(bestPromotion, PromotionResponse.class) : null);
+        variantSaleResponse.setPromotion(promotionResponse);
         variantSaleResponse.setName(variant.getName());
         variantSaleResponse.setSku(variant.getSku());
         variantSaleResponse.setWholeSalePrice(variant.getWholeSalePrice());
@@ -120,16 +154,7 @@ public class VariantService {
         return variantSaleResponse;
     }
 
-    public List<VariantSaleResponse> getListVariantResponseFromVariant(List<Variant> iVariantDtos) {
-        double minPrice = Double.MAX_VALUE;
-        List<VariantSaleResponse> variantSaleResponses = new ArrayList<>();
-        for (Variant variant : iVariantDtos) {
-            VariantSaleResponse variantSaleResponse = getVariantWithBestPromotion(variant);
-            variantSaleResponses.add(variantSaleResponse);
-        }
-        return variantSaleResponses;
-    }
-
+    @Transactional(readOnly = true)
     public List<VariantSaleResponse> getTop10VariantHasPromotion() {
         List<Variant> listTopVariantSale = variantRepository.getTop10VariantHasPromotion();
         return getListVariantResponseFromVariant(listTopVariantSale);
@@ -140,33 +165,15 @@ public class VariantService {
 //        return getListVariantResponseFromVariant(listTopVariantSale);
 //    }
 
-    public List<TopSaleVariant> getTopSaleVariant(java.util.Date startDate, java.util.Date endDate, String type) {
+    @Transactional(readOnly = true)
+    public List<TopSaleVariant> getTopSaleVariant(java.util.Date startDate, java.util.Date endDate, String type, int limit) {
+        List<Object[]> topVariants = orderService.topVariants(startDate, endDate, type, limit);
+        List<VariantSaleResponse> variantSaleResponses = getListVariantResponseFromVariant(topVariants.stream().map(data -> (Variant) data[0]).toList());
         List<TopSaleVariant> result = new ArrayList<>();
-        List<Object[]> listVariant = orderRepository.topProductByRevenue(startDate, endDate);
-        if ("revenue".equals(type)) {
-            listVariant = orderRepository.topProductByRevenue(startDate, endDate);
-            System.out.println("revenue");
-        } else if ("quantity".equals(type)) {
-            listVariant = orderRepository.topProductByQuantity(startDate, endDate);
-            System.out.println("quantity");
-        } else if ("order".equals(type)) {
-            listVariant = orderRepository.topProductByOrder(startDate, endDate);
-            System.out.println("order");
-        }
-
-        for (Object[] data : listVariant) {
-            int variantId = (int) data[0];
-            Variant variant = null;
-            variant = variantRepository.findById((Integer) variantId)
-                    .orElseThrow(() -> new NotFoundException("variant " + variantId + " not found"));
-
-            VariantSaleResponse variantSaleResponse = getVariantWithBestPromotion(variant);
-
-            BigDecimal value = BigDecimal.valueOf(((Number) data[1]).doubleValue());
-            TopSaleVariant topOrder = new TopSaleVariant(variantSaleResponse, value);
-            result.add(topOrder);
+        for (int i = 0; i < topVariants.size(); i++) {
+            BigDecimal value = BigDecimal.valueOf(((Number) topVariants.get(i)[1]).doubleValue());
+            result.add(new TopSaleVariant(variantSaleResponses.get(i), value));
         }
-
         return result;
     }
 
@@ -179,6 +186,7 @@ public class VariantService {
         return discountedPrice;
     }
 
+    @Transactional(readOnly = true)
     public long countVariantWebPage(String query, String categoryIds, String start_date, String end_date, String channels) {
 
         List<Integer> categoryIdList = categoryIds == null || categoryIds.equals("") ? null : Arrays.asList(categoryIds.split(",")).stream().map(Integer::parseInt).toList();
@@ -210,6 +218,7 @@ public class VariantService {
         return variantRepository.count();
     }
 
+    @Transactional
     public VariantDto createVariant(int baseId, VariantDto variantDto) {
         BaseProduct baseProduct = baseProductRepository.findById(baseId);
         if (baseProduct == null) throw new ProductException("baseProduct is not found");
@@ -237,11 +246,14 @@ public class VariantService {
                 throw new ProductException("Thuộc tính " + baseProduct.getAttribute3() + " không được để trống");
         variant.setBaseProduct(baseProduct);
         Variant variant1 = variantRepository.save(variant);
+        inventoryMovementService.record(HistoryType.INIT, null, Map.of(variant1.getId(), variant1.getQuantity()));
+        eventPublisher.publishEvent(new ProductSearchChangedEvent(baseId));
 
 
-        return modelMapper.map(variant1, VariantDto.class);
+        return variantConverter.toDto(variant1);
     }
 
+    @Transactional
     public VariantDto updateVariant(int baseId, VariantDto variantDto) {
         BaseProduct baseProduct = baseProductRepository.findById(baseId);
         if (baseProduct == null) throw new ProductException("Không tìm thấy sản phẩm");
@@ -272,9 +284,12 @@ public class VariantService {
                 throw new ProductException("Thuộc tính" + baseProduct.getAttribute3() + " không được trống");
 
 
+        // sửa số lượng trực tiếp được ghi sổ như một lần kiểm kho
+        inventoryMovementService.recordBalance(null, Map.of(variant.getId(), variant1.getQuantity()));
         Variant variant2 = variantRepository.save(variant1);
+        eventPublisher.publishEvent(new ProductSearchChangedEvent(baseId));
 
-        return modelMapper.map(variant2, VariantDto.class);
+        return variantConverter.toDto(variant2);
     }
 
     @Transactional
@@ -288,14 +303,33 @@ public class VariantService {
         if (variant == null || variant.isDeleted()) throw new ProductException("variant is not found");
 
         variantRepository.deleteVariantById(variantId);
+        eventPublisher.publishEvent(new ProductSearchChangedEvent(baseId));
     }
 
-    @Transactional
-    public List<VariantDto> getAllVariantsByKeyword(String keyword) {
-        List<IVariantDto> iVariantDtos = variantRepository.findAllVariantsByKeyword(keyword);
-        return Arrays.asList(modelMapper.map(iVariantDtos, VariantDto[].class));
+    /**
+     * Tìm phiên bản qua chỉ mục full-text (SKU, barcode, tên phiên bản và sản phẩm), xếp theo độ liên quan.
+     */
+    @Transactional(readOnly = true)
+    public List<VariantDto> getAllVariantsByKeyword(String keyword, int page, int size) {
+        String query = SearchText.booleanQuery(keyword);
+        if (query == null) return List.of();
+        List<Integer> ids = productSearchRepository.searchVariantIds(query, (page - 1) * size, size);
+        if (ids.isEmpty()) return List.of();
+        Map<Integer, IVariantDto> variantById = new HashMap<>();
+        variantRepository.findAllVariantsByIds(ids).forEach(variant -> variantById.put(variant.getId(), variant));
+        return ids.stream()
+                .map(variantById::get)
+                .filter(Objects::nonNull)
+                .map(variantConverter::toDto)
+                .toList();
+    }
+
+    public long countVariantsByKeyword(String keyword) {
+        String query = SearchText.booleanQuery(keyword);
+        return query == null ? 0 : productSearchRepository.countVariants(query);
     }
 
+    @Transactional(readOnly = true)
     public ResponseEntity<ResponseObject> getVariantSuggestions (int productId) {
         BaseProduct product = baseProductRepository.findById(productId);
         if (product == null) {
@@ -0,0 +1,147 @@
+package com.projectcnw.salesmanagement.services.PromotionServices;
+
+import com.projectcnw.salesmanagement.dto.promotion.PromotionIndexStats;
+import com.projectcnw.salesmanagement.models.Promotion;
+import com.projectcnw.salesmanagement.models.enums.PromotionEnumType;
+import com.projectcnw.salesmanagement.models.enums.PromotionPolicyApplyType;
+import com.projectcnw.salesmanagement.models.enums.PromotionStatusType;
+import com.projectcnw.salesmanagement.repositories.PromotionRepository.PromotionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chỉ mục các promotion đang active trong bộ nhớ: base product id -> promotion áp dụng được
+ * (theo sản phẩm, theo danh mục và loại ALL). Mỗi lần có {@link PromotionChangedEvent} chỉ mục
+ * được dựng lại toàn bộ rồi thay thế bản cũ, nên luồng đọc không bao giờ phải khoá hay truy vấn DB.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ActivePromotionIndex {
+
+    private final PromotionRepository promotionRepository;
+
+    private volatile Snapshot snapshot;
+
+    // hit: sản phẩm có promotion riêng (theo sản phẩm/danh mục), miss: chỉ có promotion ALL
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong lastRebuildMillis = new AtomicLong();
+    private final AtomicLong totalRebuildMillis = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Không thể dựng chỉ mục promotion khi khởi động, sẽ dựng lại ở lần đọc đầu tiên", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        log.info("Rebuild promotion index: {}", event.getReason());
+        rebuild();
+    }
+
+    public List<Promotion> getPromotions(int productId) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            rebuild();
+            current = snapshot;
+        }
+        List<Promotion> promotions = current.promotionsByProduct.get(productId);
+        if (promotions == null) {
+            misses.incrementAndGet();
+            return current.promotionsForAll;
+        }
+        hits.incrementAndGet();
+        return promotions;
+    }
+
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+
+        Map<Integer, Promotion> promotionById = new HashMap<>();
+        List<Promotion> promotionsForAll = new ArrayList<>();
+        for (Object[] row : promotionRepository.getPromotionColumnsByStatus(PromotionStatusType.active)) {
+            Promotion promotion = Promotion.builder()
+                    .title((String) row[1])
+                    .description((String) row[2])
+                    .policyApply((PromotionPolicyApplyType) row[3])
+                    .value((Integer) row[4])
+                    .valueType((PromotionEnumType) row[5])
+                    .startDate((Date) row[6])
+                    .endDate((Date) row[7])
+                    .status((PromotionStatusType) row[8])
+                    .build();
+            promotion.setId((Integer) row[0]);
+            promotionById.put(promotion.getId(), promotion);
+            if (promotion.getPolicyApply() == PromotionPolicyApplyType.ALL) {
+                promotionsForAll.add(promotion);
+            }
+        }
+
+        Map<Integer, List<Promotion>> promotionsByProduct = new HashMap<>();
+        for (Object[] pair : promotionRepository.getActivePromotionIdsByProduct()) {
+            Promotion promotion = promotionById.get(((Number) pair[1]).intValue());
+            if (promotion != null) {
+                promotionsByProduct.computeIfAbsent(((Number) pair[0]).intValue(), id -> new ArrayList<>(promotionsForAll))
+                        .add(promotion);
+            }
+        }
+        promotionsByProduct.replaceAll((id, promotions) -> List.copyOf(promotions));
+
+        Snapshot built = new Snapshot(Map.copyOf(promotionsByProduct), List.copyOf(promotionsForAll),
+                promotionById.size(), new Date());
+        snapshot = built;
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        rebuilds.incrementAndGet();
+        lastRebuildMillis.set(elapsed);
+        totalRebuildMillis.addAndGet(elapsed);
+        log.info("Promotion index rebuilt in {} ms: {} active promotions, {} products", elapsed,
+                built.activePromotions, built.promotionsByProduct.size());
+    }
+
+    public PromotionIndexStats getStats() {
+        Snapshot current = snapshot;
+        return PromotionIndexStats.builder()
+                .hits(hits.get())
+                .misses(misses.get())
+                .rebuilds(rebuilds.get())
+                .lastRebuildMillis(lastRebuildMillis.get())
+                .totalRebuildMillis(totalRebuildMillis.get())
+                .builtAt(current != null ? current.builtAt : null)
+                .activePromotions(current != null ? current.activePromotions : 0)
+                .indexedProducts(current != null ? current.promotionsByProduct.size() : 0)
+                .build();
+    }
+
+    private static final class Snapshot {
+        private final Map<Integer, List<Promotion>> promotionsByProduct;
+        private final List<Promotion> promotionsForAll;
+        private final int activePromotions;
+        private final Date builtAt;
+
+        private Snapshot(Map<Integer, List<Promotion>> promotionsByProduct, List<Promotion> promotionsForAll,
+                         int activePromotions, Date builtAt) {
+            this.promotionsByProduct = promotionsByProduct;
+            this.promotionsForAll = promotionsForAll;
+            this.activePromotions = activePromotions;
+            this.builtAt = builtAt;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.projectcnw.salesmanagement.services.PromotionServices;
+
+import lombok.Getter;
+
+/**
+ * Phát ra khi tập promotion đang active có thể đã thay đổi: tạo/sửa/xoá promotion,
+ * promotion đổi trạng thái, hoặc sản phẩm đổi danh mục.
+ */
+@Getter
+public class PromotionChangedEvent {
+    private final String reason;
+
+    // true khi ngày bắt đầu/kết thúc của promotion có thể đã đổi, lịch chuyển trạng thái cần nạp lại
+    private final boolean scheduleChanged;
+
+    public PromotionChangedEvent(String reason) {
+        this(reason, true);
+    }
+
+    public PromotionChangedEvent(String reason, boolean scheduleChanged) {
+        this.reason = reason;
+        this.scheduleChanged = scheduleChanged;
+    }
+}
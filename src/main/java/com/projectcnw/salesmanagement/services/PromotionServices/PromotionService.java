@@ -13,6 +13,8 @@ import com.projectcnw.salesmanagement.repositories.PromotionRepository.NonJpaPro
 import com.projectcnw.salesmanagement.repositories.PromotionRepository.PromotionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -36,6 +38,7 @@ public class PromotionService {
     private final CategoryRepository categoryRepository;
     private final BaseProductRepository baseProductRepository;
     private final NonJpaPromotionRepositoryImpl nonJpaPromotionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public ResponseEntity<ResponseObject> createPromotion(PromotionRequest promotion) {
@@ -76,9 +79,7 @@ public class PromotionService {
             promotion.setStatus(PromotionStatusType.active);
         }
 
-        return ResponseEntity.ok(ResponseObject.builder()
-                .responseCode(200).message("")
-                .data(promotionRepository.save(Promotion.builder()
+        Promotion savedPromotion = promotionRepository.save(Promotion.builder()
                         .title(promotion.getTitle())
                         .value(promotion.getValue())
                         .startDate(promotion.getStartDate() != null ? promotion.getStartDate() : Date.from(Instant.now()))
@@ -89,7 +90,11 @@ public class PromotionService {
                         .status(promotion.getStatus())
                         .categories(categories)
                         .products(products)
-                        .build())).build());
+                        .build());
+        eventPublisher.publishEvent(new PromotionChangedEvent("create promotion " + savedPromotion.getId()));
+        return ResponseEntity.ok(ResponseObject.builder()
+                .responseCode(200).message("")
+                .data(savedPromotion).build());
     }
 
     @Transactional
@@ -140,6 +145,7 @@ public class PromotionService {
         promotionUpdate.setStatus(promotion.getStatus());
         promotionUpdate.setCategories(categories);
         promotionUpdate.setProducts(products);
+        eventPublisher.publishEvent(new PromotionChangedEvent("update promotion " + id));
 
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200).message("Update promotion success")
@@ -154,6 +160,7 @@ public class PromotionService {
                     .responseCode(400).message("Promotion not found").build());
         }
         promotionRepository.delete(promotion);
+        eventPublisher.publishEvent(new PromotionChangedEvent("delete promotion " + id));
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200).message("Delete promotion success").build());
     }
@@ -171,10 +178,12 @@ public class PromotionService {
             }
         }
         promotionRepository.deleteAll(promotions);
+        eventPublisher.publishEvent(new PromotionChangedEvent("delete promotions " + ids));
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200).message("Delete promotion success").build());
     }
 
+    @Transactional(readOnly = true)
     public ResponseEntity<ResponseObject> getCouponPromotion(String title) {
         log.info("title: {}", title);
         List<Promotion> promotions = promotionRepository.getPromotionsByTitleAndPolicyApplyAndActive(title, PromotionPolicyApplyType.COUPON.name());
@@ -187,6 +196,7 @@ public class PromotionService {
                             .build()
             );
         }
+        initializeScope(promotions.get(0));
         return ResponseEntity.ok(
                 ResponseObject.builder()
                         .responseCode(200)
@@ -195,6 +205,7 @@ public class PromotionService {
                         .build());
     }
 
+    @Transactional(readOnly = true)
     public List<Promotion> getAllPromotionByFilter(int page, int size,String query, String policyApply, String status, String start_date, String sort_by, String order) {
         LocalDateTime startDate = null;
 
@@ -206,7 +217,10 @@ public class PromotionService {
             }
         }
 
-        return nonJpaPromotionRepository.getAllPromotionFilter(page, size,query, policyApply,  status, startDate, sort_by, order);
+        List<Promotion> promotions = nonJpaPromotionRepository.getAllPromotionFilter(page, size,query, policyApply,  status, startDate, sort_by, order);
+        // products / categories của cả trang được load theo batch (default_batch_fetch_size)
+        promotions.forEach(this::initializeScope);
+        return promotions;
     }
 
     public long countPromotion(String query, String policyApply, String status, String start_date, String sort_by, String order) {
@@ -224,16 +238,23 @@ public class PromotionService {
     }
 
 
+    @Transactional(readOnly = true)
     public ResponseEntity<ResponseObject> getPromotionById (Integer id) {
         Promotion promotion = promotionRepository.findById(id).orElse(null);
         if (promotion == null) {
             return ResponseEntity.badRequest().body(ResponseObject.builder()
                     .responseCode(400).message("Không tìm thấy khuyến mại phù hợp").build());
         }
+        initializeScope(promotion);
+        promotion.getProducts().forEach(product -> Hibernate.initialize(product.getVariants()));
         return ResponseEntity.ok(ResponseObject.builder()
                 .responseCode(200).message("Get promotion success")
                 .data(promotion).build());
     }
 
-
+    // phạm vi áp dụng của khuyến mại (sản phẩm, danh mục) được trả về cùng khuyến mại
+    private void initializeScope(Promotion promotion) {
+        Hibernate.initialize(promotion.getProducts());
+        Hibernate.initialize(promotion.getCategories());
+    }
 }
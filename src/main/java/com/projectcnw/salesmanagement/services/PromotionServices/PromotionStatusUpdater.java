@@ -1,54 +1,183 @@
 package com.projectcnw.salesmanagement.services.PromotionServices;
 
-import com.projectcnw.salesmanagement.models.Promotion;
 import com.projectcnw.salesmanagement.models.enums.PromotionStatusType;
 import com.projectcnw.salesmanagement.repositories.PromotionRepository.PromotionRepository;
-import lombok.RequiredArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ScheduledFuture;
 
+/**
+ * Chuyển trạng thái promotion (scheduled -> active -> expired) đúng vào thời điểm startDate/endDate.
+ * Lịch chuyển được giữ trong một hàng đợi ưu tiên theo thời điểm, chỉ đánh thức khi có promotion đến hạn
+ * và chỉ cập nhật các dòng bị ảnh hưởng.
+ */
 @Component
-@RequiredArgsConstructor
 public class PromotionStatusUpdater {
 
     private static final Logger logger = LoggerFactory.getLogger(PromotionStatusUpdater.class);
 
+    private static final int UPDATE_BATCH_SIZE = 500;
+
+    private static final long RETRY_DELAY_MILLIS = 60000;
+
     private final PromotionRepository promotionRepository;
 
-    @Scheduled(fixedRate = 60000) // chạy mỗi 60 giây
-    public void updatePromotionStatuses() {
-        logger.info("Starting promotion status update task");
-
-        Date now = new Date();
-        List<Promotion> promotions = promotionRepository.findAll();
-
-        for (Promotion promotion : promotions) {
-            PromotionStatusType oldStatus = promotion.getStatus();
-            if (promotion.getStartDate().after(now)) {
-                promotion.setStatus(PromotionStatusType.scheduled);
-            } else if (promotion.getEndDate().before(now)) {
-                promotion.setStatus(PromotionStatusType.expired);
-            } else {
-                promotion.setStatus(PromotionStatusType.active);
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TaskScheduler taskScheduler;
+
+    // listener chạy sau commit: giao dịch của request đã kết thúc, cập nhật trạng thái cần giao dịch riêng
+    private final TransactionTemplate requiresNewTransaction;
+
+    private final PriorityQueue<Transition> transitions = new PriorityQueue<>(Comparator.comparing(Transition::getAt));
+
+    private ScheduledFuture<?> wakeUp;
+
+    public PromotionStatusUpdater(PromotionRepository promotionRepository,
+                                  ApplicationEventPublisher eventPublisher,
+                                  TaskScheduler taskScheduler,
+                                  PlatformTransactionManager transactionManager) {
+        this.promotionRepository = promotionRepository;
+        this.eventPublisher = eventPublisher;
+        this.taskScheduler = taskScheduler;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        if (event.isScheduleChanged()) {
+            reload();
+        }
+    }
+
+    /**
+     * Nạp lại toàn bộ lịch bằng một truy vấn và chuyển ngay các promotion đã quá thời điểm chuyển trạng thái.
+     */
+    public synchronized void reload() {
+        try {
+            Date now = new Date();
+            transitions.clear();
+            Map<PromotionStatusType, List<Integer>> due = new EnumMap<>(PromotionStatusType.class);
+            for (Object[] row : promotionRepository.getPendingTransitions(PromotionStatusType.expired, now)) {
+                Integer id = (Integer) row[0];
+                Date startDate = (Date) row[1];
+                Date endDate = (Date) row[2];
+                PromotionStatusType status = statusAt(startDate, endDate, now);
+                if (status != row[3]) {
+                    due.computeIfAbsent(status, key -> new ArrayList<>()).add(id);
+                }
+                addNextTransition(id, startDate, endDate, now);
             }
+            apply(due);
+            logger.info("Promotion schedule loaded: {} pending transitions", transitions.size());
+            scheduleWakeUp();
+        } catch (RuntimeException e) {
+            logger.error("Cannot load promotion schedule, retry in {} ms", RETRY_DELAY_MILLIS, e);
+            taskScheduler.schedule(this::reload, Instant.now().plusMillis(RETRY_DELAY_MILLIS));
+        }
+    }
 
-            if(oldStatus == null) {
-                logger.info("Promotion {} status changed from {} to {}", promotion.getTitle(), "null", promotion.getStatus());
+    private synchronized void onWakeUp() {
+        try {
+            Date now = new Date();
+            Map<PromotionStatusType, List<Integer>> due = new EnumMap<>(PromotionStatusType.class);
+            while (!transitions.isEmpty() && !transitions.peek().getAt().after(now)) {
+                Transition transition = transitions.poll();
+                due.computeIfAbsent(transition.getStatus(), key -> new ArrayList<>()).add(transition.getPromotionId());
+                if (transition.getStatus() == PromotionStatusType.active && transition.getEndDate() != null) {
+                    transitions.add(new Transition(transition.getEndDate(), transition.getPromotionId(),
+                            PromotionStatusType.expired, transition.getStartDate(), transition.getEndDate()));
+                }
             }
+            apply(due);
+            scheduleWakeUp();
+        } catch (RuntimeException e) {
+            logger.error("Promotion status update failed, reload schedule in {} ms", RETRY_DELAY_MILLIS, e);
+            taskScheduler.schedule(this::reload, Instant.now().plusMillis(RETRY_DELAY_MILLIS));
+        }
+    }
 
-            if (!oldStatus.equals(promotion.getStatus())) {
-                logger.info("Promotion {} status changed from {} to {}", promotion.getTitle(), oldStatus, promotion.getStatus());
+    private void apply(Map<PromotionStatusType, List<Integer>> due) {
+        if (due.isEmpty()) {
+            return;
+        }
+        Integer updated = requiresNewTransaction.execute(status -> {
+            int count = 0;
+            for (Map.Entry<PromotionStatusType, List<Integer>> entry : due.entrySet()) {
+                List<Integer> ids = entry.getValue();
+                for (int from = 0; from < ids.size(); from += UPDATE_BATCH_SIZE) {
+                    List<Integer> batch = ids.subList(from, Math.min(from + UPDATE_BATCH_SIZE, ids.size()));
+                    count += promotionRepository.updateStatusByIds(batch, entry.getKey());
+                }
             }
+            return count;
+        });
+        due.forEach((status, ids) -> logger.info("Promotions {} status changed to {}", ids, status));
+        if (updated != null && updated > 0) {
+            eventPublisher.publishEvent(new PromotionChangedEvent("promotion status changed", false));
+        }
+    }
+
+    private void scheduleWakeUp() {
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+            wakeUp = null;
+        }
+        if (!transitions.isEmpty()) {
+            wakeUp = taskScheduler.schedule(this::onWakeUp, transitions.peek().getAt().toInstant());
+        }
+    }
 
-            promotionRepository.save(promotion);
+    private void addNextTransition(Integer promotionId, Date startDate, Date endDate, Date now) {
+        if (startDate != null && startDate.after(now)) {
+            transitions.add(new Transition(startDate, promotionId, PromotionStatusType.active, startDate, endDate));
+        } else if (endDate != null && !endDate.before(now)) {
+            transitions.add(new Transition(endDate, promotionId, PromotionStatusType.expired, startDate, endDate));
         }
+    }
+
+    private static PromotionStatusType statusAt(Date startDate, Date endDate, Date now) {
+        if (startDate != null && startDate.after(now)) {
+            return PromotionStatusType.scheduled;
+        } else if (endDate != null && endDate.before(now)) {
+            return PromotionStatusType.expired;
+        }
+        return PromotionStatusType.active;
+    }
 
-        logger.info("Promotion status update task completed");
+    @Getter
+    @AllArgsConstructor
+    private static class Transition {
+        private final Date at;
+        private final Integer promotionId;
+        private final PromotionStatusType status;
+        private final Date startDate;
+        private final Date endDate;
     }
 }
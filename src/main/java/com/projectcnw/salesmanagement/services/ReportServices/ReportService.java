@@ -0,0 +1,284 @@
+package com.projectcnw.salesmanagement.services.ReportServices;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.projectcnw.salesmanagement.dto.report.ReportJobStatus;
+import com.projectcnw.salesmanagement.dto.report.ReportSpec;
+import com.projectcnw.salesmanagement.exceptions.BadRequestException;
+import com.projectcnw.salesmanagement.exceptions.NotFoundException;
+import com.projectcnw.salesmanagement.models.enums.ReportGrouping;
+import com.projectcnw.salesmanagement.repositories.ReportRepository.ReportRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Báo cáo bán hàng theo tuần / tháng chạy nền: yêu cầu được chuẩn hoá về các kỳ trọn vẹn, id job là hash của spec.
+ * Kết quả được lưu vào report_artifact dưới dạng JSON nén và dùng lại cho các yêu cầu giống nhau trong fresh-ttl,
+ * kể cả khi kỳ đã kết thúc (trả hàng, thanh toán hay sửa đơn muộn vẫn làm thay đổi số liệu của kỳ cũ).
+ * Báo cáo chạy trên một pool luồng nhỏ riêng nên chỉ chiếm tối đa {@code threads} connection,
+ * không tranh luồng request và connection với bán hàng tại quầy.
+ */
+@Service
+@Slf4j
+public class ReportService {
+
+    private static final String[] SALES_COLUMNS = {"quantity", "revenue", "orderCount", "returnQuantity"};
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final ReportRepository reportRepository;
+
+    private final long freshTtl;
+
+    private final long maxDays;
+
+    private final int retentionDays;
+
+    private final ThreadPoolExecutor executor;
+
+    // id các job đang chờ / đang chạy trên instance này
+    private final Set<String> running = new HashSet<>();
+
+    // giữ trong lúc truy vấn DB; ReentrantLock không ghim virtual thread như synchronized
+    private final ReentrantLock runningLock = new ReentrantLock();
+
+    public ReportService(ReportRepository reportRepository,
+                         @Value("${application.report.threads:2}") int threads,
+                         @Value("${application.report.queue-capacity:20}") int queueCapacity,
+                         @Value("${application.report.fresh-ttl:600000}") long freshTtl,
+                         @Value("${application.report.max-days:1100}") long maxDays,
+                         @Value("${application.report.retention-days:30}") int retentionDays) {
+        this.reportRepository = reportRepository;
+        this.freshTtl = freshTtl;
+        this.maxDays = maxDays;
+        this.retentionDays = retentionDays;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "report-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            reportRepository.createIfNotExists();
+            int failed = reportRepository.failUnfinished(now());
+            if (failed > 0) {
+                log.info("Marked {} unfinished report jobs as failed", failed);
+            }
+        } catch (RuntimeException e) {
+            log.error("Không thể khởi tạo bảng report_artifact", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Trả về kết quả có sẵn nếu còn dùng được, job đang chạy nếu đã có, hoặc đưa một job mới vào hàng đợi.
+     */
+    public ReportJobStatus submit(ReportSpec spec) {
+        normalize(spec);
+        String id = hash(spec.canonical());
+        runningLock.lock();
+        try {
+            if (running.contains(id)) {
+                return getStatus(id);
+            }
+            ReportJobStatus existing = reportRepository.findStatus(id);
+            if (existing != null && isReusable(existing)) {
+                existing.setReused(true);
+                return existing;
+            }
+            reportRepository.saveQueued(id, spec.canonical(), now());
+            running.add(id);
+        } finally {
+            runningLock.unlock();
+        }
+        try {
+            executor.execute(() -> run(id, spec));
+        } catch (RejectedExecutionException e) {
+            finish(id);
+            reportRepository.saveFailed(id, "Hàng đợi báo cáo đang đầy", now());
+            throw new BadRequestException("Hàng đợi báo cáo đang đầy, vui lòng thử lại sau");
+        }
+        return getStatus(id);
+    }
+
+    public ReportJobStatus getStatus(String jobId) {
+        ReportJobStatus status = reportRepository.findStatus(jobId);
+        if (status == null) throw new NotFoundException("report job " + jobId + " not found");
+        return status;
+    }
+
+    /**
+     * Ghi kết quả JSON (lấy từ {@link #getContent}) ra output; gzip = true ghi nguyên dữ liệu nén đã lưu.
+     */
+    public void download(byte[] content, boolean gzip, OutputStream outputStream) throws IOException {
+        if (gzip) {
+            outputStream.write(content);
+        } else {
+            try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(content))) {
+                inputStream.transferTo(outputStream);
+            }
+        }
+        outputStream.flush();
+    }
+
+    public byte[] getContent(String jobId) {
+        byte[] content = reportRepository.getContent(jobId);
+        if (content == null) throw new NotFoundException("report " + jobId + " is not ready");
+        return content;
+    }
+
+    @Scheduled(cron = "${application.report.purge-cron:0 45 1 * * *}")
+    public void purge() {
+        int deleted = reportRepository.deleteFinishedBefore(Timestamp.valueOf(LocalDate.now().minusDays(retentionDays).atStartOfDay()));
+        if (deleted > 0) {
+            log.info("Purged {} report artifacts older than {} days", deleted, retentionDays);
+        }
+    }
+
+    private void run(String id, ReportSpec spec) {
+        long start = System.currentTimeMillis();
+        try {
+            reportRepository.markRunning(id);
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            int rowCount = write(spec, content);
+            reportRepository.saveDone(id, rowCount, content.toByteArray(), now());
+            log.info("Report {} ({}) done in {} ms: {} rows, {} bytes", id, spec.canonical(),
+                    System.currentTimeMillis() - start, rowCount, content.size());
+        } catch (RuntimeException | IOException e) {
+            log.error("Report {} ({}) failed", id, spec.canonical(), e);
+            reportRepository.saveFailed(id, String.valueOf(e.getMessage()), now());
+        } finally {
+            finish(id);
+        }
+    }
+
+    // {"columns": [...], "rows": [[...], ...]}, mỗi dòng là một mảng theo thứ tự columns
+    private int write(ReportSpec spec, OutputStream outputStream) throws IOException {
+        ReportGrouping grouping = spec.getGrouping();
+        AtomicInteger rowCount = new AtomicInteger();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(new GZIPOutputStream(outputStream))) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("columns");
+            generator.writeString("period");
+            if (grouping.getKeyColumn() != null) {
+                generator.writeString("id");
+                generator.writeString("name");
+            }
+            for (String column : SALES_COLUMNS) {
+                generator.writeString(column);
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("rows");
+            reportRepository.streamSales(spec.getType(), grouping, spec.getStartDate(), spec.getEndDate(), spec.getChannel(), rs -> {
+                try {
+                    generator.writeStartArray();
+                    generator.writeString(rs.getString(1).substring(0, 10));
+                    int column = 2;
+                    if (grouping.getKeyColumn() != null) {
+                        long key = rs.getLong(column++);
+                        if (rs.wasNull()) {
+                            generator.writeNull();
+                        } else {
+                            generator.writeNumber(key);
+                        }
+                        generator.writeString(rs.getString(column++));
+                    }
+                    for (int i = 0; i < SALES_COLUMNS.length; i++) {
+                        generator.writeNumber(rs.getLong(column++));
+                    }
+                    generator.writeEndArray();
+                    rowCount.incrementAndGet();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return rowCount.get();
+    }
+
+    private void normalize(ReportSpec spec) {
+        if (spec.getType() == null || spec.getStartDate() == null || spec.getEndDate() == null) {
+            throw new BadRequestException("type, startDate and endDate are required");
+        }
+        if (spec.getEndDate().isBefore(spec.getStartDate())) {
+            throw new BadRequestException("invalid date range " + spec.getStartDate() + " - " + spec.getEndDate());
+        }
+        spec.setStartDate(spec.getType().periodStart(spec.getStartDate()));
+        spec.setEndDate(spec.getType().periodEnd(spec.getEndDate()));
+        if (ChronoUnit.DAYS.between(spec.getStartDate(), spec.getEndDate()) >= maxDays) {
+            throw new BadRequestException("date range must be shorter than " + maxDays + " days");
+        }
+        if (spec.getGrouping() == null) {
+            spec.setGrouping(ReportGrouping.PERIOD);
+        }
+        String channel = spec.getChannel();
+        spec.setChannel(channel == null || channel.isBlank() ? null : channel.trim().toUpperCase());
+    }
+
+    // kỳ đã kết thúc vẫn có thể đổi do trả hàng / thanh toán muộn nên mọi kết quả chỉ dùng lại trong fresh-ttl
+    private boolean isReusable(ReportJobStatus status) {
+        return "DONE".equals(status.getStatus())
+                && System.currentTimeMillis() - status.getFinishedAt().getTime() < freshTtl;
+    }
+
+    private void finish(String id) {
+        runningLock.lock();
+        try {
+            running.remove(id);
+        } finally {
+            runningLock.unlock();
+        }
+    }
+
+    private static String hash(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Timestamp now() {
+        return new Timestamp(System.currentTimeMillis());
+    }
+}
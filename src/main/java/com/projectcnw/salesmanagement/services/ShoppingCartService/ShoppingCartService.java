@@ -133,16 +133,17 @@ public class ShoppingCartService {
 
     public ResponseEntity<ResponseObject> getAllShoppingCart(Integer customerId) {
         Iterable<Map<String, Object>> shoppingCart = shoppingCartRepository.findAllByUserInfo_Id(customerId);
-        List<Map<String, Object>> updatedShoppingCart = new ArrayList<>();
+        List<Map<String, Object>> items = new ArrayList<>();
+        shoppingCart.forEach(items::add);
+        List<VariantSaleResponse> variantResponses = variantService.getListVariantResponseFromVariant(
+                items.stream().map(item -> (Variant) item.get("variant")).toList());
 
-        shoppingCart.forEach(item -> {
-            var variant = (Variant) item.get("variant");
-            log.info("Variant: " + variant);
-            VariantSaleResponse variantResponse = variantService.getVariantWithBestPromotion(variant);
-            Map<String, Object> updatedItem = new HashMap<>(item);
-            updatedItem.put("variant", variantResponse);
+        List<Map<String, Object>> updatedShoppingCart = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            Map<String, Object> updatedItem = new HashMap<>(items.get(i));
+            updatedItem.put("variant", variantResponses.get(i));
             updatedShoppingCart.add(updatedItem);
-        });
+        }
 
         return ResponseEntity.status(HttpStatus.OK).body(ResponseObject.builder()
                 .responseCode(200)
@@ -4,14 +4,17 @@ package com.projectcnw.salesmanagement.services.VendorService.impl;
 import com.projectcnw.salesmanagement.converter.ImportItemConvert;
 import com.projectcnw.salesmanagement.converter.ImportOrderConverter;
 import com.projectcnw.salesmanagement.converter.PaymentConverter;
+import com.projectcnw.salesmanagement.converter.VariantConverter;
 import com.projectcnw.salesmanagement.dto.vendorDtos.ImportOrderDTO;
 import com.projectcnw.salesmanagement.dto.vendorDtos.PaymentDTO;
 import com.projectcnw.salesmanagement.dto.productDtos.VariantDto;
 import com.projectcnw.salesmanagement.dto.vendorDtos.VendorDTO;
+import com.projectcnw.salesmanagement.exceptions.BadRequestException;
 import com.projectcnw.salesmanagement.exceptions.NotFoundException;
 import com.projectcnw.salesmanagement.models.*;
 import com.projectcnw.salesmanagement.models.Auth.UserEntity;
 import com.projectcnw.salesmanagement.models.Products.Variant;
+import com.projectcnw.salesmanagement.models.enums.HistoryType;
 import com.projectcnw.salesmanagement.models.enums.OrderType;
 
 import com.projectcnw.salesmanagement.models.enums.PaymentStatus;
@@ -19,17 +22,24 @@ import com.projectcnw.salesmanagement.models.enums.ShipmentStatus;
 import com.projectcnw.salesmanagement.models.keys.ImportItemKey;
 import com.projectcnw.salesmanagement.repositories.PaymentRepository;
 import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.VariantRepository;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.VariantStockRepository;
 import com.projectcnw.salesmanagement.repositories.UserRepository;
+import com.projectcnw.salesmanagement.repositories.VendorManagerRepository.ImportItemBatchRepository;
 import com.projectcnw.salesmanagement.repositories.VendorManagerRepository.ImportItemRepository;
 import com.projectcnw.salesmanagement.repositories.VendorManagerRepository.ImportOrderRepository;
 import com.projectcnw.salesmanagement.repositories.VendorManagerRepository.VendorRepository;
+import com.projectcnw.salesmanagement.services.ProductManagerServices.InventoryMovementService;
 import com.projectcnw.salesmanagement.services.VendorService.IImportOrderService;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class ImportOrderService implements IImportOrderService {
@@ -44,10 +54,12 @@ public class ImportOrderService implements IImportOrderService {
     VendorService vendorService;
     VariantRepository variantRepository;
     UserRepository userRepository;
+    ImportItemBatchRepository importItemBatchRepository;
+    VariantStockRepository variantStockRepository;
+    InventoryMovementService inventoryMovementService;
+    VariantConverter variantConverter;
 
-    private ModelMapper modelMapper = new ModelMapper();
-
-    public ImportOrderService(ImportOrderRepository importOrderRepository, ImportOrderConverter importOrderConverter, VendorRepository vendorRepository, ImportItemConvert importItemConvert, ImportItemRepository importItemRepository, VariantRepository variantRepository,  PaymentConverter paymentConverter, PaymentRepository paymentRepository,  VendorService vendorService,  UserRepository userRepository){
+    public ImportOrderService(ImportOrderRepository importOrderRepository, ImportOrderConverter importOrderConverter, VendorRepository vendorRepository, ImportItemConvert importItemConvert, ImportItemRepository importItemRepository, VariantRepository variantRepository,  PaymentConverter paymentConverter, PaymentRepository paymentRepository,  VendorService vendorService,  UserRepository userRepository, ImportItemBatchRepository importItemBatchRepository, VariantStockRepository variantStockRepository, InventoryMovementService inventoryMovementService, VariantConverter variantConverter){
         this.importOrderRepository = importOrderRepository;
         this.importOrderConverter = importOrderConverter;
         this.importItemRepository = importItemRepository;
@@ -58,9 +70,14 @@ public class ImportOrderService implements IImportOrderService {
         this.vendorService = vendorService;
         this.variantRepository = variantRepository;
         this.userRepository = userRepository;
+        this.importItemBatchRepository = importItemBatchRepository;
+        this.variantStockRepository = variantStockRepository;
+        this.inventoryMovementService = inventoryMovementService;
+        this.variantConverter = variantConverter;
     }
 
     @Override
+    @Transactional
     public ImportOrderDTO save(ImportOrderDTO importOrderDTO, String phone) {
 
         if(importOrderDTO.getId() != 0){
@@ -88,14 +105,21 @@ public class ImportOrderService implements IImportOrderService {
 
 
             List<VariantDto> variantDTOList = importOrderDTO.getVariantDTOList();
+            Map<Integer, Variant> variantById = variantRepository.findAllById(variantDTOList.stream()
+                            .map(VariantDto::getId)
+                            .collect(Collectors.toSet())).stream()
+                    .collect(Collectors.toMap(Variant::getId, variant -> variant));
+            List<ImportItem> importItems = new ArrayList<>();
+            Set<Integer> importedVariantIds = new HashSet<>();
             int amount = 0;
             for ( VariantDto variantDTO: variantDTOList) {
-                Variant variant = variantRepository.findById(variantDTO.id);
+                Variant variant = variantById.get(variantDTO.getId());
                 if(variant == null){
                     throw  new NotFoundException("variant not found");
                 }
-                variant.setQuantity(variant.getQuantity() + variantDTO.getQuantity());
-                variant.setImportPrice(variantDTO.getImportPrice());
+                if(!importedVariantIds.add(variantDTO.getId())){
+                    throw new BadRequestException("variant " + variantDTO.getId() + " is duplicated");
+                }
 
                 ImportItem importItem = new ImportItem();
                 ImportItemKey id = new ImportItemKey();
@@ -110,9 +134,13 @@ public class ImportOrderService implements IImportOrderService {
 //                System.out.println(importItem.getDiscount()/100.0);
                 amount +=  variantDTO.getImportPrice() * variantDTO.getQuantity()*(1- importItem.getDiscount()/100.0);
 //                System.out.println(amount);
-                importItemRepository.save(importItem);
-                variantRepository.save(variant);
+                importItems.add(importItem);
             }
+            // ghi dòng nhập hàng và cộng tồn kho theo batch thay vì save từng item
+            importItemBatchRepository.insertImportItems(importItems);
+            variantStockRepository.importQuantities(importItems);
+            inventoryMovementService.record(HistoryType.IMPORT, importOrder.getId(), importItems.stream()
+                    .collect(Collectors.toMap(importItem -> importItem.getId().getVariantId(), ImportItem::getQuantity)));
 
             Payment payment = new Payment();
             payment.setOrderId(importOrder.getId());
@@ -168,9 +196,9 @@ public class ImportOrderService implements IImportOrderService {
         List<VariantDto> variantDtoList = new ArrayList<>();
         for(ImportItem importItem : importItems){
             Variant variant = variantRepository.findById(importItem.getId().getVariantId());
-            variant.setQuantity(importItem.getQuantity());
-            variant.setImportPrice(importItem.getImportPrice());
-            VariantDto variantDto = modelMapper.map(variant, VariantDto.class);
+            VariantDto variantDto = variantConverter.toDto(variant);
+            variantDto.setQuantity(importItem.getQuantity());
+            variantDto.setImportPrice(importItem.getImportPrice());
             variantDto.setDiscount(importItem.getDiscount());
             variantDtoList.add(variantDto);
         }
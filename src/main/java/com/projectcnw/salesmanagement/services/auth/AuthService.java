@@ -1,6 +1,7 @@
 package com.projectcnw.salesmanagement.services.auth;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectcnw.salesmanagement.converter.UserInfoConverter;
 import com.projectcnw.salesmanagement.dto.auth.AuthDto;
 import com.projectcnw.salesmanagement.dto.auth.AuthResponse;
 import com.projectcnw.salesmanagement.dto.auth.UserInfoDto;
@@ -15,7 +16,6 @@ import com.projectcnw.salesmanagement.repositories.UserRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -34,10 +34,14 @@ public class AuthService {
 
     private final JwtService jwtService;
 
+    private final JwtTokenCache jwtTokenCache;
+
     private final AuthenticationManager authenticationManager;
 
     private final TokenRepository tokenRepository;
 
+    private final UserInfoConverter userInfoConverter;
+
 
     public AuthResponse authenticate(AuthDto authDto) {
         authenticationManager.authenticate(
@@ -53,9 +57,8 @@ public class AuthService {
         var refreshToken = jwtService.generateRefreshToken(userEntity);
         revokeAllUserTokens(userEntity);
         saveUserToken(userEntity, jwtToken);
-        ModelMapper modelMapper = new ModelMapper();
         return AuthResponse.builder()
-                .user(modelMapper.map(userEntity, UserInfoDto.class))
+                .user(userInfoConverter.toDto(userEntity))
                 .accessToken(jwtToken)
                 .refreshToken(refreshToken)
                 .build();
@@ -71,9 +74,8 @@ public class AuthService {
             String jwtToken = jwtService.generateToken(userEntity1);
             String refreshToken = jwtService.generateRefreshToken(userEntity1);
             saveUserToken(userEntity1, jwtToken);
-            ModelMapper modelMapper = new ModelMapper();
             return AuthResponse.builder()
-                    .user(modelMapper.map(userEntity1, UserInfoDto.class))
+                    .user(userInfoConverter.toDto(userEntity1))
                     .accessToken(jwtToken)
                     .refreshToken(refreshToken)
                     .build();
@@ -89,8 +91,7 @@ public class AuthService {
             throw new UnAuthorizedException();
         }
 
-        ModelMapper modelMapper = new ModelMapper();
-        return modelMapper.map(userEntity, UserInfoDto.class);
+        return userInfoConverter.toDto(userEntity);
     }
 
     private void saveUserToken(UserEntity user, String jwtToken) {
@@ -113,6 +114,7 @@ public class AuthService {
             token.setRevoked(true);
         });
         tokenRepository.saveAll(validUserTokens);
+        jwtTokenCache.invalidateAfterCommit(validUserTokens.stream().map(Token::getToken).toList());
     }
 
     public AuthResponse refreshToken(
@@ -134,9 +136,8 @@ public class AuthService {
                 var accessToken = jwtService.generateToken(user);
                 revokeAllUserTokens(user);
                 saveUserToken(user, accessToken);
-                ModelMapper modelMapper = new ModelMapper();
                 var authResponse = AuthResponse.builder()
-                        .user(modelMapper.map(user, UserInfoDto.class))
+                        .user(userInfoConverter.toDto(user))
                         .accessToken(accessToken)
                         .refreshToken(refreshToken)
                         .build();
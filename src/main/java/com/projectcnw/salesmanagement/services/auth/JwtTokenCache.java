@@ -0,0 +1,120 @@
+package com.projectcnw.salesmanagement.services.auth;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache token -> người dùng đã xác thực cho các filter JWT, để mỗi request không phải parse lại token,
+ * tra bảng token và load user. Mỗi entry sống tối đa ttl và không quá thời điểm hết hạn của token;
+ * token bị thu hồi phải được xoá khỏi cache qua {@link #invalidateAfterCommit} sau khi cờ revoked đã được lưu.
+ * Token vừa thu hồi được ghi nhớ thêm ttl để filter đã đọc dòng token trước lúc commit không đưa lại vào cache.
+ */
+@Component
+public class JwtTokenCache {
+
+    private final Map<String, CachedAuthentication> entries = new ConcurrentHashMap<>();
+
+    // token -> thời điểm hết ghi nhớ thu hồi
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private final long ttl;
+
+    private final int maxSize;
+
+    public JwtTokenCache(@Value("${application.security.jwt.cache.ttl:60000}") long ttl,
+                         @Value("${application.security.jwt.cache.max-size:10000}") int maxSize) {
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+    }
+
+    public CachedAuthentication get(String token) {
+        CachedAuthentication cached = entries.get(token);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(token, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    public void put(String token, UserDetails principal, Date tokenExpiration) {
+        if (ttl <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(now + ttl, tokenExpiration.getTime());
+        if (expiresAt <= now) {
+            return;
+        }
+        if (entries.size() >= maxSize || revoked.size() >= maxSize) {
+            evictExpired(now);
+            if (entries.size() >= maxSize) {
+                entries.clear();
+            }
+        }
+        entries.put(token, new CachedAuthentication(principal, List.copyOf(principal.getAuthorities()), expiresAt));
+        // invalidate chạy giữa lúc filter đọc DB và lúc put
+        if (isRevoked(token, now)) {
+            entries.remove(token);
+        }
+    }
+
+    public void invalidate(String token) {
+        if (ttl > 0) {
+            revoked.put(token, System.currentTimeMillis() + ttl);
+        }
+        entries.remove(token);
+    }
+
+    /**
+     * Xoá các token khỏi cache khi giao dịch hiện tại commit, hoặc ngay lập tức nếu không có giao dịch.
+     */
+    public void invalidateAfterCommit(Collection<String> tokens) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tokens.forEach(JwtTokenCache.this::invalidate);
+                }
+            });
+        } else {
+            tokens.forEach(this::invalidate);
+        }
+    }
+
+    private boolean isRevoked(String token, long now) {
+        Long until = revoked.get(token);
+        return until != null && until > now;
+    }
+
+    private void evictExpired(long now) {
+        entries.values().removeIf(cached -> cached.expiresAt <= now);
+        revoked.values().removeIf(until -> until <= now);
+    }
+
+    @Getter
+    public static class CachedAuthentication {
+        private final UserDetails principal;
+        private final Collection<? extends GrantedAuthority> authorities;
+        private final long expiresAt;
+
+        private CachedAuthentication(UserDetails principal, Collection<? extends GrantedAuthority> authorities, long expiresAt) {
+            this.principal = principal;
+            this.authorities = authorities;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.projectcnw.salesmanagement.utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Đọc file CSV (RFC 4180) theo từng dòng dữ liệu mà không nạp cả file vào bộ nhớ.
+ * Hỗ trợ giá trị trong dấu nháy kép, dấu nháy kép lặp ("") và xuống dòng bên trong dấu nháy.
+ * BOM UTF-8 ở đầu file (Excel, {@link CsvWriter}) được bỏ qua.
+ */
+public class CsvReader implements Closeable {
+
+    private final Reader reader;
+
+    private final char separator;
+
+    private int lineNumber = 1;
+
+    private int recordLineNumber;
+
+    private boolean eof;
+
+    private boolean started;
+
+    public CsvReader(Reader reader) {
+        this(reader, ',');
+    }
+
+    public CsvReader(Reader reader, char separator) {
+        this.reader = reader.markSupported() ? reader : new BufferedReader(reader);
+        this.separator = separator;
+    }
+
+    /**
+     * Trả về dòng dữ liệu tiếp theo, hoặc null khi đã hết file. Các dòng trống bị bỏ qua.
+     */
+    public List<String> next() throws IOException {
+        while (!eof) {
+            List<String> record = readRecord();
+            if (record.size() > 1 || !record.get(0).isEmpty()) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Số thứ tự dòng (bắt đầu từ 1) nơi bắt đầu dòng dữ liệu vừa đọc.
+     */
+    public int getLineNumber() {
+        return recordLineNumber;
+    }
+
+    private List<String> readRecord() throws IOException {
+        if (!started) {
+            started = true;
+            skipByteOrderMark();
+        }
+        recordLineNumber = lineNumber;
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int following = reader.read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (following != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == separator) {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                lineNumber++;
+                record.add(trimCarriageReturn(field));
+                return record;
+            } else {
+                field.append((char) c);
+            }
+        }
+        eof = true;
+        record.add(trimCarriageReturn(field));
+        return record;
+    }
+
+    private void skipByteOrderMark() throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+    }
+
+    private static String trimCarriageReturn(StringBuilder field) {
+        int length = field.length();
+        if (length > 0 && field.charAt(length - 1) == '\r') {
+            field.setLength(length - 1);
+        }
+        return field.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,69 @@
+package com.projectcnw.salesmanagement.utils;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Ghi file CSV (RFC 4180) trực tiếp ra output stream, mỗi lần một dòng.
+ * File bắt đầu bằng BOM UTF-8 để Excel đọc đúng tiếng Việt.
+ * Chuỗi bắt đầu bằng =, +, -, @ (hoặc tab, CR) được thêm dấu ' phía trước để Excel không chạy như công thức.
+ */
+public class CsvWriter implements Flushable {
+
+    private final Writer writer;
+
+    public CsvWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write('\uFEFF');
+    }
+
+    public void writeRow(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeValue(values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (value instanceof CharSequence && isFormula(text)) {
+            text = "'" + text;
+        }
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static boolean isFormula(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        char first = text.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+}
@@ -0,0 +1,63 @@
+package com.projectcnw.salesmanagement.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hoá văn bản cho tìm kiếm full-text: chữ thường, bỏ dấu tiếng Việt ("Áo sơ mi Đỏ" -> "ao so mi do").
+ * Cùng một hàm được dùng khi ghi chỉ mục và khi tạo câu truy vấn nên tìm có dấu hay không dấu đều khớp.
+ */
+public final class SearchText {
+
+    // độ dài token của ngram parser (ngram_token_size mặc định của MySQL), từ ngắn hơn không tìm được qua chỉ mục
+    public static final int MIN_TERM_LENGTH = 2;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SearchText() {
+    }
+
+    public static String fold(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value.replace('đ', 'd').replace('Đ', 'D'), Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Nối các giá trị thành văn bản được đánh chỉ mục; dấu câu được thay bằng khoảng trắng như khi tách từ truy vấn.
+     */
+    public static String document(String... values) {
+        StringBuilder document = new StringBuilder();
+        for (String value : values) {
+            String folded = SEPARATORS.matcher(fold(value)).replaceAll(" ").trim();
+            if (!folded.isEmpty()) {
+                if (!document.isEmpty()) {
+                    document.append(' ');
+                }
+                document.append(folded);
+            }
+        }
+        return document.toString();
+    }
+
+    /**
+     * Câu truy vấn BOOLEAN MODE: mọi từ đều bắt buộc, mỗi từ là một cụm ngram nên khớp cả chuỗi con
+     * (một phần SKU, barcode). Trả về null khi không có từ nào đủ {@link #MIN_TERM_LENGTH} ký tự.
+     */
+    public static String booleanQuery(String keyword) {
+        List<String> terms = new ArrayList<>();
+        for (String term : SEPARATORS.split(fold(keyword))) {
+            if (term.length() >= MIN_TERM_LENGTH) {
+                terms.add("+\"" + term + "\"");
+            }
+        }
+        return terms.isEmpty() ? null : String.join(" ", terms);
+    }
+}
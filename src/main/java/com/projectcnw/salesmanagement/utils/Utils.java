@@ -9,6 +9,7 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 public class Utils {
 
@@ -34,18 +35,19 @@ public class Utils {
         return null;
     }
 
-    public static CategoryResponse mapCategoryToCategoryResponse(Category category) {
+    // productCounts: category id -> số sản phẩm, lấy bằng một truy vấn group by thay vì load danh sách sản phẩm
+    public static CategoryResponse mapCategoryToCategoryResponse(Category category, Map<Integer, Integer> productCounts) {
         return CategoryResponse.builder()
                 .id(category.getId())
                 .title(category.getTitle())
                 .metaTitle(category.getMetaTitle())
                 .slug(category.getSlug())
                 .description(category.getDescription())
-                .productCount(category.getProducts().size())
+                .productCount(productCounts.getOrDefault(category.getId(), 0))
                 .build();
     }
 
-    public static List<CategoryResponse> mapListCategoryToListCategoryResponse(List<Category> categories) {
-        return categories.stream().map(Utils::mapCategoryToCategoryResponse).toList();
+    public static List<CategoryResponse> mapListCategoryToListCategoryResponse(List<Category> categories, Map<Integer, Integer> productCounts) {
+        return categories.stream().map(category -> mapCategoryToCategoryResponse(category, productCounts)).toList();
     }
 }
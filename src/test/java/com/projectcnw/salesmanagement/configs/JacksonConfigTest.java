@@ -0,0 +1,44 @@
+package com.projectcnw.salesmanagement.configs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectcnw.salesmanagement.models.Products.BaseProduct;
+import com.projectcnw.salesmanagement.models.Products.Category;
+import org.hibernate.collection.spi.PersistentBag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JacksonConfigTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JacksonConfig().lazyAssociationModule());
+
+    @Test
+    void skipsUninitializedLazyCollectionWithoutLoadingIt() throws Exception {
+        // PersistentBag không gắn session: chỉ cần chạm vào là ném LazyInitializationException
+        Category category = Category.builder().title("Áo").products(new PersistentBag<>()).build();
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(category));
+
+        assertEquals("Áo", json.get("title").asText());
+        assertFalse(json.has("products"));
+    }
+
+    @Test
+    void keepsInitializedCollectionsAndNullFields() throws Exception {
+        BaseProduct product = new BaseProduct();
+        product.setName("Áo thun");
+        ArrayList<BaseProduct> products = new ArrayList<>();
+        products.add(product);
+        Category category = Category.builder().title("Áo").products(products).build();
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(category));
+
+        assertEquals(1, json.get("products").size());
+        assertEquals("Áo thun", json.get("products").get(0).get("name").asText());
+        assertTrue(json.has("description"));
+        assertTrue(json.get("description").isNull());
+    }
+}
@@ -0,0 +1,127 @@
+package com.projectcnw.salesmanagement.configs;
+
+import com.projectcnw.salesmanagement.models.Auth.Token;
+import com.projectcnw.salesmanagement.models.Auth.UserEntity;
+import com.projectcnw.salesmanagement.repositories.TokenRepository;
+import com.projectcnw.salesmanagement.services.auth.CustomerUserDetailsService;
+import com.projectcnw.salesmanagement.services.auth.JwtService;
+import com.projectcnw.salesmanagement.services.auth.JwtTokenCache;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Token bị thu hồi phải bị từ chối ngay ở request tiếp theo, không đợi hết ttl của cache.
+ */
+class JwtAuthenticationFilterTest {
+
+    private static final String JWT = "header.payload.signature";
+
+    private JwtTokenCache jwtTokenCache;
+
+    private TokenRepository tokenRepository;
+
+    private Token token;
+
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        UserEntity user = UserEntity.builder().phone("0912345678").roles(List.of()).build();
+        token = Token.builder().token(JWT).expired(false).revoked(false).build();
+
+        Claims claims = mock(Claims.class);
+        when(claims.getSubject()).thenReturn("0912345678");
+        when(claims.getExpiration()).thenReturn(new Date(System.currentTimeMillis() + 3_600_000L));
+        JwtService jwtService = mock(JwtService.class);
+        when(jwtService.extractAllClaims(JWT)).thenReturn(claims);
+        when(jwtService.isTokenValid(any(Claims.class), any())).thenReturn(true);
+        CustomerUserDetailsService userDetailsService = mock(CustomerUserDetailsService.class);
+        when(userDetailsService.loadUserByUsername(anyString())).thenReturn(user);
+        tokenRepository = mock(TokenRepository.class);
+        when(tokenRepository.findByToken(JWT)).thenAnswer(invocation -> Optional.of(token));
+
+        jwtTokenCache = new JwtTokenCache(60_000, 100);
+        filter = new JwtAuthenticationFilter(jwtService, userDetailsService, tokenRepository, jwtTokenCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void revokedTokenIsRejectedOnNextRequest() throws Exception {
+        assertTrue(authenticate());
+        assertNotNull(jwtTokenCache.get(JWT));
+
+        revoke();
+
+        assertFalse(authenticate());
+    }
+
+    @Test
+    void cacheKeepsTokenUntilRevocationCommits() throws Exception {
+        assertTrue(authenticate());
+
+        TransactionSynchronizationManager.initSynchronization();
+        jwtTokenCache.invalidateAfterCommit(List.of(JWT));
+        assertNotNull(jwtTokenCache.get(JWT));
+
+        token.setRevoked(true);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertNull(jwtTokenCache.get(JWT));
+        assertFalse(authenticate());
+    }
+
+    // filter đọc dòng token còn hiệu lực, việc thu hồi commit trước khi filter kịp đưa token vào cache
+    @Test
+    void requestThatReadTokenBeforeRevocationDoesNotRecacheIt() throws Exception {
+        when(tokenRepository.findByToken(JWT)).thenAnswer(invocation -> {
+            Optional<Token> valid = Optional.of(Token.builder().token(JWT).expired(false).revoked(false).build());
+            revoke();
+            return valid;
+        });
+        authenticate();
+
+        when(tokenRepository.findByToken(JWT)).thenAnswer(invocation -> Optional.of(token));
+        assertNull(jwtTokenCache.get(JWT));
+        assertFalse(authenticate());
+    }
+
+    private void revoke() {
+        token.setExpired(true);
+        token.setRevoked(true);
+        jwtTokenCache.invalidateAfterCommit(List.of(JWT));
+    }
+
+    private boolean authenticate() throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/admin/orders");
+        request.addHeader("Authorization", "Bearer " + JWT);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication() != null;
+    }
+}
@@ -0,0 +1,97 @@
+package com.projectcnw.salesmanagement.configs.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tổng thời gian chờ permit và chờ Hikari không được vượt quá connection-timeout.
+ */
+class ConnectionLimitingDataSourceTest {
+
+    @Test
+    void waitedTimeIsSubtractedFromHikariTimeout() throws Exception {
+        HikariPool pool = mock(HikariPool.class);
+        when(pool.getConnection(anyLong())).thenAnswer(invocation -> mock(Connection.class));
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(hikari(1, 1000, pool));
+
+        Connection held = dataSource.getConnection();
+        CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(300);
+        assertFalse(waiting.isDone());
+        held.close();
+        waiting.get(5, TimeUnit.SECONDS).close();
+
+        ArgumentCaptor<Long> timeouts = ArgumentCaptor.forClass(Long.class);
+        verify(pool, times(2)).getConnection(timeouts.capture());
+        assertTrue(timeouts.getAllValues().get(0) > 900);
+        assertTrue(timeouts.getAllValues().get(1) <= 700);
+    }
+
+    @Test
+    void timesOutAfterConnectionTimeoutWithoutPermit() throws Exception {
+        HikariPool pool = mock(HikariPool.class);
+        when(pool.getConnection(anyLong())).thenAnswer(invocation -> mock(Connection.class));
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(hikari(1, 250, pool));
+
+        dataSource.getConnection();
+        long start = System.nanoTime();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        verify(pool, times(1)).getConnection(anyLong());
+    }
+
+    @Test
+    void permitIsReleasedOnceWhenHikariFails() throws Exception {
+        HikariPool pool = mock(HikariPool.class);
+        when(pool.getConnection(anyLong()))
+                .thenThrow(new SQLTransientConnectionException("pool - Connection is not available"))
+                .thenAnswer(invocation -> mock(Connection.class));
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(hikari(1, 250, pool));
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+
+        assertNotNull(dataSource.getConnection());
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+    }
+
+    // pool Hikari khởi tạo lười ở lần getConnection đầu tiên
+    @Test
+    void uninitializedPoolUsesDataSource() throws Exception {
+        HikariDataSource hikari = hikari(1, 250, null);
+        when(hikari.getConnection()).thenReturn(mock(Connection.class));
+
+        new ConnectionLimitingDataSource(hikari).getConnection();
+
+        verify(hikari).getConnection();
+    }
+
+    private static HikariDataSource hikari(int poolSize, long connectionTimeout, HikariPool pool) {
+        HikariDataSource hikari = mock(HikariDataSource.class);
+        when(hikari.getMaximumPoolSize()).thenReturn(poolSize);
+        when(hikari.getConnectionTimeout()).thenReturn(connectionTimeout);
+        when(hikari.getPoolName()).thenReturn("test-pool");
+        when(hikari.getHikariPoolMXBean()).thenReturn(pool);
+        return hikari;
+    }
+}
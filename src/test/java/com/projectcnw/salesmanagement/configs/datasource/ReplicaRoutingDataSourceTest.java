@@ -0,0 +1,156 @@
+package com.projectcnw.salesmanagement.configs.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Hai instance ứng dụng (mỗi instance một ReplicaRoutingDataSource + ReplicaPinFilter) phục vụ cùng một client:
+ * pin đọc-sau-ghi phải đi theo client qua cookie, không theo luồng xử lý request.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final String REPLICA = "replica-0";
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReplicaRoutingDataSource.unbind();
+    }
+
+    @Test
+    void writeOnOneInstancePinsClientReadsOnAnother() throws Exception {
+        ReplicaRoutingDataSource instanceA = routing(5);
+        ReplicaRoutingDataSource instanceB = routing(5);
+
+        MockHttpServletResponse writeResponse = handle(instanceA, new MockHttpServletRequest("POST", "/admin/orders"),
+                () -> assertEquals(ReplicaRoutingDataSource.PRIMARY, lookup(instanceA, false)));
+        Cookie pin = writeResponse.getCookie(ReplicaPinFilter.COOKIE);
+        assertNotNull(pin);
+        assertEquals(5, pin.getMaxAge());
+        assertEquals(pin.getValue(), writeResponse.getHeader(ReplicaPinFilter.HEADER));
+
+        MockHttpServletRequest sameClient = new MockHttpServletRequest("GET", "/admin/orders");
+        sameClient.setCookies(pin);
+        handle(instanceB, sameClient, () -> assertEquals(ReplicaRoutingDataSource.PRIMARY, lookup(instanceB, true)));
+
+        MockHttpServletRequest headerClient = new MockHttpServletRequest("GET", "/admin/orders");
+        headerClient.addHeader(ReplicaPinFilter.HEADER, pin.getValue());
+        handle(instanceB, headerClient, () -> assertEquals(ReplicaRoutingDataSource.PRIMARY, lookup(instanceB, true)));
+
+        handle(instanceB, new MockHttpServletRequest("GET", "/admin/orders"),
+                () -> assertEquals(REPLICA, lookup(instanceB, true)));
+    }
+
+    @Test
+    void pinDoesNotLeakToNextRequestOnSameThread() throws Exception {
+        ReplicaRoutingDataSource instance = routing(5);
+
+        handle(instance, new MockHttpServletRequest("POST", "/admin/orders"), () -> {
+            lookup(instance, false);
+            assertEquals(ReplicaRoutingDataSource.PRIMARY, lookup(instance, true));
+        });
+
+        handle(instance, new MockHttpServletRequest("GET", "/admin/orders"),
+                () -> assertEquals(REPLICA, lookup(instance, true)));
+    }
+
+    @Test
+    void readOnlyRequestSetsNoPin() throws Exception {
+        ReplicaRoutingDataSource instance = routing(5);
+
+        MockHttpServletResponse response = handle(instance, new MockHttpServletRequest("GET", "/admin/orders"),
+                () -> assertEquals(REPLICA, lookup(instance, true)));
+
+        assertNull(response.getCookie(ReplicaPinFilter.COOKIE));
+    }
+
+    @Test
+    void writesOutsideRequestsDoNotPin() throws Exception {
+        ReplicaRoutingDataSource instance = routing(5);
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, lookup(instance, false));
+        assertEquals(REPLICA, lookup(instance, true));
+    }
+
+    @Test
+    void clientCannotExtendPinBeyondMaxLag() throws Exception {
+        ReplicaRoutingDataSource instance = routing(0);
+        MockHttpServletRequest forged = new MockHttpServletRequest("GET", "/admin/orders");
+        forged.setCookies(new Cookie(ReplicaPinFilter.COOKIE, Long.toString(Long.MAX_VALUE)));
+
+        handle(instance, forged, () -> assertEquals(REPLICA, lookup(instance, true)));
+    }
+
+    private static MockHttpServletResponse handle(ReplicaRoutingDataSource instance, MockHttpServletRequest request,
+                                                  ThrowingRunnable handler) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        FilterChain chain = (req, res) -> {
+            try {
+                handler.run();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        };
+        new ReplicaPinFilter(instance).doFilter(request, response, chain);
+        if (failure.get() instanceof AssertionError assertionError) {
+            throw assertionError;
+        } else if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        return response;
+    }
+
+    private static Object lookup(ReplicaRoutingDataSource instance, boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        try {
+            return instance.determineCurrentLookupKey();
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    private static ReplicaRoutingDataSource routing(long maxLagSeconds) throws SQLException {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(mock(DataSource.class), List.of(healthyReplica()), maxLagSeconds);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    // SHOW REPLICA STATUS không trả dòng nào: coi như trễ 0 giây
+    private static DataSource healthyReplica() throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(false);
+        Statement statement = mock(Statement.class);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        DataSource replica = mock(DataSource.class);
+        when(replica.getConnection()).thenReturn(connection);
+        return replica;
+    }
+
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,98 @@
+package com.projectcnw.salesmanagement.configs.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Chạy với hai instance MySQL cục bộ (không cần replication thật, instance thứ hai được coi là replica trễ 0 giây):
+ * <pre>
+ * mvn test -Dtest=ReplicaRoutingLocalMySqlTest \
+ *     -Dreplica.test.primary-url=jdbc:mysql://127.0.0.1:3306/sales \
+ *     -Dreplica.test.replica-url=jdbc:mysql://127.0.0.1:3307/sales \
+ *     -Dreplica.test.username=root -Dreplica.test.password=...
+ * </pre>
+ * Phân biệt instance bằng {@code SELECT @@port}.
+ */
+@EnabledIfSystemProperty(named = "replica.test.replica-url", matches = ".+")
+class ReplicaRoutingLocalMySqlTest {
+
+    private HikariDataSource primary;
+
+    private HikariDataSource replica;
+
+    private ReplicaRoutingDataSource routing;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate writeTransaction;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        primary = pool(System.getProperty("replica.test.primary-url"));
+        replica = pool(System.getProperty("replica.test.replica-url"));
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica), 2);
+        routing.afterPropertiesSet();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.unbind();
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    void routesByTransactionAndPinsClientAfterWrite() throws Exception {
+        int primaryPort = port(writeTransaction);
+        int replicaPort = port(readOnlyTransaction);
+        assertNotEquals(primaryPort, replicaPort);
+
+        long[] cookie = new long[1];
+        ReplicaRoutingDataSource.bind(new ReplicaRoutingDataSource.ClientPin(0, until -> cookie[0] = until));
+        assertEquals(replicaPort, port(readOnlyTransaction));
+        port(writeTransaction);
+        assertEquals(primaryPort, port(readOnlyTransaction));
+        ReplicaRoutingDataSource.unbind();
+
+        // client khác trên cùng luồng vẫn đọc replica; client mang pin (cookie) đọc primary tới khi hết hạn
+        ReplicaRoutingDataSource.bind(new ReplicaRoutingDataSource.ClientPin(0, until -> { }));
+        assertEquals(replicaPort, port(readOnlyTransaction));
+        ReplicaRoutingDataSource.bind(new ReplicaRoutingDataSource.ClientPin(cookie[0], until -> { }));
+        assertEquals(primaryPort, port(readOnlyTransaction));
+        Thread.sleep(Math.max(0, cookie[0] - System.currentTimeMillis()) + 100);
+        assertEquals(replicaPort, port(readOnlyTransaction));
+    }
+
+    private int port(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT @@port", Integer.class));
+    }
+
+    private static HikariDataSource pool(String url) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(System.getProperty("replica.test.username", "root"));
+        dataSource.setPassword(System.getProperty("replica.test.password", ""));
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+}
@@ -0,0 +1,50 @@
+package com.projectcnw.salesmanagement.converter;
+
+import org.modelmapper.ModelMapper;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * So sánh kết quả của converter với {@code new ModelMapper().map(...)} mà các service dùng trước đây, từng field một.
+ */
+final class ModelMapperParity {
+
+    private static final SpelAwareProxyProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+    private ModelMapperParity() {
+    }
+
+    // projection được Spring Data dựng từ map như kết quả native query
+    static <T> T projection(Class<T> type, Map<String, Object> values) {
+        return PROJECTIONS.createProjection(type, values);
+    }
+
+    static <T> void assertSameAsModelMapper(Object source, T converted, String... ignoredFields) {
+        @SuppressWarnings("unchecked")
+        T expected = new ModelMapper().map(source, (Class<T>) converted.getClass());
+        Set<String> ignored = Set.of(ignoredFields);
+        int compared = 0;
+        for (Class<?> type = converted.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || ignored.contains(field.getName())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                try {
+                    assertEquals(field.get(expected), field.get(converted), type.getSimpleName() + "." + field.getName());
+                } catch (IllegalAccessException e) {
+                    throw new AssertionError(e);
+                }
+                compared++;
+            }
+        }
+        assertTrue(compared > 0);
+    }
+}
@@ -0,0 +1,105 @@
+package com.projectcnw.salesmanagement.converter;
+
+import com.projectcnw.salesmanagement.dto.orderDtos.IOrderDetailInfo;
+import com.projectcnw.salesmanagement.dto.orderDtos.IReturnHistoryItemDto;
+import com.projectcnw.salesmanagement.dto.orderDtos.IReturnOrderDetailInfo;
+import com.projectcnw.salesmanagement.dto.orderDtos.IReturnOrderItemDto;
+import com.projectcnw.salesmanagement.models.enums.PaymentStatus;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.projectcnw.salesmanagement.converter.ModelMapperParity.assertSameAsModelMapper;
+import static com.projectcnw.salesmanagement.converter.ModelMapperParity.projection;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderInfoConverterTest {
+
+    private static final Timestamp CREATED_AT = Timestamp.valueOf("2026-03-04 10:11:12");
+
+    private final OrderInfoConverter converter = new OrderInfoConverter();
+
+    @Test
+    void orderDetailMatchesModelMapper() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", 11);
+        values.put("customerName", "Nguyễn Văn A");
+        values.put("phone", "0912345678");
+        values.put("customerId", 3);
+        values.put("createdAt", CREATED_AT);
+        values.put("staffName", "Trần B");
+        values.put("paymentStatus", PaymentStatus.COMPLETE);
+        values.put("amount", 450000);
+        values.put("discount", 5000);
+        values.put("returnOrderId", null);
+        values.put("returnAmount", null);
+        values.put("saleChannel", null);
+        IOrderDetailInfo projection = projection(IOrderDetailInfo.class, values);
+
+        assertSameAsModelMapper(projection, converter.toDto(projection));
+    }
+
+    @Test
+    void returnOrderItemMatchesModelMapper() {
+        IReturnOrderItemDto projection = projection(IReturnOrderItemDto.class, returnOrderItem(21));
+
+        assertSameAsModelMapper(projection, converter.toDto(projection));
+    }
+
+    @Test
+    void returnHistoryItemMatchesModelMapper() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("returnOrderId", 21);
+        values.put("createdAt", CREATED_AT);
+        values.put("returnQuantity", 2);
+        values.put("returnValue", 300000);
+        values.put("swapOrderId", 12);
+        values.put("swapQuantity", 1);
+        values.put("swapValue", 150000);
+        IReturnHistoryItemDto projection = projection(IReturnHistoryItemDto.class, values);
+
+        assertSameAsModelMapper(projection, converter.toDto(projection));
+    }
+
+    @Test
+    void returnOrderDetailMatchesModelMapper() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("customerName", "Nguyễn Văn A");
+        values.put("customerId", 3);
+        values.put("baseOrderId", 11);
+        values.put("createdAt", CREATED_AT);
+        values.put("swapOrderId", null);
+        values.put("swapAmount", null);
+        values.put("staffName", "Trần B");
+        values.put("returnReason", "Sai kích cỡ");
+        values.put("paymentStatus", PaymentStatus.INIT);
+        IReturnOrderDetailInfo projection = projection(IReturnOrderDetailInfo.class, values);
+
+        assertSameAsModelMapper(projection, converter.toDto(projection));
+    }
+
+    @Test
+    void returnOrderItemListKeepsOrder() {
+        List<IReturnOrderItemDto> projections = List.of(
+                projection(IReturnOrderItemDto.class, returnOrderItem(21)),
+                projection(IReturnOrderItemDto.class, returnOrderItem(22)));
+
+        assertEquals(List.of(21, 22), converter.toReturnOrderItems(projections).stream().map(dto -> dto.getReturnOrderId()).toList());
+    }
+
+    private static Map<String, Object> returnOrderItem(int id) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("returnOrderId", id);
+        values.put("baseOrderId", 11);
+        values.put("swapOrderId", 12);
+        values.put("customerName", "Nguyễn Văn A");
+        values.put("amount", 300000);
+        values.put("createdAt", CREATED_AT);
+        values.put("returnReason", "Sai kích cỡ");
+        values.put("paymentStatus", PaymentStatus.INIT);
+        return values;
+    }
+}
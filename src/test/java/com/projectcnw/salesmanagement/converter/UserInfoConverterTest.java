@@ -0,0 +1,63 @@
+package com.projectcnw.salesmanagement.converter;
+
+import com.projectcnw.salesmanagement.dto.auth.UserInfoDto;
+import com.projectcnw.salesmanagement.models.Auth.Role;
+import com.projectcnw.salesmanagement.models.Auth.UserEntity;
+import com.projectcnw.salesmanagement.models.Customer;
+import com.projectcnw.salesmanagement.models.enums.Gender;
+import com.projectcnw.salesmanagement.models.enums.WorkStatus;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.util.List;
+
+import static com.projectcnw.salesmanagement.converter.ModelMapperParity.assertSameAsModelMapper;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserInfoConverterTest {
+
+    private final UserInfoConverter converter = new UserInfoConverter();
+
+    @Test
+    void staffMatchesModelMapper() {
+        Role role = new Role();
+        role.setId(2);
+        UserEntity user = UserEntity.builder()
+                .fullName("Nguyễn Văn A")
+                .isActive(true)
+                .password("hash")
+                .phone("0912345678")
+                .address("Hà Nội")
+                .dob(Date.valueOf("1995-05-06"))
+                .gender(Gender.values()[0])
+                .workStatus(WorkStatus.values()[0])
+                .roles(List.of(role))
+                .build();
+
+        assertSameAsModelMapper(user, converter.toDto(user));
+    }
+
+    @Test
+    void staffWithoutRolesMatchesModelMapper() {
+        UserEntity user = UserEntity.builder().fullName("Trần B").phone("0987654321").build();
+
+        assertSameAsModelMapper(user, converter.toDto(user));
+    }
+
+    // ModelMapper không ghép được name -> fullName nên trước đây fullName của khách hàng để trống
+    @Test
+    void customerMatchesModelMapperExceptFullName() {
+        Customer customer = Customer.builder()
+                .name("Lê Thị C")
+                .phone("0901234567")
+                .address("Đà Nẵng")
+                .gender(Gender.values()[0])
+                .email("c@example.com")
+                .build();
+
+        UserInfoDto dto = converter.toDto(customer);
+
+        assertSameAsModelMapper(customer, dto, "fullName");
+        assertEquals("Lê Thị C", dto.getFullName());
+    }
+}
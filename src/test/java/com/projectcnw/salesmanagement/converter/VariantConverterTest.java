@@ -0,0 +1,93 @@
+package com.projectcnw.salesmanagement.converter;
+
+import com.projectcnw.salesmanagement.dto.productDtos.IVariantDto;
+import com.projectcnw.salesmanagement.models.Products.BaseProduct;
+import com.projectcnw.salesmanagement.models.Products.Variant;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.projectcnw.salesmanagement.converter.ModelMapperParity.assertSameAsModelMapper;
+import static com.projectcnw.salesmanagement.converter.ModelMapperParity.projection;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VariantConverterTest {
+
+    private final VariantConverter converter = new VariantConverter();
+
+    @Test
+    void entityMatchesModelMapper() {
+        Variant variant = variant();
+        BaseProduct baseProduct = new BaseProduct();
+        baseProduct.setId(7);
+        variant.setBaseProduct(baseProduct);
+
+        assertSameAsModelMapper(variant, converter.toDto(variant));
+    }
+
+    @Test
+    void entityWithoutBaseProductMatchesModelMapper() {
+        Variant variant = variant();
+        variant.setValue2(null);
+
+        assertSameAsModelMapper(variant, converter.toDto(variant));
+    }
+
+    @Test
+    void projectionMatchesModelMapper() {
+        IVariantDto projection = projection(IVariantDto.class, values());
+
+        assertSameAsModelMapper(projection, converter.toDto(projection));
+    }
+
+    @Test
+    void projectionListKeepsOrder() {
+        Map<String, Object> second = values();
+        second.put("id", 6);
+        List<IVariantDto> projections = List.of(projection(IVariantDto.class, values()), projection(IVariantDto.class, second));
+
+        assertEquals(List.of(5, 6), converter.toDtoList(projections).stream().map(dto -> dto.id).toList());
+    }
+
+    private static Variant variant() {
+        Variant variant = new Variant();
+        variant.setId(5);
+        variant.setCreatedAt(Timestamp.valueOf("2026-01-02 03:04:05"));
+        variant.setUpdatedAt(Timestamp.valueOf("2026-02-03 04:05:06"));
+        variant.setName("Áo thun - Đỏ - M");
+        variant.setQuantity(12);
+        variant.setImportPrice(80000);
+        variant.setRetailPrice(150000);
+        variant.setWholeSalePrice(120000);
+        variant.setImage("https://cdn/a.png");
+        variant.setSku("AT-DO-M");
+        variant.setBarcode("8930000000012");
+        variant.setValue1("Đỏ");
+        variant.setValue2("M");
+        variant.setValue3("Cotton");
+        return variant;
+    }
+
+    private static Map<String, Object> values() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", 5);
+        values.put("createdAt", Timestamp.valueOf("2026-01-02 03:04:05"));
+        values.put("updatedAt", Timestamp.valueOf("2026-02-03 04:05:06"));
+        values.put("name", "Áo thun - Đỏ - M");
+        values.put("quantity", 12);
+        values.put("importPrice", 80000);
+        values.put("retailPrice", 150000);
+        values.put("wholeSalePrice", 120000);
+        values.put("image", "https://cdn/a.png");
+        values.put("sku", "AT-DO-M");
+        values.put("barcode", "8930000000012");
+        values.put("baseId", 7);
+        values.put("value1", "Đỏ");
+        values.put("value2", "M");
+        values.put("value3", null);
+        return values;
+    }
+}
@@ -0,0 +1,57 @@
+package com.projectcnw.salesmanagement.converter;
+
+import com.projectcnw.salesmanagement.dto.balanceDtos.IBalanceVariantDto;
+import com.projectcnw.salesmanagement.dto.balanceDtos.IWarehouseBalanceDto;
+import com.projectcnw.salesmanagement.models.WarehouseBalance;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.projectcnw.salesmanagement.converter.ModelMapperParity.assertSameAsModelMapper;
+import static com.projectcnw.salesmanagement.converter.ModelMapperParity.projection;
+
+class WarehouseBalanceConverterTest {
+
+    private final WarehouseBalanceConverter converter = new WarehouseBalanceConverter();
+
+    @Test
+    void balanceProjectionMatchesModelMapper() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", 4);
+        values.put("createdAt", Timestamp.valueOf("2026-04-05 08:00:00"));
+        values.put("updatedAt", Timestamp.valueOf("2026-04-05 09:00:00"));
+        values.put("personInCharge", "Trần B");
+        values.put("note", "Kiểm kho cuối tháng");
+        IWarehouseBalanceDto projection = projection(IWarehouseBalanceDto.class, values);
+
+        assertSameAsModelMapper(projection, converter.toDto(projection));
+    }
+
+    // balanceVariantList do BalanceService gán sau khi lưu các dòng kiểm kho
+    @Test
+    void balanceEntityMatchesModelMapper() {
+        WarehouseBalance balance = new WarehouseBalance();
+        balance.setId(4);
+        balance.setCreatedAt(Timestamp.valueOf("2026-04-05 08:00:00"));
+        balance.setUpdatedAt(Timestamp.valueOf("2026-04-05 09:00:00"));
+        balance.setNote("Kiểm kho cuối tháng");
+
+        assertSameAsModelMapper(balance, converter.toDto(balance), "balanceVariantList");
+    }
+
+    // ModelMapper dựng variant chỉ có id từ variantId; BalanceService luôn thay bằng variant đầy đủ nên converter bỏ qua
+    @Test
+    void balanceVariantProjectionMatchesModelMapper() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("variantId", 5);
+        values.put("warehouseBalanceId", 4);
+        values.put("realQ", 10);
+        values.put("savedQ", 12);
+        values.put("note", "Thiếu 2");
+        IBalanceVariantDto projection = projection(IBalanceVariantDto.class, values);
+
+        assertSameAsModelMapper(projection, converter.toDto(projection), "variant");
+    }
+}
@@ -0,0 +1,32 @@
+package com.projectcnw.salesmanagement.exceptions;
+
+import com.projectcnw.salesmanagement.exceptions.errorobject.ErrorObject;
+import com.projectcnw.salesmanagement.exceptions.errorobject.SingleMessageError;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void upstreamFailuresKeepTheirStatus() {
+        ResponseEntity<ErrorObject> badGateway = handler.handleUpstream(
+                new UpstreamServiceException(HttpStatus.BAD_GATEWAY, "Không thể tải ảnh lên"));
+        ResponseEntity<ErrorObject> timeout = handler.handleUpstream(
+                new UpstreamServiceException(HttpStatus.GATEWAY_TIMEOUT, "Tải ảnh quá thời gian chờ"));
+
+        assertEquals(HttpStatus.BAD_GATEWAY, badGateway.getStatusCode());
+        assertEquals(502, badGateway.getBody().getStatusCode());
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, timeout.getStatusCode());
+        assertEquals("Tải ảnh quá thời gian chờ", ((SingleMessageError) timeout.getBody()).getMessage());
+    }
+
+    @Test
+    void badRequestIsStill400() {
+        assertEquals(HttpStatus.BAD_REQUEST, handler.handleBadRequest(new BadRequestException("x")).getStatusCode());
+    }
+}
@@ -0,0 +1,92 @@
+package com.projectcnw.salesmanagement.services.CustomerServices;
+
+import com.projectcnw.salesmanagement.models.Customer;
+import com.projectcnw.salesmanagement.repositories.CustomerRepositories.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class CustomerSearchIndexTest {
+
+    private CustomerRepository customerRepository;
+
+    private CustomerSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        customerRepository = mock(CustomerRepository.class);
+        when(customerRepository.getSearchColumns()).thenReturn(List.of(
+                new Object[]{1, "Nguyễn Văn An", "0912345678"},
+                new Object[]{2, "Trần Thị Bình", "+84 987 654 321"},
+                new Object[]{3, "Lê Văn Anh", "0911222333"},
+                new Object[]{4, null, null}));
+        index = new CustomerSearchIndex(customerRepository);
+        index.load();
+    }
+
+    @Test
+    void findsNameSubstringWithOrWithoutMarks() {
+        assertEquals(List.of(3, 1), index.search("văn", 0));
+        assertEquals(List.of(3, 1), index.search("VAN", 0));
+        assertEquals(List.of(2), index.search("thi binh", 0));
+        assertEquals(List.of(2), index.search("  Thị   Bình ", 0));
+    }
+
+    @Test
+    void findsPhoneSubstringIgnoringFormatting() {
+        assertEquals(List.of(1), index.search("345 678", 0));
+        assertEquals(List.of(2), index.search("0987654321", 0));
+        assertEquals(List.of(2), index.search("+84987654321", 0));
+        assertEquals(List.of(3, 1), index.search("091", 0));
+    }
+
+    @Test
+    void termsShorterThanTrigramScanAllEntries() {
+        assertEquals(List.of(3, 2), index.search("nh", 0));
+        assertEquals(List.of(3, 2, 1), index.search("n", 0));
+    }
+
+    @Test
+    void keywordWithoutLettersOrDigitsReturnsEmpty() {
+        assertEquals(List.of(), index.search("", 0));
+        assertEquals(List.of(), index.search("   ", 0));
+        assertEquals(List.of(), index.search(null, 0));
+    }
+
+    @Test
+    void noTrigramMatchReturnsEmpty() {
+        assertEquals(List.of(), index.search("xyz", 0));
+    }
+
+    @Test
+    void limitKeepsNewestCustomers() {
+        assertEquals(List.of(3), index.search("van", 1));
+    }
+
+    @Test
+    void changedCustomerIsFoundByNewValuesOnly() {
+        Customer renamed = Customer.builder().name("Phạm Minh Châu").phone("0900000001").build();
+        renamed.setId(1);
+        when(customerRepository.findById(1)).thenReturn(Optional.of(renamed));
+
+        index.onCustomerChanged(new CustomerChangedEvent(1));
+
+        assertEquals(List.of(1), index.search("minh chau", 0));
+        assertEquals(List.of(3), index.search("van", 0));
+        assertEquals(List.of(), index.search("0912345678", 0));
+    }
+
+    @Test
+    void deletedCustomerIsNotReturned() {
+        when(customerRepository.findById(2)).thenReturn(Optional.empty());
+
+        index.onCustomerChanged(new CustomerChangedEvent(2));
+
+        assertEquals(List.of(), index.search("binh", 0));
+    }
+}
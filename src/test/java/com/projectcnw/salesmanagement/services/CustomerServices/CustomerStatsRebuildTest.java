@@ -0,0 +1,107 @@
+package com.projectcnw.salesmanagement.services.CustomerServices;
+
+import com.projectcnw.salesmanagement.models.Customer;
+import com.projectcnw.salesmanagement.models.Order;
+import com.projectcnw.salesmanagement.models.Payment;
+import com.projectcnw.salesmanagement.models.ReturnOrder;
+import com.projectcnw.salesmanagement.models.enums.OrderType;
+import com.projectcnw.salesmanagement.models.enums.PaymentMethod;
+import com.projectcnw.salesmanagement.models.enums.PaymentStatus;
+import com.projectcnw.salesmanagement.repositories.CustomerRepositories.CustomerStatsRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cập nhật customer_stats theo từng thao tác (tạo đơn, thanh toán hoàn tất, hoàn trả) phải cho đúng kết quả
+ * của việc dựng lại từ _order, return_order và payment. Chạy trên cùng DB MySQL với contextLoads, rollback sau test.
+ */
+@SpringBootTest
+@Transactional
+class CustomerStatsRebuildTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CustomerStatsService customerStatsService;
+
+    @Autowired
+    private CustomerStatsRepository customerStatsRepository;
+
+    @Test
+    void incrementalUpdatesMatchRebuild() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        Customer customer = Customer.builder().name("Khách " + run).phone("qc-" + run).build();
+        entityManager.persist(customer);
+        customerStatsService.recordCustomer(customer.getId());
+
+        // đơn thanh toán ngay
+        Order paidOrder = order(customer);
+        payment(paidOrder.getId(), OrderType.ORDER, 100_000, PaymentStatus.COMPLETE);
+        customerStatsService.recordOrder(paidOrder, 100_000);
+
+        // đơn thanh toán sau
+        Order laterPaidOrder = order(customer);
+        Payment laterPayment = payment(laterPaidOrder.getId(), OrderType.ORDER, 50_000, PaymentStatus.INIT);
+        customerStatsService.recordOrder(laterPaidOrder, 0);
+        laterPayment.setPaymentStatus(PaymentStatus.COMPLETE);
+        entityManager.flush();
+        customerStatsService.recordPaymentCompleted(laterPayment);
+
+        // đơn chưa thanh toán không tính vào chi tiêu
+        Order unpaidOrder = order(customer);
+        payment(unpaidOrder.getId(), OrderType.ORDER, 30_000, PaymentStatus.INIT);
+        customerStatsService.recordOrder(unpaidOrder, 0);
+
+        ReturnOrder returnOrder = ReturnOrder.builder().baseOrder(paidOrder).returnReason("lỗi").build();
+        entityManager.persist(returnOrder);
+        Payment refund = payment(returnOrder.getId(), OrderType.RETURN, 20_000, PaymentStatus.COMPLETE);
+        customerStatsService.recordPaymentCompleted(refund);
+
+        Object[] incremental = stats(customer.getId());
+        assertEquals(150_000L, incremental[1]);
+        assertEquals(3L, incremental[2]);
+        assertEquals(20_000L, incremental[3]);
+
+        customerStatsRepository.rebuild(customer.getId(), customer.getId());
+
+        assertArrayEquals(incremental, stats(customer.getId()));
+    }
+
+    private Order order(Customer customer) {
+        Order order = Order.builder().customer(customer).build();
+        entityManager.persist(order);
+        return order;
+    }
+
+    private Payment payment(int orderId, OrderType orderType, int amount, PaymentStatus status) {
+        Payment payment = Payment.builder()
+                .orderId(orderId)
+                .orderType(orderType)
+                .amount(amount)
+                .paymentMethod(PaymentMethod.CASH)
+                .paymentStatus(status)
+                .payDate(new Date(System.currentTimeMillis()))
+                .build();
+        entityManager.persist(payment);
+        entityManager.flush();
+        return payment;
+    }
+
+    private Object[] stats(int customerId) {
+        List<Object[]> rows = customerStatsRepository.findByCustomerIds(List.of(customerId));
+        assertEquals(1, rows.size());
+        return rows.get(0);
+    }
+}
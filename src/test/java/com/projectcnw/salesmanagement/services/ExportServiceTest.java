@@ -0,0 +1,68 @@
+package com.projectcnw.salesmanagement.services;
+
+import com.projectcnw.salesmanagement.repositories.ExportRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Xuất nhiều dòng qua repository giả lập: dữ liệu phải ra tới client trong lúc result set còn đang được đọc.
+ */
+class ExportServiceTest {
+
+    private static final int ROWS = 200_000;
+
+    @Test
+    void streamsRowsWhileReading() throws Exception {
+        // chỉ đếm byte, không giữ nội dung
+        AtomicLong written = new AtomicLong();
+        AtomicLong lines = new AtomicLong();
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                written.incrementAndGet();
+                if (b == '\n') {
+                    lines.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                for (int i = off; i < off + len; i++) {
+                    write(b[i]);
+                }
+            }
+        };
+
+        long[] row = new long[1];
+        long[] writtenAtHalf = new long[1];
+        // ResultSet tối giản (chỉ getObject), mock của Mockito quá chậm với vài triệu lần gọi
+        ResultSet rs = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> (int) args[0] == 1 ? row[0] : "value");
+        ExportRepository exportRepository = mock(ExportRepository.class);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (row[0] = 1; row[0] <= ROWS; row[0]++) {
+                handler.processRow(rs);
+                if (row[0] == ROWS / 2) {
+                    writtenAtHalf[0] = written.get();
+                }
+            }
+            return null;
+        }).when(exportRepository).stream(anyString(), any(), any(Object[].class));
+
+        new ExportService(exportRepository).exportVariants(out);
+
+        assertEquals(ROWS + 1, lines.get());
+        assertTrue(writtenAtHalf[0] > written.get() / 3, "only " + writtenAtHalf[0] + " of " + written.get() + " bytes sent halfway");
+    }
+}
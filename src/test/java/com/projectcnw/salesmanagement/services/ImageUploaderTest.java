@@ -0,0 +1,139 @@
+package com.projectcnw.salesmanagement.services;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Uploader;
+import com.projectcnw.salesmanagement.dto.upload.ImageUploadStatus;
+import com.projectcnw.salesmanagement.exceptions.BadRequestException;
+import com.projectcnw.salesmanagement.exceptions.UpstreamServiceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cloudinary được thay bằng stub: kiểm tra luồng spool -> đẩy ảnh -> xoá file mà không gọi mạng.
+ */
+class ImageUploaderTest {
+
+    private static final byte[] IMAGE = {(byte) 0x89, 'P', 'N', 'G', 1, 2, 3, 4};
+
+    @TempDir
+    Path spoolDir;
+
+    private Cloudinary cloudinary;
+
+    private Uploader uploader;
+
+    private ImageUploader imageUploader;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cloudinary = mock(Cloudinary.class);
+        uploader = mock(Uploader.class);
+        when(cloudinary.uploader()).thenReturn(uploader);
+        imageUploader = new ImageUploader(cloudinary, spoolDir.toString(), 1024, 2, 10, 5000);
+        imageUploader.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageUploader.shutdown();
+    }
+
+    @Test
+    void uploadsSpooledFileAndDeletesIt() throws Exception {
+        AtomicReference<byte[]> uploaded = new AtomicReference<>();
+        when(uploader.upload(any(File.class), anyMap())).thenAnswer(invocation -> {
+            uploaded.set(Files.readAllBytes(((File) invocation.getArgument(0)).toPath()));
+            return Map.of("secure_url", "https://res.cloudinary.com/demo/image/upload/a.png");
+        });
+        MockMultipartFile file = spy(new MockMultipartFile("file", "a.png", "image/png", IMAGE));
+
+        String url = imageUploader.uploadImage(file);
+
+        assertEquals("https://res.cloudinary.com/demo/image/upload/a.png", url);
+        assertArrayEquals(IMAGE, uploaded.get());
+        // transferTo(File) với đường dẫn tuyệt đối để Tomcat đổi tên file tạm thay vì sao chép
+        verify(file).transferTo(argThat((File dest) -> dest.isAbsolute()));
+        verify(file, never()).transferTo(any(Path.class));
+        assertSpoolEmpty();
+    }
+
+    @Test
+    void failedUploadReportsErrorAndDeletesSpool() throws Exception {
+        when(uploader.upload(any(File.class), anyMap())).thenThrow(new IOException("Cloudinary unavailable"));
+
+        UpstreamServiceException e = assertThrows(UpstreamServiceException.class,
+                () -> imageUploader.uploadImage(new MockMultipartFile("file", "a.png", "image/png", IMAGE)));
+
+        assertEquals(HttpStatus.BAD_GATEWAY, e.getStatus());
+        assertTrue(e.getMessage().contains("Cloudinary unavailable"));
+        assertSpoolEmpty();
+    }
+
+    @Test
+    void slowUploadTimesOutWithJobToFollow() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(uploader.upload(any(File.class), anyMap())).thenAnswer(invocation -> {
+            release.await();
+            return Map.of("secure_url", "https://cdn/slow.png");
+        });
+        ImageUploader impatient = new ImageUploader(cloudinary, spoolDir.toString(), 1024, 1, 10, 50);
+        try {
+            UpstreamServiceException e = assertThrows(UpstreamServiceException.class,
+                    () -> impatient.uploadImage(new MockMultipartFile("file", "slow.png", "image/png", IMAGE)));
+
+            assertEquals(HttpStatus.GATEWAY_TIMEOUT, e.getStatus());
+            String jobId = e.getMessage().substring(e.getMessage().lastIndexOf(' ') + 1);
+            assertNull(impatient.getStatus(jobId).getFinishedAt());
+        } finally {
+            release.countDown();
+            impatient.shutdown();
+        }
+    }
+
+    @Test
+    void submitReturnsJobThatFinishes() throws Exception {
+        when(uploader.upload(any(File.class), anyMap())).thenReturn(Map.of("secure_url", "https://cdn/b.png"));
+
+        ImageUploadStatus submitted = imageUploader.submit(new MockMultipartFile("file", "b.png", "image/png", IMAGE));
+        ImageUploadStatus status = submitted;
+        for (int i = 0; i < 100 && status.getFinishedAt() == null; i++) {
+            Thread.sleep(20);
+            status = imageUploader.getStatus(submitted.getJobId());
+        }
+
+        assertEquals("DONE", status.getStatus());
+        assertEquals("https://cdn/b.png", status.getUrl());
+        assertEquals("b.png", status.getFileName());
+    }
+
+    @Test
+    void rejectsEmptyFileAndFullSpool() {
+        assertThrows(BadRequestException.class,
+                () -> imageUploader.uploadImage(new MockMultipartFile("file", "empty.png", "image/png", new byte[0])));
+        assertThrows(BadRequestException.class,
+                () -> imageUploader.uploadImage(new MockMultipartFile("file", "big.png", "image/png", new byte[2048])));
+        verifyNoInteractions(uploader);
+    }
+
+    private void assertSpoolEmpty() throws IOException {
+        try (var files = Files.list(spoolDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.projectcnw.salesmanagement.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectcnw.salesmanagement.dto.productDtos.VariantSaleResponse;
+import com.projectcnw.salesmanagement.models.Auth.UserEntity;
+import com.projectcnw.salesmanagement.models.Customer;
+import com.projectcnw.salesmanagement.models.Order;
+import com.projectcnw.salesmanagement.models.OrderLine;
+import com.projectcnw.salesmanagement.models.Payment;
+import com.projectcnw.salesmanagement.models.Products.BaseProduct;
+import com.projectcnw.salesmanagement.models.Products.Category;
+import com.projectcnw.salesmanagement.models.Products.Variant;
+import com.projectcnw.salesmanagement.models.Promotion;
+import com.projectcnw.salesmanagement.models.ShoppingCart;
+import com.projectcnw.salesmanagement.models.enums.OrderType;
+import com.projectcnw.salesmanagement.models.enums.PaymentMethod;
+import com.projectcnw.salesmanagement.models.enums.PaymentStatus;
+import com.projectcnw.salesmanagement.models.enums.PromotionEnumType;
+import com.projectcnw.salesmanagement.models.enums.PromotionPolicyApplyType;
+import com.projectcnw.salesmanagement.models.enums.PromotionStatusType;
+import com.projectcnw.salesmanagement.services.CategoryServices.CategoryService;
+import com.projectcnw.salesmanagement.services.OrderServices.OrderService;
+import com.projectcnw.salesmanagement.services.ProductManagerServices.BaseProductService;
+import com.projectcnw.salesmanagement.services.ProductManagerServices.VariantService;
+import com.projectcnw.salesmanagement.services.PromotionServices.PromotionService;
+import com.projectcnw.salesmanagement.services.ShoppingCartService.ShoppingCartService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Đếm số câu SQL của các API danh sách bằng Hibernate statistics (chạy trên cùng DB MySQL với contextLoads).
+ * Dữ liệu mẫu (25 sản phẩm kèm variant, danh mục, khuyến mãi, đơn hàng và giỏ hàng) được tạo trong transaction
+ * của test và rollback sau mỗi test. Số câu lệnh không được tăng theo số dòng trả về, và trả entity ra JSON
+ * không được kéo thêm truy vấn.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class LazyLoadingQueryCountTest {
+
+    private static final int ROWS = 25;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BaseProductService baseProductService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private PromotionService promotionService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private VariantService variantService;
+
+    @Autowired
+    private ShoppingCartService shoppingCartService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+
+    private Category category;
+
+    // sản phẩm có 1 variant và sản phẩm có ROWS variant
+    private BaseProduct smallProduct;
+
+    private BaseProduct largeProduct;
+
+    // khách hàng có 1 đơn / 1 dòng giỏ hàng và khách hàng có ROWS đơn / ROWS dòng giỏ hàng
+    private Customer oneOrderCustomer;
+
+    private Customer manyOrdersCustomer;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String run = UUID.randomUUID().toString().substring(0, 8);
+
+        UserEntity staff = UserEntity.builder().fullName("Nhân viên " + run).phone("qc-" + run).roles(List.of()).build();
+        entityManager.persist(staff);
+        oneOrderCustomer = customer("Khách một đơn", run + "-1");
+        manyOrdersCustomer = customer("Khách nhiều đơn", run + "-2");
+
+        List<BaseProduct> products = new ArrayList<>();
+        List<Variant> variants = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            BaseProduct product = product("Sản phẩm " + i);
+            products.add(product);
+            variants.add(variant(product, run + "-" + i));
+            variants.add(variant(product, run + "-" + i + "b"));
+        }
+        smallProduct = product("Một variant");
+        variant(smallProduct, run + "-small");
+        largeProduct = product("Nhiều variant");
+        for (int i = 0; i < ROWS; i++) {
+            variant(largeProduct, run + "-large-" + i);
+        }
+
+        category = Category.builder().title("Danh mục " + run).products(new ArrayList<>(products)).build();
+        entityManager.persist(category);
+        for (int i = 0; i < ROWS; i++) {
+            Promotion promotion = Promotion.builder()
+                    .title("Khuyến mãi " + i)
+                    .policyApply(PromotionPolicyApplyType.PRODUCT)
+                    .value(10)
+                    .valueType(PromotionEnumType.PERCENTAGE)
+                    .status(PromotionStatusType.active)
+                    .startDate(new Date(System.currentTimeMillis() - 86_400_000L))
+                    .endDate(new Date(System.currentTimeMillis() + 86_400_000L))
+                    .products(List.of(products.get(i), products.get((i + 1) % ROWS)))
+                    .categories(List.of(category))
+                    .build();
+            entityManager.persist(promotion);
+        }
+
+        order(oneOrderCustomer, staff, variants.subList(0, 2));
+        cart(oneOrderCustomer, variants.subList(0, 1));
+        for (int i = 0; i < ROWS; i++) {
+            order(manyOrdersCustomer, staff, variants.subList(2 * i, 2 * i + 2));
+        }
+        cart(manyOrdersCustomer, variants.subList(0, ROWS));
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void productListQueriesDoNotGrowWithPageSize() {
+        assertSameStatements(() -> baseProductService.getAll(0, 1, "", "", "", "", ""),
+                () -> baseProductService.getAll(0, ROWS, "", "", "", "", ""));
+    }
+
+    @Test
+    void categoryListQueriesDoNotGrowWithPageSize() {
+        assertSameStatements(() -> categoryService.getAllCategory(0, 1, "", "", ""),
+                () -> categoryService.getAllCategory(0, ROWS, "", "", ""));
+    }
+
+    @Test
+    void promotionListQueriesDoNotGrowWithPageSize() {
+        assertSameStatements(() -> promotionService.getAllPromotionByFilter(0, 1, "", "", "", "", "id", "desc"),
+                () -> promotionService.getAllPromotionByFilter(0, ROWS, "", "", "", "", "id", "desc"));
+    }
+
+    @Test
+    void customerOrderListQueriesDoNotGrowWithOrders() {
+        List<?> one = measure(() -> orderService.getOrderListByCustomerId(oneOrderCustomer.getId()));
+        long oneStatements = statistics.getPrepareStatementCount();
+        List<?> many = measure(() -> orderService.getOrderListByCustomerId(manyOrdersCustomer.getId()));
+
+        assertEquals(1, one.size());
+        assertEquals(ROWS, many.size());
+        assertEquals(oneStatements, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void storefrontVariantListQueriesDoNotGrowWithPageSize() {
+        String categoryId = String.valueOf(category.getId());
+        List<VariantSaleResponse> one = measure(() -> variantService.getAllVariantsFilter(1, 1, "", categoryId, "", "", "created_at", "desc", ""));
+        long oneStatements = statistics.getPrepareStatementCount();
+        List<VariantSaleResponse> page = measure(() -> variantService.getAllVariantsFilter(1, ROWS, "", categoryId, "", "", "created_at", "desc", ""));
+
+        assertEquals(1, one.size());
+        assertEquals(ROWS, page.size());
+        assertEquals(oneStatements, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void storefrontProductDetailQueriesDoNotGrowWithVariants() {
+        assertSameStatements(() -> baseProductService.getProductSaleResponse(smallProduct.getId()),
+                () -> baseProductService.getProductSaleResponse(largeProduct.getId()));
+    }
+
+    @Test
+    void cartQueriesDoNotGrowWithItems() {
+        Collection<?> one = (Collection<?>) measure(() -> shoppingCartService.getAllShoppingCart(oneOrderCustomer.getId()))
+                .getBody().getData();
+        long oneStatements = statistics.getPrepareStatementCount();
+        Collection<?> many = (Collection<?>) measure(() -> shoppingCartService.getAllShoppingCart(manyOrdersCustomer.getId()))
+                .getBody().getData();
+
+        assertEquals(1, one.size());
+        assertEquals(ROWS, many.size());
+        assertEquals(oneStatements, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void serializingLoadedEntitiesRunsNoQuery() throws Exception {
+        List<Promotion> promotions = promotionService.getAllPromotionByFilter(0, ROWS, "", "", "", "", "id", "desc");
+
+        statistics.clear();
+        objectMapper.writeValueAsString(promotions);
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    private void assertSameStatements(Runnable small, Runnable large) {
+        measure(() -> {
+            small.run();
+            return null;
+        });
+        long smallStatements = statistics.getPrepareStatementCount();
+        measure(() -> {
+            large.run();
+            return null;
+        });
+        assertEquals(smallStatements, statistics.getPrepareStatementCount());
+    }
+
+    // mỗi lần đo bắt đầu với persistence context rỗng để lần gọi sau không được lợi từ cache của lần trước
+    private <T> T measure(Supplier<T> call) {
+        entityManager.clear();
+        statistics.clear();
+        return call.get();
+    }
+
+    private Customer customer(String name, String suffix) {
+        Customer customer = Customer.builder().name(name).phone("qc-" + suffix).build();
+        entityManager.persist(customer);
+        return customer;
+    }
+
+    private BaseProduct product(String name) {
+        BaseProduct product = new BaseProduct();
+        product.setName(name);
+        product.setAttribute1("Màu");
+        entityManager.persist(product);
+        return product;
+    }
+
+    private Variant variant(BaseProduct product, String sku) {
+        Variant variant = new Variant();
+        variant.setBaseProduct(product);
+        variant.setName(product.getName() + " " + sku);
+        variant.setSku("QC-" + sku);
+        variant.setValue1("Đỏ");
+        variant.setQuantity(100);
+        variant.setRetailPrice(100_000);
+        entityManager.persist(variant);
+        return variant;
+    }
+
+    private void order(Customer customer, UserEntity staff, List<Variant> variants) {
+        Order order = Order.builder().customer(customer).userEntity(staff).customerName(customer.getName()).build();
+        entityManager.persist(order);
+        for (Variant variant : variants) {
+            entityManager.persist(OrderLine.builder().order(order).variant(variant).quantity(1).price(variant.getRetailPrice()).build());
+        }
+        entityManager.persist(Payment.builder()
+                .orderId(order.getId())
+                .orderType(OrderType.ORDER)
+                .amount(variants.size() * 100_000)
+                .paymentMethod(PaymentMethod.CASH)
+                .paymentStatus(PaymentStatus.COMPLETE)
+                .payDate(new java.sql.Date(System.currentTimeMillis()))
+                .build());
+    }
+
+    private void cart(Customer customer, List<Variant> variants) {
+        for (Variant variant : variants) {
+            entityManager.persist(ShoppingCart.builder().customer(customer).variant(variant).quantity(1).build());
+        }
+    }
+}
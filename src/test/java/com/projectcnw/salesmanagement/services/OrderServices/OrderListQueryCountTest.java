@@ -0,0 +1,122 @@
+package com.projectcnw.salesmanagement.services.OrderServices;
+
+import com.projectcnw.salesmanagement.dto.orderDtos.OrderListItemDto;
+import com.projectcnw.salesmanagement.models.Customer;
+import com.projectcnw.salesmanagement.models.Order;
+import com.projectcnw.salesmanagement.models.Payment;
+import com.projectcnw.salesmanagement.models.SalesChannel;
+import com.projectcnw.salesmanagement.models.enums.OrderType;
+import com.projectcnw.salesmanagement.models.enums.PaymentMethod;
+import com.projectcnw.salesmanagement.models.enums.PaymentStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Danh sách đơn hàng admin dựng từ một câu projection: trên 30 đơn mẫu (mỗi đơn có khách hàng, kênh bán và payment),
+ * một trang tốn đúng một câu SQL, đếm tổng tốn đúng một câu, dù trang có bao nhiêu dòng.
+ * Chạy trên cùng DB MySQL với contextLoads, dữ liệu mẫu rollback sau mỗi test.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class OrderListQueryCountTest {
+
+    private static final int ORDERS = 30;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderService orderService;
+
+    private Statistics statistics;
+
+    // tên khách hàng duy nhất cho mỗi lần chạy, dùng làm từ khoá tìm kiếm để chỉ lấy đơn mẫu
+    private String customerName;
+
+    private String run;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        run = UUID.randomUUID().toString().substring(0, 8);
+        customerName = "qc-order-list-" + run;
+
+        SalesChannel salesChannel = new SalesChannel();
+        salesChannel.setName("Kênh " + run);
+        salesChannel.setCode("qc-" + run);
+        entityManager.persist(salesChannel);
+        Customer customer = Customer.builder().name(customerName).phone("qc-" + run).build();
+        entityManager.persist(customer);
+        for (int i = 1; i <= ORDERS; i++) {
+            Order order = Order.builder().customer(customer).salesChannel(salesChannel).build();
+            entityManager.persist(order);
+            entityManager.persist(Payment.builder()
+                    .orderId(order.getId())
+                    .orderType(OrderType.ORDER)
+                    .amount(i * 1000)
+                    .paymentMethod(PaymentMethod.CASH)
+                    .paymentStatus(i % 2 == 0 ? PaymentStatus.COMPLETE : PaymentStatus.INIT)
+                    .payDate(new Date(System.currentTimeMillis()))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void pageIsOneStatementWhateverItsSize() {
+        List<OrderListItemDto> one = measure(() -> orderService.getOrderList(0, 1, customerName, "", "", "", ""));
+        assertEquals(1, one.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        List<OrderListItemDto> page = measure(() -> orderService.getOrderList(0, ORDERS, customerName, "", "", "", ""));
+        assertEquals(ORDERS, page.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void rowsCarryCustomerChannelAndPayment() {
+        List<OrderListItemDto> page = measure(() -> orderService.getOrderList(0, ORDERS, customerName, "", "", "", "COMPLETE"));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(ORDERS / 2, page.size());
+        // mới nhất trước: đơn cuối cùng có amount ORDERS * 1000
+        OrderListItemDto latest = page.get(0);
+        assertEquals(customerName, latest.getCustomerName());
+        assertEquals(PaymentStatus.COMPLETE, latest.getPaymentStatus());
+        assertEquals(ORDERS * 1000, latest.getAmount());
+        assertEquals(List.of("Kênh " + run), page.stream().map(OrderListItemDto::getSalesChannelName).distinct().toList());
+    }
+
+    @Test
+    void countIsOneStatement() {
+        int total = measure(() -> orderService.countOrderFilter(customerName, "", "", "", ""));
+
+        assertEquals(ORDERS, total);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private <T> T measure(Supplier<T> call) {
+        entityManager.clear();
+        statistics.clear();
+        return call.get();
+    }
+}
@@ -0,0 +1,50 @@
+package com.projectcnw.salesmanagement.services.ProductManagerServices;
+
+import com.projectcnw.salesmanagement.converter.VariantConverter;
+import com.projectcnw.salesmanagement.repositories.CategoryRepository.CategoryRepository;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.BaseProductRepository;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.NonJPARepository.NonJPAProductRepository;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.ProductSearchRepository;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.VariantRepository;
+import com.projectcnw.salesmanagement.services.CategoryServices.CategoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class BaseProductServiceSearchTest {
+
+    private ProductSearchRepository productSearchRepository;
+
+    private BaseProductService baseProductService;
+
+    @BeforeEach
+    void setUp() {
+        productSearchRepository = mock(ProductSearchRepository.class);
+        baseProductService = new BaseProductService(mock(BaseProductRepository.class), mock(VariantRepository.class),
+                mock(CategoryService.class), mock(CategoryRepository.class), mock(NonJPAProductRepository.class),
+                mock(VariantService.class), mock(ApplicationEventPublisher.class), productSearchRepository,
+                mock(InventoryMovementService.class), mock(VariantConverter.class));
+    }
+
+    @Test
+    void oneCharacterKeywordReturnsEmptyWithoutQuerying() {
+        assertTrue(baseProductService.getAllBaseProductsByKeyword("a", 0, 10).isEmpty());
+        assertEquals(0, baseProductService.countBaseProductsByKeyword("Đ"));
+        verifyNoInteractions(productSearchRepository);
+    }
+
+    @Test
+    void keywordIsFoldedBeforeQueryingTheIndex() {
+        when(productSearchRepository.searchBaseProductIds("+\"ao\" +\"thun\"", 20, 10)).thenReturn(List.of());
+
+        assertTrue(baseProductService.getAllBaseProductsByKeyword("Áo Thun", 2, 10).isEmpty());
+        verify(productSearchRepository).searchBaseProductIds(eq("+\"ao\" +\"thun\""), eq(20), anyInt());
+    }
+}
@@ -0,0 +1,99 @@
+package com.projectcnw.salesmanagement.services.ProductManagerServices;
+
+import com.projectcnw.salesmanagement.exceptions.InsufficientStockException;
+import com.projectcnw.salesmanagement.models.Products.Variant;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.VariantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Giữ hàng bằng UPDATE có điều kiện trên MySQL (chạy trên cùng DB với contextLoads, stock ledger tắt):
+ * nhiều giao dịch đồng thời cùng trừ một variant, số lượng bán được đúng bằng tồn kho và tồn kho không âm.
+ */
+@SpringBootTest(properties = "application.inventory.ledger.enabled=false")
+class InventoryReservationConcurrencyTest {
+
+    private static final int STOCK = 50;
+
+    private static final int THREADS = 16;
+
+    private static final int ATTEMPTS_PER_THREAD = 10;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private VariantRepository variantRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Integer variantId;
+
+    @BeforeEach
+    void setUp() {
+        Variant variant = new Variant();
+        variant.setName("concurrency-test");
+        variant.setSku("CONCURRENCY-TEST");
+        variant.setValue1("test");
+        variant.setQuantity(STOCK);
+        variantId = variantRepository.save(variant).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        variantRepository.deleteById(variantId);
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> buyers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                buyers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        try {
+                            transactionTemplate.executeWithoutResult(status ->
+                                    inventoryReservationService.reserve(Map.of(variantId, 1)));
+                            sold.incrementAndGet();
+                        } catch (InsufficientStockException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> buyer : buyers) {
+                buyer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(STOCK, sold.get());
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD - STOCK, rejected.get());
+        assertEquals(0, variantRepository.findById(variantId).orElseThrow().getQuantity());
+    }
+}
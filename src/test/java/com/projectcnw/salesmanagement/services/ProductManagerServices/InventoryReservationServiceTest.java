@@ -0,0 +1,144 @@
+package com.projectcnw.salesmanagement.services.ProductManagerServices;
+
+import com.projectcnw.salesmanagement.exceptions.InsufficientStockException;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.StockLedgerCheckpointRepository;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.VariantStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Nhiều luồng cùng giữ hàng một variant qua stock ledger (bảng variant được giả lập trong bộ nhớ, flush chạy song song):
+ * tổng số lượng đã commit cộng đang giữ không bao giờ vượt tồn kho. Đường UPDATE có điều kiện trên MySQL được
+ * kiểm tra bởi {@code InventoryReservationConcurrencyTest}.
+ */
+class InventoryReservationServiceTest {
+
+    private static final int VARIANT_ID = 7;
+
+    private static final int STOCK = 200;
+
+    private static final int THREADS = 32;
+
+    private static final int ATTEMPTS_PER_THREAD = 500;
+
+    @TempDir
+    Path logDir;
+
+    private final AtomicInteger variantQuantity = new AtomicInteger(STOCK);
+
+    private StockLedger stockLedger;
+
+    private InventoryReservationService inventoryReservationService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        VariantStockRepository variantStockRepository = mock(VariantStockRepository.class);
+        when(variantStockRepository.getQuantities(any())).thenAnswer(invocation -> Map.of(VARIANT_ID, variantQuantity.get()));
+        doAnswer(invocation -> {
+            List<Map.Entry<Integer, Integer>> deltas = invocation.getArgument(0);
+            deltas.forEach(delta -> variantQuantity.addAndGet(delta.getValue()));
+            return null;
+        }).when(variantStockRepository).addQuantities(any());
+        StockLedgerCheckpointRepository checkpointRepository = mock(StockLedgerCheckpointRepository.class);
+        when(checkpointRepository.findById(any())).thenReturn(Optional.empty());
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        stockLedger = new StockLedger(variantStockRepository, checkpointRepository,
+                new StockLedgerLog(logDir.resolve("stock-ledger.log").toString()), transactionTemplate, true);
+        inventoryReservationService = new InventoryReservationService(variantStockRepository, stockLedger);
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        AtomicInteger committed = new AtomicInteger();
+        AtomicInteger held = new AtomicInteger();
+        AtomicInteger maxClaimed = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            Future<?> flusher = executor.submit(() -> {
+                while (running.get()) {
+                    stockLedger.flush();
+                }
+            });
+            List<Future<?>> buyers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                buyers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+                        TransactionSynchronizationManager.initSynchronization();
+                        try {
+                            inventoryReservationService.reserve(Map.of(VARIANT_ID, quantity));
+                            maxClaimed.accumulateAndGet(committed.get() + held.addAndGet(quantity), Math::max);
+                            // một phần đơn bị huỷ (rollback), hàng được trả lại cho người khác
+                            boolean commit = ThreadLocalRandom.current().nextInt(10) != 0;
+                            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+                            if (commit) {
+                                synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+                            }
+                            // bớt phần đang giữ trước khi cộng phần đã bán để không đếm trùng
+                            held.addAndGet(-quantity);
+                            if (commit) {
+                                committed.addAndGet(quantity);
+                            }
+                            int status = commit ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK;
+                            synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+                        } catch (InsufficientStockException e) {
+                            // hết hàng: không có gì được giữ
+                        } finally {
+                            TransactionSynchronizationManager.clearSynchronization();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> buyer : buyers) {
+                buyer.get(60, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            flusher.get(10, TimeUnit.SECONDS);
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+        stockLedger.flush();
+
+        assertTrue(maxClaimed.get() <= STOCK, "claimed " + maxClaimed.get() + " of " + STOCK);
+        assertTrue(committed.get() > 0);
+        assertEquals(STOCK - committed.get(), variantQuantity.get());
+        assertTrue(variantQuantity.get() >= 0);
+    }
+}
@@ -0,0 +1,88 @@
+package com.projectcnw.salesmanagement.services.ProductManagerServices;
+
+import com.projectcnw.salesmanagement.models.Products.Variant;
+import com.projectcnw.salesmanagement.models.enums.HistoryType;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.InventoryMovementRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Snapshot cuối ngày cộng các dòng biến động sau đó phải cho đúng tồn kho trong bảng variant.
+ * Các ngày sau hôm nay được dùng để có thể chụp snapshot cho ngày đã "kết thúc" ngay trong test.
+ * Chạy trên cùng DB MySQL với contextLoads, rollback sau test.
+ */
+@SpringBootTest
+@Transactional
+class InventorySnapshotTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private InventoryMovementService inventoryMovementService;
+
+    @Autowired
+    private InventoryMovementRepository inventoryMovementRepository;
+
+    @Test
+    void snapshotPlusMovementsReproducesVariantQuantity() {
+        LocalDate today = LocalDate.now();
+        LocalDate tomorrow = today.plusDays(1);
+        LocalDate dayAfter = today.plusDays(2);
+
+        Variant variant = new Variant();
+        variant.setName("snapshot-test");
+        variant.setSku("SNAPSHOT-" + UUID.randomUUID().toString().substring(0, 8));
+        variant.setValue1("test");
+        variant.setQuantity(10);
+        entityManager.persist(variant);
+        entityManager.flush();
+        int variantId = variant.getId();
+        inventoryMovementService.record(HistoryType.INIT, null, Map.of(variantId, 10));
+
+        inventoryMovementRepository.insertSnapshot(today, inventoryMovementRepository.getLastSnapshotDate(today));
+
+        // ngày mai: bán 3, nhập 5, kiểm kho còn 9
+        Timestamp tomorrowNoon = Timestamp.valueOf(tomorrow.atTime(12, 0));
+        move(variant, HistoryType.EXPORT, -3, tomorrowNoon);
+        move(variant, HistoryType.IMPORT, 5, tomorrowNoon);
+        inventoryMovementRepository.insertBalances(1, List.of(Map.entry(variantId, 9)), tomorrowNoon);
+        setQuantity(variant, 9);
+        inventoryMovementRepository.insertSnapshot(tomorrow, today);
+
+        // ngày kia: bán 4, trả lại 1, chưa có snapshot
+        Timestamp dayAfterNoon = Timestamp.valueOf(dayAfter.atTime(12, 0));
+        move(variant, HistoryType.EXPORT, -4, dayAfterNoon);
+        move(variant, HistoryType.RETURN, 1, dayAfterNoon);
+
+        int quantity = entityManager.find(Variant.class, variantId).getQuantity();
+        assertEquals(6, quantity);
+        assertEquals(quantity, inventoryMovementService.getQuantityAsOf(variantId, dayAfter));
+        assertEquals(quantity, inventoryMovementRepository.getQuantitiesAsOf(dayAfter).get(variantId));
+        // tồn kho đúng bằng snapshot ở những ngày đã chụp
+        assertEquals(10, inventoryMovementService.getQuantityAsOf(variantId, today));
+        assertEquals(9, inventoryMovementService.getQuantityAsOf(variantId, tomorrow));
+    }
+
+    private void move(Variant variant, HistoryType type, int change, Timestamp at) {
+        inventoryMovementRepository.insert(type, null, List.of(Map.entry(variant.getId(), change)), at);
+        setQuantity(variant, variant.getQuantity() + change);
+    }
+
+    private void setQuantity(Variant variant, int quantity) {
+        variant.setQuantity(quantity);
+        entityManager.flush();
+    }
+}
@@ -0,0 +1,153 @@
+package com.projectcnw.salesmanagement.services.ProductManagerServices;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectcnw.salesmanagement.dto.productDtos.BaseProductDto;
+import com.projectcnw.salesmanagement.dto.productDtos.ProductImportError;
+import com.projectcnw.salesmanagement.dto.productDtos.ProductImportStatus;
+import com.projectcnw.salesmanagement.dto.productDtos.VariantDto;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.ProductImportRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Import chạy trên luồng nền với repository giả lập: kiểm tra lỗi theo từng dòng và việc ghi theo lô.
+ */
+class ProductImportServiceTest {
+
+    private static final String HEADER = "product,description,attribute1,categoryIds,name,sku,value1,quantity,importPrice,retailPrice,wholeSalePrice\r\n";
+
+    private ProductImportRepository productImportRepository;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ProductImportService productImportService;
+
+    // các lô sản phẩm đã ghi thành công
+    private final List<List<String>> insertedChunks = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        productImportRepository = mock(ProductImportRepository.class);
+        when(productImportRepository.getCategoryIds()).thenReturn(Set.of(1, 2));
+        when(productImportRepository.findExistingSkus(any())).thenReturn(Set.of());
+        AtomicInteger ids = new AtomicInteger(100);
+        when(productImportRepository.insertBaseProducts(anyList())).thenAnswer(invocation -> {
+            List<BaseProductDto> products = invocation.getArgument(0);
+            if (products.stream().anyMatch(product -> product.getName().startsWith("Lỗi DB"))) {
+                throw new IllegalStateException("Duplicate entry");
+            }
+            insertedChunks.add(products.stream().map(BaseProductDto::getName).toList());
+            return products.stream().map(product -> ids.incrementAndGet()).toList();
+        });
+        transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        productImportService = new ProductImportService(productImportRepository, transactionTemplate,
+                mock(ApplicationEventPublisher.class), new ObjectMapper(), mock(InventoryMovementService.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productImportService.shutdown();
+    }
+
+    @Test
+    void reportsErrorsByFirstLineOfProduct() throws Exception {
+        String csv = "\uFEFF" + HEADER
+                + "Áo,\"mô tả\r\nhai dòng\",Màu,1,Áo đỏ,AO-DO,Đỏ,5,10,20,15\r\n"   // dòng 2-3
+                + "Áo,,,,Áo xanh,AO-XANH,Xanh,5,10,20,15\r\n"                      // dòng 4, cùng sản phẩm
+                + "Quần,,Size,9,Quần M,,M,1,1,1,1\r\n"                             // dòng 5: danh mục không tồn tại
+                + "Mũ,,Màu,x,Mũ đỏ,,Đỏ,1,1,1,1\r\n"                                // dòng 6: categoryIds sai
+                + "Giày,,Size,,Giày 40,,40,abc,1,1,1\r\n"                          // dòng 7: số lượng sai
+                + "Tất,,Size,,Tất,,,1,1,1,1\r\n";                                  // dòng 8: thiếu giá trị thuộc tính
+
+        ProductImportStatus status = importFile("products.csv", csv);
+
+        assertEquals("DONE", status.getStatus());
+        assertEquals(5, status.getProcessedProducts());
+        assertEquals(1, status.getImportedProducts());
+        assertEquals(2, status.getImportedVariants());
+        assertEquals(4, status.getFailedProducts());
+        assertEquals(List.of(5, 6, 7, 8), status.getErrors().stream().map(ProductImportError::getLine).toList());
+        assertEquals("Không tìm thấy danh mục 9", status.getErrors().get(0).getMessage());
+        assertEquals("Dòng 6: categoryIds không hợp lệ", status.getErrors().get(1).getMessage());
+        assertEquals("Dòng 7: số lượng/giá không hợp lệ", status.getErrors().get(2).getMessage());
+        assertEquals("Tất", status.getErrors().get(3).getProduct());
+        assertEquals(List.of(List.of("Áo")), insertedChunks);
+    }
+
+    @Test
+    void writesInChunksOfAboutThousandVariants() throws Exception {
+        StringBuilder csv = new StringBuilder(HEADER);
+        IntStream.rangeClosed(1, 2500).forEach(i ->
+                csv.append("P").append(i).append(",,Màu,,Biến thể ").append(i).append(",,Đỏ,1,1,1,1\r\n"));
+
+        ProductImportStatus status = importFile("products.csv", csv.toString());
+
+        assertEquals(2500, status.getImportedProducts());
+        assertEquals(List.of(1000, 1000, 500), insertedChunks.stream().map(List::size).toList());
+        verify(transactionTemplate, times(3)).executeWithoutResult(any());
+        verify(productImportRepository, times(3)).insertVariants(anyList());
+    }
+
+    @Test
+    void failedChunkIsRetriedProductByProduct() throws Exception {
+        String jsonLines = "\uFEFF" + product("Áo") + "\n" + product("Lỗi DB") + "\nnull\n{khong hop le\n" + product("Quần") + "\n";
+
+        ProductImportStatus status = importFile("products.jsonl", jsonLines);
+
+        assertEquals(2, status.getImportedProducts());
+        // lỗi đọc dòng được ghi nhận trước khi lô được ghi xuống DB
+        List<ProductImportError> errors = status.getErrors().stream()
+                .sorted(Comparator.comparingInt(ProductImportError::getLine)).toList();
+        assertEquals(List.of(2, 3, 4), errors.stream().map(ProductImportError::getLine).toList());
+        assertEquals("Lỗi DB", errors.get(0).getProduct());
+        assertEquals("Dòng JSON không phải là một sản phẩm", errors.get(1).getMessage());
+        assertEquals(List.of(List.of("Áo"), List.of("Quần")), insertedChunks);
+    }
+
+    private static String product(String name) throws Exception {
+        BaseProductDto product = new BaseProductDto();
+        product.setName(name);
+        product.setAttribute1("Màu");
+        VariantDto variant = new VariantDto();
+        variant.setName(name + " đỏ");
+        variant.setValue1("Đỏ");
+        product.setVariants(List.of(variant));
+        return new ObjectMapper().writeValueAsString(product);
+    }
+
+    private ProductImportStatus importFile(String fileName, String content) throws Exception {
+        ProductImportStatus status = productImportService.submit(
+                new MockMultipartFile("file", fileName, "text/plain", content.getBytes(StandardCharsets.UTF_8)), null);
+        for (int i = 0; i < 500 && status.getFinishedAt() == null; i++) {
+            Thread.sleep(20);
+            status = productImportService.getStatus(status.getJobId());
+        }
+        assertNotNull(status.getFinishedAt());
+        return status;
+    }
+}
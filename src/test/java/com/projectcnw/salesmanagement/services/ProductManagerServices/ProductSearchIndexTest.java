@@ -0,0 +1,59 @@
+package com.projectcnw.salesmanagement.services.ProductManagerServices;
+
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.ProductSearchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Listener chạy sau khi giao dịch của thao tác đã commit, nên phải mở giao dịch mới để bản ghi chỉ mục được commit.
+ */
+class ProductSearchIndexTest {
+
+    private ProductSearchRepository productSearchRepository;
+
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleTransactionStatus status;
+
+    private ProductSearchIndex productSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        productSearchRepository = mock(ProductSearchRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        status = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        productSearchIndex = new ProductSearchIndex(productSearchRepository, transactionManager);
+    }
+
+    @Test
+    void reindexRunsAndCommitsInItsOwnTransaction() {
+        productSearchIndex.onProductSearchChanged(new ProductSearchChangedEvent(List.of(3, 5)));
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, definition.getValue().getPropagationBehavior());
+        verify(productSearchRepository).reindex(List.of(3, 5));
+        verify(transactionManager).commit(status);
+    }
+
+    @Test
+    void failedReindexIsRolledBackWithoutFailingTheCaller() {
+        doThrow(new IllegalStateException("lock wait timeout")).when(productSearchRepository).reindex(any());
+
+        productSearchIndex.onProductSearchChanged(new ProductSearchChangedEvent(7));
+
+        verify(transactionManager).rollback(status);
+        verify(transactionManager, never()).commit(any());
+    }
+}
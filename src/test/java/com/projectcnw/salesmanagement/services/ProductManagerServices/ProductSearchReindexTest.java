@@ -0,0 +1,60 @@
+package com.projectcnw.salesmanagement.services.ProductManagerServices;
+
+import com.projectcnw.salesmanagement.dto.productDtos.BaseProductDto;
+import com.projectcnw.salesmanagement.dto.productDtos.VariantDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sửa sản phẩm rồi tìm ngay theo tên mới: chỉ mục product_search phải được ghi (và commit) sau khi thao tác sửa commit.
+ * Chạy trên cùng DB MySQL với contextLoads, không bọc trong transaction của test để listener sau commit được gọi.
+ */
+@SpringBootTest
+class ProductSearchReindexTest {
+
+    @Autowired
+    private BaseProductService baseProductService;
+
+    private Integer baseId;
+
+    @AfterEach
+    void tearDown() {
+        if (baseId != null) {
+            baseProductService.deleteBaseProductAndVariantOfBaseProductByBaseId(baseId);
+        }
+    }
+
+    @Test
+    void editedProductIsFoundByItsNewName() {
+        String run = UUID.randomUUID().toString().replace("-", "").substring(0, 10);
+        BaseProductDto product = new BaseProductDto();
+        product.setName("Áo reindex" + run);
+        product.setAttribute1("Màu");
+        VariantDto variant = new VariantDto();
+        variant.setName("Áo reindex" + run + " đỏ");
+        variant.setSku("REINDEX-" + run);
+        variant.setValue1("Đỏ");
+        product.setVariants(List.of(variant));
+        baseId = baseProductService.createBaseProduct(product).getId();
+
+        BaseProductDto edit = new BaseProductDto();
+        edit.setName("Quần đổitên" + run);
+        baseProductService.updateBaseProduct(baseId, edit);
+
+        List<BaseProductDto> found = baseProductService.getAllBaseProductsByKeyword("quan doiten" + run, 0, 10);
+        assertEquals(List.of(baseId), found.stream().map(BaseProductDto::getId).toList());
+        assertEquals(1, baseProductService.countBaseProductsByKeyword("Quần đổitên" + run));
+
+        baseProductService.deleteBaseProductAndVariantOfBaseProductByBaseId(baseId);
+        baseId = null;
+        assertTrue(baseProductService.getAllBaseProductsByKeyword("doiten" + run, 0, 10).isEmpty());
+    }
+}
@@ -0,0 +1,93 @@
+package com.projectcnw.salesmanagement.services.ProductManagerServices;
+
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.StockLedgerCheckpointRepository;
+import com.projectcnw.salesmanagement.repositories.ProductManagerRepository.VariantStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class StockLedgerTest {
+
+    private static final int VARIANT_ID = 7;
+
+    private StockLedger stockLedger;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        VariantStockRepository variantStockRepository = mock(VariantStockRepository.class);
+        when(variantStockRepository.getQuantities(any())).thenAnswer(invocation -> ((Collection<Integer>) invocation.getArgument(0))
+                .stream().collect(Collectors.toMap(Function.identity(), variantId -> 100)));
+        StockLedgerCheckpointRepository checkpointRepository = mock(StockLedgerCheckpointRepository.class);
+        when(checkpointRepository.findById(any())).thenReturn(Optional.empty());
+        StockLedgerLog stockLedgerLog = mock(StockLedgerLog.class);
+        when(stockLedgerLog.getUnflushed()).thenReturn(List.of());
+        when(stockLedgerLog.append(any())).thenReturn(1L);
+        doNothing().when(stockLedgerLog).open(anyLong());
+        stockLedger = new StockLedger(variantStockRepository, checkpointRepository, stockLedgerLog,
+                mock(TransactionTemplate.class), true);
+    }
+
+    /**
+     * Giao dịch rollback đưa bộ đếm về trạng thái rảnh nên flush() định kỳ bỏ nó đi;
+     * adjust chạy cùng lúc không được thấy bộ đếm biến mất và báo thiếu hàng giả.
+     */
+    @Test
+    void adjustRacingFlushNeverReportsSpuriousShortfall() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> flusher = executor.submit(() -> {
+                while (running.get()) {
+                    stockLedger.flush();
+                }
+            });
+            Future<?> buyer = executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 50_000; i++) {
+                        adjustAndRollback();
+                    }
+                } finally {
+                    running.set(false);
+                }
+            });
+            buyer.get(60, TimeUnit.SECONDS);
+            flusher.get(10, TimeUnit.SECONDS);
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+    }
+
+    private void adjustAndRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            TreeMap<Integer, Integer> deltas = new TreeMap<>();
+            deltas.put(VARIANT_ID, -1);
+            stockLedger.adjust(deltas);
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
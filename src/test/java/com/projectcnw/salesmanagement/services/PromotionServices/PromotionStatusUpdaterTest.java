@@ -0,0 +1,80 @@
+package com.projectcnw.salesmanagement.services.PromotionServices;
+
+import com.projectcnw.salesmanagement.models.enums.PromotionStatusType;
+import com.projectcnw.salesmanagement.repositories.PromotionRepository.PromotionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Listener sau commit phải cập nhật trạng thái trong giao dịch mới, không tham gia giao dịch đã commit của request.
+ */
+class PromotionStatusUpdaterTest {
+
+    private PromotionRepository promotionRepository;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private TaskScheduler taskScheduler;
+
+    private PlatformTransactionManager transactionManager;
+
+    private PromotionStatusUpdater updater;
+
+    @BeforeEach
+    void setUp() {
+        promotionRepository = mock(PromotionRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        taskScheduler = mock(TaskScheduler.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        updater = new PromotionStatusUpdater(promotionRepository, eventPublisher, taskScheduler, transactionManager);
+    }
+
+    @Test
+    void editedPromotionIsExpiredInItsOwnTransaction() {
+        Date yesterday = new Date(System.currentTimeMillis() - 86_400_000L);
+        when(promotionRepository.getPendingTransitions(eq(PromotionStatusType.expired), any(Date.class)))
+                .thenReturn(List.<Object[]>of(new Object[]{7, new Date(0), yesterday, PromotionStatusType.active}));
+        when(promotionRepository.updateStatusByIds(anyList(), eq(PromotionStatusType.expired))).thenReturn(1);
+
+        updater.onPromotionChanged(new PromotionChangedEvent("promotion updated"));
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        InOrder inOrder = inOrder(transactionManager, promotionRepository, eventPublisher);
+        inOrder.verify(transactionManager).getTransaction(definition.capture());
+        inOrder.verify(promotionRepository).updateStatusByIds(List.of(7), PromotionStatusType.expired);
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(eventPublisher).publishEvent(any(PromotionChangedEvent.class));
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, definition.getValue().getPropagationBehavior());
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void nothingDueOpensNoTransaction() {
+        Date nextWeek = new Date(System.currentTimeMillis() + 7 * 86_400_000L);
+        when(promotionRepository.getPendingTransitions(eq(PromotionStatusType.expired), any(Date.class)))
+                .thenReturn(List.<Object[]>of(new Object[]{7, new Date(0), nextWeek, PromotionStatusType.active}));
+
+        updater.onPromotionChanged(new PromotionChangedEvent("promotion updated"));
+
+        verifyNoInteractions(transactionManager, eventPublisher);
+        verify(taskScheduler).schedule(any(Runnable.class), eq(nextWeek.toInstant()));
+    }
+}
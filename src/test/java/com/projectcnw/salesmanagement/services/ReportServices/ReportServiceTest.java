@@ -0,0 +1,113 @@
+package com.projectcnw.salesmanagement.services.ReportServices;
+
+import com.projectcnw.salesmanagement.dto.report.ReportJobStatus;
+import com.projectcnw.salesmanagement.dto.report.ReportSpec;
+import com.projectcnw.salesmanagement.models.enums.ReportType;
+import com.projectcnw.salesmanagement.repositories.ReportRepository.ReportRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Báo cáo nền với repository giả lập: hai yêu cầu giống nhau chỉ chạy một job,
+ * kết quả đã tính được dùng lại trong fresh-ttl và tính lại khi hết hạn, kể cả với kỳ đã kết thúc.
+ */
+class ReportServiceTest {
+
+    private static final long FRESH_TTL = 60_000;
+
+    private ReportRepository reportRepository;
+
+    private ReportService reportService;
+
+    @BeforeEach
+    void setUp() {
+        reportRepository = mock(ReportRepository.class);
+        reportService = new ReportService(reportRepository, 1, 5, FRESH_TTL, 1100, 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reportService.shutdown();
+    }
+
+    @Test
+    void sameReportRequestedTwiceRunsOneJob() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(reportRepository).streamSales(any(), any(), any(), any(), any(), any());
+        when(reportRepository.findStatus(anyString()))
+                .thenAnswer(invocation -> status(invocation.getArgument(0), "RUNNING", null));
+
+        // hai ngày khác nhau trong cùng tháng được chuẩn hoá về cùng một kỳ
+        ReportJobStatus first = reportService.submit(spec(LocalDate.of(2023, 3, 5), LocalDate.of(2023, 3, 20)));
+        ReportJobStatus second = reportService.submit(spec(LocalDate.of(2023, 3, 1), LocalDate.of(2023, 3, 31)));
+        release.countDown();
+
+        assertEquals(first.getJobId(), second.getJobId());
+        assertFalse(second.isReused());
+        verify(reportRepository, times(1)).saveQueued(eq(first.getJobId()), eq("MONTH|2023-03-01|2023-03-31||PERIOD"), any());
+        verify(reportRepository, timeout(5000)).saveDone(eq(first.getJobId()), anyInt(), any(), any());
+    }
+
+    @Test
+    void closedRangeIsReusedWithinFreshTtl() {
+        when(reportRepository.findStatus(anyString()))
+                .thenAnswer(invocation -> status(invocation.getArgument(0), "DONE", new Date(System.currentTimeMillis() - 1000)));
+
+        ReportJobStatus status = reportService.submit(spec(LocalDate.of(2023, 3, 1), LocalDate.of(2023, 3, 31)));
+
+        assertTrue(status.isReused());
+        verify(reportRepository, never()).saveQueued(any(), any(), any());
+    }
+
+    @Test
+    void closedRangeIsRecomputedAfterFreshTtl() {
+        // trả hàng / thanh toán muộn có thể đổi số liệu của kỳ cũ, kết quả hết hạn phải được tính lại
+        when(reportRepository.findStatus(anyString()))
+                .thenAnswer(invocation -> status(invocation.getArgument(0), "DONE", new Date(System.currentTimeMillis() - FRESH_TTL - 1000)));
+
+        ReportJobStatus status = reportService.submit(spec(LocalDate.of(2023, 3, 1), LocalDate.of(2023, 3, 31)));
+
+        assertFalse(status.isReused());
+        verify(reportRepository).saveQueued(eq(status.getJobId()), anyString(), any());
+        verify(reportRepository, timeout(5000)).saveDone(eq(status.getJobId()), anyInt(), any(), any());
+    }
+
+    @Test
+    void failedReportIsNotReused() {
+        when(reportRepository.findStatus(anyString()))
+                .thenAnswer(invocation -> status(invocation.getArgument(0), "FAILED", new Date()));
+
+        ReportJobStatus status = reportService.submit(spec(LocalDate.of(2023, 3, 1), LocalDate.of(2023, 3, 31)));
+
+        assertFalse(status.isReused());
+        verify(reportRepository).saveQueued(eq(status.getJobId()), anyString(), any());
+    }
+
+    private static ReportSpec spec(LocalDate startDate, LocalDate endDate) {
+        ReportSpec spec = new ReportSpec();
+        spec.setType(ReportType.MONTH);
+        spec.setStartDate(startDate);
+        spec.setEndDate(endDate);
+        return spec;
+    }
+
+    private static ReportJobStatus status(String jobId, String status, Date finishedAt) {
+        return ReportJobStatus.builder().jobId(jobId).status(status).finishedAt(finishedAt).build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.projectcnw.salesmanagement.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void readsPlainAndQuotedFields() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,\"b,c\",\"say \"\"hi\"\"\",\n"));
+
+        assertEquals(List.of("a", "b,c", "say \"hi\"", ""), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void keepsNewlinesInsideQuotesAndReportsStartLine() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("product,description\r\nAo,\"dong 1\r\ndong 2\"\r\nQuan,x\r\n"));
+
+        assertEquals(List.of("product", "description"), reader.next());
+        assertEquals(1, reader.getLineNumber());
+        assertEquals(List.of("Ao", "dong 1\r\ndong 2"), reader.next());
+        assertEquals(2, reader.getLineNumber());
+        assertEquals(List.of("Quan", "x"), reader.next());
+        assertEquals(4, reader.getLineNumber());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void skipsBlankLinesAndHandlesMissingTrailingNewline() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b\n\n\r\nc,d"));
+
+        assertEquals(List.of("a", "b"), reader.next());
+        assertEquals(List.of("c", "d"), reader.next());
+        assertEquals(4, reader.getLineNumber());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void stripsByteOrderMarkOnlyAtStartOfFile() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\uFEFFproduct,name\n\uFEFFx,y\n"));
+
+        assertEquals(List.of("product", "name"), reader.next());
+        assertEquals(List.of("\uFEFFx", "y"), reader.next());
+    }
+
+    @Test
+    void readsBackWhatCsvWriterWrote() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvWriter writer = new CsvWriter(out);
+        writer.writeRow("product", "description", "quantity");
+        writer.writeRow("Áo \"thun\"", "dòng 1\ndòng 2", 12);
+        writer.flush();
+
+        CsvReader reader = new CsvReader(new InputStreamReader(new ByteArrayInputStream(out.toByteArray()), StandardCharsets.UTF_8));
+
+        assertEquals(List.of("product", "description", "quantity"), reader.next());
+        assertEquals(List.of("Áo \"thun\"", "dòng 1\ndòng 2", "12"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void supportsOtherSeparators() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a;\"b;c\"\n"), ';');
+
+        assertEquals(List.of("a", "b;c"), reader.next());
+    }
+}
@@ -0,0 +1,36 @@
+package com.projectcnw.salesmanagement.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvWriterTest {
+
+    @Test
+    void quotesSeparatorsQuotesAndNewlines() throws IOException {
+        assertEquals("a,\"b,c\",\"say \"\"hi\"\"\",\"x\ny\",\r\n", write("a", "b,c", "say \"hi\"", "x\ny", null));
+    }
+
+    @Test
+    void neutralisesFormulaCells() throws IOException {
+        assertEquals("'=1+1,'+84912345678,'-2,'@SUM(A1),\"'=HYPERLINK(\"\"x\"\",\"\"y\"\")\"\r\n",
+                write("=1+1", "+84912345678", "-2", "@SUM(A1)", "=HYPERLINK(\"x\",\"y\")"));
+    }
+
+    @Test
+    void keepsNegativeNumbersAsNumbers() throws IOException {
+        assertEquals("-5,-1.5,a-b\r\n", write(-5, -1.5, "a-b"));
+    }
+
+    private static String write(Object... values) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvWriter writer = new CsvWriter(out);
+        writer.writeRow(values);
+        writer.flush();
+        return out.toString(StandardCharsets.UTF_8).substring(1);
+    }
+}
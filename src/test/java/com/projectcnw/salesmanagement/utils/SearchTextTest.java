@@ -0,0 +1,53 @@
+package com.projectcnw.salesmanagement.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTextTest {
+
+    @Test
+    void foldRemovesVietnameseMarksAndLowercases() {
+        assertEquals("ao so mi do", SearchText.fold("Áo sơ mi Đỏ"));
+        assertEquals("duong pho", SearchText.fold("đường phố"));
+        assertEquals("nguyen thi huong", SearchText.fold("NGUYỄN THỊ HƯƠNG"));
+    }
+
+    @Test
+    void foldOfNullOrEmptyIsEmpty() {
+        assertEquals("", SearchText.fold(null));
+        assertEquals("", SearchText.fold(""));
+    }
+
+    @Test
+    void documentJoinsFoldedValuesAndReplacesPunctuation() {
+        assertEquals("ao thun trang sku ao 001 893456", SearchText.document("Áo thun", null, "Trắng", "", "SKU-ÁO/001", "893456"));
+        assertEquals("", SearchText.document(null, "  ", "--"));
+    }
+
+    @Test
+    void booleanQueryRequiresEveryTermAsPhrase() {
+        assertEquals("+\"ao\" +\"so\" +\"mi\"", SearchText.booleanQuery("Áo sơ-mi"));
+        assertEquals("+\"sku\" +\"001\"", SearchText.booleanQuery("SKU 001"));
+    }
+
+    @Test
+    void booleanQueryDropsTermsShorterThanNgramSize() {
+        assertEquals("+\"ao\"", SearchText.booleanQuery("a áo b"));
+    }
+
+    @Test
+    void booleanQueryOfOneCharacterKeywordIsNull() {
+        assertNull(SearchText.booleanQuery("a"));
+        assertNull(SearchText.booleanQuery("Đ"));
+        assertNull(SearchText.booleanQuery("a b c"));
+        assertNull(SearchText.booleanQuery("  -- "));
+        assertNull(SearchText.booleanQuery(null));
+    }
+
+    @Test
+    void sameTextWithAndWithoutMarksProducesSameQuery() {
+        assertEquals(SearchText.booleanQuery("quần jean"), SearchText.booleanQuery("QUAN JEAN"));
+        assertTrue(SearchText.document("Quần Jean").contains("quan jean"));
+    }
+}